@@ -53,7 +53,12 @@ public class JwksRepository {
         }
     }
 
-    private Result<Void, TextError> refreshKeys() throws JwksDownloadException {
+    /**
+     * Downloads the JWKs from the identity provider and replaces the known keys with them.
+     *
+     * @return success if the JWKs were downloaded and parsed
+     */
+    public Result<Void, TextError> refreshKeys() throws JwksDownloadException {
         logger.debug("Refreshing JWKs.");
         return idpClient.downloadJwks()
                         .flatMap(jwksParser::parse)
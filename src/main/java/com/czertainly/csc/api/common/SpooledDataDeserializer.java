@@ -0,0 +1,43 @@
+package com.czertainly.csc.api.common;
+
+import com.czertainly.csc.common.io.SpooledData;
+import com.czertainly.csc.components.SpooledDataFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Decodes base64 encoded binary values of the request body directly into spooled data, so large documents
+ * are never held in memory as a whole, neither encoded nor decoded.
+ * <p>
+ * The values are decoded even when they are small and could be passed to SignServer base64 encoded as they
+ * came. The parser can only tell the length of a value by buffering all of it, so a value can't be kept
+ * encoded depending on its size without holding the large values in memory.
+ */
+@JsonComponent
+public class SpooledDataDeserializer extends StdDeserializer<SpooledData> {
+
+    private final SpooledDataFactory spooledDataFactory;
+
+    public SpooledDataDeserializer(SpooledDataFactory spooledDataFactory) {
+        super(SpooledData.class);
+        this.spooledDataFactory = spooledDataFactory;
+    }
+
+    @Override
+    public SpooledData deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            return (SpooledData) context.handleUnexpectedToken(SpooledData.class, parser);
+        }
+        SpooledData data = spooledDataFactory.create();
+        try (OutputStream outputStream = data.openStream()) {
+            parser.readBinaryValue(outputStream);
+        }
+        return data;
+    }
+}
@@ -1,7 +1,9 @@
 package com.czertainly.csc.api.credentials;
 
 import com.czertainly.csc.components.DateConverter;
+import com.czertainly.csc.components.PageTokenCodec;
 import com.czertainly.csc.model.csc.Credential;
+import com.czertainly.csc.model.csc.CredentialsPage;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.util.List;
@@ -37,14 +39,30 @@ public record CredentialsListDto(
                 implementation = CredentialDto.class,
                 requiredMode = Schema.RequiredMode.NOT_REQUIRED
         )
-        boolean onlyValid
+        boolean onlyValid,
+
+        @Schema(
+                description = """
+                            Opaque value which can be passed as pageToken in a subsequent request to
+                            retrieve the next page of credentials. It is not returned when there are
+                            no more credentials to return.
+                        """,
+                requiredMode = Schema.RequiredMode.NOT_REQUIRED
+        )
+        String nextPageToken
 
 ) {
-    static public CredentialsListDto from(List<Credential> credentials, DateConverter dateConverter) {
+    static public CredentialsListDto from(CredentialsPage page, DateConverter dateConverter,
+                                          PageTokenCodec pageTokenCodec
+    ) {
+        List<Credential> credentials = page.credentials();
         return new CredentialsListDto(
                 credentials.stream().map(Credential::credentialID).toList(),
                 credentials.stream().map(c -> CredentialDto.fromModel(c, dateConverter)).toList(),
-                false
+                page.onlyValid(),
+                page.nextPageAfter()
+                    .map(lastId -> pageTokenCodec.encode(page.userId(), page.onlyValid(), lastId))
+                    .orElse(null)
         );
     }
 }
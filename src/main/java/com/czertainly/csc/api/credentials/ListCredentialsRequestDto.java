@@ -93,6 +93,24 @@ public record ListCredentialsRequestDto(
                         """,
                 requiredMode = Schema.RequiredMode.NOT_REQUIRED
         )
-        Boolean onlyValid
+        Boolean onlyValid,
+
+        @Schema(
+                description = """
+                        Maximum number of items to return. If the parameter is omitted, all credentials
+                        of the user are returned.
+                        """,
+                requiredMode = Schema.RequiredMode.NOT_REQUIRED
+        )
+        Integer maxResults,
+
+        @Schema(
+                description = """
+                        Opaque value returned as nextPageToken in the output of a previous request. The
+                        returned list continues right after the items returned by that request.
+                        """,
+                requiredMode = Schema.RequiredMode.NOT_REQUIRED
+        )
+        String pageToken
 ) {
 }
@@ -4,13 +4,25 @@ import com.czertainly.csc.api.auth.CscAuthenticationToken;
 import com.czertainly.csc.api.credentials.ListCredentialsRequestDto;
 import com.czertainly.csc.common.exceptions.InvalidInputDataException;
 import com.czertainly.csc.common.utils.CertificateMapperUtil;
+import com.czertainly.csc.components.PageTokenCodec;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
 import com.czertainly.csc.model.csc.CertificateReturnType;
 import com.czertainly.csc.model.csc.requests.ListCredentialsRequest;
 import org.springframework.stereotype.Component;
 
+import java.util.UUID;
+
 @Component
 public class CredentialsListRequestMapper {
 
+    private final PageTokenCodec pageTokenCodec;
+    private final int listMaxResults;
+
+    public CredentialsListRequestMapper(PageTokenCodec pageTokenCodec, CscConfiguration cscConfiguration) {
+        this.pageTokenCodec = pageTokenCodec;
+        this.listMaxResults = cscConfiguration.credentials().listMaxResults();
+    }
+
     public ListCredentialsRequest map(ListCredentialsRequestDto dto, CscAuthenticationToken authenticationToken) {
 
         String userId = getUserId(dto, authenticationToken);
@@ -28,6 +40,21 @@ public class CredentialsListRequestMapper {
         boolean credentialInfo = dto.credentialInfo() == null ? false : dto.credentialInfo();
         boolean onlyValid = dto.onlyValid() == null ? false : dto.onlyValid();
 
+        if (dto.maxResults() != null && dto.maxResults() < 1) {
+            throw InvalidInputDataException.of("Invalid parameter maxResults.");
+        }
+        // Credentials are always returned in pages, the configured maximum is used when the client sets no limit
+        // The remote service may return fewer credentials than requested, the client continues with the page token
+        int maxResults = dto.maxResults() == null ? listMaxResults : Math.min(dto.maxResults(), listMaxResults);
+
+        UUID pageAfter = null;
+        if (dto.pageToken() != null) {
+            try {
+                pageAfter = pageTokenCodec.decode(dto.pageToken(), userId, onlyValid);
+            } catch (IllegalArgumentException e) {
+                throw InvalidInputDataException.of("Invalid parameter pageToken.");
+            }
+        }
 
         return new ListCredentialsRequest(
                 userId,
@@ -35,7 +62,9 @@ public class CredentialsListRequestMapper {
                 certificateReturnType,
                 returnCertificateInfo,
                 returnAuthInfo,
-                onlyValid
+                onlyValid,
+                maxResults,
+                pageAfter
         );
     }
 
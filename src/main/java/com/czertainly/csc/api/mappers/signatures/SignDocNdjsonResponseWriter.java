@@ -0,0 +1,182 @@
+package com.czertainly.csc.api.mappers.signatures;
+
+import com.czertainly.csc.api.signdoc.ValidationInfo;
+import com.czertainly.csc.common.io.SpooledData;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.components.SpooledDataFactory;
+import com.czertainly.csc.model.DocumentSignature;
+import com.czertainly.csc.model.SignaturesConsumer;
+import com.czertainly.csc.model.SignaturesContainer;
+import com.czertainly.csc.model.SignaturesWithValidationInfo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the signDoc response as newline delimited JSON, one line per document as soon as the document is signed.
+ * This is an extension of the CSC API, so clients can process the signed documents while the remaining ones are
+ * still being signed.
+ * <p>
+ * Each document line contains the {@code index} of the document in the request and either its base64 encoded
+ * {@code signature} or the {@code error} and {@code error_description} telling that the document could not be
+ * signed. The last line contains the {@code summary} of the request, including the validation info of all
+ * signatures and the {@code error} that stopped the signing, if any. A response without the summary line was
+ * interrupted. The errors written to the response are generic, their details are only logged.
+ */
+public class SignDocNdjsonResponseWriter implements SignaturesConsumer<DocumentSignature>, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignDocNdjsonResponseWriter.class);
+    private static final String DOCUMENT_ERROR = "signing_failed";
+    private static final String DOCUMENT_ERROR_DESCRIPTION = "The document could not be signed.";
+
+    private final ObjectMapper objectMapper;
+    private final OutputStream outputStream;
+
+    private JsonGenerator generator;
+    private int index = 0;
+    private int signed = 0;
+    private int failed = 0;
+    private boolean hasValidationInfo = false;
+    private final Set<String> crls = new HashSet<>();
+    private final Set<String> ocsps = new HashSet<>();
+    private final Set<String> certs = new HashSet<>();
+
+    public SignDocNdjsonResponseWriter(ObjectMapper objectMapper, OutputStream outputStream) {
+        this.objectMapper = objectMapper;
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    public Result<Void, TextError> accept(SignaturesContainer<DocumentSignature> signatures) {
+        List<DocumentSignature> received = signatures.signatures();
+        int handled = 0;
+        try {
+            for (DocumentSignature signature : received) {
+                handled++;
+                startLine();
+                try (SpooledData content = signature.content(); InputStream inputStream = content.getInputStream()) {
+                    generator.writeFieldName("signature");
+                    generator.writeBinary(inputStream, -1);
+                }
+                endLine();
+                signed++;
+            }
+            if (signatures instanceof SignaturesWithValidationInfo<DocumentSignature> swvi) {
+                hasValidationInfo = true;
+                crls.addAll(swvi.crls());
+                ocsps.addAll(swvi.ocsps());
+                certs.addAll(swvi.certs());
+            }
+            generator.flush();
+            return Result.emptySuccess();
+        } catch (IOException e) {
+            logger.error("Failed to write signatures to the response.", e);
+            return Result.error(TextError.of("Failed to write signatures to the response. %s", e.getMessage()));
+        } finally {
+            // The spools are created by the thread writing the response, outside the request, so the signatures
+            // not written when the writing fails must be deleted here
+            SpooledDataFactory.release(
+                    received.subList(handled, received.size()).stream().map(DocumentSignature::content).toList());
+        }
+    }
+
+    /**
+     * Writes the error of the documents that could not be signed and lets the signing continue with the remaining
+     * documents.
+     */
+    @Override
+    public Result<Void, TextError> signingFailed(int count, TextError error) {
+        logger.warn("Failed to sign {} documents. {}", count, error);
+        try {
+            for (int i = 0; i < count; i++) {
+                startLine();
+                generator.writeStringField("error", DOCUMENT_ERROR);
+                generator.writeStringField("error_description", DOCUMENT_ERROR_DESCRIPTION);
+                endLine();
+                failed++;
+            }
+            generator.flush();
+            return Result.emptySuccess();
+        } catch (IOException e) {
+            logger.error("Failed to write signing error to the response.", e);
+            return Result.error(TextError.of("Failed to write signing error to the response. %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * Writes the summary line and completes the response.
+     */
+    public Result<Void, TextError> finish() {
+        return writeSummary(null, null);
+    }
+
+    /**
+     * Writes the summary line with the error that stopped the signing and completes the response. Only the error
+     * code and a generic description are written, the details of the error are expected to be logged by the caller.
+     */
+    public Result<Void, TextError> finish(String error, String errorDescription) {
+        return writeSummary(error, errorDescription);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (generator != null) {
+            generator.close();
+        }
+    }
+
+    private Result<Void, TextError> writeSummary(String error, String errorDescription) {
+        try {
+            startGenerator();
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("summary");
+            generator.writeNumberField("signed", signed);
+            generator.writeNumberField("failed", failed);
+            if (hasValidationInfo) {
+                generator.writeObjectField("validationInfo", new ValidationInfo(crls, ocsps, certs));
+            }
+            if (error != null) {
+                generator.writeStringField("error", error);
+                generator.writeStringField("error_description", errorDescription);
+            }
+            generator.writeEndObject();
+            endLine();
+            generator.flush();
+            return Result.emptySuccess();
+        } catch (IOException e) {
+            logger.error("Failed to complete the response.", e);
+            return Result.error(TextError.of("Failed to complete the response. %s", e.getMessage()));
+        }
+    }
+
+    private void startLine() throws IOException {
+        startGenerator();
+        generator.writeStartObject();
+        generator.writeNumberField("index", index++);
+    }
+
+    private void endLine() throws IOException {
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private void startGenerator() throws IOException {
+        if (generator == null) {
+            generator = objectMapper.createGenerator(outputStream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            // The lines are separated by the new line written after each of them
+            generator.setRootValueSeparator(null);
+        }
+    }
+}
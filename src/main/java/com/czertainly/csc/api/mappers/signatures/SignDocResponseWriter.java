@@ -0,0 +1,156 @@
+package com.czertainly.csc.api.mappers.signatures;
+
+import com.czertainly.csc.api.signdoc.SignDocResponseDto;
+import com.czertainly.csc.api.signdoc.ValidationInfo;
+import com.czertainly.csc.common.io.SpooledData;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.components.SpooledDataFactory;
+import com.czertainly.csc.model.DocumentSignature;
+import com.czertainly.csc.model.SignaturesConsumer;
+import com.czertainly.csc.model.SignaturesContainer;
+import com.czertainly.csc.model.SignaturesWithValidationInfo;
+import com.czertainly.csc.signing.configuration.SignaturePackaging;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the signDoc response incrementally, in the same form as {@link SignDocResponseDto}. Signatures enveloped
+ * within the documents are written and flushed as soon as they are created, so only the currently signed document
+ * is held by the server. Detached signatures are written after them, as they are returned in a separate array,
+ * followed by the validation info collected from all signatures.
+ * <p>
+ * Nothing is written until the first signatures are available, so an error occurring before that can still be
+ * returned as a regular error response. When the signing fails later, the response is left incomplete, the JSON
+ * arrays and objects are not closed, so that the client can't take the signatures written so far for all of them.
+ */
+public class SignDocResponseWriter implements SignaturesConsumer<DocumentSignature>, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignDocResponseWriter.class);
+
+    private final ObjectMapper objectMapper;
+    private final OutputStream outputStream;
+
+    private JsonGenerator generator;
+    private final List<DocumentSignature> detachedSignatures = new ArrayList<>();
+    private boolean hasValidationInfo = false;
+    private final Set<String> crls = new HashSet<>();
+    private final Set<String> ocsps = new HashSet<>();
+    private final Set<String> certs = new HashSet<>();
+
+    public SignDocResponseWriter(ObjectMapper objectMapper, OutputStream outputStream) {
+        this.objectMapper = objectMapper;
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    public Result<Void, TextError> accept(SignaturesContainer<DocumentSignature> signatures) {
+        List<DocumentSignature> received = signatures.signatures();
+        int handled = 0;
+        try {
+            startResponse();
+            for (DocumentSignature signature : received) {
+                handled++;
+                if (signature.packaging() == SignaturePackaging.DETACHED) {
+                    detachedSignatures.add(signature);
+                } else {
+                    writeSignature(signature);
+                }
+            }
+            if (signatures instanceof SignaturesWithValidationInfo<DocumentSignature> swvi) {
+                hasValidationInfo = true;
+                crls.addAll(swvi.crls());
+                ocsps.addAll(swvi.ocsps());
+                certs.addAll(swvi.certs());
+            }
+            generator.flush();
+            return Result.emptySuccess();
+        } catch (IOException e) {
+            logger.error("Failed to write signatures to the response.", e);
+            return Result.error(TextError.of("Failed to write signatures to the response. %s", e.getMessage()));
+        } finally {
+            // The spools are created by the thread writing the response, outside the request, so the signatures
+            // not written when the writing fails must be deleted here
+            releaseSignatures(received.subList(handled, received.size()));
+        }
+    }
+
+    /**
+     * Writes the detached signatures and the validation info and completes the response.
+     */
+    public Result<Void, TextError> finish() {
+        try {
+            startResponse();
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("signatureObject");
+            for (DocumentSignature signature : detachedSignatures) {
+                writeSignature(signature);
+            }
+            detachedSignatures.clear();
+            generator.writeEndArray();
+            if (hasValidationInfo) {
+                generator.writeObjectField("validationInfo", new ValidationInfo(crls, ocsps, certs));
+            }
+            generator.writeEndObject();
+            generator.flush();
+            return Result.emptySuccess();
+        } catch (IOException e) {
+            logger.error("Failed to complete the response.", e);
+            return Result.error(TextError.of("Failed to complete the response. %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * Tells whether the response was started. An error occurring later can't be returned as a regular error
+     * response, the response must be aborted instead.
+     */
+    public boolean isStarted() {
+        return generator != null;
+    }
+
+    /**
+     * Deletes temporary files of the signatures not written to the response.
+     */
+    @Override
+    public void close() throws IOException {
+        releaseSignatures(detachedSignatures);
+        detachedSignatures.clear();
+        if (generator != null) {
+            generator.close();
+        }
+    }
+
+    private void startResponse() throws IOException {
+        if (generator == null) {
+            generator = objectMapper.createGenerator(outputStream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("documentWithSignature");
+        }
+    }
+
+    /*
+     * Writes the signature base64 encoded, reading it as a stream, and deletes its temporary file.
+     */
+    private void writeSignature(DocumentSignature signature) throws IOException {
+        try (SpooledData content = signature.content(); InputStream inputStream = content.getInputStream()) {
+            generator.writeBinary(inputStream, -1);
+        }
+    }
+
+    private static void releaseSignatures(List<DocumentSignature> signatures) {
+        SpooledDataFactory.release(signatures.stream().map(DocumentSignature::content).toList());
+    }
+}
@@ -8,6 +8,7 @@ import com.czertainly.csc.api.signdoc.DocumentDigestsDto;
 import com.czertainly.csc.api.signdoc.DocumentDto;
 import com.czertainly.csc.api.signdoc.SignDocRequestDto;
 import com.czertainly.csc.common.exceptions.InvalidInputDataException;
+import com.czertainly.csc.common.io.SpooledData;
 import com.czertainly.csc.crypto.AlgorithmUnifier;
 import com.czertainly.csc.crypto.SignatureAlgorithm;
 import com.czertainly.csc.model.DocumentContentToSign;
@@ -122,7 +123,7 @@ public class SignDocValidatingRequestMapper {
     }
 
     private DocumentContentToSign mapDocument(DocumentDto dto, SignatureActivationData sad) {
-        final String document;
+        final SpooledData document;
         if (dto.getDocument().isEmpty()) {
             throw new InvalidInputDataException("Invalid Base64 documents string parameter");
         }
@@ -1,5 +1,6 @@
 package com.czertainly.csc.api.signdoc;
 
+import com.czertainly.csc.common.io.SpooledData;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.util.List;
@@ -7,23 +8,25 @@ import java.util.Optional;
 
 public class DocumentDto extends BaseDocumentDto {
 
-    // base64-encoded document content to be signed.
+    // base64-encoded document content to be signed, spooled to a temporary file when large.
     @Schema(
+            type = "string",
+            format = "byte",
             description = """
                     Base64-encoded document content to be signed.
                     """,
             requiredMode = Schema.RequiredMode.REQUIRED
     )
-    private final String document;
+    private final SpooledData document;
 
-    public DocumentDto(String document, String signatureFormat, String conformanceLevel, String signAlgo,
+    public DocumentDto(SpooledData document, String signatureFormat, String conformanceLevel, String signAlgo,
                        String signAlgoParams, List<AttributeDto> signedAttributes, String signaturePackaging
     ) {
         super(signatureFormat, conformanceLevel, signAlgo, signAlgoParams, signedAttributes, signaturePackaging);
         this.document = document;
     }
 
-    public Optional<String> getDocument() {
+    public Optional<SpooledData> getDocument() {
         return Optional.ofNullable(document);
     }
 
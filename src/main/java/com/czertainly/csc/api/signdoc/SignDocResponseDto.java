@@ -1,29 +1,35 @@
 package com.czertainly.csc.api.signdoc;
 
 import com.czertainly.csc.api.BaseSignatureResponseDto;
+import com.czertainly.csc.common.io.SpooledData;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.util.List;
 
 public class SignDocResponseDto extends BaseSignatureResponseDto {
 
-    @Schema(
-            description = """
+    @ArraySchema(
+            schema = @Schema(type = "string", format = "byte"),
+            arraySchema = @Schema(description = """
                     One or more Base64-encoded signatures enveloped within the
                     documents. Returned only when requested the creation of signature(s) enveloped within the signed
                     document(s) and when operationMode is not `A`.
                     """
+            )
     )
-    private final List<String> documentWithSignature;
+    private final List<SpooledData> documentWithSignature;
 
-    @Schema(
-            description = """
+    @ArraySchema(
+            schema = @Schema(type = "string", format = "byte"),
+            arraySchema = @Schema(description = """
                     One or more Base64-encoded signatures detached from the documents.
                     This element carries a value only if the client application requested
                     the creation of detached signature(s) and when operationMode is not `A`.
                     """
+            )
     )
-    private final List<String> signatureObject;
+    private final List<SpooledData> signatureObject;
 
     @Schema(
             description = """
@@ -33,7 +39,7 @@ public class SignDocResponseDto extends BaseSignatureResponseDto {
     )
     private final ValidationInfo validationInfo;
 
-    public SignDocResponseDto(List<String> documentWithSignature, List<String> signatureObject,
+    public SignDocResponseDto(List<SpooledData> documentWithSignature, List<SpooledData> signatureObject,
                               String responseId, ValidationInfo validationInfo
     ) {
         super(responseId);
@@ -42,11 +48,11 @@ public class SignDocResponseDto extends BaseSignatureResponseDto {
         this.validationInfo = validationInfo;
     }
 
-    public List<String> getDocumentWithSignature() {
+    public List<SpooledData> getDocumentWithSignature() {
         return documentWithSignature;
     }
 
-    public List<String> getSignatureObject() {
+    public List<SpooledData> getSignatureObject() {
         return signatureObject;
     }
 
@@ -0,0 +1,6 @@
+package com.czertainly.csc.clients.ejbca;
+
+public enum EjbcaApi {
+    WS,
+    REST
+}
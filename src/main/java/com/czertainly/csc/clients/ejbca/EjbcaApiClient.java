@@ -0,0 +1,62 @@
+package com.czertainly.csc.clients.ejbca;
+
+import com.czertainly.csc.clients.ejbca.ws.dto.CertificateResponse;
+import com.czertainly.csc.clients.ejbca.ws.dto.RevokeStatus;
+import com.czertainly.csc.clients.ejbca.ws.dto.UserDataVOWS;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.model.CertificateRevocationReason;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Operations of the EJBCA API used by {@link EjbcaClient}. The operations are available over the SOAP web service
+ * and the REST API, the API used is selected by configuration.
+ */
+public interface EjbcaApiClient {
+
+    Result<Void, TextError> editUser(String username, String password, String subjectDn, String san,
+                                     String caName, String certificateProfileName, String endEntityProfileName
+    );
+
+    /*
+     * Issues a certificate for an existing end entity. Returns the certificate with complete chain
+     * in PKCS7 format.
+     */
+    Result<CertificateResponse, TextError> requestCertificate(
+            String username, String password, String subjectDn, String subjectAlternativeName, byte[] csr,
+            ZonedDateTime certificateValidityStart, ZonedDateTime certificateValidityEnd,
+            String caName, String certificateProfileName, String endEntityProfileName
+    );
+
+    /*
+     * Creates or updates the end entity and issues a certificate for it. Returns the certificate with complete
+     * chain in PKCS7 format.
+     */
+    Result<CertificateResponse, TextError> enrollCertificate(
+            String username, String password, String subjectDn, String subjectAlternativeName, byte[] csr,
+            ZonedDateTime certificateValidityStart, ZonedDateTime certificateValidityEnd,
+            String caName, String certificateProfileName, String endEntityProfileName
+    );
+
+    Result<RevokeStatus, TextError> checkRevocationStatus(String issuerDn, String serialNumberHex);
+
+    Result<Void, TextError> revokeCertificate(String certificateSerialNumberHex, String issuerDN,
+                                              CertificateRevocationReason revocationReason
+    );
+
+    Result<UserDataVOWS, TextError> getUserData(String username);
+
+    /*
+     * Returns the version of EJBCA. The call has no side effects, it is used to open connections to EJBCA.
+     */
+    Result<String, TextError> getVersion();
+
+    /*
+     * Whether enrollCertificate is a single call to EJBCA. When it is not, the end entity is better edited
+     * separately, so that the edit can overlap with other work.
+     */
+    default boolean isSingleCallEnrollment() {
+        return true;
+    }
+}
@@ -1,8 +1,10 @@
 package com.czertainly.csc.clients.ejbca;
 
+import com.czertainly.csc.clients.ejbca.rest.EjbcaRestClient;
 import com.czertainly.csc.clients.ejbca.ws.CertificateValidityCalculator;
 import com.czertainly.csc.clients.ejbca.ws.EjbcaWsClient;
 import com.czertainly.csc.clients.ejbca.ws.dto.CertificateResponse;
+import com.czertainly.csc.common.result.Error;
 import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.model.CertificateRevocationReason;
@@ -12,38 +14,113 @@ import com.czertainly.csc.signing.configuration.profiles.Profile;
 import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.Duration;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Base64;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 @Component
 public class EjbcaClient {
 
     private static final Logger logger = LoggerFactory.getLogger(EjbcaClient.class);
 
-    private final EjbcaWsClient ejbcaWsClient;
+    private final EjbcaApiClient ejbcaApiClient;
     private final CertificateValidityCalculator certificateValidityCalculator;
+    private final boolean singleCallEnrollment;
+    private final ExecutorService enrollmentExecutor;
 
-    public EjbcaClient(EjbcaWsClient ejbcaWsClient, CertificateValidityCalculator certificateValidityCalculator) {
-        this.ejbcaWsClient = ejbcaWsClient;
+    public EjbcaClient(EjbcaWsClient ejbcaWsClient, EjbcaRestClient ejbcaRestClient,
+                       @Value("${caProvider.ejbca.api:WS}") EjbcaApi ejbcaApi,
+                       CertificateValidityCalculator certificateValidityCalculator,
+                       @Value("${caProvider.ejbca.singleCallEnrollment:true}") boolean singleCallEnrollment,
+                       @Qualifier("enrollmentExecutor") ExecutorService enrollmentExecutor
+    ) {
+        this.ejbcaApiClient = ejbcaApi == EjbcaApi.REST ? ejbcaRestClient : ejbcaWsClient;
         this.certificateValidityCalculator = certificateValidityCalculator;
+        this.singleCallEnrollment = singleCallEnrollment && ejbcaApiClient.isSingleCallEnrollment();
+        this.enrollmentExecutor = enrollmentExecutor;
     }
 
     public Result<EndEntity, TextError> createEndEntity(EndEntity endEntity, Profile profile) {
         logger.debug("Creating new end entity for user '{}'", endEntity.username());
         logger.trace(endEntity.toString());
-        return ejbcaWsClient.editUser(endEntity.username(), endEntity.password(), endEntity.subjectDN(),
-                                      endEntity.san(), profile.getCertificateAuthority(),
-                                      profile.getCertificateProfileName(), profile.getEndEntityProfileName()
-                            )
-                            .map((v) -> endEntity)
-                            .mapError(e -> e.extend("Failed to create end entity %s.", endEntity.username()))
-                            .ifSuccess(() -> logger.info("New End Entity {} was created.", endEntity.username()))
-                            .consumeError((e) -> logger.info(e.toString()));
+        return ejbcaApiClient.editUser(endEntity.username(), endEntity.password(), endEntity.subjectDN(),
+                                       endEntity.san(), profile.getCertificateAuthority(),
+                                       profile.getCertificateProfileName(), profile.getEndEntityProfileName()
+                             )
+                             .map((v) -> endEntity)
+                             .mapError(e -> e.extend("Failed to create end entity %s.", endEntity.username()))
+                             .ifSuccess(() -> logger.info("New End Entity {} was created.", endEntity.username()))
+                             .consumeError((e) -> logger.info(e.toString()));
+    }
+
+    /*
+     * Creates or updates the end entity and issues a certificate for the CSR provided by the given supplier.
+     * When the end entity is created by a separate call, the call runs concurrently with the CSR generation,
+     * as neither needs the result of the other. Returns a byte array containing the signed certificate with
+     * complete chain in PKCS7 format.
+     */
+    public Result<byte[], TextError> enrollEndEntity(EndEntity endEntity, Profile profile,
+                                                     Supplier<Result<byte[], TextError>> csrSupplier
+    ) {
+        if (!singleCallEnrollment) {
+            return enrollEndEntityInTwoSteps(endEntity, profile, csrSupplier);
+        }
+
+        var csrResult = csrSupplier.get();
+        if (csrResult instanceof Error(var err)) return Result.error(err);
+        byte[] csr = csrResult.unwrap();
+
+        logger.debug("Enrolling end entity for user '{}'", endEntity.username());
+        logger.trace(endEntity.toString());
+        ZonedDateTime validityStart = validityStart(profile);
+        ZonedDateTime validityEnd = validityEnd(validityStart, profile);
+        var enrollResult = ejbcaApiClient.enrollCertificate(
+                endEntity.username(), endEntity.password(), endEntity.subjectDN(), endEntity.san(), csr,
+                validityStart, validityEnd, profile.getCertificateAuthority(), profile.getCertificateProfileName(),
+                profile.getEndEntityProfileName()
+        ).mapError(e -> e.extend("Failed to enroll end entity %s.", endEntity.username()));
+        return decodeCertificate(enrollResult, endEntity)
+                .ifSuccess(() -> logger.info("End Entity {} was enrolled.", endEntity.username()));
+    }
+
+    private Result<byte[], TextError> enrollEndEntityInTwoSteps(EndEntity endEntity, Profile profile,
+                                                                Supplier<Result<byte[], TextError>> csrSupplier
+    ) {
+        Future<Result<EndEntity, TextError>> createEndEntityTask = enrollmentExecutor.submit(
+                () -> createEndEntity(endEntity, profile)
+        );
+        var csrResult = csrSupplier.get();
+        // Wait for the end entity even if the CSR failed, so that the caller doesn't roll back while it's edited
+        var createEndEntityResult = awaitEndEntity(createEndEntityTask, endEntity);
+        if (csrResult instanceof Error(var err)) return Result.error(err);
+        if (createEndEntityResult instanceof Error(var err)) return Result.error(err);
+
+        return signCertificateRequest(createEndEntityResult.unwrap(), profile, csrResult.unwrap());
+    }
+
+    private Result<EndEntity, TextError> awaitEndEntity(Future<Result<EndEntity, TextError>> createEndEntityTask,
+                                                        EndEntity endEntity
+    ) {
+        try {
+            return createEndEntityTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.error(TextError.of("Interrupted while creating end entity %s.", endEntity.username()));
+        } catch (ExecutionException e) {
+            logger.error("Failed to create end entity {}.", endEntity.username(), e.getCause());
+            return Result.error(TextError.of("Failed to create end entity %s. %s", endEntity.username(),
+                                             e.getCause().getMessage()
+            ));
+        }
     }
 
     /*
@@ -52,42 +129,56 @@ public class EjbcaClient {
     public Result<byte[], TextError> signCertificateRequest(EndEntity endEntity, Profile profile,
                                                             byte[] csr
     ) {
-        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
-        Duration offset = profile.getCertificateValidityOffset();
-        Duration certificateValidity = profile.getCertificateValidity();
+        ZonedDateTime validityStart = validityStart(profile);
+        ZonedDateTime validityEnd = validityEnd(validityStart, profile);
 
-        ZonedDateTime validityStart = certificateValidityCalculator.calculateValidityStart(now, offset);
-        ZonedDateTime validityEnd = certificateValidityCalculator.calculateValidityEnd(validityStart,
-                                                                                       certificateValidity
+        return decodeCertificate(
+                ejbcaApiClient.requestCertificate(endEntity.username(), endEntity.password(), endEntity.subjectDN(),
+                                                 endEntity.san(), csr, validityStart, validityEnd,
+                                                 profile.getCertificateAuthority(),
+                                                 profile.getCertificateProfileName(),
+                                                 profile.getEndEntityProfileName()
+                ),
+                endEntity
         );
+    }
+
+    private ZonedDateTime validityStart(Profile profile) {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        return certificateValidityCalculator.calculateValidityStart(now, profile.getCertificateValidityOffset());
+    }
 
-        return ejbcaWsClient.requestCertificate(endEntity.username(), endEntity.password(), endEntity.subjectDN(),
-                                                endEntity.san(), csr, validityStart, validityEnd,
-                                                profile.getCertificateAuthority(), profile.getCertificateProfileName(),
-                                                profile.getEndEntityProfileName()
-                            ).map(CertificateResponse::getData)
-                            .map(base64Bytes -> ArrayUtils.removeAllOccurrences(base64Bytes, (byte) '\n'))
-                            .flatMap(base64BytesWithoutNewLines -> {
-                                try {
-                                    byte[] decoded = Base64.getDecoder().decode(base64BytesWithoutNewLines);
-                                    return Result.success(decoded);
-                                } catch (Exception e) {
-                                    logger.error("Can't decode signed certificate provided by End Entity {}",
-                                                 endEntity.username(), e
-                                    );
-                                    return Result.error(
-                                            TextError.of("Failed to decode certificate returned by end entity %s. %s",
-                                                         endEntity.username(), e.getMessage()
-                                            )
-                                    );
-                                }
-                            });
+    private ZonedDateTime validityEnd(ZonedDateTime validityStart, Profile profile) {
+        return certificateValidityCalculator.calculateValidityEnd(validityStart, profile.getCertificateValidity());
+    }
+
+    private Result<byte[], TextError> decodeCertificate(Result<CertificateResponse, TextError> certificateResponse,
+                                                        EndEntity endEntity
+    ) {
+        return certificateResponse
+                .map(CertificateResponse::getData)
+                .map(base64Bytes -> ArrayUtils.removeAllOccurrences(base64Bytes, (byte) '\n'))
+                .flatMap(base64BytesWithoutNewLines -> {
+                    try {
+                        byte[] decoded = Base64.getDecoder().decode(base64BytesWithoutNewLines);
+                        return Result.success(decoded);
+                    } catch (Exception e) {
+                        logger.error("Can't decode signed certificate provided by End Entity {}",
+                                     endEntity.username(), e
+                        );
+                        return Result.error(
+                                TextError.of("Failed to decode certificate returned by end entity %s. %s",
+                                             endEntity.username(), e.getMessage()
+                                )
+                        );
+                    }
+                });
     }
 
     public Result<RevocationStatus, TextError> getCertificateRevocationStatus(
             String certificateSerialNumberHex, String issuerDN
     ) {
-        return ejbcaWsClient
+        return ejbcaApiClient
                 .checkRevocationStatus(issuerDN, certificateSerialNumberHex)
                 .validate(
                         status -> (status.getIssuerDN() == null || status.getCertificateSN() == null),
@@ -123,17 +214,22 @@ public class EjbcaClient {
     public Result<?, TextError> revokeCertificate(String certificateSerialNumberHex, String issuerDN,
                                                   CertificateRevocationReason revocationReason
     ) {
-        return ejbcaWsClient.revokeCertificate(certificateSerialNumberHex, issuerDN, revocationReason)
-                            .mapError(e -> e.extend("Failed to revoke certificate '%s' issued by '%s'",
-                                                    certificateSerialNumberHex, issuerDN
-                            ));
+        return ejbcaApiClient.revokeCertificate(certificateSerialNumberHex, issuerDN, revocationReason)
+                             .mapError(e -> e.extend("Failed to revoke certificate '%s' issued by '%s'",
+                                                     certificateSerialNumberHex, issuerDN
+                             ));
     }
 
     public Result<EndEntity, TextError> getEndEntity(String username) {
-        return ejbcaWsClient.getUserData(username)
-                            .map(data -> new EndEntity(data.getUsername(), data.getPassword(), data.getSubjectDN(),
-                                                       data.getSubjectAltName()
-                            ))
-                            .mapError(e -> e.extend("Failed to get end entity %s", username));
+        return ejbcaApiClient.getUserData(username)
+                             .map(data -> new EndEntity(data.getUsername(), data.getPassword(), data.getSubjectDN(),
+                                                        data.getSubjectAltName()
+                             ))
+                             .mapError(e -> e.extend("Failed to get end entity %s", username));
+    }
+
+    public Result<String, TextError> getVersion() {
+        return ejbcaApiClient.getVersion()
+                             .mapError(e -> e.extend("Failed to get EJBCA version"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,14 @@
+package com.czertainly.csc.clients.ejbca.rest;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record AddEndEntityRequest(
+        String username,
+        String password,
+        @JsonProperty("subject_dn") String subjectDn,
+        @JsonProperty("subject_alt_name") String subjectAltName,
+        @JsonProperty("ca_name") String caName,
+        @JsonProperty("certificate_profile_name") String certificateProfileName,
+        @JsonProperty("end_entity_profile_name") String endEntityProfileName,
+        String token
+) {}
@@ -0,0 +1,11 @@
+package com.czertainly.csc.clients.ejbca.rest;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record CertificateEnrollmentRequest(
+        @JsonProperty("certificate_request") String certificateRequest,
+        String username,
+        String password,
+        @JsonProperty("include_chain") boolean includeChain,
+        @JsonProperty("certificate_authority_name") String certificateAuthorityName
+) {}
@@ -0,0 +1,12 @@
+package com.czertainly.csc.clients.ejbca.rest;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record CertificateEnrollmentResponse(
+        String certificate,
+        @JsonProperty("certificate_chain") List<String> certificateChain
+) {}
@@ -0,0 +1,386 @@
+package com.czertainly.csc.clients.ejbca.rest;
+
+import com.czertainly.csc.clients.ejbca.EjbcaApiClient;
+import com.czertainly.csc.clients.ejbca.ws.dto.CertificateResponse;
+import com.czertainly.csc.clients.ejbca.ws.dto.RevokeStatus;
+import com.czertainly.csc.clients.ejbca.ws.dto.UserDataVOWS;
+import com.czertainly.csc.common.result.Error;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.common.result.TextErrorWithRetryIndication;
+import com.czertainly.csc.model.CertificateRevocationReason;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cms.CMSAbsentContent;
+import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.util.CollectionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.security.SecureRandom;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Client of the EJBCA REST API, an alternative to the SOAP web service without the overhead of XML.
+ * <p>
+ * The REST API has no operation that issues a certificate and sets the subject alternative name of the end entity
+ * at once, so end entities are always added before the certificate is requested. The validity of certificates
+ * can't be requested either and is given by the certificate profile.
+ */
+@Component
+@Retryable(interceptor = "ejbcaRetryInterceptor")
+public class EjbcaRestClient implements EjbcaApiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(EjbcaRestClient.class);
+
+    public static final String REST_API_PATH = "/ejbca-rest-api/v1";
+    public static final String END_ENTITY_PATH = REST_API_PATH + "/endentity";
+    public static final String END_ENTITY_STATUS_PATH = END_ENTITY_PATH + "/{username}/setstatus";
+    public static final String END_ENTITY_SEARCH_PATH = END_ENTITY_PATH + "/search";
+    public static final String CERTIFICATE_REQUEST_PATH = REST_API_PATH + "/certificate/certificaterequest";
+    public static final String REVOCATION_STATUS_PATH = REST_API_PATH +
+            "/certificate/{issuerDn}/{serialNumber}/revocationstatus";
+    public static final String REVOKE_PATH = REST_API_PATH + "/certificate/{issuerDn}/{serialNumber}/revoke";
+    public static final String STATUS_PATH = REST_API_PATH + "/certificate/status";
+
+    private static final String USER_GENERATED_TOKEN = "USERGENERATED";
+    private static final int NOT_REVOKED = -1;
+
+    private final RestClient restClient;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public EjbcaRestClient(@Value("${caProvider.ejbca.url}") String ejbcaUrl,
+                           @Qualifier("ejbcaRequestFactory") HttpComponentsClientHttpRequestFactory requestFactory
+    ) {
+        logger.debug("Creating EjbcaRestClient with base URL: {}", ejbcaUrl);
+        restClient = RestClient.builder().requestFactory(requestFactory).baseUrl(ejbcaUrl).build();
+    }
+
+    /*
+     * Adds the end entity, or sets the existing end entity with the same username to the New status with the new
+     * password. The REST API can't change the subject of an existing end entity, so the request fails when
+     * the subject DN or SAN of the existing end entity differ, instead of issuing a certificate with the old subject.
+     */
+    @Override
+    public Result<Void, TextError> editUser(String username, String password, String subjectDn, String san,
+                                            String caName, String certificateProfileName,
+                                            String endEntityProfileName
+    ) {
+        try {
+            logger.info("Adding EJBCA end entity '{}'.", username);
+            logger.trace("Subject DN: {}, SAN {}", subjectDn, san);
+            restClient.post().uri(END_ENTITY_PATH)
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .body(new AddEndEntityRequest(username, password, subjectDn, san, caName,
+                                                    certificateProfileName, endEntityProfileName,
+                                                    USER_GENERATED_TOKEN
+                      ))
+                      .retrieve()
+                      .toBodilessEntity();
+            return Result.emptySuccess();
+        } catch (HttpClientErrorException.Conflict e) {
+            logger.debug("EJBCA end entity '{}' already exists.", username);
+            var subjectResult = verifySubjectOfExistingEndEntity(username, subjectDn, san);
+            if (subjectResult instanceof Error(var err)) return Result.error(err);
+            return setNewStatus(username, password);
+        } catch (ResourceAccessException e) {
+            logger.error("Failed to add EJBCA end entity '{}'.", username, e);
+            return Result.error(TextErrorWithRetryIndication.doRetry("Failed to edit EJBCA user"));
+        } catch (Exception e) {
+            logger.error("Failed to add EJBCA end entity '{}'.", username, e);
+            return Result.error(TextErrorWithRetryIndication.doNotRetry("Failed to edit EJBCA user"));
+        }
+    }
+
+    @Override
+    public Result<CertificateResponse, TextError> requestCertificate(
+            String username, String password, String subjectDn, String subjectAlternativeName, byte[] csr,
+            ZonedDateTime certificateValidityStart, ZonedDateTime certificateValidityEnd,
+            String caName, String certificateProfileName, String endEntityProfileName
+    ) {
+        logger.debug("Requesting certificate for EJBCA user '{}", username);
+        if (password != null) {
+            // The password is known only right after the end entity was edited, so it is New already
+            return sendCertificateRequest(username, password, subjectDn, csr, caName);
+        }
+
+        // The REST API doesn't return the password of existing end entities, which may have already been used
+        // to issue a certificate. They are set to New with a new password to issue another one.
+        String newPassword = generatePassword();
+        var setStatusResult = setNewStatus(username, newPassword);
+        if (setStatusResult instanceof Error(var err)) return Result.error(err);
+        return sendCertificateRequest(username, newPassword, subjectDn, csr, caName);
+    }
+
+    @Override
+    public Result<CertificateResponse, TextError> enrollCertificate(
+            String username, String password, String subjectDn, String subjectAlternativeName, byte[] csr,
+            ZonedDateTime certificateValidityStart, ZonedDateTime certificateValidityEnd,
+            String caName, String certificateProfileName, String endEntityProfileName
+    ) {
+        logger.info("Enrolling certificate for EJBCA user '{}'.", username);
+        var editUserResult = editUser(username, password, subjectDn, subjectAlternativeName, caName,
+                                      certificateProfileName, endEntityProfileName
+        );
+        if (editUserResult instanceof Error(var err)) return Result.error(err);
+        return sendCertificateRequest(username, password, subjectDn, csr, caName);
+    }
+
+    @Override
+    public boolean isSingleCallEnrollment() {
+        return false;
+    }
+
+    @Override
+    public Result<RevokeStatus, TextError> checkRevocationStatus(String issuerDn, String serialNumberHex) {
+        try {
+            logger.debug("Checking revocation status for certificate with serial number {} issued by {}",
+                         serialNumberHex, issuerDn
+            );
+            RevocationStatusResponse response = restClient.get()
+                                                          .uri(REVOCATION_STATUS_PATH, issuerDn, serialNumberHex)
+                                                          .accept(MediaType.APPLICATION_JSON)
+                                                          .retrieve()
+                                                          .body(RevocationStatusResponse.class);
+            if (response == null) {
+                return Result.error(TextError.of("Empty revocation status response received."));
+            }
+
+            var status = new RevokeStatus();
+            status.setIssuerDN(response.issuerDn());
+            status.setCertificateSN(response.serialNumber());
+            status.setReason(response.revoked() ? reasonCode(response.revocationReason()) : NOT_REVOKED);
+            return Result.success(status);
+        } catch (ResourceAccessException e) {
+            logger.error("Failed to check revocation status for certificate with serial number {} issued by {}.",
+                         serialNumberHex, issuerDn, e
+            );
+            return Result.error(TextErrorWithRetryIndication.doRetry("Failed to check revocation status."));
+        } catch (Exception e) {
+            logger.error("Failed to check revocation status for certificate with serial number {} issued by {}.",
+                         serialNumberHex, issuerDn, e
+            );
+            return Result.error(TextErrorWithRetryIndication.doNotRetry("Failed to check revocation status."));
+        }
+    }
+
+    @Override
+    public Result<Void, TextError> revokeCertificate(String certificateSerialNumberHex, String issuerDN,
+                                                     CertificateRevocationReason revocationReason
+    ) {
+        try {
+            logger.info("Revoking certificate with serial number '{}' issued by '{}' because of a reason '{}'.",
+                        certificateSerialNumberHex, issuerDN, revocationReason
+            );
+            restClient.put()
+                      .uri(uriBuilder -> uriBuilder.path(REVOKE_PATH)
+                                                   .queryParam("reason", revocationReason.name())
+                                                   .build(issuerDN, certificateSerialNumberHex))
+                      .retrieve()
+                      .toBodilessEntity();
+            return Result.emptySuccess();
+        } catch (ResourceAccessException e) {
+            logger.error("Failed to revoke certificate with serial number '{}' issued by '{}'.",
+                         certificateSerialNumberHex, issuerDN, e
+            );
+            return Result.error(TextErrorWithRetryIndication.doRetry("Failed to revoke certificate."));
+        } catch (Exception e) {
+            logger.error("Failed to revoke certificate with serial number '{}' issued by '{}'.",
+                         certificateSerialNumberHex, issuerDN, e
+            );
+            return Result.error(TextErrorWithRetryIndication.doNotRetry("Failed to revoke certificate."));
+        }
+    }
+
+    @Override
+    public Result<UserDataVOWS, TextError> getUserData(String username) {
+        try {
+            logger.debug("Fetching user data for EJBCA user '{}'.", username);
+            var request = new SearchEndEntitiesRequest(
+                    2, List.of(new SearchEndEntitiesRequest.Criterion("QUERY", username, "EQUAL"))
+            );
+            SearchEndEntitiesResponse response = restClient.post().uri(END_ENTITY_SEARCH_PATH)
+                                                           .contentType(MediaType.APPLICATION_JSON)
+                                                           .accept(MediaType.APPLICATION_JSON)
+                                                           .body(request)
+                                                           .retrieve()
+                                                           .body(SearchEndEntitiesResponse.class);
+            // The query matches the subject DN as well, only the end entities with the username are relevant
+            List<SearchEndEntitiesResponse.EndEntity> data = response == null || response.endEntities() == null
+                    ? List.of()
+                    : response.endEntities().stream().filter(e -> username.equals(e.username())).toList();
+            if (data.isEmpty()) {
+                return Result.error(TextError.of("User %s not found in EJBCA", username));
+            } else if (data.size() > 1) {
+                return Result.error(
+                        TextError.of("Multiple instances of user data found for user %s. Can't choose one.", username));
+            }
+
+            var endEntity = data.getFirst();
+            var userData = new UserDataVOWS();
+            userData.setUsername(endEntity.username());
+            userData.setSubjectDN(endEntity.dn());
+            userData.setSubjectAltName(endEntity.subjectAltName());
+            return Result.success(userData);
+        } catch (ResourceAccessException e) {
+            logger.error("Failed to fetch user data for EJBCA user {}", username, e);
+            return Result.error(TextErrorWithRetryIndication.doRetry("Failed to fetch user data."));
+        } catch (Exception e) {
+            logger.error("Failed to fetch user data for EJBCA user {}", username, e);
+            return Result.error(TextErrorWithRetryIndication.doNotRetry("Failed to fetch user data."));
+        }
+    }
+
+    @Override
+    public Result<String, TextError> getVersion() {
+        try {
+            logger.debug("Fetching EJBCA version.");
+            StatusResponse response = restClient.get().uri(STATUS_PATH)
+                                                .accept(MediaType.APPLICATION_JSON)
+                                                .retrieve()
+                                                .body(StatusResponse.class);
+            if (response == null) {
+                return Result.error(TextError.of("Empty status response received."));
+            }
+            return Result.success(response.version());
+        } catch (ResourceAccessException e) {
+            logger.error("Failed to fetch EJBCA version.", e);
+            return Result.error(TextErrorWithRetryIndication.doRetry("Failed to fetch EJBCA version."));
+        } catch (Exception e) {
+            logger.error("Failed to fetch EJBCA version.", e);
+            return Result.error(TextErrorWithRetryIndication.doNotRetry("Failed to fetch EJBCA version."));
+        }
+    }
+
+    private Result<Void, TextError> verifySubjectOfExistingEndEntity(String username, String subjectDn, String san) {
+        var userDataResult = getUserData(username);
+        if (userDataResult instanceof Error(var err)) return Result.error(err);
+        UserDataVOWS userData = userDataResult.unwrap();
+        if (!isSameDn(userData.getSubjectDN(), subjectDn) || !isSameSan(userData.getSubjectAltName(), san)) {
+            logger.error("EJBCA end entity '{}' exists with a different subject. Existing subject DN: {}, SAN: {}, " +
+                                 "requested subject DN: {}, SAN: {}", username, userData.getSubjectDN(),
+                         userData.getSubjectAltName(), subjectDn, san
+            );
+            return Result.error(TextErrorWithRetryIndication.doNotRetry(
+                    ("EJBCA end entity '%s' exists with a different subject, which can't be changed through " +
+                            "the EJBCA REST API.").formatted(username)));
+        }
+        return Result.emptySuccess();
+    }
+
+    private Result<Void, TextError> setNewStatus(String username, String password) {
+        try {
+            restClient.post().uri(END_ENTITY_STATUS_PATH, username)
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .body(new SetEndEntityStatusRequest(password, USER_GENERATED_TOKEN, "NEW"))
+                      .retrieve()
+                      .toBodilessEntity();
+            return Result.emptySuccess();
+        } catch (ResourceAccessException e) {
+            logger.error("Failed to set status of EJBCA end entity '{}'.", username, e);
+            return Result.error(TextErrorWithRetryIndication.doRetry("Failed to edit EJBCA user"));
+        } catch (Exception e) {
+            logger.error("Failed to set status of EJBCA end entity '{}'.", username, e);
+            return Result.error(TextErrorWithRetryIndication.doNotRetry("Failed to edit EJBCA user"));
+        }
+    }
+
+    private Result<CertificateResponse, TextError> sendCertificateRequest(String username, String password,
+                                                                          String subjectDn, byte[] csr,
+                                                                          String caName
+    ) {
+        try {
+            var request = new CertificateEnrollmentRequest(toPem(csr), username, password, true, caName);
+            CertificateEnrollmentResponse response = restClient.post().uri(CERTIFICATE_REQUEST_PATH)
+                                                               .contentType(MediaType.APPLICATION_JSON)
+                                                               .accept(MediaType.APPLICATION_JSON)
+                                                               .body(request)
+                                                               .retrieve()
+                                                               .body(CertificateEnrollmentResponse.class);
+            if (response == null || response.certificate() == null) {
+                logger.error("Certificate request has failed. Username={}, subjectDN={}. No certificate returned.",
+                             username, subjectDn
+                );
+                return Result.error(TextErrorWithRetryIndication.doNotRetry("Certificate request has failed."));
+            }
+
+            var certificateResponse = new CertificateResponse();
+            certificateResponse.setResponseType("PKCS7WITHCHAIN");
+            certificateResponse.setData(Base64.getEncoder().encode(toPkcs7Chain(response)));
+            return Result.success(certificateResponse);
+        } catch (ResourceAccessException e) {
+            logger.error("Certificate request has failed. Username={}, subjectDN={}.", username, subjectDn, e);
+            return Result.error(TextErrorWithRetryIndication.doRetry("Certificate request has failed."));
+        } catch (Exception e) {
+            logger.error("Certificate request has failed. Username={}, subjectDN={}.", username, subjectDn, e);
+            return Result.error(TextErrorWithRetryIndication.doNotRetry("Certificate request has failed."));
+        }
+    }
+
+    /*
+     * The REST API returns the certificates DER encoded, they are put into a PKCS7 structure so that the chain
+     * is returned in the same form as by the web service, with the issued certificate first.
+     */
+    private byte[] toPkcs7Chain(CertificateEnrollmentResponse response) throws Exception {
+        List<X509CertificateHolder> certificates = new ArrayList<>();
+        certificates.add(new X509CertificateHolder(Base64.getDecoder().decode(response.certificate())));
+        if (response.certificateChain() != null) {
+            for (String certificate : response.certificateChain()) {
+                certificates.add(new X509CertificateHolder(Base64.getDecoder().decode(certificate)));
+            }
+        }
+        CMSSignedDataGenerator generator = new CMSSignedDataGenerator();
+        generator.addCertificates(new CollectionStore<>(certificates));
+        return generator.generate(new CMSAbsentContent()).getEncoded();
+    }
+
+    private String generatePassword() {
+        byte[] password = new byte[24];
+        secureRandom.nextBytes(password);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(password);
+    }
+
+    private static boolean isSameDn(String existingDn, String requestedDn) {
+        if (isBlank(existingDn) || isBlank(requestedDn)) return isBlank(existingDn) && isBlank(requestedDn);
+        try {
+            return new X500Name(existingDn).equals(new X500Name(requestedDn));
+        } catch (IllegalArgumentException e) {
+            return existingDn.equals(requestedDn);
+        }
+    }
+
+    private static boolean isSameSan(String existingSan, String requestedSan) {
+        if (isBlank(existingSan) || isBlank(requestedSan)) return isBlank(existingSan) && isBlank(requestedSan);
+        return existingSan.strip().equalsIgnoreCase(requestedSan.strip());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String toPem(byte[] csr) {
+        return "-----BEGIN CERTIFICATE REQUEST-----\n" +
+                Base64.getMimeEncoder(64, new byte[]{'\n'}).encodeToString(csr) +
+                "\n-----END CERTIFICATE REQUEST-----";
+    }
+
+    private static int reasonCode(String revocationReason) {
+        try {
+            return CertificateRevocationReason.valueOf(revocationReason).getReasonCode();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return CertificateRevocationReason.UNSPECIFIED.getReasonCode();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.czertainly.csc.clients.ejbca.rest;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record RevocationStatusResponse(
+        @JsonProperty("issuer_dn") String issuerDn,
+        @JsonProperty("serial_number") String serialNumber,
+        @JsonProperty("revocation_reason") String revocationReason,
+        boolean revoked
+) {}
@@ -0,0 +1,13 @@
+package com.czertainly.csc.clients.ejbca.rest;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public record SearchEndEntitiesRequest(
+        @JsonProperty("max_number_of_results") int maxNumberOfResults,
+        List<Criterion> criteria
+) {
+
+    public record Criterion(String property, String value, String operation) {}
+}
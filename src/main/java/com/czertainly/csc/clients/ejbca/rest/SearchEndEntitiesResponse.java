@@ -0,0 +1,19 @@
+package com.czertainly.csc.clients.ejbca.rest;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SearchEndEntitiesResponse(
+        @JsonProperty("end_entities") List<EndEntity> endEntities
+) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record EndEntity(
+            String username,
+            String dn,
+            @JsonProperty("subject_alt_name") String subjectAltName
+    ) {}
+}
@@ -0,0 +1,7 @@
+package com.czertainly.csc.clients.ejbca.rest;
+
+public record SetEndEntityStatusRequest(
+        String password,
+        String token,
+        String status
+) {}
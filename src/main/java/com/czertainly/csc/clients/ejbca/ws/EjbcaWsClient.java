@@ -1,7 +1,7 @@
 package com.czertainly.csc.clients.ejbca.ws;
 
+import com.czertainly.csc.clients.ejbca.EjbcaApiClient;
 import com.czertainly.csc.clients.ejbca.ws.dto.*;
-import com.czertainly.csc.common.errorhandling.ErrorResultRetryException;
 import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.common.result.TextErrorWithRetryIndication;
@@ -9,7 +9,6 @@ import com.czertainly.csc.model.CertificateRevocationReason;
 import jakarta.xml.bind.JAXBElement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.ws.client.WebServiceIOException;
 import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
@@ -20,8 +19,8 @@ import java.util.Base64;
 import java.util.List;
 import java.util.Locale;
 
-@Retryable(retryFor = {ErrorResultRetryException.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000, multiplier = 2), listeners = {"resultRetryListener"})
-public class EjbcaWsClient extends WebServiceGatewaySupport {
+@Retryable(interceptor = "ejbcaRetryInterceptor")
+public class EjbcaWsClient extends WebServiceGatewaySupport implements EjbcaApiClient {
 
     private static final Logger logger = LoggerFactory.getLogger(EjbcaWsClient.class);
 
@@ -70,21 +69,56 @@ public class EjbcaWsClient extends WebServiceGatewaySupport {
             ZonedDateTime certificateValidityStart, ZonedDateTime certificateValidityEnd,
             String caName, String certificateProfileName, String endEntityProfileName
     ) {
+        logger.debug("Requesting certificate for EJBCA user '{}", username);
+        var userDataVOWS = certificateRequestUserData(
+                username, password, subjectDn, subjectAlternativeName, certificateValidityStart,
+                certificateValidityEnd, caName, certificateProfileName, endEntityProfileName
+        );
+        return sendCertificateRequest(userDataVOWS, csr);
+    }
+
+    /*
+     * EJBCA creates the user of the certificate request if it doesn't exist yet and overwrites it otherwise,
+     * so the user doesn't have to be edited before the certificate is requested.
+     */
+    public Result<CertificateResponse, TextError> enrollCertificate(
+            String username, String password, String subjectDn, String subjectAlternativeName, byte[] csr,
+            ZonedDateTime certificateValidityStart, ZonedDateTime certificateValidityEnd,
+            String caName, String certificateProfileName, String endEntityProfileName
+    ) {
+        logger.info("Enrolling certificate for EJBCA user '{}'.", username);
+        logger.trace("Subject DN: {}, SAN {}", subjectDn, subjectAlternativeName);
+        var userDataVOWS = certificateRequestUserData(
+                username, password, subjectDn, subjectAlternativeName, certificateValidityStart,
+                certificateValidityEnd, caName, certificateProfileName, endEntityProfileName
+        );
+        userDataVOWS.setStatus(10); // 10 = New
+        userDataVOWS.setTokenType("USERGENERATED");
+        return sendCertificateRequest(userDataVOWS, csr);
+    }
+
+    private UserDataVOWS certificateRequestUserData(
+            String username, String password, String subjectDn, String subjectAlternativeName,
+            ZonedDateTime certificateValidityStart, ZonedDateTime certificateValidityEnd,
+            String caName, String certificateProfileName, String endEntityProfileName
+    ) {
+        var userDataVOWS = new UserDataVOWS();
+        userDataVOWS.setUsername(username);
+        userDataVOWS.setPassword(password);
+        userDataVOWS.setSubjectDN(subjectDn);
+        userDataVOWS.setSubjectAltName(subjectAlternativeName);
+        userDataVOWS.setStartTime(dateTimeFormatter.format(certificateValidityStart));
+        userDataVOWS.setEndTime(dateTimeFormatter.format(certificateValidityEnd));
+        userDataVOWS.setCaName(caName);
+        userDataVOWS.setEndEntityProfileName(endEntityProfileName);
+        userDataVOWS.setCertificateProfileName(certificateProfileName);
+        return userDataVOWS;
+    }
+
+    private Result<CertificateResponse, TextError> sendCertificateRequest(UserDataVOWS userDataVOWS, byte[] csr) {
         try {
-            logger.debug("Requesting certificate for EJBCA user '{}", username);
             var csrBase64 = Base64.getEncoder().encodeToString(csr);
             var request = new CertificateRequest();
-            var userDataVOWS = new UserDataVOWS();
-            userDataVOWS.setUsername(username);
-            userDataVOWS.setPassword(password);
-            userDataVOWS.setSubjectDN(subjectDn);
-            userDataVOWS.setSubjectAltName(subjectAlternativeName);
-            userDataVOWS.setStartTime(dateTimeFormatter.format(certificateValidityStart));
-            userDataVOWS.setEndTime(dateTimeFormatter.format(certificateValidityEnd));
-            userDataVOWS.setCaName(caName);
-            userDataVOWS.setEndEntityProfileName(endEntityProfileName);
-            userDataVOWS.setCertificateProfileName(certificateProfileName);
-
             request.setArg0(userDataVOWS);
             request.setArg1(csrBase64); // requestData
             request.setArg2(0); // requestType; PKCS10 certificate request
@@ -96,10 +130,14 @@ public class EjbcaWsClient extends WebServiceGatewaySupport {
             CertificateResponse cr = response.getValue().getReturn();
             return Result.success(cr);
         } catch (WebServiceIOException e) {
-            logger.error("Certificate request has failed. Username={}, subjectDN={}.", username, subjectDn, e);
+            logger.error("Certificate request has failed. Username={}, subjectDN={}.", userDataVOWS.getUsername(),
+                         userDataVOWS.getSubjectDN(), e
+            );
             return Result.error(TextErrorWithRetryIndication.doRetry("Certificate request has failed."));
         } catch (Exception e) {
-            logger.error("Certificate request has failed. Username={}, subjectDN={}.", username, subjectDn, e);
+            logger.error("Certificate request has failed. Username={}, subjectDN={}.", userDataVOWS.getUsername(),
+                         userDataVOWS.getSubjectDN(), e
+            );
             return Result.error(TextErrorWithRetryIndication.doNotRetry("Certificate request has failed."));
         }
     }
@@ -188,4 +226,19 @@ public class EjbcaWsClient extends WebServiceGatewaySupport {
             return Result.error(TextErrorWithRetryIndication.doNotRetry("Failed to fetch user data."));
         }
     }
+
+    public Result<String, TextError> getVersion() {
+        try {
+            logger.debug("Fetching EJBCA version.");
+            var response = (JAXBElement<GetEjbcaVersionResponse>) getWebServiceTemplate().marshalSendAndReceive(
+                    new GetEjbcaVersion());
+            return Result.success(response.getValue().getReturn());
+        } catch (WebServiceIOException e) {
+            logger.error("Failed to fetch EJBCA version.", e);
+            return Result.error(TextErrorWithRetryIndication.doRetry("Failed to fetch EJBCA version."));
+        } catch (Exception e) {
+            logger.error("Failed to fetch EJBCA version.", e);
+            return Result.error(TextErrorWithRetryIndication.doNotRetry("Failed to fetch EJBCA version."));
+        }
+    }
 }
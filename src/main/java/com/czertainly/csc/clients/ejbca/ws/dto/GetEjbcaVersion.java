@@ -0,0 +1,31 @@
+package com.czertainly.csc.clients.ejbca.ws.dto;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+
+/**
+ * <p>Java class for getEjbcaVersion complex type.
+ *
+ * <p>The following schema fragment specifies the expected content contained within this class.
+ *
+ * <pre>
+ * &lt;complexType name="getEjbcaVersion"&gt;
+ *   &lt;complexContent&gt;
+ *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType"&gt;
+ *       &lt;sequence&gt;
+ *       &lt;/sequence&gt;
+ *     &lt;/restriction&gt;
+ *   &lt;/complexContent&gt;
+ * &lt;/complexType&gt;
+ * </pre>
+ */
+@XmlRootElement(namespace = "http://ws.protocol.core.ejbca.org/")
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "getEjbcaVersion")
+public class GetEjbcaVersion {
+
+
+}
@@ -892,22 +892,20 @@ public class ObjectFactory {
 //        return new GetCertificatesByExpirationTimeResponse();
 //    }
 //
-//    /**
-//     * Create an instance of {@link GetEjbcaVersion }
-//     *
-//     */
-//    public GetEjbcaVersion createGetEjbcaVersion() {
-//        return new GetEjbcaVersion();
-//    }
-//
-//    /**
-//     * Create an instance of {@link GetEjbcaVersionResponse }
-//     *
-//     */
-//    public GetEjbcaVersionResponse createGetEjbcaVersionResponse() {
-//        return new GetEjbcaVersionResponse();
-//    }
-//
+    /**
+     * Create an instance of {@link GetEjbcaVersion }
+     */
+    public GetEjbcaVersion createGetEjbcaVersion() {
+        return new GetEjbcaVersion();
+    }
+
+    /**
+     * Create an instance of {@link GetEjbcaVersionResponse }
+     */
+    public GetEjbcaVersionResponse createGetEjbcaVersionResponse() {
+        return new GetEjbcaVersionResponse();
+    }
+
 //    /**
 //     * Create an instance of {@link GetHardTokenData }
 //     *
@@ -2435,32 +2433,30 @@ public class ObjectFactory {
 //        return new JAXBElement<GetCertificatesByExpirationTimeResponse>(_GetCertificatesByExpirationTimeResponse_QNAME, GetCertificatesByExpirationTimeResponse.class, null, value);
 //    }
 //
-//    /**
-//     * Create an instance of {@link JAXBElement }{@code <}{@link GetEjbcaVersion }{@code >}
-//     *
-//     * @param value
-//     *     Java instance representing xml element's value.
-//     * @return
-//     *     the new instance of {@link JAXBElement }{@code <}{@link GetEjbcaVersion }{@code >}
-//     */
-//    @XmlElementDecl(namespace = "http://ws.protocol.core.ejbca.org/", name = "getEjbcaVersion")
-//    public JAXBElement<GetEjbcaVersion> createGetEjbcaVersion(GetEjbcaVersion value) {
-//        return new JAXBElement<GetEjbcaVersion>(_GetEjbcaVersion_QNAME, GetEjbcaVersion.class, null, value);
-//    }
-//
-//    /**
-//     * Create an instance of {@link JAXBElement }{@code <}{@link GetEjbcaVersionResponse }{@code >}
-//     *
-//     * @param value
-//     *     Java instance representing xml element's value.
-//     * @return
-//     *     the new instance of {@link JAXBElement }{@code <}{@link GetEjbcaVersionResponse }{@code >}
-//     */
-//    @XmlElementDecl(namespace = "http://ws.protocol.core.ejbca.org/", name = "getEjbcaVersionResponse")
-//    public JAXBElement<GetEjbcaVersionResponse> createGetEjbcaVersionResponse(GetEjbcaVersionResponse value) {
-//        return new JAXBElement<GetEjbcaVersionResponse>(_GetEjbcaVersionResponse_QNAME, GetEjbcaVersionResponse.class, null, value);
-//    }
-//
+    /**
+     * Create an instance of {@link JAXBElement }{@code <}{@link GetEjbcaVersion }{@code >}
+     *
+     * @param value Java instance representing xml element's value.
+     * @return the new instance of {@link JAXBElement }{@code <}{@link GetEjbcaVersion }{@code >}
+     */
+    @XmlElementDecl(namespace = "http://ws.protocol.core.ejbca.org/", name = "getEjbcaVersion")
+    public JAXBElement<GetEjbcaVersion> createGetEjbcaVersion(GetEjbcaVersion value) {
+        return new JAXBElement<GetEjbcaVersion>(_GetEjbcaVersion_QNAME, GetEjbcaVersion.class, null, value);
+    }
+
+    /**
+     * Create an instance of {@link JAXBElement }{@code <}{@link GetEjbcaVersionResponse }{@code >}
+     *
+     * @param value Java instance representing xml element's value.
+     * @return the new instance of {@link JAXBElement }{@code <}{@link GetEjbcaVersionResponse }{@code >}
+     */
+    @XmlElementDecl(namespace = "http://ws.protocol.core.ejbca.org/", name = "getEjbcaVersionResponse")
+    public JAXBElement<GetEjbcaVersionResponse> createGetEjbcaVersionResponse(GetEjbcaVersionResponse value) {
+        return new JAXBElement<GetEjbcaVersionResponse>(_GetEjbcaVersionResponse_QNAME,
+                                                        GetEjbcaVersionResponse.class, null, value
+        );
+    }
+
 //    /**
 //     * Create an instance of {@link JAXBElement }{@code <}{@link GetHardTokenData }{@code >}
 //     *
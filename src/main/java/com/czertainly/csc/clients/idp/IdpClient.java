@@ -1,6 +1,5 @@
 package com.czertainly.csc.clients.idp;
 
-import com.czertainly.csc.common.errorhandling.ErrorResultRetryException;
 import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.common.result.TextErrorWithRetryIndication;
@@ -15,7 +14,6 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.ResourceAccessException;
@@ -25,11 +23,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Component
-@Retryable(
-        retryFor = {ErrorResultRetryException.class},
-        maxAttempts = 3,
-        backoff = @Backoff(delay = 1000, multiplier = 2),
-        listeners = {"resultRetryListener"})
+@Retryable(interceptor = "idpRetryInterceptor")
 public class IdpClient {
 
     private static final Logger logger = LoggerFactory.getLogger(IdpClient.class);
@@ -1,13 +1,17 @@
 package com.czertainly.csc.clients.signserver;
 
+import com.czertainly.csc.clients.signserver.rest.SignserverProcessClient;
 import com.czertainly.csc.clients.signserver.rest.SignserverProcessEncoding;
 import com.czertainly.csc.clients.signserver.rest.SignserverRestClient;
 import com.czertainly.csc.clients.signserver.ws.SignserverWsClient;
 import com.czertainly.csc.clients.signserver.ws.dto.CertReqData;
 import com.czertainly.csc.clients.signserver.ws.dto.TokenEntry;
+import com.czertainly.csc.common.io.ByteSink;
+import com.czertainly.csc.common.io.SpooledData;
 import com.czertainly.csc.common.result.Error;
 import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.components.SpooledDataFactory;
 import com.czertainly.csc.crypto.CertificateParser;
 import com.czertainly.csc.crypto.DigestAlgorithmJavaName;
 import com.czertainly.csc.model.*;
@@ -16,80 +20,97 @@ import com.czertainly.csc.model.signserver.CryptoToken;
 import com.czertainly.csc.model.signserver.CryptoTokenKey;
 import com.czertainly.csc.model.signserver.CryptoTokenKeyStatus;
 import com.czertainly.csc.signing.configuration.SignaturePackaging;
+import com.czertainly.csc.signing.scheduling.SignserverCallScheduler;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.bouncycastle.cert.X509CertificateHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Component
 public class SignserverClient {
 
     private static final Logger logger = LoggerFactory.getLogger(SignserverClient.class);
+    private static final int KEY_QUERY_PAGE_SIZE = 100;
+    private static final int PREFIX_SCAN_ROWS_PER_KEY = 2;
     private final SignserverWsClient signserverWSClient;
     private final SignserverRestClient signserverRestClient;
+    private final SignserverProcessClient signserverProcessClient;
     private final KeySpecificationParser keySpecificationParser;
     private final ObjectMapper objectMapper;
     private final CertificateParser certificateParser;
+    private final SpooledDataFactory spooledDataFactory;
+    private final SignserverCallScheduler signserverCallScheduler;
 
     private final Base64.Decoder decoder = Base64.getDecoder();
-    private final Base64.Encoder encoder = Base64.getEncoder();
 
     public SignserverClient(SignserverWsClient signserverWSClient, SignserverRestClient signserverRestClient,
                             KeySpecificationParser keySpecificationParser, ObjectMapper objectMapper,
-                            CertificateParser certificateParser
+                            CertificateParser certificateParser, SpooledDataFactory spooledDataFactory,
+                            SignserverCallScheduler signserverCallScheduler,
+                            @Qualifier("signserverProcessClient") SignserverProcessClient signserverProcessClient
     ) {
         this.signserverWSClient = signserverWSClient;
         this.signserverRestClient = signserverRestClient;
         this.keySpecificationParser = keySpecificationParser;
         this.objectMapper = objectMapper;
         this.certificateParser = certificateParser;
+        this.spooledDataFactory = spooledDataFactory;
+        this.signserverCallScheduler = signserverCallScheduler;
+        this.signserverProcessClient = signserverProcessClient;
     }
 
     // Document signing methods
-    public Result<SignaturesContainer<DocumentSignature>, TextError> signSingleDocument(
-            String workerName, byte[] data, String keyAlias, SignaturePackaging signaturePackaging
+
+    /**
+     * Signs the document read from the source and writes the signature into the sink, without holding
+     * the document or the signature in memory.
+     */
+    public Result<Void, TextError> signSingleDocumentStreaming(
+            String workerName, InputStreamSource document, String keyAlias, ByteSink signatureSink
     ) {
         // Metadata can be used to pass additional information to the signing process
         var metadata = new HashMap<String, String>();
-
-        byte[] dataBase64 = encoder.encode(data);
-        // SignserverProcessEncoding.BASE64 - we base64 encode the document bytes, and we instruct Signserver to
-        // decode them so the signer receives the original data.
-        return sign(workerName, dataBase64, keyAlias, metadata, SignserverProcessEncoding.BASE64)
-                .flatMap(this::base64Decode)
-                .map(signatureBytes -> {
-                    var documentSignature = new DocumentSignature(signatureBytes, signaturePackaging);
-                    return Signatures.of(documentSignature);
-                });
+        metadata.put("ALIAS", keyAlias);
+        return signserverCallScheduler.schedule(
+                () -> signserverRestClient.processStreaming(workerName, document, metadata, signatureSink)
+        );
     }
 
-    public Result<SignaturesContainer<DocumentSignature>, TextError> signSingleDocumentWithValidationData(
-            String workerName, byte[] data, String keyAlias, SignaturePackaging signaturePackaging
+    /**
+     * Signs the document read from the source, writes the signature into the sink and returns the validation
+     * data of the signature. The response of SignServer wraps the signature together with the validation data,
+     * so it is spooled first and the signature is then decoded from it as a stream.
+     */
+    public Result<ValidationData, TextError> signSingleDocumentWithValidationDataStreaming(
+            String workerName, InputStreamSource document, String keyAlias, ByteSink signatureSink
     ) {
         // Metadata can be used to pass additional information to the signing process
         var metadata = new HashMap<String, String>();
-
-        byte[] dataBase64 = encoder.encode(data);
-        // SignserverProcessEncoding.BASE64 - we base64 encode the document bytes, and we instruct Signserver to
-        // decode them so the signer receives the original data.
-        return sign(workerName, dataBase64, keyAlias, metadata, SignserverProcessEncoding.BASE64)
-                .flatMap(encodedSignatures -> mapToObject(encodedSignatures, EncodedValidationDataWrapper.class))
-                .flatMap(signatureWithValidationData ->
-                                 base64Decode(signatureWithValidationData.signatureData().getBytes())
-                                         .map(signatureBytes -> new SignaturesWithValidationInfo<>(
-                                                 List.of(new DocumentSignature(signatureBytes, signaturePackaging)),
-                                                 new HashSet<>(signatureWithValidationData.validationData().crl()),
-                                                 new HashSet<>(signatureWithValidationData.validationData().ocsp()),
-                                                 new HashSet<>(
-                                                         signatureWithValidationData.validationData().certificates())
-                                         ))
-                );
+        metadata.put("ALIAS", keyAlias);
+        try (SpooledData response = spooledDataFactory.create()) {
+            var processResult = signserverCallScheduler.schedule(
+                    () -> signserverRestClient.processStreaming(workerName, document, metadata, response)
+            );
+            if (processResult instanceof Error(var err)) {
+                return Result.error(err);
+            }
+            return readSignatureWithValidationData(response, signatureSink);
+        } catch (IOException e) {
+            logger.error("Failed to read the signature with validation data.", e);
+            return Result.error(TextError.of("Failed to read the signature with validation data."));
+        }
     }
 
     // Hash signing methods
@@ -104,6 +125,54 @@ public class SignserverClient {
                 });
     }
 
+    /**
+     * Signs the document hash like {@link #signSingleDocumentHash}, and sends the request once more to another
+     * SignServer node when the signature is slow to arrive. The key must allow to be used more than once.
+     */
+    public Result<SignaturesContainer<DocumentSignature>, TextError> signSingleDocumentHashHedged(
+            String workerName, byte[] data, String keyAlias, String digestAlgorithm
+    ) {
+        return signHedged(workerName, data, keyAlias, documentHashMetadata(digestAlgorithm),
+                          SignserverProcessEncoding.NONE
+        ).flatMap(this::base64Decode)
+         .map(signatureBytes -> {
+             var documentSignature = new DocumentSignature(signatureBytes, SignaturePackaging.DETACHED);
+             return Signatures.of(documentSignature);
+         });
+    }
+
+    /**
+     * Signs the document hash like {@link #signSingleDocumentHash}, without waiting for the signature. Signers
+     * use it to send the hashes of several documents at once and collect the signatures as they arrive.
+     */
+    public CompletableFuture<Result<SignaturesContainer<DocumentSignature>, TextError>> signSingleDocumentHashAsync(
+            String workerName, byte[] data, String keyAlias, String digestAlgorithm
+    ) {
+        return signAsync(workerName, data, keyAlias, documentHashMetadata(digestAlgorithm),
+                         SignserverProcessEncoding.NONE
+        ).thenApply(signResult -> signResult
+                .flatMap(this::base64Decode)
+                .map(signatureBytes -> {
+                    var documentSignature = new DocumentSignature(signatureBytes, SignaturePackaging.DETACHED);
+                    return Signatures.of(documentSignature);
+                }));
+    }
+
+    /**
+     * Tells whether the async signing methods send the calls without blocking a thread each, so that the signers
+     * can send the hashes of several documents at once instead of in a batch.
+     */
+    public boolean isAsyncSigningNonBlocking() {
+        return signserverProcessClient.isNonBlocking();
+    }
+
+    /**
+     * Maximum number of async signing calls a single request may have in progress at once.
+     */
+    public int getMaxAsyncCallsPerRequest() {
+        return signserverCallScheduler.getMaxCallsPerRequest();
+    }
+
     public Result<SignaturesContainer<DocumentSignature>, TextError> signSingleDocumentHashWithValidationData(
             String workerName, byte[] data, String keyAlias, String digestAlgorithm
     ) {
@@ -165,6 +234,32 @@ public class SignserverClient {
                 });
     }
 
+    /**
+     * Signs the hash like {@link #signPlainSingleHash}, and sends the request once more to another SignServer
+     * node when the signature is slow to arrive. The key must allow to be used more than once.
+     */
+    public Result<SignaturesContainer<PlainSignature>, TextError> signPlainSingleHashHedged(
+            String workerName, byte[] data, String keyAlias, String encryptionAlgorithm, String digestAlgorithm
+    ) {
+        return signHedged(workerName, data, keyAlias, rawHashMetadata(encryptionAlgorithm, digestAlgorithm),
+                          SignserverProcessEncoding.NONE
+        ).flatMap(this::base64Decode)
+         .map(signatureBytes -> Signatures.of(new PlainSignature(signatureBytes)));
+    }
+
+    /**
+     * Signs the hash like {@link #signPlainSingleHash}, without waiting for the signature.
+     */
+    public CompletableFuture<Result<SignaturesContainer<PlainSignature>, TextError>> signPlainSingleHashAsync(
+            String workerName, byte[] data, String keyAlias, String encryptionAlgorithm, String digestAlgorithm
+    ) {
+        return signAsync(workerName, data, keyAlias, rawHashMetadata(encryptionAlgorithm, digestAlgorithm),
+                         SignserverProcessEncoding.NONE
+        ).thenApply(signResult -> signResult
+                .flatMap(this::base64Decode)
+                .map(signatureBytes -> Signatures.of(new PlainSignature(signatureBytes))));
+    }
+
     public Result<SignaturesContainer<PlainSignature>, TextError> signPlainMultipleHashes(String workerName,
                                                                                           List<String> data,
                                                                                           String keyAlias,
@@ -192,48 +287,107 @@ public class SignserverClient {
                 .flatMap(searchResult -> {
                     ArrayList<CryptoTokenKey> keys = new ArrayList<>();
                     for (TokenEntry key : searchResult.getEntries()) {
-                        var info = key.getInfo();
-                        var builder = new CryptoTokenKeyBuilder().withCryptoTokenId(cryptoToken)
-                                                                 .withKeyAlias(key.getAlias());
-
-                        if (key.getChain() != null && !key.getChain().isEmpty()) {
-                            byte[] certData = key.getChain().getFirst();
-                            var getCertificateResult = certificateParser.parseDerEncodedCertificate(certData);
-                            if (getCertificateResult instanceof Error(var e)) {
-                                return Result.error(e);
-                            }
-                            X509CertificateHolder cert = getCertificateResult.unwrap();
-                            String dn = cert.getSubject().toString();
-                            if (dn.contains("L=_SignServer_DUMMY_CERT_")) {
-                                builder.withStatus(new CryptoTokenKeyStatus(false));
-                            } else {
-                                builder.withStatus(new CryptoTokenKeyStatus(true));
-                            }
-                            builder.withChain(key.getChain());
-                        } else {
-                            builder.withStatus(new CryptoTokenKeyStatus(false));
-                        }
-                        if (includeData) {
-                            info.getEntries().forEach(entry -> {
-                                switch (entry.getKey()) {
-                                    case "Key specification" -> {
-                                        var keySpec = keySpecificationParser.parse(entry.getValue());
-                                        builder.withKeySpecification(keySpec.keySpecification());
-                                        if (keySpec.keyStatus() != null) {
-                                            builder.withStatus(keySpec.keyStatus());
-                                        }
-                                    }
-                                    case "Key algorithm" -> builder.withKeyAlgorithm(entry.getValue());
-                                }
-                            });
+                        var keyResult = toCryptoTokenKey(cryptoToken, key, includeData);
+                        if (keyResult instanceof Error(var e)) {
+                            return Result.error(e);
                         }
-
-                        keys.add(builder.build());
+                        keys.add(keyResult.unwrap());
                     }
                     return Result.success(keys);
                 });
     }
 
+    /**
+     * Looks up multiple keys of a single crypto token at once.
+     * <p>
+     * SignServer only supports AND-ed conditions when querying token entries, so the keys can't be requested by
+     * an exact list of aliases. Instead, the longest common prefix of the requested aliases is used as a filter
+     * and the result is paged through, keeping only the entries with one of the requested aliases. The prefix may
+     * be shared by keys of other credentials, so at most {@value #PREFIX_SCAN_ROWS_PER_KEY} entries per requested
+     * key are read this way. The keys not found by then, or all of them when the aliases have no common prefix,
+     * are looked up by their exact alias one by one.
+     *
+     * @param cryptoToken the crypto token holding the keys
+     * @param keyAliases  aliases of the keys to look up
+     * @return keys found in the crypto token, indexed by their alias; aliases that were not found are absent
+     */
+    public Result<Map<String, CryptoTokenKey>, TextError> queryCryptoTokenKeysByAliases(
+            CryptoToken cryptoToken, Collection<String> keyAliases
+    ) {
+        Set<String> remainingAliases = new HashSet<>(keyAliases);
+        Map<String, CryptoTokenKey> keys = new HashMap<>();
+        if (remainingAliases.isEmpty()) {
+            return Result.success(keys);
+        }
+
+        String commonPrefix = longestCommonPrefix(remainingAliases);
+        if (remainingAliases.size() > 1 && !commonPrefix.isEmpty()) {
+            var scanResult = scanCryptoTokenKeysByPrefix(cryptoToken, commonPrefix, remainingAliases, keys);
+            if (scanResult instanceof Error(var e)) {
+                return Result.error(e);
+            }
+        }
+
+        if (!remainingAliases.isEmpty()) {
+            logger.debug("Looking up {} keys of crypto token {} by their aliases one by one.",
+                         remainingAliases.size(), cryptoToken.name()
+            );
+        }
+        for (String keyAlias : remainingAliases) {
+            var queryResult = queryCryptoTokenKeys(cryptoToken, true, 0, 2, keyAlias);
+            if (queryResult instanceof Error(var e)) {
+                return Result.error(e);
+            }
+            // The alias is used as a pattern, so keys with other aliases can match it too
+            queryResult.unwrap().stream()
+                       .filter(key -> keyAlias.equals(key.keyAlias()))
+                       .forEach(key -> keys.put(key.keyAlias(), key));
+        }
+        return Result.success(keys);
+    }
+
+    /*
+     * Pages through the keys with the given alias prefix until all the remaining aliases are found or the number
+     * of entries read reaches the limit. Found keys are moved from the remaining aliases to the keys.
+     */
+    private Result<Void, TextError> scanCryptoTokenKeysByPrefix(CryptoToken cryptoToken, String prefix,
+                                                                Set<String> remainingAliases,
+                                                                Map<String, CryptoTokenKey> keys
+    ) {
+        int maxEntries = remainingAliases.size() * PREFIX_SCAN_ROWS_PER_KEY;
+        int startIndex = 0;
+        boolean moreEntriesAvailable = true;
+        while (moreEntriesAvailable && !remainingAliases.isEmpty() && startIndex < maxEntries) {
+            int pageSize = Math.min(KEY_QUERY_PAGE_SIZE, maxEntries - startIndex);
+            var queryResult = signserverWSClient.queryTokenEntries(cryptoToken.id(), true, startIndex, pageSize,
+                                                                   prefix + "%"
+            );
+            if (queryResult instanceof Error(var e)) {
+                return Result.error(e);
+            }
+            var searchResult = queryResult.unwrap();
+            for (TokenEntry entry : searchResult.getEntries()) {
+                if (!remainingAliases.remove(entry.getAlias())) {
+                    continue;
+                }
+                var keyResult = toCryptoTokenKey(cryptoToken, entry, true);
+                if (keyResult instanceof Error(var e)) {
+                    return Result.error(e);
+                }
+                keys.put(entry.getAlias(), keyResult.unwrap());
+            }
+            moreEntriesAvailable = Boolean.TRUE.equals(searchResult.isMoreEntriesAvailable()) &&
+                                   !searchResult.getEntries().isEmpty();
+            startIndex += searchResult.getEntries().size();
+        }
+        if (!remainingAliases.isEmpty() && moreEntriesAvailable) {
+            logger.debug("Stopped reading keys with prefix '{}' of crypto token {} after {} entries.",
+                         prefix, cryptoToken.name(), startIndex
+            );
+        }
+        return Result.emptySuccess();
+    }
+
     public Result<CryptoTokenKey, TextError> getCryptoTokenKey(CryptoToken cryptoToken, String keyAlias
     ) {
         return queryCryptoTokenKeys(cryptoToken, true, 0, 2, keyAlias)
@@ -286,23 +440,33 @@ public class SignserverClient {
     private Result<byte[], TextError> singleSignDocumentHash(
             String workerName, byte[] data, String keyAlias, String digestAlgorithm
     ) {
+        // SignserverProcessEncoding.NONE - the data is base64 encoded, but the decoding is handled by signer,
+        // so we instruct signserver to not decode it.
+        return sign(workerName, data, keyAlias, documentHashMetadata(digestAlgorithm), SignserverProcessEncoding.NONE);
+    }
+
+    private Map<String, String> documentHashMetadata(String digestAlgorithm) {
         var metadata = new HashMap<String, String>();
         metadata.put("USING_CLIENTSUPPLIED_HASH", "true");
         metadata.put("CLIENTSIDE_HASHDIGESTALGORITHM", DigestAlgorithmJavaName.get(digestAlgorithm));
-        // SignserverProcessEncoding.NONE - the data is base64 encoded, but the decoding is handled by signer,
-        // so we instruct signserver to not decode it.
-        return sign(workerName, data, keyAlias, metadata, SignserverProcessEncoding.NONE);
+        return metadata;
     }
 
     private Result<byte[], TextError> singleSignRawHash(
             String workerName, byte[] data, String keyAlias, String encryptionAlgorithm, String digestAlgorithm
     ) {
+        // SignserverProcessEncoding.NONE - the data is base64 encoded, but the decoding is handled by signer,
+        // so we instruct signserver to not decode it.
+        return sign(workerName, data, keyAlias, rawHashMetadata(encryptionAlgorithm, digestAlgorithm),
+                    SignserverProcessEncoding.NONE
+        );
+    }
+
+    private Map<String, String> rawHashMetadata(String encryptionAlgorithm, String digestAlgorithm) {
         var metadata = new HashMap<String, String>();
         metadata.put("DIGESTALGORITHM", DigestAlgorithmJavaName.get(digestAlgorithm));
         metadata.put("ENCRYPTIONALGORITHM", encryptionAlgorithm);
-        // SignserverProcessEncoding.NONE - the data is base64 encoded, but the decoding is handled by signer,
-        // so we instruct signserver to not decode it.
-        return sign(workerName, data, keyAlias, metadata, SignserverProcessEncoding.NONE);
+        return metadata;
     }
 
     private Result<byte[], TextError> multisign(String workerName, List<String> data, String keyAlias,
@@ -343,7 +507,89 @@ public class SignserverClient {
                                            SignserverProcessEncoding encoding
     ) {
         metadata.put("ALIAS", keyAlias);
-        return signserverRestClient.process(workerName, data, metadata, encoding);
+        return signserverCallScheduler.schedule(
+                () -> signserverRestClient.process(workerName, data, metadata, encoding)
+        );
+    }
+
+    // Returns the signed data encoded in base64
+    private Result<byte[], TextError> signHedged(String workerName, byte[] data, String keyAlias,
+                                                 Map<String, String> metadata,
+                                                 SignserverProcessEncoding encoding
+    ) {
+        metadata.put("ALIAS", keyAlias);
+        return signserverCallScheduler.schedule(
+                () -> signserverRestClient.processHedged(workerName, data, metadata, encoding)
+        );
+    }
+
+    // Returns the signed data encoded in base64
+    private CompletableFuture<Result<byte[], TextError>> signAsync(String workerName, byte[] data, String keyAlias,
+                                                                  Map<String, String> metadata,
+                                                                  SignserverProcessEncoding encoding
+    ) {
+        metadata.put("ALIAS", keyAlias);
+        return signserverCallScheduler.scheduleAsync(
+                () -> signserverProcessClient.processAsync(workerName, data, metadata, encoding)
+        );
+    }
+
+    private Result<CryptoTokenKey, TextError> toCryptoTokenKey(
+            CryptoToken cryptoToken, TokenEntry key, boolean includeData
+    ) {
+        var info = key.getInfo();
+        var builder = new CryptoTokenKeyBuilder().withCryptoTokenId(cryptoToken)
+                                                 .withKeyAlias(key.getAlias());
+
+        if (key.getChain() != null && !key.getChain().isEmpty()) {
+            byte[] certData = key.getChain().getFirst();
+            var getCertificateResult = certificateParser.parseDerEncodedCertificate(certData);
+            if (getCertificateResult instanceof Error(var e)) {
+                return Result.error(e);
+            }
+            X509CertificateHolder cert = getCertificateResult.unwrap();
+            String dn = cert.getSubject().toString();
+            if (dn.contains("L=_SignServer_DUMMY_CERT_")) {
+                builder.withStatus(new CryptoTokenKeyStatus(false));
+            } else {
+                builder.withStatus(new CryptoTokenKeyStatus(true));
+            }
+            builder.withChain(key.getChain());
+        } else {
+            builder.withStatus(new CryptoTokenKeyStatus(false));
+        }
+        if (includeData) {
+            info.getEntries().forEach(entry -> {
+                switch (entry.getKey()) {
+                    case "Key specification" -> {
+                        var keySpec = keySpecificationParser.parse(entry.getValue());
+                        builder.withKeySpecification(keySpec.keySpecification());
+                        if (keySpec.keyStatus() != null) {
+                            builder.withStatus(keySpec.keyStatus());
+                        }
+                    }
+                    case "Key algorithm" -> builder.withKeyAlgorithm(entry.getValue());
+                }
+            });
+        }
+        return Result.success(builder.build());
+    }
+
+    private static String longestCommonPrefix(Collection<String> values) {
+        String prefix = null;
+        for (String value : values) {
+            if (prefix == null) {
+                prefix = value;
+                continue;
+            }
+            int length = 0;
+            int maxLength = Math.min(prefix.length(), value.length());
+            while (length < maxLength && prefix.charAt(length) == value.charAt(length)) {
+                length++;
+            }
+            prefix = prefix.substring(0, length);
+        }
+        return prefix == null ? "" : prefix;
     }
 
     private Result<String, TextError> extractKeyAlias(List<CryptoTokenKey> keys) {
@@ -383,6 +629,39 @@ public class SignserverClient {
         }
     }
 
+    /*
+     * Reads the signature wrapped together with the validation data into the sink, decoding it as a stream.
+     */
+    private Result<ValidationData, TextError> readSignatureWithValidationData(SpooledData response,
+                                                                              ByteSink signatureSink
+    ) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(response.getInputStream())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Result.error(TextError.of("The signature with validation data is not a JSON object."));
+            }
+            boolean signatureRead = false;
+            ValidationData validationData = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+                if ("signatureData".equals(fieldName) && valueToken == JsonToken.VALUE_STRING) {
+                    try (OutputStream signatureStream = signatureSink.openStream()) {
+                        parser.readBinaryValue(signatureStream);
+                    }
+                    signatureRead = true;
+                } else if ("validationData".equals(fieldName) && valueToken == JsonToken.START_OBJECT) {
+                    validationData = objectMapper.readValue(parser, ValidationData.class);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (!signatureRead || validationData == null) {
+                return Result.error(TextError.of("The response does not contain the signature with validation data."));
+            }
+            return Result.success(validationData);
+        }
+    }
+
     private List<DocumentSignature> mapToDocumentSignaturesList(
             BatchSignaturesResponse batchSignatures
     ) {
@@ -0,0 +1,252 @@
+package com.czertainly.csc.clients.signserver.rest;
+
+import com.czertainly.csc.common.deadline.Deadline;
+import com.czertainly.csc.common.http.DeadlineExecInterceptor;
+import com.czertainly.csc.common.result.Error;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.common.result.TextErrorWithRetryIndication;
+import com.czertainly.csc.common.retry.BackendRetryPolicy;
+import com.czertainly.csc.configuration.SignApiAuthorization;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.czertainly.csc.clients.signserver.rest.SignserverRestClient.WORKER_PROCESS_REST_API_PATH;
+
+/**
+ * Calls the SignServer process API with the non-blocking HTTP client. No thread waits for the response, so many
+ * calls can be in flight at once, and when SignServer supports HTTP/2, they are multiplexed over a few
+ * connections.
+ * <p>
+ * The calls are routed to the SignServer nodes and fail over between them in the same way as the calls of
+ * {@link SignserverRestClient}. Failed calls are retried in the same way as well, the retries are scheduled
+ * without blocking any thread.
+ */
+@Component
+@ConditionalOnProperty(name = "signingProvider.signserver.client.async", havingValue = "true")
+public class SignserverAsyncRestClient implements SignserverProcessClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignserverAsyncRestClient.class);
+
+    private static final String OPERATION = "processAsync";
+
+    private final SignserverNodes nodes;
+    private final String basicAuthHeader;
+    private final CloseableHttpAsyncClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final BackendRetryPolicy retryPolicy;
+
+    public SignserverAsyncRestClient(
+            SignserverNodes nodes,
+            @Value("${signingProvider.signserver.client.authType}") SignApiAuthorization authzType,
+            @Value("${signingProvider.signserver.client.basic.username}") String basicAuthUsername,
+            @Value("${signingProvider.signserver.client.basic.password}") String basicAuthPassword,
+            @Qualifier("signserverAsyncHttpClient") CloseableHttpAsyncClient httpClient,
+            ObjectMapper objectMapper,
+            @Qualifier("signserverRetryPolicy") BackendRetryPolicy retryPolicy
+    ) {
+        logger.debug("Creating SignserverAsyncRestClient.");
+        this.nodes = nodes;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.retryPolicy = retryPolicy;
+        if (authzType == SignApiAuthorization.BASIC) {
+            basicAuthHeader = "Basic " + Base64.getEncoder().encodeToString(
+                    (basicAuthUsername + ":" + basicAuthPassword).getBytes());
+        } else {
+            basicAuthHeader = null;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Result<byte[], TextError>> processAsync(String workerName, byte[] data,
+                                                                    Map<String, String> metadata,
+                                                                    SignserverProcessEncoding encoding
+    ) {
+        logger.debug("Calling Signserver process API asynchronously. WorkerName: {}, Encoding: {}, metadata: [{}]",
+                     workerName, encoding,
+                     metadata.entrySet().stream()
+                             .map(e -> e.getKey() + "=" + e.getValue())
+                             .collect(Collectors.joining(", "))
+        );
+        final byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(new WorkerProcessRequest(data, metadata, encoding));
+        } catch (JsonProcessingException e) {
+            logger.error("Processing has failed on worker {}", workerName, e);
+            return CompletableFuture.completedFuture(Result.error(
+                    TextErrorWithRetryIndication.doNotRetry("Processing failed on worker " + workerName)));
+        }
+        retryPolicy.recordCall();
+        return processWithRetries(body, workerName, 1, Deadline.current());
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return true;
+    }
+
+    // The callbacks run on the threads of the HTTP client, the deadline of the request is passed to them
+    private CompletableFuture<Result<byte[], TextError>> processWithRetries(byte[] body, String workerName,
+                                                                           int attempt, Optional<Deadline> deadline
+    ) {
+        return processOnNodes(body, workerName, new HashSet<>(), deadline).thenCompose(result -> {
+            if (!shouldRetry(result)) {
+                return CompletableFuture.completedFuture(result);
+            }
+            Optional<Duration> backoff = retryPolicy.backoffBeforeRetry(OPERATION, attempt, deadline);
+            if (backoff.isEmpty()) {
+                return CompletableFuture.completedFuture(result);
+            }
+            logger.info("Retry attempt {} of processing on worker {} failed, retrying in {} ms.", attempt,
+                        workerName, backoff.get().toMillis()
+            );
+            return CompletableFuture.supplyAsync(
+                    () -> null, CompletableFuture.delayedExecutor(backoff.get().toNanos(), TimeUnit.NANOSECONDS)
+            ).thenCompose(ignored -> processWithRetries(body, workerName, attempt + 1, deadline));
+        });
+    }
+
+    /*
+     * Sends the request to the node chosen by the latency-aware selection, and to another node right away when
+     * the connection to the node can't be established.
+     */
+    private CompletableFuture<Result<byte[], TextError>> processOnNodes(byte[] body, String workerName,
+                                                                       Set<SignserverNodes.Node> failedNodes,
+                                                                       Optional<Deadline> deadline
+    ) {
+        Optional<SignserverNodes.Node> selected = nodes.select(failedNodes);
+        if (selected.isEmpty()) {
+            logger.error("Processing failed on worker {}, no Signserver node could be connected.", workerName);
+            return CompletableFuture.completedFuture(Result.error(
+                    TextErrorWithRetryIndication.doRetry("Processing failed on worker " + workerName)));
+        }
+        SignserverNodes.Node node = selected.get();
+        URI uri = UriComponentsBuilder.fromUriString(node.url())
+                                      .path(WORKER_PROCESS_REST_API_PATH)
+                                      .buildAndExpand(workerName)
+                                      .encode()
+                                      .toUri();
+        long startedAt = node.callStarted();
+        return execute(uri, body, workerName, deadline).thenCompose(outcome -> {
+            if (outcome.connectionFailed()) {
+                node.callFailed();
+                failedNodes.add(node);
+                logger.warn("Failed to connect to Signserver node {}, processing on worker {} fails over to "
+                                    + "another node.", node.url(), workerName
+                );
+                return processOnNodes(body, workerName, failedNodes, deadline);
+            }
+            if (outcome.cancelled()) {
+                // The call was cancelled before the node answered, its duration says nothing of the node
+                node.callAbandoned();
+            } else {
+                node.callCompleted(startedAt);
+            }
+            return CompletableFuture.completedFuture(outcome.result());
+        });
+    }
+
+    private CompletableFuture<Outcome> execute(URI uri, byte[] body, String workerName,
+                                               Optional<Deadline> deadline
+    ) {
+        SimpleRequestBuilder requestBuilder = SimpleRequestBuilder.post(uri)
+                                                                  .setBody(body, ContentType.APPLICATION_JSON)
+                                                                  .addHeader(HttpHeaders.ACCEPT,
+                                                                             ContentType.APPLICATION_JSON.getMimeType()
+                                                                  );
+        if (basicAuthHeader != null) {
+            requestBuilder.addHeader(HttpHeaders.AUTHORIZATION, basicAuthHeader);
+        }
+        SimpleHttpRequest request = requestBuilder.build();
+        HttpClientContext context = HttpClientContext.create();
+        deadline.ifPresent(d -> context.setAttribute(DeadlineExecInterceptor.DEADLINE_ATTRIBUTE, d));
+
+        CompletableFuture<Outcome> future = new CompletableFuture<>();
+        httpClient.execute(request, context, new FutureCallback<>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                future.complete(new Outcome(readProcessResponse(response, workerName), false, false));
+            }
+
+            @Override
+            public void failed(Exception e) {
+                if (SignserverNodes.isConnectionFailure(e)) {
+                    future.complete(new Outcome(null, true, false));
+                    return;
+                }
+                logger.error("Processing failed on worker {}", workerName, e);
+                Result<byte[], TextError> result = Result.error(
+                        TextErrorWithRetryIndication.doRetry("Processing failed on worker " + workerName));
+                future.complete(new Outcome(result, false, false));
+            }
+
+            @Override
+            public void cancelled() {
+                logger.error("Processing on worker {} was cancelled.", workerName);
+                Result<byte[], TextError> result = Result.error(
+                        TextErrorWithRetryIndication.doNotRetry("Processing failed on worker " + workerName));
+                future.complete(new Outcome(result, false, true));
+            }
+        });
+        return future;
+    }
+
+    private Result<byte[], TextError> readProcessResponse(SimpleHttpResponse response, String workerName) {
+        if (response.getCode() >= 400) {
+            logger.error("Processing failed on worker {}. Response status: {}", workerName, response.getCode());
+            return Result.error(SignserverNodes.statusError(response.getCode(),
+                                                            "Processing failed on worker " + workerName
+            ));
+        }
+        try {
+            WorkerProcessResponse processResponse = objectMapper.readValue(response.getBodyBytes(),
+                                                                           WorkerProcessResponse.class
+            );
+            if (processResponse == null || processResponse.data() == null) {
+                logger.error("Processing failed on worker {}. The response contains no data.", workerName);
+                return Result.error(
+                        TextErrorWithRetryIndication.doNotRetry("Processing failed on worker " + workerName));
+            }
+            return Result.success(processResponse.data());
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Processing has failed on worker {}", workerName, e);
+            return Result.error(TextErrorWithRetryIndication.doNotRetry("Processing failed on worker " + workerName));
+        }
+    }
+
+    private record Outcome(Result<byte[], TextError> result, boolean connectionFailed, boolean cancelled) {}
+
+    private static boolean shouldRetry(Result<byte[], TextError> result) {
+        return result instanceof Error(var err)
+                && err instanceof TextErrorWithRetryIndication retryIndication
+                && retryIndication.getShouldRetry();
+    }
+}
@@ -0,0 +1,203 @@
+package com.czertainly.csc.clients.signserver.rest;
+
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.Success;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.common.result.TextErrorWithRetryIndication;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Hedging of latency-critical process calls. When a call has not been answered within a percentile of
+ * the recent latency, a duplicate of the call is sent to another SignServer node. The first successful
+ * response is used and the other call is cancelled.
+ * <p>
+ * The hedges are limited by a budget: each hedged call earns a fraction of a hedge and each hedge spends a whole
+ * one, so the hedges can't add more than the fraction of the load, e.g. when all the nodes are slow because
+ * of an overload.
+ */
+@Component
+public class SignserverHedging {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignserverHedging.class);
+
+    // Number of the recent latencies the hedge delay is computed from, and the minimum to start hedging
+    private static final int LATENCY_WINDOW = 1024;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    // How often the hedge delay is recomputed from the recent latencies
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // Maximum number of unspent hedges, so that hedges earned during a quiet period can't come at once
+    private static final double MAX_BUDGET_BALANCE = 10;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final double budget;
+    private final ExecutorService executor;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private final Counter hedgesOverBudget;
+
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount;
+    private int nextLatency;
+    private long delayNanos = -1;
+    private long delayComputedAt;
+    private double budgetBalance;
+
+    public SignserverHedging(@Value("${signingProvider.signserver.client.hedging.enabled:false}") boolean enabled,
+                             @Value("${signingProvider.signserver.client.hedging.percentile:0.95}") double percentile,
+                             @Value("${signingProvider.signserver.client.hedging.budget:0.05}") double budget,
+                             @Qualifier("signserverHedgingExecutor") ExecutorService executor,
+                             MeterRegistry meterRegistry
+    ) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("The hedging percentile must be between 0 and 1.");
+        }
+        if (budget < 0 || budget > 1) {
+            throw new IllegalArgumentException("The hedging budget must be between 0 and 1.");
+        }
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.budget = budget;
+        this.executor = executor;
+        this.hedgesSent = hedgesCounter(meterRegistry, "sent");
+        this.hedgesWon = hedgesCounter(meterRegistry, "won");
+        this.hedgesOverBudget = hedgesCounter(meterRegistry, "over_budget");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Makes the call, and makes it once more if it is slow.
+     *
+     * @param call the call, given the nodes it must not use, which it adds the nodes it used to
+     * @return the result of the first successful call, or the error of the first call if none succeeded
+     */
+    public <T> Result<T, TextError> execute(Function<Set<SignserverNodes.Node>, Result<T, TextError>> call) {
+        long delay = depositAndGetDelay();
+        Set<SignserverNodes.Node> usedNodes = ConcurrentHashMap.newKeySet();
+        ExecutorCompletionService<Result<T, TextError>> completion = new ExecutorCompletionService<>(executor);
+        long primaryStartedAt = System.nanoTime();
+        Future<Result<T, TextError>> primary = completion.submit(() -> call.apply(usedNodes));
+        Future<Result<T, TextError>> hedge = null;
+        long hedgeStartedAt = 0;
+        try {
+            Future<Result<T, TextError>> first = delay < 0 ? completion.take()
+                    : completion.poll(delay, TimeUnit.NANOSECONDS);
+            if (first == null) {
+                if (tryWithdraw()) {
+                    hedgesSent.increment();
+                    Set<SignserverNodes.Node> hedgeNodes = ConcurrentHashMap.newKeySet();
+                    hedgeNodes.addAll(usedNodes);
+                    logger.debug("Process call is slower than {} ms, sending a hedged call.",
+                                 TimeUnit.NANOSECONDS.toMillis(delay)
+                    );
+                    hedgeStartedAt = System.nanoTime();
+                    hedge = completion.submit(() -> call.apply(hedgeNodes));
+                } else {
+                    hedgesOverBudget.increment();
+                }
+                first = completion.take();
+            }
+
+            Result<T, TextError> firstResult = first.get();
+            recordLatencyOfSuccess(firstResult, first == primary ? primaryStartedAt : hedgeStartedAt);
+            if (hedge == null || firstResult instanceof Success) {
+                if (first == hedge) {
+                    hedgesWon.increment();
+                }
+                return firstResult;
+            }
+            // The first call failed, the other one may still succeed
+            Future<Result<T, TextError>> second = completion.take();
+            Result<T, TextError> secondResult = second.get();
+            recordLatencyOfSuccess(secondResult, second == primary ? primaryStartedAt : hedgeStartedAt);
+            if (secondResult instanceof Success) {
+                if (first == primary) {
+                    hedgesWon.increment();
+                }
+                return secondResult;
+            }
+            return first == primary ? firstResult : secondResult;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.error(TextErrorWithRetryIndication.doNotRetry("Process call was interrupted."));
+        } catch (ExecutionException e) {
+            logger.error("Process call has failed.", e.getCause());
+            return Result.error(TextErrorWithRetryIndication.doNotRetry("Process call has failed."));
+        } finally {
+            cancel(primary, primaryStartedAt);
+            if (hedge != null) {
+                cancel(hedge, hedgeStartedAt);
+            }
+        }
+    }
+
+    private <T> void recordLatencyOfSuccess(Result<T, TextError> result, long startedAt) {
+        if (result instanceof Success) {
+            recordLatency(System.nanoTime() - startedAt);
+        }
+    }
+
+    /*
+     * The slow calls are the ones cancelled when the other call succeeds first. Their latency is recorded as
+     * the time they ran until cancelled, which is a lower bound of it, so that the delay is not computed only
+     * from the calls that were fast enough to win and doesn't keep dropping.
+     */
+    private <T> void cancel(Future<Result<T, TextError>> call, long startedAt) {
+        if (call.cancel(true)) {
+            recordLatency(System.nanoTime() - startedAt);
+        }
+    }
+
+    private synchronized long depositAndGetDelay() {
+        budgetBalance = Math.min(MAX_BUDGET_BALANCE, budgetBalance + budget);
+        long now = System.nanoTime();
+        if (latencyCount >= MIN_LATENCY_SAMPLES
+                && (delayNanos < 0 || now - delayComputedAt >= DELAY_REFRESH_NANOS)) {
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            delayNanos = sorted[(int) Math.min(sorted.length - 1, Math.floor(percentile * sorted.length))];
+            delayComputedAt = now;
+        }
+        return delayNanos;
+    }
+
+    private synchronized boolean tryWithdraw() {
+        if (budgetBalance < 1) {
+            return false;
+        }
+        budgetBalance -= 1;
+        return true;
+    }
+
+    private synchronized void recordLatency(long latencyNanos) {
+        latencies[nextLatency] = latencyNanos;
+        nextLatency = (nextLatency + 1) % LATENCY_WINDOW;
+        latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+    }
+
+    private static Counter hedgesCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("csc.signserver.hedging.hedges")
+                      .description("Hedged process calls to SignServer")
+                      .tag("outcome", outcome)
+                      .register(meterRegistry);
+    }
+}
@@ -0,0 +1,207 @@
+package com.czertainly.csc.clients.signserver.rest;
+
+import com.czertainly.csc.common.result.TextErrorWithRetryIndication;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Nodes of the SignServer cluster the process calls are sent to.
+ * <p>
+ * Each call goes to the cheaper of two randomly chosen nodes (power of two choices). The cost of a node is its
+ * recent latency, an exponentially weighted moving average of the latency of its calls, multiplied by the number
+ * of its calls in flight. The average decays over time, so a node that was slow is tried again after a while.
+ * A node that refused a connection is not chosen for the failure cooldown unless no other node is left.
+ */
+@Component
+public class SignserverNodes {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignserverNodes.class);
+
+    // Time in which the weight of a latency sample in the average decays to 1/e
+    private static final long DECAY_NANOS = Duration.ofSeconds(10).toNanos();
+
+    private final List<Node> nodes;
+    private final long failureCooldownNanos;
+
+    @Autowired
+    public SignserverNodes(@Value("${signingProvider.signserver.url}") String signserverUrl,
+                           @Value("${signingProvider.signserver.nodes:}") List<String> nodeUrls,
+                           @Value("${signingProvider.signserver.client.failureCooldown:PT5S}")
+                           Duration failureCooldown
+    ) {
+        this(nodeUrls == null || nodeUrls.isEmpty() ? List.of(signserverUrl) : nodeUrls, failureCooldown);
+    }
+
+    SignserverNodes(List<String> nodeUrls, Duration failureCooldown) {
+        List<Node> nodes = new ArrayList<>();
+        for (String url : nodeUrls) {
+            if (url != null && !url.isBlank()) {
+                nodes.add(new Node(url.strip()));
+            }
+        }
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one SignServer node must be configured.");
+        }
+        this.nodes = List.copyOf(nodes);
+        this.failureCooldownNanos = failureCooldown.toNanos();
+        logger.info("Process calls are sent to SignServer nodes: {}", this.nodes.stream().map(Node::url).toList());
+    }
+
+    public List<Node> all() {
+        return nodes;
+    }
+
+    /**
+     * Chooses the node for the next call.
+     *
+     * @param excluded nodes that must not be chosen, e.g. nodes that already failed the call
+     * @return the chosen node, or empty if all nodes are excluded
+     */
+    public Optional<Node> select(Set<Node> excluded) {
+        long now = System.nanoTime();
+        List<Node> candidates = nodes.stream()
+                                     .filter(node -> !excluded.contains(node) && node.isAvailable(now))
+                                     .toList();
+        if (candidates.isEmpty()) {
+            // All the remaining nodes failed recently, one of them may have recovered
+            candidates = nodes.stream().filter(node -> !excluded.contains(node)).toList();
+        }
+        if (candidates.size() <= 1) {
+            return candidates.stream().findFirst();
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Node a = candidates.get(first);
+        Node b = candidates.get(second);
+        return Optional.of(a.cost(now) <= b.cost(now) ? a : b);
+    }
+
+    /**
+     * Whether the call failed because the connection to the node could not be established, in which case
+     * the request was not sent and can be sent to another node right away.
+     */
+    public static boolean isConnectionFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException
+                    || cause instanceof ConnectTimeoutException
+                    || cause instanceof NoRouteToHostException
+                    || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the response status tells the node is overloaded or temporarily unavailable, so the request may
+     * succeed when it is sent again later.
+     */
+    public static boolean isRetryableStatus(int statusCode) {
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * Error of a call which failed with the response status, retryable only when the node may recover from it.
+     */
+    public static TextErrorWithRetryIndication statusError(int statusCode, String error) {
+        return isRetryableStatus(statusCode)
+                ? TextErrorWithRetryIndication.doRetry(error)
+                : TextErrorWithRetryIndication.doNotRetry(error);
+    }
+
+    public final class Node {
+
+        private final String url;
+        private int inFlight;
+        private boolean latencySampled;
+        private double latencyNanos;
+        private long latencyUpdatedAt;
+        private long unavailableUntil;
+
+        private Node(String url) {
+            this.url = url;
+        }
+
+        public String url() {
+            return url;
+        }
+
+        /**
+         * Records the start of a call to the node.
+         *
+         * @return the start time to pass to {@link #callCompleted(long)}
+         */
+        public synchronized long callStarted() {
+            inFlight++;
+            return System.nanoTime();
+        }
+
+        /**
+         * Records a call that got a response from the node, successful or not.
+         */
+        public synchronized void callCompleted(long startedAt) {
+            long now = System.nanoTime();
+            long sample = now - startedAt;
+            inFlight--;
+            latencyNanos = latencySampled ? sample + (latencyNanos - sample) * weight(now) : sample;
+            latencySampled = true;
+            latencyUpdatedAt = now;
+            unavailableUntil = 0;
+        }
+
+        /**
+         * Records a call that was cancelled before the node answered, without a latency sample.
+         */
+        public synchronized void callAbandoned() {
+            inFlight--;
+        }
+
+        /**
+         * Records a call that could not connect to the node.
+         */
+        public synchronized void callFailed() {
+            inFlight--;
+            unavailableUntil = System.nanoTime() + failureCooldownNanos;
+        }
+
+        synchronized boolean isAvailable(long now) {
+            return unavailableUntil == 0 || now - unavailableUntil >= 0;
+        }
+
+        synchronized double cost(long now) {
+            return (decayedLatency(now) + 1) * (inFlight + 1);
+        }
+
+        private double decayedLatency(long now) {
+            return latencySampled ? latencyNanos * weight(now) : 0;
+        }
+
+        private double weight(long now) {
+            return Math.exp(-(double) (now - latencyUpdatedAt) / DECAY_NANOS);
+        }
+
+        @Override
+        public String toString() {
+            return url;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.czertainly.csc.clients.signserver.rest;
+
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Client of the SignServer process API that lets the caller fan out several signing calls and collect their
+ * results later.
+ */
+public interface SignserverProcessClient {
+
+    /**
+     * Calls the process API of the worker.
+     *
+     * @param workerName the name of the worker
+     * @param data       the data to process, encoded according to the encoding
+     * @param metadata   the metadata of the request
+     * @param encoding   the encoding of the data
+     * @return future completed with the base64 encoded data of the response, never completed exceptionally
+     */
+    CompletableFuture<Result<byte[], TextError>> processAsync(String workerName, byte[] data,
+                                                             Map<String, String> metadata,
+                                                             SignserverProcessEncoding encoding
+    );
+
+    /**
+     * Tells whether the calls are made without blocking a thread each, so that fanning out many calls at once
+     * is cheaper than sending them in a batch.
+     */
+    default boolean isNonBlocking() {
+        return false;
+    }
+}
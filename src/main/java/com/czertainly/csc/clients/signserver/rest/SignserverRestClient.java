@@ -1,52 +1,70 @@
 package com.czertainly.csc.clients.signserver.rest;
 
-import com.czertainly.csc.common.errorhandling.ErrorResultRetryException;
+import com.czertainly.csc.common.io.ByteSink;
 import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.common.result.TextErrorWithRetryIndication;
 import com.czertainly.csc.configuration.SignApiAuthorization;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Base64;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
-@Retryable(
-        retryFor = {ErrorResultRetryException.class},
-        maxAttempts = 3,
-        backoff = @Backoff(delay = 1000, multiplier = 2),
-        listeners = {"resultRetryListener"})
+@Retryable(interceptor = "signserverRetryInterceptor")
 public class SignserverRestClient {
 
     public static final Logger logger = LoggerFactory.getLogger(SignserverRestClient.class);
 
     public static final String WORKERS_REST_API_PATH = "/rest/v1/";
     public static final String WORKER_PROCESS_REST_API_PATH = WORKERS_REST_API_PATH + "workers/{workerName}/process";
+    public static final String HEALTH_CHECK_PATH = "/healthcheck/signserverhealth";
 
     private final RestClient restClient;
+    private final SignserverNodes nodes;
+    private final SignserverHedging hedging;
     private final String basicAuthHeader;
+    private final JsonFactory jsonFactory;
 
 
     public SignserverRestClient(
-            @Value("${signingProvider.signserver.url}") String signserverUrl,
+            SignserverNodes nodes,
+            SignserverHedging hedging,
             @Value("${signingProvider.signserver.client.authType}") SignApiAuthorization authzType,
             @Value("${signingProvider.signserver.client.basic.username}") String basicAuthUsername,
             @Value("${signingProvider.signserver.client.basic.password}") String basicAuthPassword,
-            @Qualifier("signserverRequestFactory") HttpComponentsClientHttpRequestFactory requestFactory
+            @Qualifier("signserverRequestFactory") HttpComponentsClientHttpRequestFactory requestFactory,
+            ObjectMapper objectMapper
     ) {
-        logger.debug("Creating SignserverRestClient with base URL: {}", signserverUrl);
-        restClient = RestClient.builder().requestFactory(requestFactory).baseUrl(signserverUrl).build();
+        logger.debug("Creating SignserverRestClient.");
+        this.nodes = nodes;
+        this.hedging = hedging;
+        jsonFactory = objectMapper.getFactory();
+        restClient = RestClient.builder().requestFactory(requestFactory).build();
         if (authzType == SignApiAuthorization.BASIC) {
             basicAuthHeader = "Basic " + Base64.getEncoder().encodeToString(
                     (basicAuthUsername + ":" + basicAuthPassword).getBytes());
@@ -64,12 +82,40 @@ public class SignserverRestClient {
                              .map(e -> e.getKey() + "=" + e.getValue())
                              .collect(Collectors.joining(", "))
         );
-        final String requestData;
-        requestData = new String(data);
+        WorkerProcessRequest workerProcessRequest = new WorkerProcessRequest(data, metadata, encoding);
+        return processOnNodes(workerName, new HashSet<>(), processCall(workerName, workerProcessRequest));
+    }
+
+    /**
+     * Calls the process API like {@link #process}, and when the call is slow, sends the same call to another
+     * SignServer node and uses the response that arrives first, see {@link SignserverHedging}. Only calls that
+     * may be made twice should be hedged, e.g. signing with a key that can be used repeatedly.
+     *
+     * @param workerName the name of the worker
+     * @param data       the data to process, encoded according to the encoding
+     * @param metadata   the metadata of the request
+     * @param encoding   the encoding of the data
+     * @return the base64 encoded data of the response
+     */
+    public Result<byte[], TextError> processHedged(String workerName, byte[] data, Map<String, String> metadata,
+                                                   SignserverProcessEncoding encoding
+    ) {
+        if (!hedging.isEnabled() || nodes.all().size() < 2) {
+            return process(workerName, data, metadata, encoding);
+        }
+        logger.debug("Calling Signserver process API with hedging. WorkerName: {}, Encoding: {}", workerName,
+                     encoding
+        );
+        var call = processCall(workerName, new WorkerProcessRequest(data, metadata, encoding));
+        return hedging.execute(usedNodes -> processOnNodes(workerName, usedNodes, call));
+    }
 
-        WorkerProcessRequest workerProcessRequest = new WorkerProcessRequest(requestData, metadata, encoding);
-        try {
-            WorkerProcessResponse response = restClient.post().uri(WORKER_PROCESS_REST_API_PATH, workerName)
+    private Function<SignserverNodes.Node, Result<byte[], TextError>> processCall(
+            String workerName, WorkerProcessRequest workerProcessRequest
+    ) {
+        return node -> {
+            WorkerProcessResponse response = restClient.post()
+                                                       .uri(node.url() + WORKER_PROCESS_REST_API_PATH, workerName)
                                                        .body(workerProcessRequest)
                                                        .contentType(MediaType.APPLICATION_JSON)
                                                        .header("Authorization", basicAuthHeader)
@@ -81,13 +127,177 @@ public class SignserverRestClient {
                 return Result.error(
                         TextErrorWithRetryIndication.doNotRetry("Processing failed on worker " + workerName));
             }
-            return Result.success(response.data().getBytes());
-        } catch (ResourceAccessException e) {
-            logger.error("Processing failed on worker {}", workerName, e);
-            return Result.error(TextErrorWithRetryIndication.doRetry("Processing failed on worker " + workerName));
-        } catch (Exception e) {
-            logger.error("Processing has failed on worker {}", workerName, e);
-            return Result.error(TextErrorWithRetryIndication.doNotRetry("Processing failed on worker " + workerName));
+            return Result.success(response.data());
+        };
+    }
+
+    /**
+     * Calls the health check of every SignServer node. The call has no side effects, it is used to open
+     * connections to SignServer.
+     *
+     * @return success if all the nodes report they are healthy
+     */
+    public Result<Void, TextError> checkHealth() {
+        Result<Void, TextError> result = Result.emptySuccess();
+        for (SignserverNodes.Node node : nodes.all()) {
+            logger.debug("Calling Signserver health check on node {}.", node.url());
+            try {
+                restClient.get().uri(node.url() + HEALTH_CHECK_PATH)
+                          .retrieve()
+                          .toBodilessEntity();
+            } catch (ResourceAccessException e) {
+                logger.error("Signserver health check has failed on node {}.", node.url(), e);
+                result = Result.error(TextErrorWithRetryIndication.doRetry("Signserver health check has failed."));
+            } catch (Exception e) {
+                logger.error("Signserver health check has failed on node {}.", node.url(), e);
+                result = Result.error(TextErrorWithRetryIndication.doNotRetry("Signserver health check has failed."));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calls the process API without holding the data or the response in memory. The request is written with
+     * the streaming JSON generator, the data being base64 encoded on the fly while read from the source, and
+     * the data of the response are decoded incrementally into the sink.
+     *
+     * @param workerName   the name of the worker
+     * @param data         the source of the data to process
+     * @param metadata     the metadata of the request
+     * @param responseSink the sink the decoded data of the response are written to
+     * @return success if the response data were written to the sink
+     */
+    public Result<Void, TextError> processStreaming(String workerName, InputStreamSource data,
+                                                    Map<String, String> metadata, ByteSink responseSink
+    ) {
+        logger.debug("Calling Signserver process API with streamed data. WorkerName: {}, metadata: [{}]",
+                     workerName,
+                     metadata.entrySet().stream()
+                             .map(e -> e.getKey() + "=" + e.getValue())
+                             .collect(Collectors.joining(", "))
+        );
+        return processOnNodes(workerName, new HashSet<>(), node -> restClient
+                .post().uri(node.url() + WORKER_PROCESS_REST_API_PATH, workerName)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Authorization", basicAuthHeader)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(outputStream -> writeProcessRequest(outputStream, data, metadata))
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        logger.error("Processing failed on worker {}. Response status: {}", workerName,
+                                     response.getStatusCode()
+                        );
+                        return Result.error(SignserverNodes.statusError(
+                                response.getStatusCode().value(), "Processing failed on worker " + workerName));
+                    }
+                    return readProcessResponse(response.getBody(), responseSink, workerName);
+                }));
+    }
+
+    /*
+     * Makes the call on the node chosen by the latency-aware selection among the nodes not used yet. When
+     * the connection to the node can't be established, the request has not been sent, so it is sent to another
+     * node right away instead of waiting for the backoff of the retries.
+     */
+    private <T> Result<T, TextError> processOnNodes(String workerName, Set<SignserverNodes.Node> usedNodes,
+                                                    Function<SignserverNodes.Node, Result<T, TextError>> call
+    ) {
+        Optional<SignserverNodes.Node> selected;
+        while ((selected = nodes.select(usedNodes)).isPresent()) {
+            SignserverNodes.Node node = selected.get();
+            usedNodes.add(node);
+            long startedAt = node.callStarted();
+            try {
+                Result<T, TextError> result = call.apply(node);
+                node.callCompleted(startedAt);
+                return result;
+            } catch (ResourceAccessException e) {
+                if (SignserverNodes.isConnectionFailure(e)) {
+                    node.callFailed();
+                    logger.warn("Failed to connect to Signserver node {}, processing on worker {} fails over to "
+                                        + "another node. {}", node.url(), workerName, e.getMessage()
+                    );
+                    continue;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    // The call was cancelled before the node answered, its duration says nothing of the node
+                    node.callAbandoned();
+                    logger.debug("Processing on worker {} was cancelled.", workerName);
+                    return Result.error(TextErrorWithRetryIndication.doNotRetry(
+                            "Processing on worker " + workerName + " was cancelled"));
+                }
+                node.callCompleted(startedAt);
+                logger.error("Processing failed on worker {}", workerName, e);
+                return Result.error(
+                        TextErrorWithRetryIndication.doRetry("Processing failed on worker " + workerName));
+            } catch (RestClientResponseException e) {
+                node.callCompleted(startedAt);
+                logger.error("Processing failed on worker {}. Response status: {}", workerName,
+                             e.getStatusCode().value(), e
+                );
+                return Result.error(SignserverNodes.statusError(e.getStatusCode().value(),
+                                                                "Processing failed on worker " + workerName
+                ));
+            } catch (Exception e) {
+                node.callCompleted(startedAt);
+                logger.error("Processing has failed on worker {}", workerName, e);
+                return Result.error(
+                        TextErrorWithRetryIndication.doNotRetry("Processing failed on worker " + workerName));
+            }
+        }
+        logger.error("Processing failed on worker {}, no Signserver node could be connected.", workerName);
+        return Result.error(TextErrorWithRetryIndication.doRetry("Processing failed on worker " + workerName));
+    }
+
+    private void writeProcessRequest(OutputStream outputStream, InputStreamSource data,
+                                     Map<String, String> metadata
+    ) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(outputStream);
+             InputStream dataStream = data.getInputStream()) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeFieldName("data");
+            generator.writeBinary(dataStream, -1);
+            generator.writeObjectFieldStart("metaData");
+            for (var entry : metadata.entrySet()) {
+                generator.writeStringField(entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+            // SignserverProcessEncoding.BASE64 - the data are base64 encoded by the generator, and we instruct
+            // Signserver to decode them so the signer receives the original data.
+            generator.writeStringField("encoding", SignserverProcessEncoding.BASE64.toString());
+            generator.writeEndObject();
+        }
+    }
+
+    private Result<Void, TextError> readProcessResponse(InputStream body, ByteSink responseSink,
+                                                        String workerName
+    ) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                logger.error("Processing failed on worker {}. The response is not a JSON object.", workerName);
+                return Result.error(
+                        TextErrorWithRetryIndication.doNotRetry("Processing failed on worker " + workerName));
+            }
+            boolean dataRead = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+                if ("data".equals(fieldName) && valueToken == JsonToken.VALUE_STRING) {
+                    try (OutputStream sinkStream = responseSink.openStream()) {
+                        parser.readBinaryValue(sinkStream);
+                    }
+                    dataRead = true;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (!dataRead) {
+                logger.error("Processing failed on worker {}. The response contains no data.", workerName);
+                return Result.error(
+                        TextErrorWithRetryIndication.doNotRetry("Processing failed on worker " + workerName));
+            }
+            return Result.emptySuccess();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package com.czertainly.csc.clients.signserver.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes and reads the {@code data} of the process API, which is a JSON string holding the UTF-8 text of the
+ * data (e.g. base64 encoded hashes and signatures), directly from and to bytes, without creating a {@link String}
+ * of it in between. Unlike the default handling of {@code byte[]}, the data are not base64 encoded once more.
+ */
+final class Utf8StringBytes {
+
+    private Utf8StringBytes() {
+    }
+
+    static class Serializer extends StdSerializer<byte[]> {
+
+        Serializer() {
+            super(byte[].class);
+        }
+
+        @Override
+        public void serialize(byte[] value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            // The characters which must be escaped in JSON are escaped by the generator
+            try {
+                generator.writeUTF8String(value, 0, value.length);
+            } catch (UnsupportedOperationException e) {
+                // Generators writing characters, not bytes, take only strings
+                generator.writeString(new String(value, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    static class Deserializer extends StdDeserializer<byte[]> {
+
+        Deserializer() {
+            super(byte[].class);
+        }
+
+        @Override
+        public byte[] deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() != JsonToken.VALUE_STRING) {
+                return (byte[]) context.handleUnexpectedToken(byte[].class, parser);
+            }
+            // The characters are encoded from the buffer of the parser
+            CharBuffer characters = CharBuffer.wrap(parser.getTextCharacters(), parser.getTextOffset(),
+                                                    parser.getTextLength()
+            );
+            ByteBuffer encoded = StandardCharsets.UTF_8.encode(characters);
+            byte[] value = new byte[encoded.remaining()];
+            encoded.get(value);
+            return value;
+        }
+    }
+}
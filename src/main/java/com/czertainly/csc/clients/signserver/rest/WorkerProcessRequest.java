@@ -1,6 +1,15 @@
 package com.czertainly.csc.clients.signserver.rest;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 import java.util.Map;
 
-public record WorkerProcessRequest(String data, Map<String, String> metaData, SignserverProcessEncoding encoding) {
+public record WorkerProcessRequest(
+        @JsonSerialize(using = Utf8StringBytes.Serializer.class)
+        @JsonDeserialize(using = Utf8StringBytes.Deserializer.class)
+        byte[] data,
+        Map<String, String> metaData,
+        SignserverProcessEncoding encoding
+) {
 }
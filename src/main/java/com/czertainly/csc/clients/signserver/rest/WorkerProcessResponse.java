@@ -1,7 +1,17 @@
 package com.czertainly.csc.clients.signserver.rest;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 import java.util.Map;
 
-public record WorkerProcessResponse(String data, String requestId, String archiveId, Map<String, String> metaData,
-                                    String signerCertificate) {
+public record WorkerProcessResponse(
+        @JsonSerialize(using = Utf8StringBytes.Serializer.class)
+        @JsonDeserialize(using = Utf8StringBytes.Deserializer.class)
+        byte[] data,
+        String requestId,
+        String archiveId,
+        Map<String, String> metaData,
+        String signerCertificate
+) {
 }
@@ -1,14 +1,12 @@
 package com.czertainly.csc.clients.signserver.ws;
 
 import com.czertainly.csc.clients.signserver.ws.dto.*;
-import com.czertainly.csc.common.errorhandling.ErrorResultRetryException;
 import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.common.result.TextErrorWithRetryIndication;
 import jakarta.xml.bind.JAXBElement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.ws.client.WebServiceIOException;
 import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
@@ -16,11 +14,7 @@ import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
 import java.util.Base64;
 import java.util.List;
 
-@Retryable(
-        retryFor = {ErrorResultRetryException.class},
-        maxAttempts = 3,
-        backoff = @Backoff(delay = 1000, multiplier = 2),
-        listeners = {"resultRetryListener"})
+@Retryable(interceptor = "signserverRetryInterceptor")
 public class SignserverWsClient extends WebServiceGatewaySupport {
 
     private static final Logger logger = LoggerFactory.getLogger(SignserverWsClient.class);
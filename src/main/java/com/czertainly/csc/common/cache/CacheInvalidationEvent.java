@@ -0,0 +1,10 @@
+package com.czertainly.csc.common.cache;
+
+/**
+ * Invalidation of an entry of a named cache.
+ *
+ * @param cacheName name of the cache
+ * @param key       key of the invalidated entry
+ */
+public record CacheInvalidationEvent(String cacheName, String key) {
+}
@@ -0,0 +1,16 @@
+package com.czertainly.csc.common.cache;
+
+/**
+ * Propagates invalidations of locally cached entries to the other nodes of the cluster. Caches call all
+ * registered hooks whenever an entry is invalidated because the underlying data has changed.
+ */
+public interface CacheInvalidationHook {
+
+    /**
+     * Called after an entry was invalidated in the local cache.
+     *
+     * @param cacheName name of the cache
+     * @param key       key of the invalidated entry
+     */
+    void invalidated(String cacheName, String key);
+}
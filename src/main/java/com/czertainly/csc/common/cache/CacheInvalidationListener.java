@@ -0,0 +1,23 @@
+package com.czertainly.csc.common.cache;
+
+/**
+ * Local cache that receives invalidations published by the other nodes of the cluster.
+ */
+public interface CacheInvalidationListener {
+
+    /**
+     * @return name of the cache the listener is interested in
+     */
+    String cacheName();
+
+    /**
+     * Called when another node invalidated the entry with the given key.
+     */
+    void onInvalidation(String key);
+
+    /**
+     * Called when invalidations from other nodes may have been missed, e.g. after the connection to the
+     * database was lost. The listener should drop all its entries.
+     */
+    void onInvalidateAll();
+}
@@ -0,0 +1,196 @@
+package com.czertainly.csc.common.concurrency;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the number of operations running at once. Operations exceeding the limit wait in the order of arrival
+ * in a bounded queue, and are rejected immediately when the queue is full.
+ * <p>
+ * When adaptive, the limit follows the observed latency of the operations. The latency is tracked as a short-term
+ * and a long-term average; as long as the short-term latency stays within the tolerance of the long-term latency,
+ * the limit grows, and when the latency rises above it, the limit shrinks proportionally. The limit grows only
+ * while it is actually used, so it doesn't drift upwards when the load is low.
+ */
+public class ConcurrencyLimiter {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 500;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueueSize;
+    private final Duration queueTimeout;
+    private final boolean adaptive;
+    private final double latencyTolerance;
+    private final LongSupplier clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Deque<Object> waiting = new ArrayDeque<>();
+    private double limit;
+    private int inFlight = 0;
+    private double shortLatency = 0;
+    private double longLatency = 0;
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueueSize, Duration queueTimeout,
+                              boolean adaptive, double latencyTolerance
+    ) {
+        this(initialLimit, minLimit, maxLimit, maxQueueSize, queueTimeout, adaptive, latencyTolerance,
+             System::nanoTime
+        );
+    }
+
+    ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueueSize, Duration queueTimeout,
+                       boolean adaptive, double latencyTolerance, LongSupplier clock
+    ) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limits must be at least 1 and the maximum limit must " +
+                                                       "not be lower than the minimum limit.");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueueSize = maxQueueSize;
+        this.queueTimeout = queueTimeout;
+        this.adaptive = adaptive;
+        this.latencyTolerance = latencyTolerance;
+        this.clock = clock;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Acquires a permit to run an operation, waiting in the queue if the limit is reached.
+     *
+     * @return the permit, or empty optional if the queue is full or the permit could not be acquired in time
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Optional<Permit> tryAcquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (waiting.isEmpty() && inFlight < currentLimit()) {
+                return Optional.of(grant());
+            }
+            if (waiting.size() >= maxQueueSize) {
+                return Optional.empty();
+            }
+
+            long deadline = System.nanoTime() + queueTimeout.toNanos();
+            Object ticket = new Object();
+            waiting.addLast(ticket);
+            try {
+                while (waiting.peekFirst() != ticket || inFlight >= currentLimit()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return Optional.empty();
+                    }
+                    released.awaitNanos(remaining);
+                }
+                return Optional.of(grant());
+            } finally {
+                waiting.remove(ticket);
+                released.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private Permit grant() {
+        inFlight++;
+        return new Permit(clock.getAsLong());
+    }
+
+    private void release(long latency) {
+        lock.lock();
+        try {
+            if (adaptive) {
+                updateLimit(latency);
+            }
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void updateLimit(long latency) {
+        if (longLatency == 0) {
+            shortLatency = latency;
+            longLatency = latency;
+        } else {
+            shortLatency += (latency - shortLatency) / SHORT_WINDOW;
+            longLatency += (latency - longLatency) / LONG_WINDOW;
+        }
+        // Let the long-term latency recover quickly once the load is gone
+        if (longLatency > 2 * shortLatency) {
+            longLatency *= 0.95;
+        }
+        if (inFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.clamp(latencyTolerance * longLatency / shortLatency, MIN_GRADIENT, 1.0);
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = Math.clamp(limit * (1 - SMOOTHING) + newLimit * SMOOTHING, minLimit, maxLimit);
+    }
+
+    /**
+     * Permit to run an operation. Closing the permit ends the operation and records its latency, closing it
+     * repeatedly has no effect.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final long startTime;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private Permit(long startTime) {
+            this.startTime = startTime;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(Math.max(1, clock.getAsLong() - startTime));
+            }
+        }
+    }
+}
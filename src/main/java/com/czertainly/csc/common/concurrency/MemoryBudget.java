@@ -0,0 +1,115 @@
+package com.czertainly.csc.common.concurrency;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the total number of bytes held by operations running at once. Operations reserve their size before
+ * they start and release it when they finish. Operations that don't fit wait in the order of arrival, so large
+ * operations are not starved by smaller ones.
+ * <p>
+ * Reservations larger than the capacity are limited to the capacity, so such operations run only when
+ * nothing else holds the budget.
+ */
+public class MemoryBudget {
+
+    private final long capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Deque<Object> waiting = new ArrayDeque<>();
+    private long used = 0;
+
+    public MemoryBudget(long capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity of the memory budget must be greater than 0.");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Reserves the given number of bytes, waiting until they are available.
+     *
+     * @param bytes   number of bytes to reserve
+     * @param timeout how long to wait for the bytes to become available
+     * @return the reservation, or empty optional if the bytes could not be reserved in time
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Optional<Reservation> tryReserve(long bytes, Duration timeout) throws InterruptedException {
+        long amount = Math.min(Math.max(bytes, 0), capacity);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Object ticket = new Object();
+        lock.lockInterruptibly();
+        try {
+            waiting.addLast(ticket);
+            try {
+                while (waiting.peekFirst() != ticket || used + amount > capacity) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return Optional.empty();
+                    }
+                    released.awaitNanos(remaining);
+                }
+                used += amount;
+                return Optional.of(new Reservation(amount));
+            } finally {
+                // The next waiting operation may fit into the remaining budget
+                waiting.remove(ticket);
+                released.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public long used() {
+        lock.lock();
+        try {
+            return used;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long amount) {
+        lock.lock();
+        try {
+            used -= amount;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Bytes reserved in the budget. Closing the reservation releases the bytes, closing it repeatedly has no effect.
+     */
+    public final class Reservation implements AutoCloseable {
+
+        private final long amount;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private Reservation(long amount) {
+            this.amount = amount;
+        }
+
+        public long amount() {
+            return amount;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(amount);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.czertainly.csc.common.concurrency;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate of operations separately for each key using token buckets. The bucket of each key holds up to
+ * the capacity of tokens and is refilled at a constant rate; every operation takes one token and operations
+ * finding the bucket empty are rejected. The capacity is thus the burst a key may make after being idle, and
+ * the refill rate is the rate it may keep up in the long term.
+ * <p>
+ * Buckets are kept in memory only for the most recently used keys. When there are more keys than the buckets
+ * kept, the least recently used keys are forgotten and start again with a full bucket.
+ */
+public class RateLimiter {
+
+    private static final long NANOS_PER_SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final int capacity;
+    private final double nanosPerToken;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Bucket> buckets;
+
+    /**
+     * @param capacity        maximum number of tokens in the bucket of a key
+     * @param refillPerSecond number of tokens added to the bucket of a key every second
+     * @param maxKeys         maximum number of keys whose buckets are kept
+     */
+    public RateLimiter(int capacity, double refillPerSecond, int maxKeys) {
+        this(capacity, refillPerSecond, maxKeys, System::nanoTime);
+    }
+
+    RateLimiter(int capacity, double refillPerSecond, int maxKeys, LongSupplier clock) {
+        if (capacity < 1 || refillPerSecond <= 0 || maxKeys < 1) {
+            throw new IllegalArgumentException("Capacity of the rate limiter, its refill rate and the number " +
+                                                       "of keys must be greater than 0.");
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = NANOS_PER_SECOND / refillPerSecond;
+        this.clock = clock;
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                return size() > maxKeys;
+            }
+        };
+    }
+
+    /**
+     * Takes a token from the bucket of the given key.
+     *
+     * @param key the key the operation is accounted to
+     * @return the decision whether the operation may run
+     */
+    public synchronized Decision tryAcquire(String key) {
+        long now = clock.getAsLong();
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, now));
+        bucket.refill(now);
+        if (bucket.tokens >= 1) {
+            bucket.tokens -= 1;
+            return new Decision(true, (int) bucket.tokens, Duration.ZERO);
+        }
+        long wait = (long) Math.ceil((1 - bucket.tokens) * nanosPerToken);
+        return new Decision(false, 0, Duration.ofNanos(wait));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized int keys() {
+        return buckets.size();
+    }
+
+    private final class Bucket {
+
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) / nanosPerToken);
+            refilledAt = now;
+        }
+    }
+
+    /**
+     * Decision of the rate limiter.
+     *
+     * @param permitted  whether the operation may run
+     * @param remaining  number of operations the key may still run without waiting
+     * @param retryAfter time after which a rejected operation may be retried, zero for permitted operations
+     */
+    public record Decision(boolean permitted, int remaining, Duration retryAfter) {}
+}
@@ -0,0 +1,184 @@
+package com.czertainly.csc.common.concurrency;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares a limited number of concurrent operations between classes of operations.
+ * <p>
+ * Each class can reserve part of the capacity, which is kept free for it even if other classes are waiting, so
+ * the class is guaranteed to be served without delay up to its reservation. The rest of the capacity is shared:
+ * when operations of several classes wait, they are admitted in proportion to the weights of their classes,
+ * and a class that has no waiting operations leaves its share to the others. Operations of the same class are
+ * admitted in the order of arrival.
+ *
+ * @param <K> the type of the classes of operations
+ */
+public class WeightedFairScheduler<K extends Enum<K>> {
+
+    private final int capacity;
+    private final Map<K, ClassState> classes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private int inFlight = 0;
+    private double virtualTime = 0;
+
+    /**
+     * @param type     the type of the classes
+     * @param capacity maximum number of operations running at once
+     * @param weights  weights of the classes, classes without a weight have weight 1
+     * @param reserved capacity reserved for the classes, classes without a reservation reserve nothing
+     */
+    public WeightedFairScheduler(Class<K> type, int capacity, Map<K, Integer> weights, Map<K, Integer> reserved) {
+        int totalReserved = reserved.values().stream().mapToInt(Integer::intValue).sum();
+        if (capacity < 1 || totalReserved >= capacity) {
+            throw new IllegalArgumentException("Capacity of the scheduler must be greater than the capacity " +
+                                                       "reserved for the classes of operations.");
+        }
+        this.capacity = capacity;
+        this.classes = new EnumMap<>(type);
+        for (K key : type.getEnumConstants()) {
+            int weight = weights.getOrDefault(key, 1);
+            if (weight < 1) {
+                throw new IllegalArgumentException("Weight of the class '" + key + "' must be greater than 0.");
+            }
+            classes.put(key, new ClassState(weight, reserved.getOrDefault(key, 0)));
+        }
+    }
+
+    /**
+     * Acquires a permit to run an operation of the given class, waiting until the operation may run.
+     *
+     * @param key     the class of the operation
+     * @param timeout how long to wait for the permit
+     * @return the permit, or empty optional if the permit could not be acquired in time
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Optional<Permit> tryAcquire(K key, Duration timeout) throws InterruptedException {
+        ClassState state = classes.get(key);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Object ticket = new Object();
+        lock.lockInterruptibly();
+        try {
+            if (state.waiting.isEmpty() && state.inFlight == 0) {
+                // An idle class doesn't get credit for the time it wasn't used
+                state.pass = Math.max(state.pass, virtualTime);
+            }
+            state.waiting.addLast(ticket);
+            try {
+                while (state.waiting.peekFirst() != ticket || nextClass() != state) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return Optional.empty();
+                    }
+                    released.awaitNanos(remaining);
+                }
+                state.inFlight++;
+                inFlight++;
+                virtualTime = state.pass;
+                state.pass += 1.0 / state.weight;
+                return Optional.of(new Permit(state));
+            } finally {
+                state.waiting.remove(ticket);
+                released.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight(K key) {
+        lock.lock();
+        try {
+            return classes.get(key).inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued(K key) {
+        lock.lock();
+        try {
+            return classes.get(key).waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Selects the class whose operation runs next: the class with waiting operations that has received
+     * the smallest share of the capacity relative to its weight, among the classes that fit into the capacity
+     * not reserved for the other classes.
+     */
+    private ClassState nextClass() {
+        ClassState next = null;
+        for (ClassState state : classes.values()) {
+            if (!state.waiting.isEmpty() && canRun(state) && (next == null || state.pass < next.pass)) {
+                next = state;
+            }
+        }
+        return next;
+    }
+
+    private boolean canRun(ClassState state) {
+        int reservedForOthers = 0;
+        for (ClassState other : classes.values()) {
+            if (other != state) {
+                reservedForOthers += Math.max(0, other.reserved - other.inFlight);
+            }
+        }
+        return inFlight + reservedForOthers < capacity;
+    }
+
+    private void release(ClassState state) {
+        lock.lock();
+        try {
+            state.inFlight--;
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class ClassState {
+
+        private final int weight;
+        private final int reserved;
+        private final Deque<Object> waiting = new ArrayDeque<>();
+        private int inFlight = 0;
+        private double pass = 0;
+
+        private ClassState(int weight, int reserved) {
+            this.weight = weight;
+            this.reserved = reserved;
+        }
+    }
+
+    /**
+     * Permit to run an operation. Closing the permit ends the operation, closing it repeatedly has no effect.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final ClassState state;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private Permit(ClassState state) {
+            this.state = state;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(state);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.czertainly.csc.common.deadline;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Point in time by which the handling of a request must be finished. The deadline of the request handled by
+ * the current thread is bound to the thread, so that the calls made on behalf of the request can find out how
+ * much time is left without passing it through every method.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * @param timeout the time from now in which the deadline expires
+     * @return the deadline
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * @return the deadline bound to the current thread, or empty if the current thread has no deadline
+     */
+    public static Optional<Deadline> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * @return whether the current thread has a deadline and it already expired
+     */
+    public static boolean currentExpired() {
+        Deadline deadline = CURRENT.get();
+        return deadline != null && deadline.isExpired();
+    }
+
+    /**
+     * Runs the call with the given deadline bound to the current thread, or with no deadline if it is empty,
+     * e.g. to run a cleanup that must not be cut short by the deadline of the request.
+     */
+    public static <T> T callWith(Optional<Deadline> deadline, Supplier<T> call) {
+        try (var ignored = bind(deadline.orElse(null))) {
+            return call.get();
+        }
+    }
+
+    /**
+     * @return the task that runs with the deadline of the current thread, for tasks run by other threads
+     * on behalf of the request
+     */
+    public static Runnable propagating(Runnable task) {
+        Deadline deadline = CURRENT.get();
+        return () -> {
+            try (var ignored = bind(deadline)) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * @see #propagating(Runnable)
+     */
+    public static <T> Callable<T> propagating(Callable<T> task) {
+        Deadline deadline = CURRENT.get();
+        return () -> {
+            try (var ignored = bind(deadline)) {
+                return task.call();
+            }
+        };
+    }
+
+    /**
+     * @return the time left until the deadline expires, zero if it already expired
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Binds the deadline to the current thread until the returned scope is closed, after which the previously
+     * bound deadline is restored.
+     *
+     * @return the scope of the binding, to be closed in the same thread
+     */
+    public Scope bind() {
+        return bind(this);
+    }
+
+    private static Scope bind(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline in " + remaining().toMillis() + " ms";
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,13 @@
+package com.czertainly.csc.common.deadline;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Thrown by the HTTP clients instead of sending a request whose deadline already expired.
+ */
+public class DeadlineExceededException extends InterruptedIOException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
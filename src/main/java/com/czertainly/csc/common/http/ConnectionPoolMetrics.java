@@ -0,0 +1,44 @@
+package com.czertainly.csc.common.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.pool.ConnPoolControl;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Registers the metrics of an HTTP client connection pool. All metrics are tagged with the name of the pool.
+ */
+final class ConnectionPoolMetrics {
+
+    private ConnectionPoolMetrics() {}
+
+    static Timer register(String poolName, ConnPoolControl<HttpRoute> pool, MeterRegistry meterRegistry) {
+        registerConnections(poolName, pool, meterRegistry, "leased", stats -> stats.getTotalStats().getLeased());
+        registerConnections(poolName, pool, meterRegistry, "available",
+                            stats -> stats.getTotalStats().getAvailable()
+        );
+        registerConnections(poolName, pool, meterRegistry, "pending", stats -> stats.getTotalStats().getPending());
+        Gauge.builder("csc.http.client.pool.max", pool, ConnPoolControl::getMaxTotal)
+             .description("Maximum number of connections in the pool")
+             .tag("pool", poolName)
+             .register(meterRegistry);
+        return Timer.builder("csc.http.client.pool.lease.wait")
+                    .description("Time spent waiting for a connection from the pool")
+                    .tag("pool", poolName)
+                    .register(meterRegistry);
+    }
+
+    private static void registerConnections(String poolName, ConnPoolControl<HttpRoute> pool,
+                                            MeterRegistry meterRegistry, String state,
+                                            ToIntFunction<ConnPoolControl<HttpRoute>> value
+    ) {
+        Gauge.builder("csc.http.client.pool.connections", pool, p -> value.applyAsInt(p))
+             .description("Connections of the pool by their state, pending are the requests waiting for one")
+             .tag("pool", poolName)
+             .tag("state", state)
+             .register(meterRegistry);
+    }
+}
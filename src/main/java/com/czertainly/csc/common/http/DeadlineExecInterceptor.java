@@ -0,0 +1,91 @@
+package com.czertainly.csc.common.http;
+
+import com.czertainly.csc.common.deadline.Deadline;
+import com.czertainly.csc.common.deadline.DeadlineExceededException;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.classic.ExecChain;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Limits the time the HTTP clients wait for a connection from the pool, for a new connection to be established
+ * and for the response to the time left until the deadline of the request the call is made for, see
+ * {@link Deadline}. Calls whose deadline already expired are not sent.
+ * <p>
+ * The blocking clients find the deadline bound to the calling thread. The non-blocking client runs the chain
+ * on its own threads, so the deadline is passed in the {@link #DEADLINE_ATTRIBUTE} of the context of the call.
+ */
+public class DeadlineExecInterceptor implements ExecChainHandler, AsyncExecChainHandler {
+
+    public static final String NAME = "deadline";
+    public static final String DEADLINE_ATTRIBUTE = "csc.deadline";
+
+    @Override
+    public ClassicHttpResponse execute(ClassicHttpRequest request, ExecChain.Scope scope, ExecChain chain)
+            throws IOException, HttpException {
+        limitTimeouts(request, scope.clientContext);
+        return chain.proceed(request, scope);
+    }
+
+    @Override
+    public void execute(HttpRequest request, AsyncEntityProducer entityProducer, AsyncExecChain.Scope scope,
+                        AsyncExecChain chain, AsyncExecCallback asyncExecCallback
+    ) throws HttpException, IOException {
+        limitTimeouts(request, scope.clientContext);
+        chain.proceed(request, entityProducer, scope, asyncExecCallback);
+    }
+
+    // The connect timeout of the request is deprecated in favour of that of the connection manager, but it is
+    // still the only one that can be set per request and it takes precedence when set
+    @SuppressWarnings("deprecation")
+    private static void limitTimeouts(HttpRequest request, HttpClientContext context) throws IOException {
+        Optional<Deadline> deadline = context.getAttribute(DEADLINE_ATTRIBUTE) instanceof Deadline attribute
+                ? Optional.of(attribute)
+                : Deadline.current();
+        if (deadline.isEmpty()) {
+            return;
+        }
+        if (deadline.get().isExpired()) {
+            throw new DeadlineExceededException(
+                    "Deadline of the request expired before " + request.getMethod() + " " + request.getRequestUri()
+                            + " was sent.");
+        }
+
+        // A zero timeout would disable the timeout instead
+        Timeout remaining = Timeout.ofMilliseconds(Math.max(1, deadline.get().remaining().toMillis()));
+        RequestConfig config = context.getRequestConfigOrDefault();
+        // The pools don't configure the connect timeout, so it is the default of the connection manager unless
+        // the request sets its own
+        Timeout connectTimeout = config.getConnectTimeout() != null
+                ? config.getConnectTimeout()
+                : ConnectionConfig.DEFAULT.getConnectTimeout();
+        context.setRequestConfig(RequestConfig.copy(config)
+                                              .setConnectionRequestTimeout(
+                                                      shorter(config.getConnectionRequestTimeout(), remaining))
+                                              .setConnectTimeout(shorter(connectTimeout, remaining))
+                                              .setResponseTimeout(shorter(config.getResponseTimeout(), remaining))
+                                              .build());
+    }
+
+    // A disabled timeout (zero) or no timeout at all waits without limit, so the remaining time is shorter
+    private static Timeout shorter(Timeout timeout, Timeout remaining) {
+        if (!TimeValue.isPositive(timeout)) {
+            return remaining;
+        }
+        return timeout.toMilliseconds() <= remaining.toMilliseconds() ? timeout : remaining;
+    }
+}
@@ -0,0 +1,74 @@
+package com.czertainly.csc.common.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.nio.AsyncConnectionEndpoint;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pooling connection manager of the non-blocking HTTP client that exports the state of the pool and the time
+ * spent waiting for a connection as metrics, see {@link ConnectionPoolMetrics}.
+ */
+public class InstrumentedAsyncClientConnectionManager extends PoolingAsyncClientConnectionManager {
+
+    private final Timer leaseWaitTimer;
+
+    public InstrumentedAsyncClientConnectionManager(String poolName, TlsStrategy tlsStrategy,
+                                                    MeterRegistry meterRegistry
+    ) {
+        super(RegistryBuilder.<TlsStrategy>create()
+                             .register(URIScheme.HTTPS.id, tlsStrategy)
+                             .build(),
+              PoolConcurrencyPolicy.STRICT, PoolReusePolicy.LIFO, TimeValue.NEG_ONE_MILLISECOND
+        );
+        this.leaseWaitTimer = ConnectionPoolMetrics.register(poolName, this, meterRegistry);
+    }
+
+    @Override
+    public Future<AsyncConnectionEndpoint> lease(String id, HttpRoute route, Object state, Timeout requestTimeout,
+                                                 FutureCallback<AsyncConnectionEndpoint> callback
+    ) {
+        long start = System.nanoTime();
+        return super.lease(id, route, state, requestTimeout, new FutureCallback<>() {
+            @Override
+            public void completed(AsyncConnectionEndpoint endpoint) {
+                recordLeaseWait(start);
+                if (callback != null) {
+                    callback.completed(endpoint);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                recordLeaseWait(start);
+                if (callback != null) {
+                    callback.failed(e);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                recordLeaseWait(start);
+                if (callback != null) {
+                    callback.cancelled();
+                }
+            }
+        });
+    }
+
+    private void recordLeaseWait(long start) {
+        leaseWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,17 @@
+package com.czertainly.csc.common.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Destination of binary data written as a stream. Every call of {@link #openStream()} starts writing the data
+ * from the beginning, so the data can be written again, e.g. when a failed call is retried.
+ */
+@FunctionalInterface
+public interface ByteSink {
+
+    /**
+     * Opens a new stream the data are written to. The caller is responsible for closing the stream.
+     */
+    OutputStream openStream() throws IOException;
+}
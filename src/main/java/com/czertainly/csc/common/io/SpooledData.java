@@ -0,0 +1,184 @@
+package com.czertainly.csc.common.io;
+
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary data held in memory while they are small and spooled to a temporary file once they grow over
+ * the threshold, so large documents and signatures don't occupy the heap. The data are written through
+ * {@link #openStream()} and can be read any number of times through {@link #getInputStream()}. The temporary
+ * file is deleted when the data are closed.
+ */
+public class SpooledData implements InputStreamSource, ByteSink, Closeable {
+
+    private static final String TEMP_FILE_PREFIX = "csc-spool-";
+    private static final String TEMP_FILE_SUFFIX = ".bin";
+
+    private final long threshold;
+    private final Path directory;
+
+    private MemoryBuffer memory = new MemoryBuffer(new byte[0]);
+    private Path file;
+    private long size;
+
+    /**
+     * @param threshold the maximal number of bytes held in memory
+     * @param directory the directory of the temporary file, or {@code null} to use the system temporary directory
+     */
+    public SpooledData(long threshold, Path directory) {
+        this.threshold = threshold;
+        this.directory = directory;
+    }
+
+    /**
+     * Creates data held in memory regardless of their size.
+     */
+    public static SpooledData ofBytes(byte[] bytes) {
+        SpooledData data = new SpooledData(Long.MAX_VALUE, null);
+        data.memory = new MemoryBuffer(bytes);
+        data.size = bytes.length;
+        return data;
+    }
+
+    /**
+     * Opens a stream replacing the data with the bytes written to it. The data can't be read until the stream
+     * is closed.
+     */
+    @Override
+    public OutputStream openStream() throws IOException {
+        close();
+        memory = new MemoryBuffer();
+        size = 0;
+        return new SpoolingOutputStream();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        if (file != null) {
+            return Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ));
+        }
+        return memory.toInputStream();
+    }
+
+    /**
+     * @return the number of bytes of the data
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return {@code true} if the data are stored in a temporary file
+     */
+    public boolean isSpooled() {
+        return file != null;
+    }
+
+    /**
+     * Reads the whole data into memory. Meant for data known to be small, e.g. signatures of digests.
+     */
+    public byte[] toByteArray() {
+        if (file == null) {
+            return memory.toByteArray();
+        }
+        try (InputStream inputStream = getInputStream()) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read spooled data from " + file, e);
+        }
+    }
+
+    /**
+     * Deletes the temporary file with the data, if there is one.
+     */
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            Path spooledFile = file;
+            file = null;
+            Files.deleteIfExists(spooledFile);
+        }
+    }
+
+    private Path createTempFile() throws IOException {
+        return directory != null
+                ? Files.createTempFile(directory, TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX)
+                : Files.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+    }
+
+    private class SpoolingOutputStream extends OutputStream {
+
+        private OutputStream fileStream;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (fileStream == null && size + len > threshold) {
+                spill();
+            }
+            if (fileStream != null) {
+                fileStream.write(b, off, len);
+            } else {
+                memory.write(b, off, len);
+            }
+            size += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (fileStream != null) {
+                fileStream.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (fileStream != null) {
+                fileStream.close();
+            }
+        }
+
+        private void spill() throws IOException {
+            file = createTempFile();
+            fileStream = Channels.newOutputStream(FileChannel.open(file, StandardOpenOption.WRITE));
+            memory.writeTo(fileStream);
+            memory = new MemoryBuffer(new byte[0]);
+        }
+    }
+
+    /*
+     * Gives access to the written bytes without copying them.
+     */
+    private static class MemoryBuffer extends ByteArrayOutputStream {
+
+        MemoryBuffer() {
+            super();
+        }
+
+        MemoryBuffer(byte[] bytes) {
+            super(0);
+            buf = bytes;
+            count = bytes.length;
+        }
+
+        InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.czertainly.csc.common.retry;
+
+import com.czertainly.csc.common.deadline.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether the failed calls to a backend are retried and how long to wait before the retry.
+ * <p>
+ * Each operation of the backend is retried according to its rule, or the default rule of the backend if it has
+ * none. The retries of all the operations share the retry budget of the backend, so that they can't multiply
+ * the load during an outage. A retry is not made when the backoff would not end before the deadline of
+ * the request, as the retry would have no time left to succeed.
+ */
+public class BackendRetryPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackendRetryPolicy.class);
+
+    private final String backend;
+    private final RetryBudget budget;
+    private final RetryRule defaultRule;
+    private final Map<String, RetryRule> operationRules;
+    private final Counter retried;
+    private final Counter budgetExhausted;
+    private final Counter deadlineExceeded;
+
+    /**
+     * @param backend        name of the backend, used in logs and metrics
+     * @param budget         budget of the retries of the backend
+     * @param defaultRule    rule of the operations without their own rule
+     * @param operationRules rules of the operations, by the name of the operation
+     * @param meterRegistry  registry of the retry metrics
+     */
+    public BackendRetryPolicy(String backend, RetryBudget budget, RetryRule defaultRule,
+                              Map<String, RetryRule> operationRules, MeterRegistry meterRegistry
+    ) {
+        this.backend = backend;
+        this.budget = budget;
+        this.defaultRule = defaultRule;
+        this.operationRules = Map.copyOf(operationRules);
+        this.retried = retriesCounter(meterRegistry, backend, "retried");
+        this.budgetExhausted = retriesCounter(meterRegistry, backend, "budget_exhausted");
+        this.deadlineExceeded = retriesCounter(meterRegistry, backend, "deadline_exceeded");
+    }
+
+    public String backend() {
+        return backend;
+    }
+
+    /**
+     * Records a call to the backend, which adds to the retry budget. Must be called once per call, not per
+     * attempt.
+     */
+    public void recordCall() {
+        budget.deposit();
+    }
+
+    public RetryRule ruleFor(String operation) {
+        return operationRules.getOrDefault(operation, defaultRule);
+    }
+
+    /**
+     * Decides whether the operation is retried after the given number of failed attempts.
+     *
+     * @param operation      name of the operation
+     * @param failedAttempts number of the attempts that failed so far
+     * @return the backoff to wait before the retry, or empty if the operation must not be retried
+     */
+    public Optional<Duration> backoffBeforeRetry(String operation, int failedAttempts) {
+        return backoffBeforeRetry(operation, failedAttempts, Deadline.current());
+    }
+
+    /**
+     * Decides whether the operation is retried like {@link #backoffBeforeRetry(String, int)}, for calls made
+     * outside the thread handling the request.
+     *
+     * @param deadline the deadline of the request the operation is made for
+     */
+    public Optional<Duration> backoffBeforeRetry(String operation, int failedAttempts,
+                                                 Optional<Deadline> deadline
+    ) {
+        RetryRule rule = ruleFor(operation);
+        if (failedAttempts >= rule.maxAttempts()) {
+            return Optional.empty();
+        }
+
+        long bound = rule.backoffBound(failedAttempts).toNanos();
+        Duration backoff = Duration.ofNanos(bound == 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1));
+        if (deadline.isPresent() && deadline.get().remaining().compareTo(backoff) <= 0) {
+            deadlineExceeded.increment();
+            logger.info("Operation '{}' of {} is not retried, the deadline of the request is too close.",
+                        operation, backend
+            );
+            return Optional.empty();
+        }
+        if (!budget.tryWithdraw()) {
+            budgetExhausted.increment();
+            logger.warn("Operation '{}' of {} is not retried, the retry budget is exhausted.", operation, backend);
+            return Optional.empty();
+        }
+        retried.increment();
+        return Optional.of(backoff);
+    }
+
+    private static Counter retriesCounter(MeterRegistry meterRegistry, String backend, String outcome) {
+        return Counter.builder("csc.retry.retries")
+                      .description("Decisions about retrying failed calls to backends")
+                      .tag("backend", backend)
+                      .tag("outcome", outcome)
+                      .register(meterRegistry);
+    }
+}
@@ -0,0 +1,47 @@
+package com.czertainly.csc.common.retry;
+
+/**
+ * Limits the retries to a fraction of the calls using a token bucket. Every call adds the fraction of a token
+ * to the bucket and every retry takes a whole token, so the retries can't add more than the fraction of
+ * the load of a backend, e.g. during its outage, when all the calls fail. The bucket holds up to the burst of
+ * tokens and starts full, so that occasional failures can be retried even when the traffic is low.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double burst;
+    private double balance;
+
+    /**
+     * @param ratio maximum number of retries per call
+     * @param burst maximum number of retries that can be made at once after a period without failures
+     */
+    public RetryBudget(double ratio, int burst) {
+        if (ratio < 0 || burst < 0) {
+            throw new IllegalArgumentException("Ratio and burst of the retry budget must not be negative.");
+        }
+        this.ratio = ratio;
+        this.burst = burst;
+        this.balance = burst;
+    }
+
+    /**
+     * Records a call, which earns the ratio of a retry.
+     */
+    public synchronized void deposit() {
+        balance = Math.min(burst, balance + ratio);
+    }
+
+    /**
+     * Takes a retry from the budget.
+     *
+     * @return whether the budget allows the retry
+     */
+    public synchronized boolean tryWithdraw() {
+        if (balance < 1) {
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+}
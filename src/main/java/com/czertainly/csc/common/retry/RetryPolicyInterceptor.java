@@ -0,0 +1,91 @@
+package com.czertainly.csc.common.retry;
+
+import com.czertainly.csc.common.result.Error;
+import com.czertainly.csc.common.result.TextErrorWithRetryIndication;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Retries the calls of the methods of a backend client according to the {@link BackendRetryPolicy} of
+ * the backend. The name of the method is the name of the operation the rule is looked up for.
+ * <p>
+ * A call is retried when it returns an error result indicating it should be retried (see
+ * {@link TextErrorWithRetryIndication}), or when it throws an exception the given predicate accepts. When
+ * the call is not retried anymore, the result of the last attempt is returned, or its exception is thrown.
+ * The interceptor is applied by referencing its bean from {@code @Retryable(interceptor = "...")}.
+ */
+public class RetryPolicyInterceptor implements MethodInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryPolicyInterceptor.class);
+
+    private final BackendRetryPolicy policy;
+    private final Predicate<Throwable> retryableException;
+
+    /**
+     * @param policy             the retry policy of the backend
+     * @param retryableException decides which exceptions thrown by the calls are retried
+     */
+    public RetryPolicyInterceptor(BackendRetryPolicy policy, Predicate<Throwable> retryableException) {
+        this.policy = policy;
+        this.retryableException = retryableException;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String operation = invocation.getMethod().getName();
+        policy.recordCall();
+        for (int attempt = 1; ; attempt++) {
+            Object result;
+            try {
+                result = attemptOf(invocation).proceed();
+            } catch (Throwable e) {
+                if (!retryableException.test(e) || !waitBeforeRetry(operation, attempt, e.getMessage())) {
+                    throw e;
+                }
+                continue;
+            }
+
+            if (!(result instanceof Error(var error))
+                    || !(error instanceof TextErrorWithRetryIndication retryIndication)
+                    || !retryIndication.getShouldRetry()
+                    || !waitBeforeRetry(operation, attempt, retryIndication.getErrorText())) {
+                return result;
+            }
+        }
+    }
+
+    private boolean waitBeforeRetry(String operation, int attempt, String failure) {
+        Optional<Duration> backoff = policy.backoffBeforeRetry(operation, attempt);
+        if (backoff.isEmpty()) {
+            logger.info("Attempt {} of operation '{}' of {} failed and will not be retried: {}", attempt, operation,
+                        policy.backend(), failure
+            );
+            return false;
+        }
+        logger.info("Attempt {} of operation '{}' of {} failed, retrying in {} ms: {}", attempt, operation,
+                    policy.backend(), backoff.get().toMillis(), failure
+        );
+        try {
+            Thread.sleep(backoff.get());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // The invocation can proceed only once, each attempt proceeds with its own copy
+    private static MethodInvocation attemptOf(MethodInvocation invocation) {
+        if (invocation instanceof ProxyMethodInvocation proxyInvocation) {
+            return proxyInvocation.invocableClone();
+        }
+        return invocation;
+    }
+}
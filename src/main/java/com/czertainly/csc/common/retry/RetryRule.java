@@ -0,0 +1,31 @@
+package com.czertainly.csc.common.retry;
+
+import java.time.Duration;
+
+/**
+ * Rule of retrying an operation.
+ *
+ * @param maxAttempts    maximum number of attempts, including the first one
+ * @param initialBackoff upper bound of the backoff before the first retry
+ * @param maxBackoff     upper bound of the backoff before any retry
+ * @param multiplier     factor the upper bound of the backoff grows by with each retry
+ */
+public record RetryRule(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double multiplier) {
+
+    public RetryRule {
+        if (maxAttempts < 1 || initialBackoff.isNegative() || maxBackoff.isNegative() || multiplier < 1) {
+            throw new IllegalArgumentException("Invalid retry rule: at least one attempt, non-negative backoffs " +
+                                                       "and a multiplier of at least 1 are required.");
+        }
+    }
+
+    /**
+     * The upper bound of the backoff before the retry following the given number of failed attempts.
+     * The backoff itself is chosen at random between zero and the bound (full jitter), so that the retries of
+     * calls that failed at once are spread over time instead of coming at once again.
+     */
+    public Duration backoffBound(int failedAttempts) {
+        double bound = initialBackoff.toNanos() * Math.pow(multiplier, failedAttempts - 1);
+        return Duration.ofNanos((long) Math.min(bound, maxBackoff.toNanos()));
+    }
+}
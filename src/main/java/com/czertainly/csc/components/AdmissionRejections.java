@@ -0,0 +1,46 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.api.ErrorCode;
+import com.czertainly.csc.api.common.ErrorDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Writes the response of requests rejected by admission control, before they reach the controllers.
+ */
+final class AdmissionRejections {
+
+    private AdmissionRejections() {
+    }
+
+    static void writeServiceUnavailable(HttpServletResponse response, ObjectMapper objectMapper,
+                                        Duration retryAfter, String description
+    ) throws IOException {
+        writeRejection(response, objectMapper, HttpStatus.SERVICE_UNAVAILABLE, retryAfter, description);
+    }
+
+    static void writeTooManyRequests(HttpServletResponse response, ObjectMapper objectMapper,
+                                     Duration retryAfter, String description
+    ) throws IOException {
+        writeRejection(response, objectMapper, HttpStatus.TOO_MANY_REQUESTS, retryAfter, description);
+    }
+
+    private static void writeRejection(HttpServletResponse response, ObjectMapper objectMapper, HttpStatus status,
+                                       Duration retryAfter, String description
+    ) throws IOException {
+        // Retry-After is in whole seconds, round up so that the retry is not rejected again
+        long retryAfterSeconds = retryAfter.plusNanos(999_999_999).toSeconds();
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfterSeconds)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorDto(
+                ErrorCode.TEMPORARILY_UNAVAILABLE.toString(), description
+        ));
+    }
+}
@@ -0,0 +1,157 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.common.concurrency.ConcurrencyLimiter;
+import com.czertainly.csc.configuration.csc.AdmissionSettings;
+import com.czertainly.csc.configuration.csc.ConcurrencyLimitSettings;
+import com.czertainly.csc.configuration.csc.ConcurrencyLimitsSettings;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Limits the number of requests processed at once separately for each class of endpoints, so that an overload
+ * of one class doesn't slow down the others and requests don't pile up waiting for connections to SignServer
+ * and the CA. Requests over the limit wait in a bounded queue; when the queue is full or the request can't be
+ * admitted in time, it is rejected with HTTP 503 and the Retry-After header.
+ * <p>
+ * The limits adapt to the observed latency of the requests, see {@link ConcurrencyLimiter}.
+ * <p>
+ * The filter runs after {@link RateLimitFilter} and before {@link SigningAdmissionFilter}.
+ */
+@Component
+@Order(ConcurrencyLimitFilter.ORDER)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    public static final int ORDER = RateLimitFilter.ORDER + 10;
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    private final Map<EndpointClass, ConcurrencyLimiter> limiters = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejectedRequests = new EnumMap<>(EndpointClass.class);
+    private final Duration retryAfter;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(CscConfiguration cscConfiguration, ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry
+    ) {
+        AdmissionSettings admissionSettings = cscConfiguration.admission();
+        this.retryAfter = admissionSettings.retryAfter();
+        this.objectMapper = objectMapper;
+
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            ConcurrencyLimitSettings settings = endpointClass.settings.apply(admissionSettings.concurrencyLimits());
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(
+                    settings.initialLimit(), settings.minLimit(), settings.maxLimit(), settings.maxQueueSize(),
+                    settings.queueTimeout(), settings.adaptive(), settings.latencyTolerance()
+            );
+            limiters.put(endpointClass, limiter);
+
+            Gauge.builder("csc.admission.concurrency.limit", limiter, ConcurrencyLimiter::limit)
+                 .description("Current limit of the requests processed at once")
+                 .tag("endpoint", endpointClass.tag)
+                 .register(meterRegistry);
+            Gauge.builder("csc.admission.concurrency.in.flight", limiter, ConcurrencyLimiter::inFlight)
+                 .description("Requests being processed")
+                 .tag("endpoint", endpointClass.tag)
+                 .register(meterRegistry);
+            Gauge.builder("csc.admission.concurrency.queued", limiter, ConcurrencyLimiter::queued)
+                 .description("Requests waiting to be processed")
+                 .tag("endpoint", endpointClass.tag)
+                 .register(meterRegistry);
+            rejectedRequests.put(endpointClass, Counter.builder("csc.admission.concurrency.rejected")
+                                                       .description("Requests rejected because of the " +
+                                                                            "concurrency limit")
+                                                       .tag("endpoint", endpointClass.tag)
+                                                       .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return EndpointClass.of(request).isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        EndpointClass endpointClass = EndpointClass.of(request).orElseThrow();
+        ConcurrencyLimiter limiter = limiters.get(endpointClass);
+        Optional<ConcurrencyLimiter.Permit> permit;
+        try {
+            permit = limiter.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            permit = Optional.empty();
+        }
+        if (permit.isEmpty()) {
+            logger.warn("Request to {} was rejected, {} requests are in flight and {} are queued.",
+                        endpointClass.tag, limiter.inFlight(), limiter.queued()
+            );
+            rejectedRequests.get(endpointClass).increment();
+            AdmissionRejections.writeServiceUnavailable(
+                    response, objectMapper, retryAfter,
+                    "The server is processing too many requests, try again later."
+            );
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (isAsyncStarted(request)) {
+                request.getAsyncContext().addListener(new CompletionAsyncListener(permit.get()::close));
+            } else {
+                permit.get().close();
+            }
+        }
+    }
+
+    enum EndpointClass {
+        SIGN_HASH("signHash", "/csc/v2/signatures/signHash", ConcurrencyLimitsSettings::signHash),
+        SIGN_DOC("signDoc", "/csc/v2/signatures/signDoc", ConcurrencyLimitsSettings::signDoc),
+        CREDENTIALS("credentials", "/csc/v2/credentials/", ConcurrencyLimitsSettings::credentials),
+        MANAGEMENT("management", "/management/", ConcurrencyLimitsSettings::management);
+
+        private final String tag;
+        private final String pathPrefix;
+        private final Function<ConcurrencyLimitsSettings, ConcurrencyLimitSettings> settings;
+
+        EndpointClass(String tag, String pathPrefix,
+                      Function<ConcurrencyLimitsSettings, ConcurrencyLimitSettings> settings
+        ) {
+            this.tag = tag;
+            this.pathPrefix = pathPrefix;
+            this.settings = settings;
+        }
+
+        static Optional<EndpointClass> of(HttpServletRequest request) {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            for (EndpointClass endpointClass : values()) {
+                if (path.startsWith(endpointClass.pathPrefix)) {
+                    return Optional.of(endpointClass);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+}
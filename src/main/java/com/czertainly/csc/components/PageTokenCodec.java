@@ -0,0 +1,93 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Encodes the position in a list paged by credential IDs into an opaque page token, and back.
+ * The token is bound to the user and the {@code onlyValid} filter of the listing it was issued for,
+ * so it can't be used to continue a different listing, and it is signed, so clients can't forge it.
+ */
+@Component
+public class PageTokenCodec {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageTokenCodec.class);
+
+    private static final String SEPARATOR = ":";
+    private static final String SIGNATURE_SEPARATOR = ".";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    public PageTokenCodec(CscConfiguration cscConfiguration) {
+        String secret = cscConfiguration.credentials().pageTokenSecret();
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            logger.warn("No page token secret is configured (csc.credentials.pageTokenSecret), page tokens of "
+                                + "credentials/list will be accepted only by this node. Paging fails when the next "
+                                + "page is requested from another node, set the secret when running more than "
+                                + "one node.");
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+    }
+
+    public String encode(String userId, boolean onlyValid, UUID lastId) {
+        // The user ID goes last, as it is the only part which can contain the separator
+        byte[] token = (lastId + SEPARATOR + onlyValid + SEPARATOR + userId).getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(token) + SIGNATURE_SEPARATOR + encoder.encodeToString(sign(token));
+    }
+
+    /**
+     * Decodes the ID of the last credential from the page token.
+     *
+     * @throws IllegalArgumentException if the token is malformed, its signature is not valid or it was issued
+     *                                  for another user or another {@code onlyValid} filter
+     */
+    public UUID decode(String pageToken, String userId, boolean onlyValid) throws IllegalArgumentException {
+        int signatureStart = pageToken.lastIndexOf(SIGNATURE_SEPARATOR);
+        if (signatureStart < 0) {
+            throw new IllegalArgumentException("Malformed page token.");
+        }
+        byte[] decoded = Base64.getUrlDecoder().decode(pageToken.substring(0, signatureStart));
+        byte[] signature = Base64.getUrlDecoder().decode(pageToken.substring(signatureStart + 1));
+        if (!MessageDigest.isEqual(sign(decoded), signature)) {
+            throw new IllegalArgumentException("Invalid signature of the page token.");
+        }
+
+        String[] parts = new String(decoded, StandardCharsets.UTF_8).split(SEPARATOR, 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed page token.");
+        }
+        if (!Boolean.toString(onlyValid).equals(parts[1]) || !Objects.equals(userId, parts[2])) {
+            throw new IllegalArgumentException("The page token was issued for another listing.");
+        }
+        return UUID.fromString(parts[0]);
+    }
+
+    private byte[] sign(byte[] token) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(token);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign the page token.", e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.api.auth.CscAuthenticationToken;
+import com.czertainly.csc.api.auth.SignatureActivationData;
+import com.czertainly.csc.common.concurrency.RateLimiter;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.configuration.csc.RateLimitSettings;
+import com.czertainly.csc.configuration.csc.RateLimitsSettings;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Limits the rate of requests to the CSC signatures and credentials API for each client, user and credential,
+ * so that a single misbehaving integration can't take the whole signing capacity. Each scope has its own token
+ * bucket per key, see {@link RateLimiter}; a request is rejected with HTTP 429 and the Retry-After header when
+ * the bucket of any of its keys is empty.
+ * <p>
+ * The keys are taken from the access token authenticated by the security filters: the client is identified by
+ * the {@code azp} or {@code client_id} claim, the user and credential by the Signature Activation Data. Scopes
+ * without configured limits and requests without the key of a scope are not limited in that scope.
+ * <p>
+ * The buckets are kept in the memory of each instance, so with several instances behind a load balancer,
+ * the limits apply to each instance separately.
+ * <p>
+ * The filter runs after the security filters, which authenticate the client, user and credential, and before
+ * {@link ConcurrencyLimitFilter}, so requests over the rate don't take the capacity of the endpoints.
+ */
+@Component
+@Order(RateLimitFilter.ORDER)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 30;
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final String SIGNATURES_PATH = "/csc/v2/signatures/";
+    private static final String CREDENTIALS_PATH = "/csc/v2/credentials/";
+
+    private final Map<Scope, RateLimiter> limiters = new EnumMap<>(Scope.class);
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(CscConfiguration cscConfiguration, ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry
+    ) {
+        RateLimitsSettings rateLimitsSettings = cscConfiguration.admission().rateLimits();
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+
+        for (Scope scope : Scope.values()) {
+            RateLimitSettings settings = scope.settings.apply(rateLimitsSettings);
+            if (settings == null) {
+                continue;
+            }
+            RateLimiter limiter = new RateLimiter(settings.capacity(), settings.refillPerSecond(),
+                                                  rateLimitsSettings.maxKeys()
+            );
+            limiters.put(scope, limiter);
+            Gauge.builder("csc.admission.rate.limit.keys", limiter, RateLimiter::keys)
+                 .description("Keys whose request rate is tracked")
+                 .tag("scope", scope.tag)
+                 .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (limiters.isEmpty()) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith(SIGNATURES_PATH) && !path.startsWith(CREDENTIALS_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof JwtAuthenticationToken token) {
+            for (Map.Entry<Scope, RateLimiter> entry : limiters.entrySet()) {
+                Scope scope = entry.getKey();
+                Optional<String> key = scope.key.apply(token);
+                if (key.isEmpty()) {
+                    continue;
+                }
+
+                RateLimiter.Decision decision = entry.getValue().tryAcquire(key.get());
+                requestsCounter(scope, key.get(), decision.permitted()).increment();
+                if (!decision.permitted()) {
+                    logger.warn("Request of {} '{}' was rejected because of the rate limit.", scope.tag, key.get());
+                    AdmissionRejections.writeTooManyRequests(
+                            response, objectMapper, decision.retryAfter(),
+                            "Too many requests of the " + scope.tag + ", try again later."
+                    );
+                    return;
+                }
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /*
+     * The number of clients is limited by the registrations at the identity provider, so their requests are
+     * counted per client. Users and credentials can be numerous, so they are counted per scope only.
+     */
+    private Counter requestsCounter(Scope scope, String key, boolean permitted) {
+        Tags tags = Tags.of("scope", scope.tag, "outcome", permitted ? "permitted" : "limited");
+        if (scope == Scope.CLIENT) {
+            tags = tags.and("key", key);
+        }
+        return Counter.builder("csc.admission.rate.limit.requests")
+                      .description("Requests checked against the rate limits")
+                      .tags(tags)
+                      .register(meterRegistry);
+    }
+
+    private static Optional<String> clientId(JwtAuthenticationToken token) {
+        Jwt jwt = token.getToken();
+        return Optional.ofNullable(jwt.getClaimAsString("azp"))
+                       .or(() -> Optional.ofNullable(jwt.getClaimAsString("client_id")));
+    }
+
+    private static Optional<SignatureActivationData> signatureActivationData(JwtAuthenticationToken token) {
+        if (token instanceof CscAuthenticationToken cscToken) {
+            return Optional.ofNullable(cscToken.getSignatureActivationData());
+        }
+        return Optional.empty();
+    }
+
+    enum Scope {
+        CLIENT("client", RateLimitsSettings::client, RateLimitFilter::clientId),
+        USER("user", RateLimitsSettings::user,
+             token -> signatureActivationData(token).flatMap(SignatureActivationData::getUserID)
+        ),
+        CREDENTIAL("credential", RateLimitsSettings::credential,
+                   token -> signatureActivationData(token).flatMap(SignatureActivationData::getCredentialID)
+        );
+
+        private final String tag;
+        private final Function<RateLimitsSettings, RateLimitSettings> settings;
+        private final Function<JwtAuthenticationToken, Optional<String>> key;
+
+        Scope(String tag, Function<RateLimitsSettings, RateLimitSettings> settings,
+              Function<JwtAuthenticationToken, Optional<String>> key
+        ) {
+            this.tag = tag;
+            this.settings = settings;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.common.deadline.Deadline;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.configuration.csc.RequestDeadlineSettings;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Sets the deadline of the request, by which its handling must be finished, and binds it to the thread handling
+ * the request, see {@link Deadline}. The calls to SignServer, the CA and the identity provider made for
+ * the request get only the time left until the deadline, and the signing is abandoned once the deadline expires.
+ * <p>
+ * The deadline is set by the timeout configured for the class of the endpoint. Clients can shorten it by
+ * the timeout in milliseconds in the configured header, e.g. to the time they are going to wait for the response.
+ * The filter runs first, so that the time the request waits for admission counts against the deadline.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestDeadlineFilter.class);
+
+    private final RequestDeadlineSettings settings;
+
+    public RequestDeadlineFilter(CscConfiguration cscConfiguration) {
+        this.settings = cscConfiguration.deadline();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !settings.enabled() || ConcurrencyLimitFilter.EndpointClass.of(request).isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Optional<Duration> timeout = timeoutOf(request);
+        if (timeout.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try (var ignored = Deadline.after(timeout.get()).bind()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private Optional<Duration> timeoutOf(HttpServletRequest request) {
+        ConcurrencyLimitFilter.EndpointClass endpointClass = ConcurrencyLimitFilter.EndpointClass.of(request)
+                                                                                                 .orElseThrow();
+        Optional<Duration> configured = Optional.ofNullable(switch (endpointClass) {
+            case SIGN_HASH -> settings.signHash();
+            case SIGN_DOC -> settings.signDoc();
+            case CREDENTIALS -> settings.credentials();
+            case MANAGEMENT -> settings.management();
+        }).filter(Duration::isPositive);
+        Optional<Duration> requested = requestedTimeout(request);
+        if (requested.isPresent() && configured.isPresent()) {
+            return requested.get().compareTo(configured.get()) < 0 ? requested : configured;
+        }
+        return requested.isPresent() ? requested : configured;
+    }
+
+    private Optional<Duration> requestedTimeout(HttpServletRequest request) {
+        String value = request.getHeader(settings.header());
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            long millis = Long.parseLong(value.strip());
+            if (millis > 0) {
+                return Optional.of(Duration.ofMillis(millis));
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        logger.debug("Ignoring invalid timeout '{}' in the {} header.", value, settings.header());
+        return Optional.empty();
+    }
+}
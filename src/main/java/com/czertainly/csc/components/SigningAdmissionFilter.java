@@ -0,0 +1,212 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.common.concurrency.MemoryBudget;
+import com.czertainly.csc.configuration.csc.AdmissionSettings;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Limits the total size of the signing requests processed at once, so that many large requests arriving
+ * together can't exhaust the memory. Each request reserves the estimated decoded size of its payload in the
+ * memory budget for the whole time it is processed. Requests without Content-Length reserve the budget for the
+ * largest body they may send, and fail when they send more. Requests that don't fit wait for the budget to be
+ * released, and are rejected with HTTP 503 and the Retry-After header when they can't be admitted in time.
+ * <p>
+ * The filter runs after {@link ConcurrencyLimitFilter}, so only requests admitted to their endpoint class
+ * reserve the memory budget.
+ */
+@Component
+@Order(SigningAdmissionFilter.ORDER)
+public class SigningAdmissionFilter extends OncePerRequestFilter {
+
+    public static final int ORDER = ConcurrencyLimitFilter.ORDER + 10;
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningAdmissionFilter.class);
+    static final String SIGNATURES_PATH = "/csc/v2/signatures/";
+
+    private final MemoryBudget memoryBudget;
+    private final long unknownSizeLimit;
+    private final Duration queueTimeout;
+    private final Duration retryAfter;
+    private final ObjectMapper objectMapper;
+    private final Counter rejectedRequests;
+
+    public SigningAdmissionFilter(CscConfiguration cscConfiguration, ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry
+    ) {
+        AdmissionSettings admissionSettings = cscConfiguration.admission();
+        this.memoryBudget = new MemoryBudget(admissionSettings.memoryBudget().toBytes());
+        this.unknownSizeLimit = admissionSettings.unknownSizeReservation().toBytes();
+        this.queueTimeout = admissionSettings.queueTimeout();
+        this.retryAfter = admissionSettings.retryAfter();
+        this.objectMapper = objectMapper;
+
+        Gauge.builder("csc.signing.admission.bytes.used", memoryBudget, MemoryBudget::used)
+             .description("Estimated decoded size of the signing requests in flight")
+             .baseUnit("bytes")
+             .register(meterRegistry);
+        Gauge.builder("csc.signing.admission.bytes.budget", memoryBudget, MemoryBudget::capacity)
+             .description("Memory budget of the signing requests in flight")
+             .baseUnit("bytes")
+             .register(meterRegistry);
+        this.rejectedRequests = Counter.builder("csc.signing.admission.rejected")
+                                       .description("Signing requests rejected because of the memory budget")
+                                       .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith(SIGNATURES_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        long contentLength = request.getContentLengthLong();
+        // The size of requests without Content-Length is not known in advance, so they reserve the budget for
+        // the largest body allowed to them, and are read only up to it
+        long size = estimateDecodedSize(contentLength < 0 ? unknownSizeLimit : contentLength);
+        HttpServletRequest admittedRequest = contentLength < 0
+                ? new SizeLimitedRequest(request, unknownSizeLimit)
+                : request;
+        Optional<MemoryBudget.Reservation> reservation;
+        try {
+            reservation = memoryBudget.tryReserve(size, queueTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reservation = Optional.empty();
+        }
+        if (reservation.isEmpty()) {
+            logger.warn("Signing request of {} bytes was rejected, {} of {} bytes of the memory budget are in use.",
+                        size, memoryBudget.used(), memoryBudget.capacity()
+            );
+            rejectedRequests.increment();
+            AdmissionRejections.writeServiceUnavailable(
+                    response, objectMapper, retryAfter,
+                    "The server is processing too many signing requests, try again later."
+            );
+            return;
+        }
+
+        try {
+            filterChain.doFilter(admittedRequest, response);
+        } finally {
+            if (isAsyncStarted(request)) {
+                request.getAsyncContext().addListener(new CompletionAsyncListener(reservation.get()::close));
+            } else {
+                reservation.get().close();
+            }
+        }
+    }
+
+    /*
+     * Documents and signatures are sent base64 encoded, so the decoded payload is about three quarters of
+     * the request.
+     */
+    private static long estimateDecodedSize(long contentLength) {
+        return contentLength / 4 * 3;
+    }
+
+    /*
+     * Fails reading the body once it exceeds the limit, so a request without Content-Length can't use more of
+     * the memory budget than it reserved. The failure is reported as an unreadable request body.
+     */
+    private static class SizeLimitedRequest extends HttpServletRequestWrapper {
+
+        private final long limit;
+        private ServletInputStream inputStream;
+
+        SizeLimitedRequest(HttpServletRequest request, long limit) {
+            super(request);
+            this.limit = limit;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new SizeLimitedInputStream(super.getInputStream(), limit);
+            }
+            return inputStream;
+        }
+    }
+
+    private static class SizeLimitedInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private final long limit;
+        private long read = 0;
+
+        SizeLimitedInputStream(ServletInputStream delegate, long limit) {
+            this.delegate = delegate;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte @NonNull [] buffer, int offset, int length) throws IOException {
+            int n = delegate.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        private void count(int n) throws IOException {
+            read += n;
+            if (read > limit) {
+                throw new IOException("The body of the signing request without Content-Length exceeds " + limit
+                                              + " bytes.");
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.common.io.SpooledData;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jspecify.annotations.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Queue;
+
+/**
+ * Deletes the temporary files of the data spooled while serving a request once the response is written.
+ * When the response is written asynchronously, the files are deleted when the asynchronous processing completes.
+ */
+@Component
+public class SpooledDataCleanupFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (isAsyncStarted(request)) {
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(request));
+            } else {
+                release(request);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void release(HttpServletRequest request) {
+        var spools = (Queue<SpooledData>) request.getAttribute(SpooledDataFactory.REQUEST_SPOOLS_ATTRIBUTE);
+        if (spools != null) {
+            SpooledDataFactory.release(spools);
+        }
+    }
+
+    private record ReleasingAsyncListener(HttpServletRequest request) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(request);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.common.io.SpooledData;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.configuration.csc.SigningSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Creates spooled data with the threshold and directory from the configuration. Data created while serving
+ * an HTTP request are released by the {@link SpooledDataCleanupFilter} when the request completes.
+ */
+@Component
+public class SpooledDataFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpooledDataFactory.class);
+    static final String REQUEST_SPOOLS_ATTRIBUTE = SpooledDataFactory.class.getName() + ".REQUEST_SPOOLS";
+
+    private final long threshold;
+    private final Path directory;
+
+    public SpooledDataFactory(CscConfiguration cscConfiguration) {
+        SigningSettings signingSettings = cscConfiguration.signing();
+        this.threshold = signingSettings.spoolThreshold().toBytes();
+        this.directory = signingSettings.spoolDirectory() != null ? Path.of(signingSettings.spoolDirectory()) : null;
+    }
+
+    public SpooledData create() {
+        SpooledData data = new SpooledData(threshold, directory);
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            getRequestSpools(requestAttributes).add(data);
+        }
+        return data;
+    }
+
+    /**
+     * Deletes the temporary files of the spooled data.
+     */
+    public static void release(Iterable<SpooledData> spools) {
+        for (SpooledData spool : spools) {
+            try {
+                spool.close();
+            } catch (IOException e) {
+                logger.warn("Failed to delete a temporary file with spooled data.", e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Queue<SpooledData> getRequestSpools(RequestAttributes requestAttributes) {
+        var spools = (Queue<SpooledData>) requestAttributes.getAttribute(
+                REQUEST_SPOOLS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (spools == null) {
+            spools = new ConcurrentLinkedQueue<>();
+            requestAttributes.setAttribute(REQUEST_SPOOLS_ATTRIBUTE, spools, RequestAttributes.SCOPE_REQUEST);
+        }
+        return spools;
+    }
+}
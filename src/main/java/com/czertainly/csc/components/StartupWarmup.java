@@ -0,0 +1,164 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.api.auth.JwksRepository;
+import com.czertainly.csc.api.auth.TokenValidator;
+import com.czertainly.csc.clients.ejbca.EjbcaClient;
+import com.czertainly.csc.clients.signserver.rest.SignserverProcessEncoding;
+import com.czertainly.csc.clients.signserver.rest.SignserverRestClient;
+import com.czertainly.csc.clients.signserver.rest.WorkerProcessRequest;
+import com.czertainly.csc.clients.signserver.rest.WorkerProcessResponse;
+import com.czertainly.csc.clients.signserver.ws.dto.QueryTokenEntries;
+import com.czertainly.csc.common.result.Error;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.configuration.csc.WarmupSettings;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.stereotype.Component;
+
+import javax.xml.transform.stream.StreamResult;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Warms up the application before it starts to accept traffic, so that the first signing requests don't pay
+ * for opening connections, TLS handshakes and the first use of the parsers.
+ * <p>
+ * Several no-op calls are made to SignServer (health check) and EJBCA (version) at once to open pooled
+ * connections to them, the JWKs are downloaded from the identity provider, and the JSON, XML and JWT parsing
+ * paths are exercised with dummy data. Application runners are called before the application reports
+ * readiness, so the readiness probe of the actuator succeeds only after the warm-up is done or the timeout
+ * elapses. Failures of the warm-up are logged and don't prevent the application from starting, the backends
+ * may become available later.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final WarmupSettings settings;
+    private final SignserverRestClient signserverRestClient;
+    private final EjbcaClient ejbcaClient;
+    private final JwksRepository jwksRepository;
+    private final TokenValidator tokenValidator;
+    private final ObjectMapper objectMapper;
+    private final Jaxb2Marshaller signserverWsMarshaller;
+
+    public StartupWarmup(CscConfiguration cscConfiguration, SignserverRestClient signserverRestClient,
+                         EjbcaClient ejbcaClient, JwksRepository jwksRepository, TokenValidator tokenValidator,
+                         ObjectMapper objectMapper,
+                         @Qualifier("signserverWsMarshaller") Jaxb2Marshaller signserverWsMarshaller
+    ) {
+        this.settings = cscConfiguration.warmup();
+        this.signserverRestClient = signserverRestClient;
+        this.ejbcaClient = ejbcaClient;
+        this.jwksRepository = jwksRepository;
+        this.tokenValidator = tokenValidator;
+        this.objectMapper = objectMapper;
+        this.signserverWsMarshaller = signserverWsMarshaller;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!settings.enabled()) {
+            logger.info("Warm-up is disabled.");
+            return;
+        }
+
+        logger.info("Warming up connections to the backends.");
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<Boolean>> tasks = new ArrayList<>();
+            for (int i = 0; i < settings.connections(); i++) {
+                tasks.add(executor.submit(() -> warmUp("SignServer health check", signserverRestClient::checkHealth)));
+                tasks.add(executor.submit(() -> warmUp("EJBCA version", ejbcaClient::getVersion)));
+            }
+            tasks.add(executor.submit(() -> warmUp("JWKs download", jwksRepository::refreshKeys)));
+            tasks.add(executor.submit(this::warmUpParsers));
+
+            int succeeded = awaitTasks(tasks, start + settings.timeout().toNanos());
+            logger.info("Warm-up finished in {} ms, {} of {} tasks succeeded.",
+                        Duration.ofNanos(System.nanoTime() - start).toMillis(), succeeded, tasks.size()
+            );
+        } finally {
+            // The calls still running are not waited for, they finish in the background
+            executor.shutdownNow();
+        }
+    }
+
+    private int awaitTasks(List<Future<Boolean>> tasks, long deadline) {
+        int succeeded = 0;
+        for (Future<Boolean> task : tasks) {
+            try {
+                if (task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    succeeded++;
+                }
+            } catch (TimeoutException e) {
+                logger.warn("Warm-up did not finish within {}, the application starts without waiting for it.",
+                            settings.timeout()
+                );
+                break;
+            } catch (ExecutionException e) {
+                logger.warn("Warm-up task has failed.", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return succeeded;
+    }
+
+    private boolean warmUp(String name, Supplier<Result<?, TextError>> call) {
+        Result<?, TextError> result = call.get();
+        if (result instanceof Error(var err)) {
+            logger.warn("Warm-up call '{}' has failed: {}", name, err.getErrorText());
+            return false;
+        }
+        logger.debug("Warm-up call '{}' succeeded.", name);
+        return true;
+    }
+
+    private boolean warmUpParsers() {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(
+                    new WorkerProcessRequest(new byte[0], Map.of("warmup", "true"), SignserverProcessEncoding.NONE));
+            objectMapper.readValue(json, WorkerProcessRequest.class);
+            objectMapper.readValue("{\"data\": \"\", \"requestId\": \"0\", \"metaData\": {}}",
+                                   WorkerProcessResponse.class
+            );
+
+            signserverWsMarshaller.marshal(new QueryTokenEntries(), new StreamResult(OutputStream.nullOutputStream()));
+
+            // An unsecured token is rejected after its header is decoded, without looking up any key
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            String token = encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                    + encoder.encodeToString("{\"sub\":\"warmup\"}".getBytes(StandardCharsets.UTF_8)) + ".";
+            tokenValidator.validate(token);
+
+            logger.debug("Warm-up of the parsers succeeded.");
+            return true;
+        } catch (Exception e) {
+            logger.warn("Warm-up of the parsers has failed.", e);
+            return false;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.czertainly.csc.configuration;
 
+import com.czertainly.csc.common.deadline.DeadlinePropagatingExecutorService;
 import com.czertainly.csc.configuration.csc.CscConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,6 +55,53 @@ public class AsyncConfig {
         return new DelegatingSecurityContextExecutorService(base);
     }
 
+    @Bean(name = "keyQueryExecutor", destroyMethod = "close")
+    public ExecutorService keyQueryExecutor() {
+        ThreadFactory tf = Thread.ofVirtual()
+                                 .name("key-query-", 0)
+                                 .uncaughtExceptionHandler(
+                                         (t, e) -> logger.error("Uncaught exception in key query thread: {}",
+                                                                t.getName(), e
+                                         ))
+                                 .factory();
+        ExecutorService base = Executors.newFixedThreadPool(cscConfig.concurrency().maxKeyQueries(), tf);
+        return new DelegatingSecurityContextExecutorService(new DeadlinePropagatingExecutorService(base));
+    }
+
+    /*
+     * Runs the remote steps of certificate enrollment that don't depend on each other concurrently. Each
+     * enrollment submits at most one task, so the number of threads is limited by the number of requests.
+     * The executors running tasks on behalf of requests pass the deadline of the request to the tasks.
+     */
+    @Bean(name = "enrollmentExecutor", destroyMethod = "close")
+    public ExecutorService enrollmentExecutor() {
+        ThreadFactory tf = Thread.ofVirtual()
+                                 .name("enrollment-", 0)
+                                 .uncaughtExceptionHandler(
+                                         (t, e) -> logger.error("Uncaught exception in enrollment thread: {}",
+                                                                t.getName(), e
+                                         ))
+                                 .factory();
+        ExecutorService base = Executors.newThreadPerTaskExecutor(tf);
+        return new DelegatingSecurityContextExecutorService(new DeadlinePropagatingExecutorService(base));
+    }
+
+    /*
+     * Runs the hedged process calls to SignServer, the call and its hedge each on its own thread, so that
+     * the slower one can be cancelled by interrupting its thread.
+     */
+    @Bean(name = "signserverHedgingExecutor", destroyMethod = "close")
+    public ExecutorService signserverHedgingExecutor() {
+        ThreadFactory tf = Thread.ofVirtual()
+                                 .name("hedging-", 0)
+                                 .uncaughtExceptionHandler(
+                                         (t, e) -> logger.error("Uncaught exception in hedging thread: {}",
+                                                                t.getName(), e
+                                         ))
+                                 .factory();
+        return new DeadlinePropagatingExecutorService(Executors.newThreadPerTaskExecutor(tf));
+    }
+
     /**
      * Global handler for uncaught exceptions in @Async void methods
      */
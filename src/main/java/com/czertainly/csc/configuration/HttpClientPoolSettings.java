@@ -0,0 +1,26 @@
+package com.czertainly.csc.configuration;
+
+/**
+ * Resolved settings of a single HTTP client connection pool, see {@link HttpClientProperties}.
+ *
+ * @param name                            name of the pool, used to tag its metrics
+ * @param maxTotal                        maximum total connections in the pool
+ * @param defaultMaxPerRoute              maximum connections per route
+ * @param connectionRequestTimeoutSeconds time to wait for a connection from the pool
+ * @param readTimeoutSeconds              time to wait for data after establishing connection
+ * @param responseTimeoutSeconds          time to wait for the complete response
+ * @param idleConnectionEvictionSeconds   time after which idle connections are closed, zero disables eviction
+ * @param tlsSessionCacheSize             maximum number of TLS sessions cached for resumption
+ * @param tlsSessionTimeoutSeconds        time for which a cached TLS session can be resumed
+ */
+public record HttpClientPoolSettings(
+        String name,
+        int maxTotal,
+        int defaultMaxPerRoute,
+        int connectionRequestTimeoutSeconds,
+        int readTimeoutSeconds,
+        int responseTimeoutSeconds,
+        int idleConnectionEvictionSeconds,
+        int tlsSessionCacheSize,
+        int tlsSessionTimeoutSeconds
+) {}
@@ -5,6 +5,10 @@ import org.springframework.stereotype.Component;
 
 /**
  * Configuration properties for HTTP client connection pool and timeouts.
+ * <p>
+ * The top-level properties are the defaults of all connection pools. Each backend has its own pool, whose
+ * properties can be overridden separately, e.g. {@code http.client.signserver.process.maxTotal}, so that slow
+ * calls to one backend don't use up the connections of another.
  */
 @Component
 @ConfigurationProperties(prefix = "http.client")
@@ -43,6 +47,63 @@ public class HttpClientProperties {
      */
     private int responseTimeoutSeconds = 30;
 
+    /**
+     * Time in seconds after which idle connections are closed by a background thread.
+     * Zero disables the eviction.
+     * Default: 60 seconds
+     */
+    private int idleConnectionEvictionSeconds = 60;
+
+    /**
+     * Maximum number of TLS sessions cached for resumption.
+     * Resumed sessions skip the full handshake when a new connection to the same backend is opened.
+     * Zero means no limit.
+     * Default: 20480, the default of the JDK
+     */
+    private int tlsSessionCacheSize = 20480;
+
+    /**
+     * Time in seconds for which a cached TLS session can be resumed.
+     * Default: 86400 seconds, the default of the JDK
+     */
+    private int tlsSessionTimeoutSeconds = 86400;
+
+    /**
+     * Pools of the SignServer clients.
+     */
+    private final Signserver signserver = new Signserver();
+
+    /**
+     * Pool of the EJBCA clients.
+     */
+    private final Pool ejbca = new Pool();
+
+    /**
+     * Pool of the identity provider client.
+     */
+    private final Pool idp = new Pool();
+
+    /**
+     * Resolves the settings of the pool, taking the defaults for the properties the pool doesn't override.
+     */
+    public HttpClientPoolSettings resolve(String name, Pool pool) {
+        return new HttpClientPoolSettings(
+                name,
+                valueOrDefault(pool.getMaxTotal(), maxTotal),
+                valueOrDefault(pool.getDefaultMaxPerRoute(), defaultMaxPerRoute),
+                valueOrDefault(pool.getConnectionRequestTimeoutSeconds(), connectionRequestTimeoutSeconds),
+                valueOrDefault(pool.getReadTimeoutSeconds(), readTimeoutSeconds),
+                valueOrDefault(pool.getResponseTimeoutSeconds(), responseTimeoutSeconds),
+                valueOrDefault(pool.getIdleConnectionEvictionSeconds(), idleConnectionEvictionSeconds),
+                valueOrDefault(pool.getTlsSessionCacheSize(), tlsSessionCacheSize),
+                valueOrDefault(pool.getTlsSessionTimeoutSeconds(), tlsSessionTimeoutSeconds)
+        );
+    }
+
+    private static int valueOrDefault(Integer value, int defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
     public int getMaxTotal() {
         return maxTotal;
     }
@@ -82,4 +143,146 @@ public class HttpClientProperties {
     public void setResponseTimeoutSeconds(int responseTimeoutSeconds) {
         this.responseTimeoutSeconds = responseTimeoutSeconds;
     }
+
+    public int getIdleConnectionEvictionSeconds() {
+        return idleConnectionEvictionSeconds;
+    }
+
+    public void setIdleConnectionEvictionSeconds(int idleConnectionEvictionSeconds) {
+        this.idleConnectionEvictionSeconds = idleConnectionEvictionSeconds;
+    }
+
+    public int getTlsSessionCacheSize() {
+        return tlsSessionCacheSize;
+    }
+
+    public void setTlsSessionCacheSize(int tlsSessionCacheSize) {
+        this.tlsSessionCacheSize = tlsSessionCacheSize;
+    }
+
+    public int getTlsSessionTimeoutSeconds() {
+        return tlsSessionTimeoutSeconds;
+    }
+
+    public void setTlsSessionTimeoutSeconds(int tlsSessionTimeoutSeconds) {
+        this.tlsSessionTimeoutSeconds = tlsSessionTimeoutSeconds;
+    }
+
+    public Signserver getSignserver() {
+        return signserver;
+    }
+
+    public Pool getEjbca() {
+        return ejbca;
+    }
+
+    public Pool getIdp() {
+        return idp;
+    }
+
+    /**
+     * Pools of the SignServer clients. The process pool serves the latency-critical signing calls, the admin pool
+     * serves the web service calls managing keys and workers.
+     */
+    public static class Signserver {
+
+        private final Pool process = new Pool();
+
+        private final Pool admin = new Pool();
+
+        public Pool getProcess() {
+            return process;
+        }
+
+        public Pool getAdmin() {
+            return admin;
+        }
+    }
+
+    /**
+     * Properties of a single connection pool. Properties that are not set are taken from the top-level
+     * properties.
+     */
+    public static class Pool {
+
+        private Integer maxTotal;
+
+        private Integer defaultMaxPerRoute;
+
+        private Integer connectionRequestTimeoutSeconds;
+
+        private Integer readTimeoutSeconds;
+
+        private Integer responseTimeoutSeconds;
+
+        private Integer idleConnectionEvictionSeconds;
+
+        private Integer tlsSessionCacheSize;
+
+        private Integer tlsSessionTimeoutSeconds;
+
+        public Integer getMaxTotal() {
+            return maxTotal;
+        }
+
+        public void setMaxTotal(Integer maxTotal) {
+            this.maxTotal = maxTotal;
+        }
+
+        public Integer getDefaultMaxPerRoute() {
+            return defaultMaxPerRoute;
+        }
+
+        public void setDefaultMaxPerRoute(Integer defaultMaxPerRoute) {
+            this.defaultMaxPerRoute = defaultMaxPerRoute;
+        }
+
+        public Integer getConnectionRequestTimeoutSeconds() {
+            return connectionRequestTimeoutSeconds;
+        }
+
+        public void setConnectionRequestTimeoutSeconds(Integer connectionRequestTimeoutSeconds) {
+            this.connectionRequestTimeoutSeconds = connectionRequestTimeoutSeconds;
+        }
+
+        public Integer getReadTimeoutSeconds() {
+            return readTimeoutSeconds;
+        }
+
+        public void setReadTimeoutSeconds(Integer readTimeoutSeconds) {
+            this.readTimeoutSeconds = readTimeoutSeconds;
+        }
+
+        public Integer getResponseTimeoutSeconds() {
+            return responseTimeoutSeconds;
+        }
+
+        public void setResponseTimeoutSeconds(Integer responseTimeoutSeconds) {
+            this.responseTimeoutSeconds = responseTimeoutSeconds;
+        }
+
+        public Integer getIdleConnectionEvictionSeconds() {
+            return idleConnectionEvictionSeconds;
+        }
+
+        public void setIdleConnectionEvictionSeconds(Integer idleConnectionEvictionSeconds) {
+            this.idleConnectionEvictionSeconds = idleConnectionEvictionSeconds;
+        }
+
+        public Integer getTlsSessionCacheSize() {
+            return tlsSessionCacheSize;
+        }
+
+        public void setTlsSessionCacheSize(Integer tlsSessionCacheSize) {
+            this.tlsSessionCacheSize = tlsSessionCacheSize;
+        }
+
+        public Integer getTlsSessionTimeoutSeconds() {
+            return tlsSessionTimeoutSeconds;
+        }
+
+        public void setTlsSessionTimeoutSeconds(Integer tlsSessionTimeoutSeconds) {
+            this.tlsSessionTimeoutSeconds = tlsSessionTimeoutSeconds;
+        }
+    }
 }
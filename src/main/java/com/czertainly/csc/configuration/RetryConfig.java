@@ -0,0 +1,111 @@
+package com.czertainly.csc.configuration;
+
+import com.czertainly.csc.common.retry.BackendRetryPolicy;
+import com.czertainly.csc.common.retry.RetryBudget;
+import com.czertainly.csc.common.retry.RetryPolicyInterceptor;
+import com.czertainly.csc.common.retry.RetryRule;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.configuration.csc.RetryBackendSettings;
+import com.czertainly.csc.configuration.csc.RetryOperationSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.exception.JDBCConnectionException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Retry policies of the backends and the interceptors applying them, referenced by the {@code @Retryable}
+ * annotations of the clients and repositories.
+ */
+@Configuration
+public class RetryConfig {
+
+    @Bean
+    public BackendRetryPolicy signserverRetryPolicy(CscConfiguration cscConfiguration, MeterRegistry meterRegistry) {
+        return retryPolicy("signserver", cscConfiguration.retry().signserver(), meterRegistry);
+    }
+
+    @Bean
+    public BackendRetryPolicy ejbcaRetryPolicy(CscConfiguration cscConfiguration, MeterRegistry meterRegistry) {
+        return retryPolicy("ejbca", cscConfiguration.retry().ejbca(), meterRegistry);
+    }
+
+    @Bean
+    public BackendRetryPolicy idpRetryPolicy(CscConfiguration cscConfiguration, MeterRegistry meterRegistry) {
+        return retryPolicy("idp", cscConfiguration.retry().idp(), meterRegistry);
+    }
+
+    @Bean
+    public BackendRetryPolicy databaseRetryPolicy(CscConfiguration cscConfiguration, MeterRegistry meterRegistry) {
+        return retryPolicy("database", cscConfiguration.retry().database(), meterRegistry);
+    }
+
+    // The clients report the failures worth retrying in their error results, their exceptions are not retried
+    @Bean
+    public RetryPolicyInterceptor signserverRetryInterceptor(
+            @Qualifier("signserverRetryPolicy") BackendRetryPolicy signserverRetryPolicy
+    ) {
+        return new RetryPolicyInterceptor(signserverRetryPolicy, e -> false);
+    }
+
+    @Bean
+    public RetryPolicyInterceptor ejbcaRetryInterceptor(
+            @Qualifier("ejbcaRetryPolicy") BackendRetryPolicy ejbcaRetryPolicy
+    ) {
+        return new RetryPolicyInterceptor(ejbcaRetryPolicy, e -> false);
+    }
+
+    @Bean
+    public RetryPolicyInterceptor idpRetryInterceptor(@Qualifier("idpRetryPolicy") BackendRetryPolicy idpRetryPolicy) {
+        return new RetryPolicyInterceptor(idpRetryPolicy, e -> false);
+    }
+
+    @Bean
+    public RetryPolicyInterceptor databaseRetryInterceptor(
+            @Qualifier("databaseRetryPolicy") BackendRetryPolicy databaseRetryPolicy
+    ) {
+        return new RetryPolicyInterceptor(databaseRetryPolicy, RetryConfig::isTransientDatabaseFailure);
+    }
+
+    /**
+     * Whether the exception thrown by a repository means the database could not be reached, so that the call
+     * may succeed when retried.
+     */
+    public static boolean isTransientDatabaseFailure(Throwable e) {
+        return e instanceof SQLRecoverableException
+                || e instanceof SQLTransientException
+                || e instanceof SQLNonTransientConnectionException
+                || e instanceof JDBCConnectionException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    public static BackendRetryPolicy retryPolicy(String backend, RetryBackendSettings settings,
+                                                 MeterRegistry meterRegistry
+    ) {
+        RetryRule defaultRule = new RetryRule(settings.maxAttempts(), settings.initialBackoff(),
+                                              settings.maxBackoff(), settings.multiplier()
+        );
+        Map<String, RetryRule> operationRules = new HashMap<>();
+        settings.operations().forEach((operation, operationSettings) -> operationRules.put(
+                operation, operationRule(operationSettings, defaultRule)));
+        return new BackendRetryPolicy(backend, new RetryBudget(settings.budgetRatio(), settings.budgetBurst()),
+                                      defaultRule, operationRules, meterRegistry
+        );
+    }
+
+    private static RetryRule operationRule(RetryOperationSettings settings, RetryRule defaultRule) {
+        return new RetryRule(
+                settings.maxAttempts() == null ? defaultRule.maxAttempts() : settings.maxAttempts(),
+                settings.initialBackoff() == null ? defaultRule.initialBackoff() : settings.initialBackoff(),
+                settings.maxBackoff() == null ? defaultRule.maxBackoff() : settings.maxBackoff(),
+                settings.multiplier() == null ? defaultRule.multiplier() : settings.multiplier()
+        );
+    }
+}
@@ -2,27 +2,42 @@ package com.czertainly.csc.configuration;
 
 import com.czertainly.csc.api.auth.authn.CscJwtAuthenticationConverter;
 import com.czertainly.csc.clients.ejbca.ws.EjbcaWsClient;
+import com.czertainly.csc.clients.signserver.rest.SignserverAsyncRestClient;
+import com.czertainly.csc.clients.signserver.rest.SignserverProcessClient;
+import com.czertainly.csc.clients.signserver.rest.SignserverRestClient;
 import com.czertainly.csc.clients.signserver.ws.SignserverWsClient;
 import com.czertainly.csc.common.exceptions.ApplicationConfigurationException;
+import com.czertainly.csc.common.http.DeadlineExecInterceptor;
+import com.czertainly.csc.common.http.InstrumentedAsyncClientConnectionManager;
+import com.czertainly.csc.common.http.InstrumentedHttpClientConnectionManager;
 import com.czertainly.csc.configuration.idp.IdpAuthentication;
 import com.czertainly.csc.configuration.idp.IdpConfiguration;
 import com.czertainly.csc.signing.configuration.WorkerRepository;
 import com.czertainly.csc.signing.configuration.WorkerWithCapabilities;
 import com.czertainly.csc.signing.configuration.loader.WorkerConfigurationLoader;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
 import org.apache.hc.client5.http.ssl.TlsSocketStrategy;
 import org.apache.hc.core5.http.HttpRequestInterceptor;
 import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
 import org.apache.hc.core5.ssl.SSLContextBuilder;
 import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.ssl.SslBundle;
 import org.springframework.boot.ssl.SslBundles;
 import org.springframework.boot.ssl.SslStoreBundle;
@@ -42,8 +57,10 @@ import org.springframework.ws.transport.http.HttpComponents5ClientFactory;
 import org.springframework.ws.transport.http.SimpleHttpComponents5MessageSender;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import java.security.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import static org.springframework.security.config.Customizer.withDefaults;
@@ -55,9 +72,11 @@ import static org.springframework.security.config.Customizer.withDefaults;
 public class ServerConfiguration {
 
     private final HttpClientProperties httpClientProperties;
+    private final MeterRegistry meterRegistry;
 
-    public ServerConfiguration(HttpClientProperties httpClientProperties) {
+    public ServerConfiguration(HttpClientProperties httpClientProperties, MeterRegistry meterRegistry) {
         this.httpClientProperties = httpClientProperties;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean
@@ -82,7 +101,10 @@ public class ServerConfiguration {
             @Value("${signingProvider.signserver.truststoreBundle:none}") String truststoreBundleName,
             SslBundles sslBundles
     ) throws ApplicationConfigurationException {
-        return getHttpComponentsMessageSender(keystoreBundleName, truststoreBundleName, sslBundles);
+        HttpClientPoolSettings poolSettings = httpClientProperties.resolve(
+                "signserver-admin", httpClientProperties.getSignserver().getAdmin()
+        );
+        return getHttpComponentsMessageSender(keystoreBundleName, truststoreBundleName, sslBundles, poolSettings);
     }
 
     @Bean("ejbcaMessageSender")
@@ -91,7 +113,22 @@ public class ServerConfiguration {
             @Value("${caProvider.ejbca.truststoreBundle:none}") String truststoreBundleName,
             SslBundles sslBundles
     ) throws ApplicationConfigurationException {
-        return getHttpComponentsMessageSender(keystoreBundleName, truststoreBundleName, sslBundles);
+        HttpClientPoolSettings poolSettings = httpClientProperties.resolve("ejbca-ws", httpClientProperties.getEjbca());
+        return getHttpComponentsMessageSender(keystoreBundleName, truststoreBundleName, sslBundles, poolSettings);
+    }
+
+    @Bean("ejbcaRequestFactory")
+    public HttpComponentsClientHttpRequestFactory ejbcaRequestFactory(
+            @Value("${caProvider.ejbca.admin.keystoreBundle:none}") String keystoreBundleName,
+            @Value("${caProvider.ejbca.truststoreBundle:none}") String truststoreBundleName,
+            SslBundles sslBundles
+    ) throws ApplicationConfigurationException {
+        SSLContext sslContext = getClientCertificateSslContext(keystoreBundleName, truststoreBundleName, sslBundles);
+        final HttpClient httpClient = getHttpClient(
+                sslContext, null, httpClientProperties.resolve("ejbca-rest", httpClientProperties.getEjbca())
+        );
+
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
     }
 
     @Bean(name = "signserverWsMarshaller")
@@ -115,33 +152,53 @@ public class ServerConfiguration {
             @Value("${signingProvider.signserver.truststoreBundle:none}") String truststoreBundleName,
             SslBundles sslBundles
     ) throws ApplicationConfigurationException {
-        try {
-            SSLContextBuilder builder = SSLContexts.custom();
-
-            if (!truststoreBundleName.equals("none") && !truststoreBundleName.isBlank()) {
-                SslBundle truststoreBundle = sslBundles.getBundle(truststoreBundleName);
-                KeyStore truststore = truststoreBundle.getStores().getTrustStore();
-                builder.loadTrustMaterial(truststore, null);
-            }
-
-            if (authzType == SignApiAuthorization.CERTIFICATE) {
-                if (keystoreBundleName.equals("none") || keystoreBundleName.isBlank()) {
-                    throw new ApplicationConfigurationException(
-                            "Keystore bundle name must be provided when using certificate authorization.");
-                }
-                SslStoreBundle keystoreBundle = sslBundles.getBundle(keystoreBundleName).getStores();
-                KeyStore keystore = keystoreBundle.getKeyStore();
-                builder.loadKeyMaterial(keystore, keystoreBundle.getKeyStorePassword().toCharArray());
-            }
-
-            SSLContext sslContext = builder.build();
+        SSLContext sslContext = getSignserverClientSslContext(authzType, keystoreBundleName, truststoreBundleName,
+                                                              sslBundles
+        );
+        final HttpClient httpClient = getHttpClient(
+                sslContext, null,
+                httpClientProperties.resolve("signserver-process", httpClientProperties.getSignserver().getProcess())
+        );
+
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
 
-            final HttpClient httpClient = getHttpClient(sslContext, null, httpClientProperties);
+    @Bean(name = "signserverAsyncHttpClient", destroyMethod = "close")
+    @ConditionalOnProperty(name = "signingProvider.signserver.client.async", havingValue = "true")
+    public CloseableHttpAsyncClient signserverAsyncHttpClient(
+            @Value("${signingProvider.signserver.client.authType}") SignApiAuthorization authzType,
+            @Value("${signingProvider.signserver.client.certificate.keystoreBundle:none}") String keystoreBundleName,
+            @Value("${signingProvider.signserver.truststoreBundle:none}") String truststoreBundleName,
+            SslBundles sslBundles
+    ) throws ApplicationConfigurationException {
+        SSLContext sslContext = getSignserverClientSslContext(authzType, keystoreBundleName, truststoreBundleName,
+                                                              sslBundles
+        );
+        CloseableHttpAsyncClient httpClient = getHttpAsyncClient(
+                sslContext,
+                httpClientProperties.resolve("signserver-process-async",
+                                             httpClientProperties.getSignserver().getProcess()
+                )
+        );
+        httpClient.start();
+        return httpClient;
+    }
 
-            return new HttpComponentsClientHttpRequestFactory(httpClient);
-        } catch (Exception e) {
-            throw new ApplicationConfigurationException("Failed to configure application." + e.getMessage());
+    /*
+     * Client the signers send the process calls through when they fan out several calls at once. Unless
+     * the non-blocking client is enabled, the calls are made by the blocking client on the calling thread.
+     */
+    @Bean("signserverProcessClient")
+    public SignserverProcessClient signserverProcessClient(
+            SignserverRestClient signserverRestClient,
+            ObjectProvider<SignserverAsyncRestClient> signserverAsyncRestClient
+    ) {
+        SignserverProcessClient asyncClient = signserverAsyncRestClient.getIfAvailable();
+        if (asyncClient != null) {
+            return asyncClient;
         }
+        return (workerName, data, metadata, encoding) -> CompletableFuture.completedFuture(
+                signserverRestClient.process(workerName, data, metadata, encoding));
     }
 
     @Bean("idpClientRequestFactory")
@@ -168,7 +225,9 @@ public class ServerConfiguration {
 
             SSLContext sslContext = builder.build();
 
-            final HttpClient httpClient = getHttpClient(sslContext, null, httpClientProperties);
+            final HttpClient httpClient = getHttpClient(
+                    sslContext, null, httpClientProperties.resolve("idp", httpClientProperties.getIdp())
+            );
 
             return new HttpComponentsClientHttpRequestFactory(httpClient);
         } catch (Exception e) {
@@ -209,6 +268,52 @@ public class ServerConfiguration {
     }
 
     private SimpleHttpComponents5MessageSender getHttpComponentsMessageSender(
+            String keystoreBundleName,
+            String truststoreBundleName,
+            SslBundles sslBundles,
+            HttpClientPoolSettings poolSettings
+    ) {
+        SSLContext sslContext = getClientCertificateSslContext(keystoreBundleName, truststoreBundleName, sslBundles);
+        final HttpClient httpClient = getHttpClient(sslContext,
+                                                    new HttpComponents5ClientFactory.RemoveSoapHeadersInterceptor(),
+                                                    poolSettings
+        );
+
+        return new SimpleHttpComponents5MessageSender(httpClient);
+    }
+
+    private static SSLContext getSignserverClientSslContext(
+            SignApiAuthorization authzType,
+            String keystoreBundleName,
+            String truststoreBundleName,
+            SslBundles sslBundles
+    ) {
+        try {
+            SSLContextBuilder builder = SSLContexts.custom();
+
+            if (!truststoreBundleName.equals("none") && !truststoreBundleName.isBlank()) {
+                SslBundle truststoreBundle = sslBundles.getBundle(truststoreBundleName);
+                KeyStore truststore = truststoreBundle.getStores().getTrustStore();
+                builder.loadTrustMaterial(truststore, null);
+            }
+
+            if (authzType == SignApiAuthorization.CERTIFICATE) {
+                if (keystoreBundleName.equals("none") || keystoreBundleName.isBlank()) {
+                    throw new ApplicationConfigurationException(
+                            "Keystore bundle name must be provided when using certificate authorization.");
+                }
+                SslStoreBundle keystoreBundle = sslBundles.getBundle(keystoreBundleName).getStores();
+                KeyStore keystore = keystoreBundle.getKeyStore();
+                builder.loadKeyMaterial(keystore, keystoreBundle.getKeyStorePassword().toCharArray());
+            }
+
+            return builder.build();
+        } catch (Exception e) {
+            throw new ApplicationConfigurationException("Failed to configure application." + e.getMessage());
+        }
+    }
+
+    private static SSLContext getClientCertificateSslContext(
             String keystoreBundleName,
             String truststoreBundleName,
             SslBundles sslBundles
@@ -230,45 +335,39 @@ public class ServerConfiguration {
             KeyStore keystore = keystoreBundle.getKeyStore();
             builder.loadKeyMaterial(keystore, keystoreBundle.getKeyStorePassword().toCharArray());
 
-            SSLContext sslContext = builder.build();
-
-            final HttpClient httpClient = getHttpClient(sslContext,
-                                                        new HttpComponents5ClientFactory.RemoveSoapHeadersInterceptor(),
-                                                        httpClientProperties
-            );
-
-            return new SimpleHttpComponents5MessageSender(httpClient);
+            return builder.build();
         } catch (KeyStoreException | NoSuchAlgorithmException | UnrecoverableKeyException | KeyManagementException e) {
             throw new ApplicationConfigurationException("Failed to configure application." + e.getMessage());
         }
     }
 
-    private static HttpClient getHttpClient(SSLContext sslContext, HttpRequestInterceptor interceptor,
-                                            HttpClientProperties properties
+    private HttpClient getHttpClient(SSLContext sslContext, HttpRequestInterceptor interceptor,
+                                     HttpClientPoolSettings settings
     ) {
+        configureTlsSessions(sslContext, settings);
         TlsSocketStrategy tlsSocketStrategy = new DefaultClientTlsStrategy(sslContext);
         SocketConfig socketConfig = SocketConfig.custom()
-                                                .setSoTimeout(properties.getReadTimeoutSeconds(), TimeUnit.SECONDS)
+                                                .setSoTimeout(settings.readTimeoutSeconds(), TimeUnit.SECONDS)
                                                 .build();
-        final var connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
-                                                                               .setDefaultSocketConfig(socketConfig)
-                                                                               .setTlsSocketStrategy(tlsSocketStrategy)
-                                                                               .setMaxConnTotal(
-                                                                                       properties.getMaxTotal())
-                                                                               .setMaxConnPerRoute(
-                                                                                       properties.getDefaultMaxPerRoute())
-                                                                               .build();
-
-        RequestConfig requestConfig = RequestConfig.custom()
-                                                   .setConnectionRequestTimeout(Timeout.ofSeconds(
-                                                           properties.getConnectionRequestTimeoutSeconds()))
-                                                   .setResponseTimeout(
-                                                           Timeout.ofSeconds(properties.getResponseTimeoutSeconds()))
-                                                   .build();
+        final var connectionManager = new InstrumentedHttpClientConnectionManager(settings.name(),
+                                                                                  tlsSocketStrategy,
+                                                                                  meterRegistry
+        );
+        connectionManager.setDefaultSocketConfig(socketConfig);
+        connectionManager.setMaxTotal(settings.maxTotal());
+        connectionManager.setDefaultMaxPerRoute(settings.defaultMaxPerRoute());
 
         HttpClientBuilder builder = HttpClients.custom()
                                                .setConnectionManager(connectionManager)
-                                               .setDefaultRequestConfig(requestConfig);
+                                               .setDefaultRequestConfig(getRequestConfig(settings))
+                                               .addExecInterceptorFirst(DeadlineExecInterceptor.NAME,
+                                                                        new DeadlineExecInterceptor()
+                                               );
+
+        if (settings.idleConnectionEvictionSeconds() > 0) {
+            builder.evictExpiredConnections()
+                   .evictIdleConnections(TimeValue.ofSeconds(settings.idleConnectionEvictionSeconds()));
+        }
 
         if (interceptor != null) {
             builder.addRequestInterceptorFirst(interceptor);
@@ -276,4 +375,61 @@ public class ServerConfiguration {
 
         return builder.build();
     }
+
+    /*
+     * The pool of the non-blocking client keeps the same limits as the blocking clients. With HTTP/2 negotiated
+     * over TLS, the calls to a route are multiplexed over a single connection, so the pool rarely grows.
+     */
+    private CloseableHttpAsyncClient getHttpAsyncClient(SSLContext sslContext, HttpClientPoolSettings settings) {
+        configureTlsSessions(sslContext, settings);
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                                                            .setSocketTimeout(settings.readTimeoutSeconds(),
+                                                                              TimeUnit.SECONDS
+                                                            )
+                                                            .build();
+        TlsConfig tlsConfig = TlsConfig.custom()
+                                       .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+                                       .build();
+        final var connectionManager = new InstrumentedAsyncClientConnectionManager(settings.name(),
+                                                                                   new DefaultClientTlsStrategy(
+                                                                                           sslContext),
+                                                                                   meterRegistry
+        );
+        connectionManager.setDefaultConnectionConfig(connectionConfig);
+        connectionManager.setDefaultTlsConfig(tlsConfig);
+        connectionManager.setMaxTotal(settings.maxTotal());
+        connectionManager.setDefaultMaxPerRoute(settings.defaultMaxPerRoute());
+
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                                                         .setConnectionManager(connectionManager)
+                                                         .setDefaultRequestConfig(getRequestConfig(settings))
+                                                         .addExecInterceptorFirst(DeadlineExecInterceptor.NAME,
+                                                                                  new DeadlineExecInterceptor()
+                                                         );
+
+        if (settings.idleConnectionEvictionSeconds() > 0) {
+            builder.evictExpiredConnections()
+                   .evictIdleConnections(TimeValue.ofSeconds(settings.idleConnectionEvictionSeconds()));
+        }
+
+        return builder.build();
+    }
+
+    private static RequestConfig getRequestConfig(HttpClientPoolSettings settings) {
+        return RequestConfig.custom()
+                            .setConnectionRequestTimeout(Timeout.ofSeconds(settings.connectionRequestTimeoutSeconds()))
+                            .setResponseTimeout(Timeout.ofSeconds(settings.responseTimeoutSeconds()))
+                            .build();
+    }
+
+    /*
+     * Connections to the same backend resume the cached TLS session instead of making the full handshake,
+     * which saves the round-trips and the key exchange when the pool opens new connections. The context is
+     * created for the client, so the settings don't shrink the cache of other clients.
+     */
+    private static void configureTlsSessions(SSLContext sslContext, HttpClientPoolSettings settings) {
+        SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        sessionContext.setSessionCacheSize(settings.tlsSessionCacheSize());
+        sessionContext.setSessionTimeout(settings.tlsSessionTimeoutSeconds());
+    }
 }
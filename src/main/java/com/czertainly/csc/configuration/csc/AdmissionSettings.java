@@ -0,0 +1,35 @@
+package com.czertainly.csc.configuration.csc;
+
+import jakarta.validation.Valid;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+public record AdmissionSettings(
+        DataSize memoryBudget,
+        DataSize unknownSizeReservation,
+        Duration queueTimeout,
+        Duration retryAfter,
+        @Valid ConcurrencyLimitsSettings concurrencyLimits,
+        @Valid RateLimitsSettings rateLimits
+) {
+    public AdmissionSettings(DataSize memoryBudget, DataSize unknownSizeReservation, Duration queueTimeout,
+                             Duration retryAfter, ConcurrencyLimitsSettings concurrencyLimits,
+                             RateLimitsSettings rateLimits
+    ) {
+        this.memoryBudget = (memoryBudget == null)
+                ? DataSize.ofBytes(Runtime.getRuntime().maxMemory() / 4)
+                : memoryBudget;
+        this.unknownSizeReservation = (unknownSizeReservation == null)
+                ? DataSize.ofMegabytes(16)
+                : unknownSizeReservation;
+        this.queueTimeout = (queueTimeout == null) ? Duration.ofSeconds(5) : queueTimeout;
+        this.retryAfter = (retryAfter == null) ? Duration.ofSeconds(5) : retryAfter;
+        this.concurrencyLimits = (concurrencyLimits == null)
+                ? new ConcurrencyLimitsSettings(null, null, null, null)
+                : concurrencyLimits;
+        this.rateLimits = (rateLimits == null)
+                ? new RateLimitsSettings(null, null, null, null)
+                : rateLimits;
+    }
+}
@@ -0,0 +1,15 @@
+package com.czertainly.csc.configuration.csc;
+
+import java.time.Duration;
+
+public record CacheInvalidationSettings(
+        Boolean enabled,
+        Duration pollInterval,
+        Duration eventRetention
+) {
+    public CacheInvalidationSettings(Boolean enabled, Duration pollInterval, Duration eventRetention) {
+        this.enabled = enabled == null || enabled;
+        this.pollInterval = (pollInterval == null) ? Duration.ofMillis(500) : pollInterval;
+        this.eventRetention = (eventRetention == null) ? Duration.ofMinutes(10) : eventRetention;
+    }
+}
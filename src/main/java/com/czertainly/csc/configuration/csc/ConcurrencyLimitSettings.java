@@ -0,0 +1,29 @@
+package com.czertainly.csc.configuration.csc;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+
+import java.time.Duration;
+
+public record ConcurrencyLimitSettings(
+        @Min(1) Integer initialLimit,
+        @Min(1) Integer minLimit,
+        @Min(1) Integer maxLimit,
+        @Min(0) Integer maxQueueSize,
+        Duration queueTimeout,
+        Boolean adaptive,
+        @DecimalMin("1.0") Double latencyTolerance
+) {
+    public ConcurrencyLimitSettings(@Min(1) Integer initialLimit, @Min(1) Integer minLimit, @Min(1) Integer maxLimit,
+                                    @Min(0) Integer maxQueueSize, Duration queueTimeout, Boolean adaptive,
+                                    @DecimalMin("1.0") Double latencyTolerance
+    ) {
+        this.initialLimit = (initialLimit == null) ? 20 : initialLimit;
+        this.minLimit = (minLimit == null) ? 2 : minLimit;
+        this.maxLimit = (maxLimit == null) ? 200 : maxLimit;
+        this.maxQueueSize = (maxQueueSize == null) ? 100 : maxQueueSize;
+        this.queueTimeout = (queueTimeout == null) ? Duration.ofSeconds(1) : queueTimeout;
+        this.adaptive = adaptive == null || adaptive;
+        this.latencyTolerance = (latencyTolerance == null) ? 1.5 : latencyTolerance;
+    }
+}
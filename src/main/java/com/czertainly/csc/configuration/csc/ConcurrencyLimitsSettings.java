@@ -0,0 +1,25 @@
+package com.czertainly.csc.configuration.csc;
+
+import jakarta.validation.Valid;
+
+public record ConcurrencyLimitsSettings(
+        @Valid ConcurrencyLimitSettings signHash,
+        @Valid ConcurrencyLimitSettings signDoc,
+        @Valid ConcurrencyLimitSettings credentials,
+        @Valid ConcurrencyLimitSettings management
+) {
+    public ConcurrencyLimitsSettings {
+        if (signHash == null) {
+            signHash = new ConcurrencyLimitSettings(null, null, null, null, null, null, null);
+        }
+        if (signDoc == null) {
+            signDoc = new ConcurrencyLimitSettings(null, null, null, null, null, null, null);
+        }
+        if (credentials == null) {
+            credentials = new ConcurrencyLimitSettings(null, null, null, null, null, null, null);
+        }
+        if (management == null) {
+            management = new ConcurrencyLimitSettings(null, null, null, null, null, null, null);
+        }
+    }
+}
@@ -4,10 +4,14 @@ import jakarta.validation.constraints.Min;
 
 public record ConcurrencySettings(
         @Min(1) Integer maxKeyGeneration,
-        @Min(1) Integer maxKeyDeletion
+        @Min(1) Integer maxKeyDeletion,
+        @Min(1) Integer maxKeyQueries
 ) {
-    public ConcurrencySettings(@Min(1) Integer maxKeyGeneration, @Min(1) Integer maxKeyDeletion) {
+    public ConcurrencySettings(@Min(1) Integer maxKeyGeneration, @Min(1) Integer maxKeyDeletion,
+                               @Min(1) Integer maxKeyQueries
+    ) {
         this.maxKeyGeneration = (maxKeyGeneration == null) ? 10 : maxKeyGeneration;
         this.maxKeyDeletion = (maxKeyDeletion == null) ? 10 : maxKeyDeletion;
+        this.maxKeyQueries = (maxKeyQueries == null) ? 10 : maxKeyQueries;
     }
 }
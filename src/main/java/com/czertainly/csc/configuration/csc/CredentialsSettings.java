@@ -0,0 +1,27 @@
+package com.czertainly.csc.configuration.csc;
+
+import jakarta.validation.constraints.Min;
+
+import java.time.Duration;
+
+public record CredentialsSettings(
+        Boolean snapshotConsistencyCheck,
+        @Min(1) Integer snapshotBackfillBatchSize,
+        Duration metadataCacheTimeToLive,
+        @Min(1) Integer metadataCacheMaxSize,
+        @Min(1) Integer listMaxResults,
+        String pageTokenSecret
+) {
+    public CredentialsSettings(Boolean snapshotConsistencyCheck, @Min(1) Integer snapshotBackfillBatchSize,
+                               Duration metadataCacheTimeToLive, @Min(1) Integer metadataCacheMaxSize,
+                               @Min(1) Integer listMaxResults, String pageTokenSecret
+    ) {
+        this.snapshotConsistencyCheck = snapshotConsistencyCheck != null && snapshotConsistencyCheck;
+        this.snapshotBackfillBatchSize = (snapshotBackfillBatchSize == null) ? 100 : snapshotBackfillBatchSize;
+        this.metadataCacheTimeToLive = (metadataCacheTimeToLive == null) ? Duration.ofMinutes(1)
+                : metadataCacheTimeToLive;
+        this.metadataCacheMaxSize = (metadataCacheMaxSize == null) ? 10000 : metadataCacheMaxSize;
+        this.listMaxResults = (listMaxResults == null) ? 1000 : listMaxResults;
+        this.pageTokenSecret = pageTokenSecret;
+    }
+}
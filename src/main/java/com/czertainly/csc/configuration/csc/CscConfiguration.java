@@ -16,5 +16,36 @@ public record CscConfiguration(
         @NotBlank String profilesConfigurationDirectory,
         @NotNull SigningSessions signingSessions,
         @NotNull OneTimeKeysCleanupSettings oneTimeKeys,
-        @Valid ConcurrencySettings concurrency
-) {}
+        @Valid ConcurrencySettings concurrency,
+        @Valid CredentialsSettings credentials,
+        @Valid CacheInvalidationSettings cacheInvalidation,
+        @Valid SigningSettings signing,
+        @Valid AdmissionSettings admission,
+        @Valid WarmupSettings warmup,
+        @Valid RetrySettings retry,
+        @Valid RequestDeadlineSettings deadline
+) {
+    public CscConfiguration {
+        if (credentials == null) {
+            credentials = new CredentialsSettings(null, null, null, null, null, null);
+        }
+        if (cacheInvalidation == null) {
+            cacheInvalidation = new CacheInvalidationSettings(null, null, null);
+        }
+        if (signing == null) {
+            signing = new SigningSettings(null, null, null, null);
+        }
+        if (admission == null) {
+            admission = new AdmissionSettings(null, null, null, null, null, null);
+        }
+        if (warmup == null) {
+            warmup = new WarmupSettings(null, null, null);
+        }
+        if (retry == null) {
+            retry = new RetrySettings(null, null, null, null);
+        }
+        if (deadline == null) {
+            deadline = new RequestDeadlineSettings(null, null, null, null, null, null);
+        }
+    }
+}
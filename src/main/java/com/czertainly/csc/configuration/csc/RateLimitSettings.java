@@ -0,0 +1,10 @@
+package com.czertainly.csc.configuration.csc;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record RateLimitSettings(
+        @NotNull @Min(1) Integer capacity,
+        @NotNull @DecimalMin(value = "0.0", inclusive = false) Double refillPerSecond
+) {}
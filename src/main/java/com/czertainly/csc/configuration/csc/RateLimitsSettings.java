@@ -0,0 +1,20 @@
+package com.czertainly.csc.configuration.csc;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+
+public record RateLimitsSettings(
+        @Min(1) Integer maxKeys,
+        @Valid RateLimitSettings client,
+        @Valid RateLimitSettings user,
+        @Valid RateLimitSettings credential
+) {
+    public RateLimitsSettings(@Min(1) Integer maxKeys, RateLimitSettings client, RateLimitSettings user,
+                              RateLimitSettings credential
+    ) {
+        this.maxKeys = (maxKeys == null) ? 10000 : maxKeys;
+        this.client = client;
+        this.user = user;
+        this.credential = credential;
+    }
+}
@@ -0,0 +1,23 @@
+package com.czertainly.csc.configuration.csc;
+
+import java.time.Duration;
+
+public record RequestDeadlineSettings(
+        Boolean enabled,
+        String header,
+        Duration signHash,
+        Duration signDoc,
+        Duration credentials,
+        Duration management
+) {
+    public RequestDeadlineSettings(Boolean enabled, String header, Duration signHash, Duration signDoc,
+                                   Duration credentials, Duration management
+    ) {
+        this.enabled = enabled == null || enabled;
+        this.header = (header == null || header.isBlank()) ? "X-Request-Timeout" : header;
+        this.signHash = (signHash == null) ? Duration.ofSeconds(60) : signHash;
+        this.signDoc = signDoc;
+        this.credentials = (credentials == null) ? Duration.ofSeconds(60) : credentials;
+        this.management = management;
+    }
+}
@@ -0,0 +1,34 @@
+package com.czertainly.csc.configuration.csc;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+
+import java.time.Duration;
+import java.util.Map;
+
+public record RetryBackendSettings(
+        @DecimalMin("0.0") @DecimalMax("1.0") Double budgetRatio,
+        @Min(0) Integer budgetBurst,
+        @Min(1) Integer maxAttempts,
+        Duration initialBackoff,
+        Duration maxBackoff,
+        @DecimalMin("1.0") Double multiplier,
+        Map<String, @Valid RetryOperationSettings> operations
+) {
+    public RetryBackendSettings(@DecimalMin("0.0") @DecimalMax("1.0") Double budgetRatio,
+                                @Min(0) Integer budgetBurst, @Min(1) Integer maxAttempts,
+                                Duration initialBackoff, Duration maxBackoff,
+                                @DecimalMin("1.0") Double multiplier,
+                                Map<String, @Valid RetryOperationSettings> operations
+    ) {
+        this.budgetRatio = (budgetRatio == null) ? 0.1 : budgetRatio;
+        this.budgetBurst = (budgetBurst == null) ? 10 : budgetBurst;
+        this.maxAttempts = (maxAttempts == null) ? 3 : maxAttempts;
+        this.initialBackoff = (initialBackoff == null) ? Duration.ofMillis(200) : initialBackoff;
+        this.maxBackoff = (maxBackoff == null) ? Duration.ofSeconds(2) : maxBackoff;
+        this.multiplier = (multiplier == null) ? 2.0 : multiplier;
+        this.operations = (operations == null) ? Map.of() : operations;
+    }
+}
@@ -0,0 +1,18 @@
+package com.czertainly.csc.configuration.csc;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+
+import java.time.Duration;
+
+/**
+ * Retry rules of a single operation of a backend. The values that are not set are taken from the settings of
+ * the backend.
+ */
+public record RetryOperationSettings(
+        @Min(1) Integer maxAttempts,
+        Duration initialBackoff,
+        Duration maxBackoff,
+        @DecimalMin("1.0") Double multiplier
+) {
+}
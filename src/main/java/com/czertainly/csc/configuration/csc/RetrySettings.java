@@ -0,0 +1,58 @@
+package com.czertainly.csc.configuration.csc;
+
+import jakarta.validation.Valid;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public record RetrySettings(
+        @Valid RetryBackendSettings signserver,
+        @Valid RetryBackendSettings ejbca,
+        @Valid RetryBackendSettings idp,
+        @Valid RetryBackendSettings database
+) {
+
+    private static final RetryOperationSettings SINGLE_ATTEMPT = new RetryOperationSettings(1, null, null, null);
+
+    // A key generated or a certificate chain imported by a call whose response was lost would be
+    // generated or imported again by the retry
+    private static final Map<String, RetryOperationSettings> SIGNSERVER_OPERATIONS = Map.of(
+            "generateKey", SINGLE_ATTEMPT,
+            "importCertificateChain", SINGLE_ATTEMPT
+    );
+
+    // A certificate issued by a call whose response was lost would be issued again by the retry
+    private static final Map<String, RetryOperationSettings> EJBCA_OPERATIONS = Map.of(
+            "requestCertificate", SINGLE_ATTEMPT,
+            "enrollCertificate", SINGLE_ATTEMPT
+    );
+
+    public RetrySettings {
+        signserver = withDefaultOperations(signserver, SIGNSERVER_OPERATIONS);
+        ejbca = withDefaultOperations(ejbca, EJBCA_OPERATIONS);
+        if (idp == null) {
+            idp = new RetryBackendSettings(null, null, null, null, null, null, null);
+        }
+        if (database == null) {
+            database = new RetryBackendSettings(null, null, null, null, null, null, null);
+        }
+    }
+
+    /**
+     * Adds the default settings of the operations that are not configured, so that the operations which are not
+     * safe to repeat are made only once even when the settings of some other operations are configured.
+     */
+    private static RetryBackendSettings withDefaultOperations(
+            RetryBackendSettings settings, Map<String, RetryOperationSettings> defaultOperations
+    ) {
+        if (settings == null) {
+            return new RetryBackendSettings(null, null, null, null, null, null, defaultOperations);
+        }
+        Map<String, RetryOperationSettings> operations = new HashMap<>(defaultOperations);
+        operations.putAll(settings.operations());
+        return new RetryBackendSettings(settings.budgetRatio(), settings.budgetBurst(), settings.maxAttempts(),
+                                        settings.initialBackoff(), settings.maxBackoff(), settings.multiplier(),
+                                        operations
+        );
+    }
+}
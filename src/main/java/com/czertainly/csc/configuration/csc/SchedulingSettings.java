@@ -0,0 +1,28 @@
+package com.czertainly.csc.configuration.csc;
+
+import jakarta.validation.constraints.Min;
+
+import java.time.Duration;
+
+public record SchedulingSettings(
+        @Min(1) Integer capacity,
+        @Min(0) Integer interactiveReserved,
+        @Min(1) Integer interactiveWeight,
+        @Min(1) Integer bulkWeight,
+        Duration queueTimeout,
+        String bulkScope,
+        @Min(1) Integer maxCallsPerRequest
+) {
+    public SchedulingSettings(@Min(1) Integer capacity, @Min(0) Integer interactiveReserved,
+                              @Min(1) Integer interactiveWeight, @Min(1) Integer bulkWeight, Duration queueTimeout,
+                              String bulkScope, @Min(1) Integer maxCallsPerRequest
+    ) {
+        this.capacity = (capacity == null) ? 20 : capacity;
+        this.interactiveReserved = (interactiveReserved == null) ? 5 : interactiveReserved;
+        this.interactiveWeight = (interactiveWeight == null) ? 4 : interactiveWeight;
+        this.bulkWeight = (bulkWeight == null) ? 1 : bulkWeight;
+        this.queueTimeout = (queueTimeout == null) ? Duration.ofSeconds(30) : queueTimeout;
+        this.bulkScope = (bulkScope == null || bulkScope.isBlank()) ? null : bulkScope;
+        this.maxCallsPerRequest = (maxCallsPerRequest == null) ? 4 : maxCallsPerRequest;
+    }
+}
@@ -0,0 +1,22 @@
+package com.czertainly.csc.configuration.csc;
+
+import jakarta.validation.Valid;
+import org.springframework.util.unit.DataSize;
+
+public record SigningSettings(
+        Boolean clientSideHashing,
+        DataSize spoolThreshold,
+        String spoolDirectory,
+        @Valid SchedulingSettings scheduling
+) {
+    public SigningSettings(Boolean clientSideHashing, DataSize spoolThreshold, String spoolDirectory,
+                           SchedulingSettings scheduling
+    ) {
+        this.clientSideHashing = clientSideHashing != null && clientSideHashing;
+        this.spoolThreshold = (spoolThreshold == null) ? DataSize.ofMegabytes(1) : spoolThreshold;
+        this.spoolDirectory = (spoolDirectory == null || spoolDirectory.isBlank()) ? null : spoolDirectory;
+        this.scheduling = (scheduling == null)
+                ? new SchedulingSettings(null, null, null, null, null, null, null)
+                : scheduling;
+    }
+}
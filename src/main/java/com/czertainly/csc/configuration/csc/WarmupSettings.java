@@ -0,0 +1,17 @@
+package com.czertainly.csc.configuration.csc;
+
+import jakarta.validation.constraints.Min;
+
+import java.time.Duration;
+
+public record WarmupSettings(
+        Boolean enabled,
+        @Min(1) Integer connections,
+        Duration timeout
+) {
+    public WarmupSettings(Boolean enabled, @Min(1) Integer connections, Duration timeout) {
+        this.enabled = enabled == null || enabled;
+        this.connections = (connections == null) ? 2 : connections;
+        this.timeout = (timeout == null) ? Duration.ofSeconds(30) : timeout;
+    }
+}
@@ -0,0 +1,8 @@
+package com.czertainly.csc.controllers.exceptions;
+
+public class DeadlineExpiredException extends RuntimeException {
+
+    public DeadlineExpiredException(String errorDescription) {
+        super(errorDescription);
+    }
+}
@@ -39,6 +39,13 @@ public class ExceptionAdvice {
         return new ErrorDto("internal_server_error", ex.getMessage());
     }
 
+    @ResponseBody
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    @ExceptionHandler(DeadlineExpiredException.class)
+    ErrorDto deadlineExpired(DeadlineExpiredException ex) {
+        return new ErrorDto("timeout", ex.getMessage());
+    }
+
     @ResponseBody
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(ServiceUnavailableException.class)
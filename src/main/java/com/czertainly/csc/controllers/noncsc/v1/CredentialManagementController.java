@@ -7,8 +7,10 @@ import com.czertainly.csc.api.mappers.credentials.CreateCredentialRequestMapper;
 import com.czertainly.csc.api.mappers.credentials.CredentialUUIDMapper;
 import com.czertainly.csc.api.mappers.credentials.RekeyCertificateRequestMapper;
 import com.czertainly.csc.api.mappers.credentials.RemoveCredentialRequestMapper;
+import com.czertainly.csc.common.deadline.Deadline;
 import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.components.DateConverter;
+import com.czertainly.csc.controllers.exceptions.DeadlineExpiredException;
 import com.czertainly.csc.controllers.exceptions.InternalErrorException;
 import com.czertainly.csc.model.csc.requests.CreateCredentialRequest;
 import com.czertainly.csc.model.csc.requests.RekeyCredentialRequest;
@@ -53,6 +55,11 @@ import java.util.UUID;
                         responseCode = "500",
                         description = "Internal Server Error",
                         content = @Content
+                ),
+                @ApiResponse(
+                        responseCode = "504",
+                        description = "Deadline of the request expired",
+                        content = @Content(schema = @Schema(implementation = ErrorDto.class))
                 )
 
         })
@@ -201,6 +208,10 @@ public class CredentialManagementController {
 
     private void logAndThrowError(TextError error) {
         logger.error(error.toString());
+        // The calls made for the request fail once its deadline expires, the client is told it timed out
+        if (Deadline.currentExpired()) {
+            throw new DeadlineExpiredException(error.toString());
+        }
         throw new InternalErrorException(error.toString());
     }
 }
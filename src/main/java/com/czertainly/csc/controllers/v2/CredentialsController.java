@@ -7,8 +7,11 @@ import com.czertainly.csc.api.credentials.GetCredentialInfoDto;
 import com.czertainly.csc.api.credentials.ListCredentialsRequestDto;
 import com.czertainly.csc.api.mappers.credentials.CredentialInfoRequestMapper;
 import com.czertainly.csc.api.mappers.credentials.CredentialsListRequestMapper;
+import com.czertainly.csc.common.deadline.Deadline;
 import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.components.DateConverter;
+import com.czertainly.csc.components.PageTokenCodec;
+import com.czertainly.csc.controllers.exceptions.DeadlineExpiredException;
 import com.czertainly.csc.controllers.exceptions.InternalErrorException;
 import com.czertainly.csc.model.csc.requests.CredentialInfoRequest;
 import com.czertainly.csc.model.csc.requests.ListCredentialsRequest;
@@ -45,16 +48,19 @@ public class CredentialsController {
 
     private final CredentialsService credentialsService;
     private final DateConverter dateConverter;
+    private final PageTokenCodec pageTokenCodec;
 
     private final CredentialInfoRequestMapper credentialInfoRequestMapper;
     private final CredentialsListRequestMapper credentialsListRequestMapper;
 
     public CredentialsController(CredentialsService credentialsService, DateConverter dateConverter,
+                                 PageTokenCodec pageTokenCodec,
                                  CredentialInfoRequestMapper credentialInfoRequestMapper,
                                  CredentialsListRequestMapper credentialsListRequestMapper
     ) {
         this.credentialsService = credentialsService;
         this.dateConverter = dateConverter;
+        this.pageTokenCodec = pageTokenCodec;
         this.credentialInfoRequestMapper = credentialInfoRequestMapper;
         this.credentialsListRequestMapper = credentialsListRequestMapper;
     }
@@ -81,7 +87,7 @@ public class CredentialsController {
         ListCredentialsRequest request = credentialsListRequestMapper.map(requestDto, token);
         return credentialsService
                 .listUserCredentials(request)
-                .map(credentials -> CredentialsListDto.from(credentials, dateConverter))
+                .map(page -> CredentialsListDto.from(page, dateConverter, pageTokenCodec))
                 .mapError(e -> e.extend("Failed to list credentials of the user %s", requestDto.userID()))
                 .consumeError(this::logAndThrowError)
                 .unwrap();
@@ -131,6 +137,10 @@ public class CredentialsController {
 
     private void logAndThrowError(TextError error) {
         logger.error(error.toString());
+        // The calls made for the request fail once its deadline expires, the client is told it timed out
+        if (Deadline.currentExpired()) {
+            throw new DeadlineExpiredException(error.toString());
+        }
         throw new InternalErrorException(error.toString());
     }
 }
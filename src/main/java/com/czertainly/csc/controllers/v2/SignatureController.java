@@ -4,7 +4,8 @@ import com.czertainly.csc.api.auth.CscAuthenticationToken;
 import com.czertainly.csc.api.auth.SignatureActivationData;
 import com.czertainly.csc.api.auth.TokenValidator;
 import com.czertainly.csc.api.common.ErrorDto;
-import com.czertainly.csc.api.mappers.signatures.SignDocResponseMapper;
+import com.czertainly.csc.api.mappers.signatures.SignDocNdjsonResponseWriter;
+import com.czertainly.csc.api.mappers.signatures.SignDocResponseWriter;
 import com.czertainly.csc.api.mappers.signatures.SignDocValidatingRequestMapper;
 import com.czertainly.csc.api.mappers.signatures.SignHashResponseMapper;
 import com.czertainly.csc.api.mappers.signatures.SignHashValidatingRequestMapper;
@@ -12,12 +13,21 @@ import com.czertainly.csc.api.signdoc.SignDocRequestDto;
 import com.czertainly.csc.api.signdoc.SignDocResponseDto;
 import com.czertainly.csc.api.signhash.SignHashRequestDto;
 import com.czertainly.csc.api.signhash.SignHashResponseDto;
+import com.czertainly.csc.common.deadline.Deadline;
+import com.czertainly.csc.common.result.Error;
+import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.controllers.exceptions.DeadlineExpiredException;
 import com.czertainly.csc.controllers.exceptions.InternalErrorException;
 import com.czertainly.csc.model.SignDocParameters;
 import com.czertainly.csc.model.SignHashParameters;
 import com.czertainly.csc.signing.SignatureFacade;
+import com.czertainly.csc.signing.scheduling.SigningPriority;
+import com.czertainly.csc.signing.scheduling.SigningPriorityContext;
+import com.czertainly.csc.signing.scheduling.SigningPriorityResolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -27,12 +37,18 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirements;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Optional;
 
 @RestController
 @RequestMapping("csc/v2/signatures")
@@ -61,6 +77,11 @@ import org.springframework.web.bind.annotation.RestController;
                         description = "Not Implemented",
                         content = @Content
                 ),
+                @ApiResponse(
+                        responseCode = "504",
+                        description = "Deadline of the request expired",
+                        content = @Content(schema = @Schema(implementation = ErrorDto.class))
+                ),
         })
 @SecurityRequirements(value = {
         @SecurityRequirement(name = "BearerAuthSignature"),
@@ -68,29 +89,40 @@ import org.springframework.web.bind.annotation.RestController;
 public class SignatureController {
 
     private static final Logger logger = LoggerFactory.getLogger(SignatureController.class);
+    private static final String PRIORITY_HEADER_DESCRIPTION = "Set to `bulk` to sign with the priority of batch " +
+            "processing, so the request doesn't slow down interactive requests. Documents are always signed " +
+            "with the bulk priority.";
+    private static final String SIGN_DOC_ERROR = "internal_server_error";
+    private static final String SIGN_DOC_ERROR_DESCRIPTION = "Failed to sign the documents.";
+    private static final String SIGN_DOC_DEADLINE_ERROR = "timeout";
+    private static final String SIGN_DOC_DEADLINE_ERROR_DESCRIPTION =
+            "The documents were not signed before the deadline of the request.";
 
     final SignatureFacade signatureFacade;
 
     final TokenValidator tokenValidator;
     final SignHashValidatingRequestMapper signHashValidationRequestMapper;
     final SignDocValidatingRequestMapper signDocValidatingRequestMapper;
-    final SignDocResponseMapper signDocResponseMapper;
+    final ObjectMapper objectMapper;
     private final SignHashResponseMapper signHashResponseMapper;
+    private final SigningPriorityResolver signingPriorityResolver;
 
 
     public SignatureController(
             SignHashValidatingRequestMapper signHashValidationRequestMapper,
             TokenValidator tokenValidator, SignatureFacade signatureFacade,
             SignDocValidatingRequestMapper signDocValidatingRequestMapper,
-            SignDocResponseMapper signDocResponseMapper,
-            SignHashResponseMapper signHashResponseMapper
+            ObjectMapper objectMapper,
+            SignHashResponseMapper signHashResponseMapper,
+            SigningPriorityResolver signingPriorityResolver
     ) {
         this.tokenValidator = tokenValidator;
         this.signHashValidationRequestMapper = signHashValidationRequestMapper;
         this.signatureFacade = signatureFacade;
         this.signDocValidatingRequestMapper = signDocValidatingRequestMapper;
-        this.signDocResponseMapper = signDocResponseMapper;
+        this.objectMapper = objectMapper;
         this.signHashResponseMapper = signHashResponseMapper;
+        this.signingPriorityResolver = signingPriorityResolver;
     }
 
     @RequestMapping(
@@ -113,17 +145,25 @@ public class SignatureController {
             }
     )
     public SignHashResponseDto signHash(@RequestBody SignHashRequestDto signHashRequest,
-                                        Authentication authentication
+                                        Authentication authentication,
+                                        @Parameter(description = PRIORITY_HEADER_DESCRIPTION)
+                                        @RequestHeader(value = SigningPriorityResolver.PRIORITY_HEADER,
+                                                required = false) String priorityHeader
     ) {
         logger.trace("Serving signHash request.");
         SignHashParameters parameters = signHashValidationRequestMapper
                 .map(signHashRequest, getSadIfAvailable(authentication));
+        SigningPriority priority = signingPriorityResolver.resolve(
+                SigningPriority.INTERACTIVE, authentication, priorityHeader
+        );
 
-        return signatureFacade.signHashes(parameters)
-                              .flatMap(signHashResponseMapper::map)
-                              .mapError(e -> e.extend("Failed to sign the document."))
-                              .consumeError(this::logAndThrowError)
-                              .unwrap();
+        var signResult = SigningPriorityContext.callWithPriority(
+                priority, () -> signatureFacade.signHashes(parameters)
+        );
+        return signResult.flatMap(signHashResponseMapper::map)
+                         .mapError(e -> e.extend("Failed to sign the document."))
+                         .consumeError(this::logAndThrowError)
+                         .unwrap();
     }
 
     @RequestMapping(
@@ -150,15 +190,100 @@ public class SignatureController {
                     ),
             }
     )
-    public SignDocResponseDto signDoc(@RequestBody SignDocRequestDto signDocRequest, Authentication authentication) {
+    public ResponseEntity<StreamingResponseBody> signDoc(@RequestBody SignDocRequestDto signDocRequest,
+                                                         Authentication authentication
+    ) {
         logger.trace("Serving signDoc request.");
         SignDocParameters request = signDocValidatingRequestMapper
                 .map(signDocRequest, getSadIfAvailable(authentication));
-        return signatureFacade.signDocuments(request, ((CscAuthenticationToken) authentication))
-                              .flatMap(signDocResponseMapper::map)
-                              .mapError(e -> e.extend("Failed to sign the document."))
-                              .consumeError(this::logAndThrowError)
-                              .unwrap();
+        SigningPriority priority = signingPriorityResolver.resolve(SigningPriority.BULK, authentication, null);
+        Optional<Deadline> deadline = Deadline.current();
+
+        // The documents are signed while the response is written, so each signature is sent as soon as it is created
+        // The response is written by another thread, which is given the deadline of the request
+        StreamingResponseBody responseBody = outputStream -> {
+            try (SignDocResponseWriter responseWriter = new SignDocResponseWriter(objectMapper, outputStream)) {
+                Result<Void, TextError> signResult;
+                try {
+                    signResult = Deadline.callWith(deadline, () -> SigningPriorityContext.callWithPriority(
+                            priority, () -> signatureFacade.signDocuments(
+                                    request, ((CscAuthenticationToken) authentication), responseWriter
+                            )));
+                } catch (RuntimeException e) {
+                    logger.error("Failed to sign the documents.", e);
+                    throw e;
+                }
+                signResult.flatMap(ignored -> responseWriter.finish())
+                          .mapError(e -> e.extend("Failed to sign the document."))
+                          .consumeError(error -> logAndFailResponse(responseWriter, error, deadline));
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(responseBody);
+    }
+
+    @RequestMapping(
+            path = "/signDoc",
+            method = RequestMethod.POST,
+            consumes = "application/json",
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    @Operation(
+            summary = "Sign document with incremental response",
+            description = "Extension of the `signatures/signDoc` method selected by the `Accept: " +
+                    "application/x-ndjson` header. The response contains one JSON line per document, written as " +
+                    "soon as the document is signed, with the `index` of the document in the request and either " +
+                    "its `signature` or the `error` and `error_description` telling it could not be signed. The " +
+                    "remaining documents are signed even if some of them fail. The last line contains the " +
+                    "`summary` of the request with the number of signed and failed documents, the " +
+                    "`validationInfo` and the `error` that stopped the signing, if any. A response without the " +
+                    "summary line is incomplete.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful operation",
+                            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)
+                    ),
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> signDocIncrementally(@RequestBody SignDocRequestDto signDocRequest,
+                                                                      Authentication authentication
+    ) {
+        logger.trace("Serving incremental signDoc request.");
+        SignDocParameters request = signDocValidatingRequestMapper
+                .map(signDocRequest, getSadIfAvailable(authentication));
+        SigningPriority priority = signingPriorityResolver.resolve(SigningPriority.BULK, authentication, null);
+        Optional<Deadline> deadline = Deadline.current();
+
+        StreamingResponseBody responseBody = outputStream -> {
+            try (SignDocNdjsonResponseWriter responseWriter = new SignDocNdjsonResponseWriter(objectMapper,
+                                                                                              outputStream
+            )) {
+                Result<Void, TextError> signResult;
+                try {
+                    signResult = Deadline.callWith(deadline, () -> SigningPriorityContext.callWithPriority(
+                            priority, () -> signatureFacade.signDocuments(
+                                    request, ((CscAuthenticationToken) authentication), responseWriter
+                            )));
+                } catch (RuntimeException e) {
+                    logger.error("Failed to sign the documents.", e);
+                    signResult = Result.error(
+                            TextError.of("Unexpected error occurred while signing the documents."));
+                }
+                if (signResult instanceof Error(var err)) {
+                    // The documents signed so far were already sent, so the error is reported in the summary
+                    TextError error = err.extend("Failed to sign the documents.");
+                    logger.error(error.toString());
+                    Result<Void, TextError> finished = isExpired(deadline)
+                            ? responseWriter.finish(SIGN_DOC_DEADLINE_ERROR, SIGN_DOC_DEADLINE_ERROR_DESCRIPTION)
+                            : responseWriter.finish(SIGN_DOC_ERROR, SIGN_DOC_ERROR_DESCRIPTION);
+                    finished.consumeError(this::logAndThrowError);
+                } else {
+                    responseWriter.finish().consumeError(this::logAndThrowError);
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(responseBody);
     }
 
     private SignatureActivationData getSadIfAvailable(Authentication authentication) {
@@ -168,8 +293,34 @@ public class SignatureController {
         return null;
     }
 
+    /*
+     * The error is returned as a regular error response if nothing was written yet. Otherwise the exception aborts
+     * the response already sent, leaving its body incomplete, so the client can't take it for a complete one.
+     */
+    private void logAndFailResponse(SignDocResponseWriter responseWriter, TextError error,
+                                    Optional<Deadline> deadline
+    ) {
+        logger.error(error.toString());
+        if (responseWriter.isStarted()) {
+            logger.error("The signDoc response was already started, it will be aborted.");
+        }
+        if (isExpired(deadline)) {
+            throw new DeadlineExpiredException(error.toString());
+        }
+        throw new InternalErrorException(error.toString());
+    }
+
+    // The signDoc responses are written by another thread, which has the deadline bound only while signing
+    private static boolean isExpired(Optional<Deadline> deadline) {
+        return deadline.map(Deadline::isExpired).orElse(false);
+    }
+
     private void logAndThrowError(TextError error) {
         logger.error(error.toString());
+        // The calls made for the request fail once its deadline expires, the client is told it timed out
+        if (Deadline.currentExpired()) {
+            throw new DeadlineExpiredException(error.toString());
+        }
         throw new InternalErrorException(error.toString());
     }
 }
@@ -1,5 +1,6 @@
 package com.czertainly.csc.model;
 
+import com.czertainly.csc.common.io.SpooledData;
 import com.czertainly.csc.crypto.SignatureAlgorithm;
 import com.czertainly.csc.signing.configuration.ConformanceLevel;
 import com.czertainly.csc.signing.configuration.SignatureFormat;
@@ -8,7 +9,7 @@ import com.czertainly.csc.signing.configuration.SignaturePackaging;
 import java.util.Map;
 
 public record DocumentContentToSign(
-        String content,
+        SpooledData content,
         SignatureFormat signatureFormat,
         ConformanceLevel conformanceLevel,
         SignatureAlgorithm signatureAlgorithm,
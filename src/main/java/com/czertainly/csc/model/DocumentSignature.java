@@ -1,39 +1,40 @@
 package com.czertainly.csc.model;
 
+import com.czertainly.csc.common.io.SpooledData;
 import com.czertainly.csc.signing.configuration.SignaturePackaging;
 
-import java.util.Arrays;
-import java.util.Objects;
 import java.util.StringJoiner;
 
+/**
+ * Signature of a document. Signatures enveloping large documents are spooled to temporary files and read
+ * as streams when written to the response. Signatures are equal when they share the spooled content, the
+ * content is never read to compare them.
+ */
 public record DocumentSignature(
-        byte[] value,
+        SpooledData content,
         SignaturePackaging packaging
 ) implements Signature {
 
-    public static DocumentSignature of(byte[] value, SignaturePackaging packaging) {
-        return new DocumentSignature(value, packaging);
+    public DocumentSignature(byte[] value, SignaturePackaging packaging) {
+        this(SpooledData.ofBytes(value), packaging);
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (o == null || getClass() != o.getClass()) return false;
-
-        DocumentSignature that = (DocumentSignature) o;
-        return Arrays.equals(value, that.value) && packaging == that.packaging;
+    public static DocumentSignature of(byte[] value, SignaturePackaging packaging) {
+        return new DocumentSignature(value, packaging);
     }
 
+    /**
+     * Reads the whole signature into memory, prefer reading the {@link #content()} as a stream.
+     */
     @Override
-    public int hashCode() {
-        int result = Arrays.hashCode(value);
-        result = 31 * result + Objects.hashCode(packaging);
-        return result;
+    public byte[] value() {
+        return content.toByteArray();
     }
 
     @Override
     public String toString() {
         return new StringJoiner(", ", DocumentSignature.class.getSimpleName() + "[", "]")
-                .add("value=" + Arrays.toString(value))
+                .add("size=" + content.size())
                 .add("packaging=" + packaging)
                 .toString();
     }
@@ -0,0 +1,29 @@
+package com.czertainly.csc.model;
+
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+
+/**
+ * Receives signatures as soon as they are created, e.g. to write them to the response while the remaining
+ * documents are being signed. The signatures are passed in the same order as the signed documents.
+ */
+@FunctionalInterface
+public interface SignaturesConsumer<S extends Signature> {
+
+    /**
+     * @param signatures the signatures of the next signed documents
+     * @return error if the signatures could not be consumed, in which case the signing is stopped
+     */
+    Result<Void, TextError> accept(SignaturesContainer<S> signatures);
+
+    /**
+     * Called when the next documents could not be signed. By default, the signing is stopped with the error.
+     *
+     * @param count number of documents that could not be signed
+     * @param error the reason of the failure
+     * @return success if the signing should continue with the remaining documents, error otherwise
+     */
+    default Result<Void, TextError> signingFailed(int count, TextError error) {
+        return Result.error(error);
+    }
+}
@@ -0,0 +1,21 @@
+package com.czertainly.csc.model.csc;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A page of user credentials.
+ *
+ * @param userId       ID of the user the credentials belong to
+ * @param credentials  credentials on the page
+ * @param nextPageAfter ID of the last credential on the page if more credentials may follow, empty otherwise
+ * @param onlyValid    whether the page contains only credentials usable to create a valid signature
+ */
+public record CredentialsPage(
+        String userId,
+        List<Credential> credentials,
+        Optional<UUID> nextPageAfter,
+        boolean onlyValid
+) {
+}
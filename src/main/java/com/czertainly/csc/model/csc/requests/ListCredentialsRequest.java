@@ -2,12 +2,16 @@ package com.czertainly.csc.model.csc.requests;
 
 import com.czertainly.csc.model.csc.CertificateReturnType;
 
+import java.util.UUID;
+
 public record ListCredentialsRequest(
         String userID,
         Boolean credentialInfo,
         CertificateReturnType certificateReturnType,
         Boolean certInfo,
         Boolean authInfo,
-        Boolean onlyValid
+        Boolean onlyValid,
+        int maxResults,
+        UUID pageAfter
 ) {
 }
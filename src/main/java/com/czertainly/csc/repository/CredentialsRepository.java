@@ -2,37 +2,89 @@ package com.czertainly.csc.repository;
 
 
 import com.czertainly.csc.repository.entities.CredentialMetadataEntity;
-import org.hibernate.exception.JDBCConnectionException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
-import org.springframework.retry.annotation.Backoff;
+import org.springframework.data.repository.query.Param;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.sql.SQLNonTransientConnectionException;
-import java.sql.SQLRecoverableException;
-import java.sql.SQLTransientException;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-@Retryable(
-        retryFor = {
-                SQLRecoverableException.class,
-                SQLTransientException.class,
-                SQLNonTransientConnectionException.class,
-                JDBCConnectionException.class,
-                CannotCreateTransactionException.class
-        },
-        noRetryFor = {Exception.class},
-        maxAttempts = 3,
-        backoff = @Backoff(delay = 1000, multiplier = 2),
-        listeners = {"retryLoggingListener"})
+@Retryable(interceptor = "databaseRetryInterceptor")
 public interface CredentialsRepository extends CrudRepository<CredentialMetadataEntity, UUID> {
 
-    List<CredentialMetadataEntity> findByUserId(String userID);
-
     Optional<CredentialMetadataEntity> findByIdAndUserId(UUID credentialID, String userID);
 
+    /**
+     * Returns the first page of credentials of the user ordered by their ID. When {@code onlyValid} is set,
+     * disabled credentials and credentials whose certificate is known to be outside its validity period
+     * at {@code now} are left out.
+     */
+    @Query("""
+            select c from CredentialMetadataEntity c
+            where c.userId = :userId
+              and (:onlyValid = false or (c.disabled = false
+                   and (c.certificateValidFrom is null or c.certificateValidFrom <= :now)
+                   and (c.certificateValidTo is null or c.certificateValidTo >= :now)))
+            order by c.id
+            """)
+    List<CredentialMetadataEntity> findPageByUserId(@Param("userId") String userId,
+                                                    @Param("onlyValid") boolean onlyValid,
+                                                    @Param("now") ZonedDateTime now, Limit limit
+    );
+
+    /**
+     * Returns the page of credentials of the user following the credential with ID {@code after}.
+     *
+     * @see #findPageByUserId(String, boolean, ZonedDateTime, Limit)
+     */
+    @Query("""
+            select c from CredentialMetadataEntity c
+            where c.userId = :userId
+              and c.id > :after
+              and (:onlyValid = false or (c.disabled = false
+                   and (c.certificateValidFrom is null or c.certificateValidFrom <= :now)
+                   and (c.certificateValidTo is null or c.certificateValidTo >= :now)))
+            order by c.id
+            """)
+    List<CredentialMetadataEntity> findPageByUserIdAfter(@Param("userId") String userId,
+                                                         @Param("after") UUID after,
+                                                         @Param("onlyValid") boolean onlyValid,
+                                                         @Param("now") ZonedDateTime now, Limit limit
+    );
+
+    List<CredentialMetadataEntity> findByCertificateChainIsNullOrderByIdAsc(Limit limit);
+
+    List<CredentialMetadataEntity> findByCertificateChainIsNullAndIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    /**
+     * Stores the key and certificate snapshot of a credential. The snapshot is only stored if the credential
+     * still uses the key the snapshot was taken from, so a snapshot of a replaced key never overwrites
+     * the snapshot of the current one.
+     *
+     * @return number of updated credentials
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update CredentialMetadataEntity c
+            set c.keyAlgorithm = :keyAlgorithm, c.keySpecification = :keySpecification,
+                c.certificateChain = :certificateChain,
+                c.certificateValidFrom = :certificateValidFrom, c.certificateValidTo = :certificateValidTo
+            where c.id = :id and c.keyAlias = :keyAlias
+            """)
+    int updateSnapshot(@Param("id") UUID id, @Param("keyAlias") String keyAlias,
+                       @Param("keyAlgorithm") String keyAlgorithm, @Param("keySpecification") String keySpecification,
+                       @Param("certificateChain") String certificateChain,
+                       @Param("certificateValidFrom") ZonedDateTime certificateValidFrom,
+                       @Param("certificateValidTo") ZonedDateTime certificateValidTo
+    );
+
 }
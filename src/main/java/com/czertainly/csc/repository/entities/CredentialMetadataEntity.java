@@ -4,6 +4,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 
+import java.time.ZonedDateTime;
 import java.util.StringJoiner;
 import java.util.UUID;
 
@@ -25,6 +26,11 @@ public class CredentialMetadataEntity {
     private String cryptoTokenName;
     private String description;
     private boolean disabled;
+    private String keyAlgorithm;
+    private String keySpecification;
+    private String certificateChain;
+    private ZonedDateTime certificateValidFrom;
+    private ZonedDateTime certificateValidTo;
 
     public CredentialMetadataEntity() {
     }
@@ -155,6 +161,46 @@ public class CredentialMetadataEntity {
         this.disabled = disabled;
     }
 
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    public void setKeyAlgorithm(String keyAlgorithm) {
+        this.keyAlgorithm = keyAlgorithm;
+    }
+
+    public String getKeySpecification() {
+        return keySpecification;
+    }
+
+    public void setKeySpecification(String keySpecification) {
+        this.keySpecification = keySpecification;
+    }
+
+    public String getCertificateChain() {
+        return certificateChain;
+    }
+
+    public void setCertificateChain(String certificateChain) {
+        this.certificateChain = certificateChain;
+    }
+
+    public ZonedDateTime getCertificateValidFrom() {
+        return certificateValidFrom;
+    }
+
+    public void setCertificateValidFrom(ZonedDateTime certificateValidFrom) {
+        this.certificateValidFrom = certificateValidFrom;
+    }
+
+    public ZonedDateTime getCertificateValidTo() {
+        return certificateValidTo;
+    }
+
+    public void setCertificateValidTo(ZonedDateTime certificateValidTo) {
+        this.certificateValidTo = certificateValidTo;
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", CredentialMetadataEntity.class.getSimpleName() + "[", "]")
@@ -171,6 +217,10 @@ public class CredentialMetadataEntity {
                 .add("cryptoTokenName='" + cryptoTokenName + "'")
                 .add("description='" + description + "'")
                 .add("disabled=" + disabled)
+                .add("keyAlgorithm='" + keyAlgorithm + "'")
+                .add("keySpecification='" + keySpecification + "'")
+                .add("certificateValidFrom=" + certificateValidFrom)
+                .add("certificateValidTo=" + certificateValidTo)
                 .toString();
     }
 }
@@ -0,0 +1,159 @@
+package com.czertainly.csc.service.cache;
+
+import com.czertainly.csc.common.cache.CacheInvalidationEvent;
+import com.czertainly.csc.common.cache.CacheInvalidationHook;
+import com.czertainly.csc.common.cache.CacheInvalidationListener;
+import com.czertainly.csc.configuration.csc.CacheInvalidationSettings;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Propagates invalidations of local caches between the nodes of the cluster through the database shared by
+ * the nodes. The nodes poll the {@code cache_events} table, on PostgreSQL they are also woken up by
+ * LISTEN/NOTIFY when new invalidations are committed.
+ */
+@Component
+public class CacheInvalidationBus implements CacheInvalidationHook, SmartLifecycle,
+        CacheInvalidationTransport.CacheInvalidationReceiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final DataSource dataSource;
+    private final ObjectProvider<DataSourceProperties> dataSourceProperties;
+    private final ObjectProvider<CacheInvalidationListener> listeners;
+    private final CacheInvalidationSettings settings;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile CacheInvalidationTransport transport;
+    private volatile boolean running;
+
+    public CacheInvalidationBus(DataSource dataSource, ObjectProvider<DataSourceProperties> dataSourceProperties,
+                                ObjectProvider<CacheInvalidationListener> listeners,
+                                CscConfiguration cscConfiguration
+    ) {
+        this.dataSource = dataSource;
+        this.dataSourceProperties = dataSourceProperties;
+        this.listeners = listeners;
+        this.settings = cscConfiguration.cacheInvalidation();
+    }
+
+    public void publish(CacheInvalidationEvent event) {
+        CacheInvalidationTransport currentTransport = transport;
+        if (currentTransport != null) {
+            currentTransport.publish(nodeId, event);
+        }
+    }
+
+    @Override
+    public void invalidated(String cacheName, String key) {
+        publish(new CacheInvalidationEvent(cacheName, key));
+    }
+
+    @Override
+    public void received(String sourceNodeId, CacheInvalidationEvent event) {
+        if (nodeId.equals(sourceNodeId)) {
+            return;
+        }
+        logger.trace("Received invalidation of '{}' in cache '{}' from node '{}'.", event.key(), event.cacheName(),
+                     sourceNodeId
+        );
+        listeners.orderedStream()
+                 .filter(listener -> listener.cacheName().equals(event.cacheName()))
+                 .forEach(listener -> listener.onInvalidation(event.key()));
+    }
+
+    @Override
+    public void eventsMissed() {
+        logger.info("Cache invalidation events may have been missed, all local caches will be invalidated.");
+        listeners.orderedStream().forEach(CacheInvalidationListener::onInvalidateAll);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!settings.enabled()) {
+            logger.info("Propagation of cache invalidations between nodes is disabled.");
+            return;
+        }
+
+        CacheInvalidationTransport newTransport = createTransport();
+        if (newTransport == null) {
+            return;
+        }
+        try {
+            newTransport.start(this);
+            transport = newTransport;
+        } catch (Exception e) {
+            logger.error("Failed to start propagation of cache invalidations between nodes. Cached data will be " +
+                                 "refreshed only after they expire.", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        CacheInvalidationTransport currentTransport = transport;
+        transport = null;
+        if (currentTransport != null) {
+            currentTransport.stop();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private CacheInvalidationTransport createTransport() {
+        String databaseProductName;
+        try (Connection connection = dataSource.getConnection()) {
+            databaseProductName = connection.getMetaData().getDatabaseProductName();
+        } catch (SQLException e) {
+            logger.error("Failed to determine the database type. Cache invalidations will not be propagated " +
+                                 "between nodes.", e);
+            return null;
+        }
+
+        TablePollingTransport table = new TablePollingTransport(dataSource, settings.pollInterval(),
+                                                                settings.eventRetention()
+        );
+        if ("PostgreSQL".equalsIgnoreCase(databaseProductName)) {
+            logger.info("Cache invalidations will be propagated between nodes using PostgreSQL LISTEN/NOTIFY " +
+                                "and by polling the database every {}.", settings.pollInterval()
+            );
+            return new PostgresNotifyTransport(listenerConnectionFactory(), table);
+        }
+        logger.info("Cache invalidations will be propagated between nodes by polling the database every {}.",
+                    settings.pollInterval()
+        );
+        return table;
+    }
+
+    /*
+     * The listening connection is held for the whole life of the node, so it is opened with the connection settings
+     * of the data source, but outside its pool. Without the settings, it is taken from the pool.
+     */
+    private PostgresNotifyTransport.ListenerConnectionFactory listenerConnectionFactory() {
+        DataSourceProperties properties = dataSourceProperties.getIfAvailable();
+        if (properties == null) {
+            logger.warn("Connection settings of the data source are not available, one connection of the pool " +
+                                "will be held for listening for cache invalidations.");
+            return dataSource::getConnection;
+        }
+        String url = properties.determineUrl();
+        String username = properties.determineUsername();
+        String password = properties.determinePassword();
+        return () -> DriverManager.getConnection(url, username, password);
+    }
+}
@@ -0,0 +1,22 @@
+package com.czertainly.csc.service.cache;
+
+import com.czertainly.csc.common.cache.CacheInvalidationEvent;
+
+/**
+ * Delivers cache invalidation events between the nodes sharing the same database.
+ */
+interface CacheInvalidationTransport {
+
+    void publish(String nodeId, CacheInvalidationEvent event);
+
+    void start(CacheInvalidationReceiver receiver);
+
+    void stop();
+
+    interface CacheInvalidationReceiver {
+
+        void received(String nodeId, CacheInvalidationEvent event);
+
+        void eventsMissed();
+    }
+}
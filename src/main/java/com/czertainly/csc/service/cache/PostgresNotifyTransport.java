@@ -0,0 +1,112 @@
+package com.czertainly.csc.service.cache;
+
+import com.czertainly.csc.common.cache.CacheInvalidationEvent;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Delivers cache invalidation events through the {@code cache_events} table like {@link TablePollingTransport},
+ * and uses PostgreSQL LISTEN/NOTIFY to poll the table as soon as new events are committed. A trigger on the table
+ * sends the notification when the transaction inserting the events commits. The notifications are received on
+ * a dedicated connection opened outside the connection pool, so listening doesn't take a connection of the pool.
+ * <p>
+ * The table is still polled in the configured interval, so events are delivered even when a notification is
+ * lost, e.g. while the listening connection is reconnected.
+ */
+class PostgresNotifyTransport implements CacheInvalidationTransport {
+
+    static final String CHANNEL = "csc_cache_invalidation";
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresNotifyTransport.class);
+    private static final int RECEIVE_TIMEOUT_MILLIS = 500;
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(5);
+
+    private final ListenerConnectionFactory listenerConnections;
+    private final TablePollingTransport table;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    PostgresNotifyTransport(ListenerConnectionFactory listenerConnections, TablePollingTransport table) {
+        this.listenerConnections = listenerConnections;
+        this.table = table;
+    }
+
+    @Override
+    public void publish(String nodeId, CacheInvalidationEvent event) {
+        table.publish(nodeId, event);
+    }
+
+    @Override
+    public void start(CacheInvalidationReceiver receiver) {
+        table.start(receiver);
+        running = true;
+        listenerThread = Thread.ofVirtual()
+                               .name("cache-invalidation-listener")
+                               .start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            try {
+                listenerThread.join(RECEIVE_TIMEOUT_MILLIS * 2L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        table.stop();
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = listenerConnections.open();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+                logger.debug("Listening for cache invalidation events on channel '{}'.", CHANNEL);
+                // Events committed while the connection was down were not announced
+                table.pollNow();
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(RECEIVE_TIMEOUT_MILLIS);
+                    if (notifications != null && notifications.length > 0) {
+                        table.pollNow();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("Listening for cache invalidation events failed, reconnecting in {}. {}",
+                            RECONNECT_DELAY, e.getMessage()
+                );
+                try {
+                    Thread.sleep(RECONNECT_DELAY);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the connection used for listening for the notifications.
+     */
+    @FunctionalInterface
+    interface ListenerConnectionFactory {
+        Connection open() throws SQLException;
+    }
+}
@@ -0,0 +1,179 @@
+package com.czertainly.csc.service.cache;
+
+import com.czertainly.csc.common.cache.CacheInvalidationEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers cache invalidation events through the {@code cache_events} table, which is polled by every node.
+ * <p>
+ * The ids of the events are assigned when the events are inserted, but the events become visible when
+ * the transactions inserting them commit, which may be in a different order. An id skipped by a poll is
+ * therefore remembered as a gap and read again by the following polls, until its event appears or the gap
+ * timeout passes, e.g. because the transaction was rolled back.
+ */
+class TablePollingTransport implements CacheInvalidationTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(TablePollingTransport.class);
+    private static final int MAX_EVENTS_PER_POLL = 1000;
+    // Longer than a transaction publishing an invalidation is expected to take
+    private static final Duration GAP_TIMEOUT = Duration.ofMinutes(1);
+    // When more ids are skipped, the events are treated as missed instead of being tracked
+    private static final int MAX_GAPS = 1000;
+    private static final RowMapper<PolledEvent> EVENT_MAPPER = (rs, rowNum) -> new PolledEvent(
+            rs.getLong("id"), rs.getString("node_id"),
+            new CacheInvalidationEvent(rs.getString("cache_name"), rs.getString("cache_key"))
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration pollInterval;
+    private final Duration eventRetention;
+    private final AtomicBoolean pollRequested = new AtomicBoolean();
+
+    private ScheduledExecutorService scheduler;
+    private CacheInvalidationReceiver receiver;
+    // Accessed only by the thread of the scheduler
+    private long lastEventId;
+    private final Map<Long, Instant> gaps = new LinkedHashMap<>();
+    private Instant lastCleanup = Instant.EPOCH;
+
+    TablePollingTransport(DataSource dataSource, Duration pollInterval, Duration eventRetention) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.pollInterval = pollInterval;
+        this.eventRetention = eventRetention;
+    }
+
+    @Override
+    public void publish(String nodeId, CacheInvalidationEvent event) {
+        try {
+            jdbcTemplate.update(
+                    "insert into cache_events (node_id, cache_name, cache_key, created_at) values (?, ?, ?, ?)",
+                    nodeId, event.cacheName(), event.key(), Timestamp.from(Instant.now())
+            );
+        } catch (DataAccessException e) {
+            logger.warn("Failed to publish invalidation of '{}' in cache '{}'. {}", event.key(), event.cacheName(),
+                        e.getMessage()
+            );
+        }
+    }
+
+    @Override
+    public void start(CacheInvalidationReceiver receiver) {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from cache_events", Long.class);
+        lastEventId = maxId == null ? 0 : maxId;
+        this.receiver = receiver;
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("cache-invalidation-poller").factory());
+        scheduler.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(),
+                                         TimeUnit.MILLISECONDS
+        );
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Polls the table right away instead of waiting for the next poll, e.g. when new events were announced.
+     * Requests made while a poll is pending are served by that poll.
+     */
+    void pollNow() {
+        if (scheduler != null && pollRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::poll);
+        }
+    }
+
+    private void poll() {
+        pollRequested.set(false);
+        try {
+            Instant now = Instant.now();
+            List<PolledEvent> events = new ArrayList<>(pollGaps());
+            events.addAll(jdbcTemplate.query(
+                    "select id, node_id, cache_name, cache_key from cache_events where id > ? order by id limit ?",
+                    EVENT_MAPPER, lastEventId, MAX_EVENTS_PER_POLL
+            ));
+            for (PolledEvent event : events) {
+                if (gaps.remove(event.id()) == null) {
+                    if (event.id() <= lastEventId) {
+                        continue;
+                    }
+                    trackGaps(event.id(), now);
+                    lastEventId = event.id();
+                }
+                receiver.received(event.nodeId(), event.event());
+            }
+            removeExpiredGaps(now);
+            removeOldEvents(now);
+        } catch (Exception e) {
+            logger.warn("Polling of cache invalidation events failed. {}", e.getMessage());
+        }
+    }
+
+    private List<PolledEvent> pollGaps() {
+        if (gaps.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(gaps.size(), "?"));
+        return jdbcTemplate.query(
+                "select id, node_id, cache_name, cache_key from cache_events where id in (" + placeholders + ")",
+                EVENT_MAPPER, gaps.keySet().toArray()
+        );
+    }
+
+    private void trackGaps(long eventId, Instant now) {
+        long skipped = eventId - lastEventId - 1;
+        if (skipped <= 0) {
+            return;
+        }
+        if (gaps.size() + skipped > MAX_GAPS) {
+            logger.debug("{} ids of cache invalidation events were skipped, too many to track.", skipped);
+            gaps.clear();
+            receiver.eventsMissed();
+            return;
+        }
+        for (long id = lastEventId + 1; id < eventId; id++) {
+            gaps.put(id, now);
+        }
+    }
+
+    private void removeExpiredGaps(Instant now) {
+        Iterator<Instant> detectedAt = gaps.values().iterator();
+        while (detectedAt.hasNext() && detectedAt.next().plus(GAP_TIMEOUT).isBefore(now)) {
+            detectedAt.remove();
+        }
+    }
+
+    private void removeOldEvents(Instant now) {
+        if (lastCleanup.plus(eventRetention.dividedBy(2)).isAfter(now)) {
+            return;
+        }
+        lastCleanup = now;
+        int removed = jdbcTemplate.update("delete from cache_events where created_at < ?",
+                                          Timestamp.from(now.minus(eventRetention))
+        );
+        logger.trace("Removed {} old cache invalidation events.", removed);
+    }
+
+    private record PolledEvent(long id, String nodeId, CacheInvalidationEvent event) {}
+}
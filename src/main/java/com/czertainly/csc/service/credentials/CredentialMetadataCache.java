@@ -0,0 +1,133 @@
+package com.czertainly.csc.service.credentials;
+
+import com.czertainly.csc.common.cache.CacheInvalidationHook;
+import com.czertainly.csc.common.cache.CacheInvalidationListener;
+import com.czertainly.csc.common.cache.ExpiringCache;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.model.csc.CredentialMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of long-term credential metadata used on the signing path.
+ * <p>
+ * Entries are evicted after the configured time to live. Changes of a credential made by this node invalidate
+ * the cached entries immediately and are propagated to the other nodes through {@link CacheInvalidationHook}s,
+ * if any are registered. Invalidations published by the other nodes are received as a
+ * {@link CacheInvalidationListener}.
+ * <p>
+ * Loaded metadata are cached only when no invalidation happened while they were being loaded, so that a load
+ * started before a credential was changed can't put the outdated metadata back into the cache.
+ */
+@Component
+public class CredentialMetadataCache implements CacheInvalidationListener {
+
+    public static final String CACHE_NAME = "credentialMetadata";
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialMetadataCache.class);
+
+    private final ExpiringCache<CacheKey, CredentialMetadata> cache;
+    private final List<CacheInvalidationHook> invalidationHooks;
+    private final boolean enabled;
+    private final Object lock = new Object();
+    private long generation;
+
+    public CredentialMetadataCache(CscConfiguration cscConfiguration, List<CacheInvalidationHook> invalidationHooks) {
+        Duration timeToLive = cscConfiguration.credentials().metadataCacheTimeToLive();
+        this.enabled = timeToLive.isPositive();
+        this.cache = new ExpiringCache<>(cscConfiguration.credentials().metadataCacheMaxSize(), timeToLive);
+        this.invalidationHooks = invalidationHooks;
+    }
+
+    public Result<CredentialMetadata, TextError> get(
+            UUID credentialId, String userId, Supplier<Result<CredentialMetadata, TextError>> loader
+    ) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        CacheKey key = new CacheKey(credentialId, userId);
+        var cached = cache.get(key);
+        if (cached.isPresent()) {
+            return Result.success(cached.get());
+        }
+        long loadGeneration = currentGeneration();
+        return loader.get().consume(metadata -> putIfNotInvalidated(key, metadata, loadGeneration));
+    }
+
+    /**
+     * Invalidates all cached entries of the credential on this node and notifies the other nodes.
+     */
+    public void invalidate(UUID credentialId) {
+        evict(credentialId);
+        for (CacheInvalidationHook hook : invalidationHooks) {
+            try {
+                hook.invalidated(CACHE_NAME, credentialId.toString());
+            } catch (Exception e) {
+                logger.warn("Failed to propagate invalidation of credential '{}' to other nodes.", credentialId, e);
+            }
+        }
+    }
+
+    /**
+     * Invalidates all cached entries of the credential on this node only.
+     */
+    public void evict(UUID credentialId) {
+        synchronized (lock) {
+            generation++;
+            cache.invalidateIf(key -> key.credentialId().equals(credentialId));
+        }
+        logger.trace("Cached metadata of credential '{}' were invalidated.", credentialId);
+    }
+
+    @Override
+    public String cacheName() {
+        return CACHE_NAME;
+    }
+
+    @Override
+    public void onInvalidation(String key) {
+        try {
+            evict(UUID.fromString(key));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring invalidation of credential with invalid identifier '{}'.", key);
+        }
+    }
+
+    @Override
+    public void onInvalidateAll() {
+        synchronized (lock) {
+            generation++;
+            cache.invalidateAll();
+        }
+        logger.debug("All cached credential metadata were invalidated.");
+    }
+
+    private long currentGeneration() {
+        synchronized (lock) {
+            return generation;
+        }
+    }
+
+    private void putIfNotInvalidated(CacheKey key, CredentialMetadata metadata, long loadGeneration) {
+        synchronized (lock) {
+            if (generation == loadGeneration) {
+                cache.put(key, metadata);
+            } else {
+                logger.trace("Metadata of credential '{}' were invalidated while being loaded, not caching them.",
+                             key.credentialId()
+                );
+            }
+        }
+    }
+
+    private record CacheKey(UUID credentialId, String userId) {}
+}
@@ -0,0 +1,122 @@
+package com.czertainly.csc.service.credentials;
+
+import com.czertainly.csc.clients.signserver.SignserverClient;
+import com.czertainly.csc.common.result.Error;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.model.signserver.CryptoToken;
+import com.czertainly.csc.model.signserver.CryptoTokenKey;
+import com.czertainly.csc.repository.CredentialsRepository;
+import com.czertainly.csc.repository.entities.CredentialMetadataEntity;
+import com.czertainly.csc.signing.configuration.WorkerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Stores snapshots of credentials that don't have one yet, e.g. credentials created before snapshots were
+ * introduced or credentials whose snapshot couldn't be stored at the time of creation or rekey.
+ */
+@Service
+public class CredentialSnapshotBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialSnapshotBackfillService.class);
+
+    private final CredentialsRepository credentialsRepository;
+    private final CredentialSnapshotService credentialSnapshotService;
+    private final SignserverClient signserverClient;
+    private final WorkerRepository workerRepository;
+    private final int batchSize;
+
+    public CredentialSnapshotBackfillService(CredentialsRepository credentialsRepository,
+                                             CredentialSnapshotService credentialSnapshotService,
+                                             SignserverClient signserverClient, WorkerRepository workerRepository,
+                                             CscConfiguration cscConfiguration
+    ) {
+        this.credentialsRepository = credentialsRepository;
+        this.credentialSnapshotService = credentialSnapshotService;
+        this.signserverClient = signserverClient;
+        this.workerRepository = workerRepository;
+        this.batchSize = cscConfiguration.credentials().snapshotBackfillBatchSize();
+    }
+
+    /**
+     * @return the number of the stored snapshots
+     */
+    public int backfillSnapshots() {
+        logger.debug("Starting backfill of credential snapshots.");
+        int stored = 0;
+        int notStored = 0;
+        List<CredentialMetadataEntity> batch = credentialsRepository.findByCertificateChainIsNullOrderByIdAsc(
+                Limit.of(batchSize));
+        while (!batch.isEmpty()) {
+            Map<String, List<CredentialMetadataEntity>> credentialsByCryptoToken = batch
+                    .stream()
+                    .collect(Collectors.groupingBy(CredentialMetadataEntity::getCryptoTokenName));
+            for (var entry : credentialsByCryptoToken.entrySet()) {
+                int storedInToken = backfillSnapshots(entry.getKey(), entry.getValue());
+                stored += storedInToken;
+                notStored += entry.getValue().size() - storedInToken;
+            }
+
+            if (batch.size() < batchSize) {
+                break;
+            }
+            batch = credentialsRepository.findByCertificateChainIsNullAndIdGreaterThanOrderByIdAsc(
+                    batch.getLast().getId(), Limit.of(batchSize));
+        }
+
+        if (stored > 0 || notStored > 0) {
+            logger.info("Backfill of credential snapshots finished. Stored {} snapshots, {} were not stored.",
+                        stored, notStored
+            );
+        }
+        return stored;
+    }
+
+    private int backfillSnapshots(String cryptoTokenName, List<CredentialMetadataEntity> credentials) {
+        var getCryptoTokenResult = workerRepository.getCryptoToken(cryptoTokenName);
+        if (getCryptoTokenResult instanceof Error(var err)) {
+            logger.warn("Snapshots of {} credentials could not be stored, crypto token '{}' is not available. {}",
+                        credentials.size(), cryptoTokenName, err.getErrorText()
+            );
+            return 0;
+        }
+        CryptoToken cryptoToken = getCryptoTokenResult.unwrap();
+
+        var queryKeysResult = signserverClient.queryCryptoTokenKeysByAliases(
+                cryptoToken, credentials.stream().map(CredentialMetadataEntity::getKeyAlias).toList()
+        );
+        if (queryKeysResult instanceof Error(var err)) {
+            logger.warn("Snapshots of {} credentials could not be stored, keys in crypto token '{}' could not be " +
+                                "queried. {}", credentials.size(), cryptoToken.identifier(), err.getErrorText()
+            );
+            return 0;
+        }
+        Map<String, CryptoTokenKey> keys = queryKeysResult.unwrap();
+
+        int stored = 0;
+        for (CredentialMetadataEntity credential : credentials) {
+            CryptoTokenKey key = keys.get(credential.getKeyAlias());
+            if (key == null) {
+                logger.warn("Snapshot of credential '{}' could not be stored, key '{}' not found in crypto token '{}'.",
+                            credential.getId(), credential.getKeyAlias(), cryptoToken.identifier()
+                );
+                continue;
+            }
+            var storeResult = credentialSnapshotService.storeSnapshot(credential, key);
+            if (storeResult instanceof Error(var err)) {
+                logger.warn("Snapshot of credential '{}' could not be stored. {}", credential.getId(),
+                            err.getErrorText()
+                );
+            } else if (storeResult.unwrap()) {
+                stored++;
+            }
+        }
+        return stored;
+    }
+}
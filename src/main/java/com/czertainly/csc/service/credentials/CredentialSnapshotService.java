@@ -0,0 +1,173 @@
+package com.czertainly.csc.service.credentials;
+
+import com.czertainly.csc.common.result.Error;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.components.DateConverter;
+import com.czertainly.csc.crypto.CertificateParser;
+import com.czertainly.csc.model.builders.CryptoTokenKeyBuilder;
+import com.czertainly.csc.model.signserver.CryptoToken;
+import com.czertainly.csc.model.signserver.CryptoTokenKey;
+import com.czertainly.csc.model.signserver.CryptoTokenKeyStatus;
+import com.czertainly.csc.repository.CredentialsRepository;
+import com.czertainly.csc.repository.entities.CredentialMetadataEntity;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Keeps a snapshot of the key and certificate chain of a credential in the database, so credentials can be
+ * read without querying SignServer.
+ */
+@Service
+public class CredentialSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialSnapshotService.class);
+    private static final String CHAIN_SEPARATOR = "\n";
+
+    private final CredentialsRepository credentialsRepository;
+    private final CertificateParser certificateParser;
+    private final DateConverter dateConverter;
+
+    private final ZoneId utcZone = ZoneId.of("UTC");
+    private final Base64.Encoder encoder = Base64.getEncoder();
+    private final Base64.Decoder decoder = Base64.getDecoder();
+
+    public CredentialSnapshotService(CredentialsRepository credentialsRepository,
+                                     CertificateParser certificateParser, DateConverter dateConverter
+    ) {
+        this.credentialsRepository = credentialsRepository;
+        this.certificateParser = certificateParser;
+        this.dateConverter = dateConverter;
+    }
+
+    public boolean hasSnapshot(CredentialMetadataEntity credential) {
+        return credential.getCertificateChain() != null
+                && credential.getKeyAlgorithm() != null
+                && credential.getKeySpecification() != null;
+    }
+
+    /**
+     * Reconstructs the crypto token key of the credential from its snapshot.
+     *
+     * @param credential  the credential
+     * @param cryptoToken the crypto token the key of the credential is stored in
+     * @return the key, or empty optional if the credential has no snapshot
+     */
+    public Optional<CryptoTokenKey> getSnapshotKey(CredentialMetadataEntity credential, CryptoToken cryptoToken) {
+        if (!hasSnapshot(credential)) {
+            return Optional.empty();
+        }
+        List<byte[]> chain = decodeChain(credential.getCertificateChain());
+        // SignServer reports a key as certified when a certificate chain is installed for it
+        return Optional.of(new CryptoTokenKeyBuilder()
+                                   .withCryptoTokenId(cryptoToken)
+                                   .withKeyAlias(credential.getKeyAlias())
+                                   .withKeyAlgorithm(credential.getKeyAlgorithm())
+                                   .withKeySpecification(credential.getKeySpecification())
+                                   .withChain(chain)
+                                   .withStatus(new CryptoTokenKeyStatus(!chain.isEmpty()))
+                                   .build());
+    }
+
+    /**
+     * Checks whether the snapshot of the credential matches the key currently stored in SignServer.
+     */
+    public boolean isUpToDate(CredentialMetadataEntity credential, CryptoTokenKey key) {
+        if (!hasSnapshot(credential)) {
+            return false;
+        }
+        return Objects.equals(credential.getKeyAlias(), key.keyAlias())
+                && Objects.equals(credential.getKeyAlgorithm(), key.keyAlgorithm())
+                && Objects.equals(credential.getKeySpecification(), key.keySpecification())
+                && chainsEqual(decodeChain(credential.getCertificateChain()), key.chain());
+    }
+
+    /**
+     * Stores the snapshot of the given key as the snapshot of the credential. The snapshot is stored only
+     * if the credential still uses the key.
+     *
+     * @return whether the snapshot was stored, false if the credential no longer uses the key
+     */
+    public Result<Boolean, TextError> storeSnapshot(CredentialMetadataEntity credential, CryptoTokenKey key) {
+        if (key.chain() == null || key.chain().isEmpty() || (key.status() != null && !key.status().certified())) {
+            return Result.error(TextError.of("Key '%s' has no certificate chain.", key.keyAlias()));
+        }
+
+        var parseCertificateResult = certificateParser.parseDerEncodedCertificate(key.chain().getFirst());
+        if (parseCertificateResult instanceof Error(var err)) {
+            return Result.error(err.extend("Failed to parse end certificate of key '%s'.", key.keyAlias()));
+        }
+        X509CertificateHolder endCertificate = parseCertificateResult.unwrap();
+        String chain = encodeChain(key.chain());
+        ZonedDateTime validFrom = dateConverter.dateToZonedDateTime(endCertificate.getNotBefore(), utcZone);
+        ZonedDateTime validTo = dateConverter.dateToZonedDateTime(endCertificate.getNotAfter(), utcZone);
+
+        try {
+            int updated = credentialsRepository.updateSnapshot(credential.getId(), key.keyAlias(),
+                                                               key.keyAlgorithm(), key.keySpecification(), chain,
+                                                               validFrom, validTo
+            );
+            if (updated == 0) {
+                logger.debug("Snapshot of credential '{}' was not stored, the credential no longer uses key '{}'.",
+                             credential.getId(), key.keyAlias()
+                );
+                return Result.success(false);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to store snapshot of credential '{}'.", credential.getId(), e);
+            return Result.error(TextError.of("Failed to store snapshot of credential '%s'.", credential.getId()));
+        }
+
+        credential.setKeyAlgorithm(key.keyAlgorithm());
+        credential.setKeySpecification(key.keySpecification());
+        credential.setCertificateChain(chain);
+        credential.setCertificateValidFrom(validFrom);
+        credential.setCertificateValidTo(validTo);
+        logger.debug("Snapshot of credential '{}' was stored.", credential.getId());
+        return Result.success(true);
+    }
+
+    /**
+     * Removes the snapshot from the credential entity. The change is persisted when the entity is saved.
+     */
+    public void clearSnapshot(CredentialMetadataEntity credential) {
+        credential.setKeyAlgorithm(null);
+        credential.setKeySpecification(null);
+        credential.setCertificateChain(null);
+        credential.setCertificateValidFrom(null);
+        credential.setCertificateValidTo(null);
+    }
+
+    private String encodeChain(List<byte[]> chain) {
+        return String.join(CHAIN_SEPARATOR, chain.stream().map(encoder::encodeToString).toList());
+    }
+
+    private List<byte[]> decodeChain(String chain) {
+        return Arrays.stream(chain.split(CHAIN_SEPARATOR))
+                     .filter(certificate -> !certificate.isBlank())
+                     .map(decoder::decode)
+                     .toList();
+    }
+
+    private boolean chainsEqual(List<byte[]> first, List<byte[]> second) {
+        if (second == null || first.size() != second.size()) {
+            return false;
+        }
+        for (int i = 0; i < first.size(); i++) {
+            if (!Arrays.equals(first.get(i), second.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -4,9 +4,9 @@ import com.czertainly.csc.clients.ejbca.EjbcaClient;
 import com.czertainly.csc.clients.signserver.SignserverClient;
 import com.czertainly.csc.common.result.Error;
 import com.czertainly.csc.common.result.Result;
-import com.czertainly.csc.common.result.Success;
 import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.components.CertificateValidityDecider;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
 import com.czertainly.csc.components.DateConverter;
 import com.czertainly.csc.crypto.AlgorithmHelper;
 import com.czertainly.csc.crypto.CertificateParser;
@@ -28,18 +28,24 @@ import org.apache.commons.lang3.RandomStringUtils;
 import org.bouncycastle.cert.X509CertificateHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.ZoneId;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.UUID;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 @Service
 public class CredentialsService {
 
     private static final Logger logger = LoggerFactory.getLogger(CredentialsService.class);
+    // How many times a page of credentials/list is refilled when some of its credentials are left out
+    private static final int MAX_LIST_REFILL_ROUNDS = 2;
 
     private final PasswordGenerator passwordGenerator;
     private final EjbcaClient ejbcaClient;
@@ -53,6 +59,10 @@ public class CredentialsService {
     private final CertificateValidityDecider certificateValidityDecider;
     private final CredentialProfileRepository credentialProfileRepository;
     private final LongTermKeysService longTermKeysService;
+    private final ExecutorService keyQueryExecutor;
+    private final CredentialSnapshotService credentialSnapshotService;
+    private final CredentialMetadataCache credentialMetadataCache;
+    private final boolean snapshotConsistencyCheck;
 
     public CredentialsService(PasswordGenerator passwordGenerator, EjbcaClient ejbcaClient,
                               SignserverClient signserverClient, CredentialsRepository credentialsRepository,
@@ -60,7 +70,11 @@ public class CredentialsService {
                               AlgorithmHelper algorithmHelper, DateConverter dateConverter,
                               CertificateValidityDecider certificateValidityDecider,
                               CredentialProfileRepository credentialProfileRepository,
-                              LongTermKeysService longTermKeysService
+                              LongTermKeysService longTermKeysService,
+                              @Qualifier("keyQueryExecutor") ExecutorService keyQueryExecutor,
+                              CredentialSnapshotService credentialSnapshotService,
+                              CscConfiguration cscConfiguration,
+                              CredentialMetadataCache credentialMetadataCache
     ) {
         this.passwordGenerator = passwordGenerator;
         this.ejbcaClient = ejbcaClient;
@@ -73,6 +87,10 @@ public class CredentialsService {
         this.certificateValidityDecider = certificateValidityDecider;
         this.credentialProfileRepository = credentialProfileRepository;
         this.longTermKeysService = longTermKeysService;
+        this.keyQueryExecutor = keyQueryExecutor;
+        this.credentialSnapshotService = credentialSnapshotService;
+        this.credentialMetadataCache = credentialMetadataCache;
+        this.snapshotConsistencyCheck = cscConfiguration.credentials().snapshotConsistencyCheck();
     }
 
     public Result<Credential, TextError> createCredential(
@@ -101,30 +119,27 @@ public class CredentialsService {
         if (generateKeyResult instanceof Error(var err)) return Result.error(err);
         String generatedKeyAlias = generateKeyResult.unwrap();
 
-        var generateCSRResult = signserverClient
-                .generateCSR(
-                        token, generatedKeyAlias,
-                        createCredentialRequest.dn(),
-                        credentialProfile.getCsrSignatureAlgorithm()
-                )
-                .mapError(e -> e.extend("CSR couldn't be generated."))
-                .ifError(() -> rollbackKeyCreation(token, generatedKeyAlias));
-        if (generateCSRResult instanceof Error(var err)) return Result.error(err);
-        byte[] csr = generateCSRResult.unwrap();
-
-        var createEndEntityResult = createEndEntity(
+        var newEndEntityResult = newEndEntity(
                 uniqueUserId, createCredentialRequest.dn(),
-                createCredentialRequest.san(),
-                credentialProfile
+                createCredentialRequest.san()
         )
                 .mapError(e -> e.extend("End entity couldn't be created."))
                 .ifError(() -> rollbackKeyCreation(token, generatedKeyAlias));
-        if (createEndEntityResult instanceof Error(var err)) return Result.error(err);
-        EndEntity endEntity = createEndEntityResult.unwrap();
+        if (newEndEntityResult instanceof Error(var err)) return Result.error(err);
+        EndEntity endEntity = newEndEntityResult.unwrap();
 
         var signCertificateResult = ejbcaClient
-                .signCertificateRequest(endEntity, credentialProfile, csr)
-                .mapError(e -> e.extend("Certificate signing request couldn't be signed."))
+                .enrollEndEntity(
+                        endEntity, credentialProfile,
+                        () -> signserverClient
+                                .generateCSR(
+                                        token, generatedKeyAlias,
+                                        createCredentialRequest.dn(),
+                                        credentialProfile.getCsrSignatureAlgorithm()
+                                )
+                                .mapError(e -> e.extend("CSR couldn't be generated."))
+                )
+                .mapError(e -> e.extend("Certificate couldn't be issued."))
                 .ifError(() -> rollbackKeyCreation(token, generatedKeyAlias));
 
         if (signCertificateResult instanceof Error(var err)) return Result.error(err);
@@ -213,6 +228,7 @@ public class CredentialsService {
                         return Result.error(TextError.of("Failed to delete credential '%s'.", credentialId));
                     }
                 })
+                .ifSuccess(() -> credentialMetadataCache.invalidate(credentialId))
                 .ifSuccess(() -> logger.info("Credential '{}' was deleted.", credentialId));
     }
 
@@ -348,6 +364,14 @@ public class CredentialsService {
                 .ifError(() -> revokeCertificate(endCertificate));
 
         if (updateCredentialMetadataresult instanceof Error(var err)) return Result.error(err);
+        credentialMetadataCache.invalidate(currentCredentialMetadata.getId());
+
+        signserverClient.getCryptoTokenKey(destinationCryptoToken, finalNewKeyAlias)
+                        .flatMap(newKey -> credentialSnapshotService.storeSnapshot(currentCredentialMetadata, newKey))
+                        .consumeError(e -> logger.warn(
+                                "Failed to store snapshot of credential '{}' after rekey, it will be stored later. {}",
+                                currentCredentialMetadata.getId(), e.getErrorText()
+                        ));
 
         signserverClient.removeKey(currentCryptoToken.id(), currentKey.keyAlias())
                         .consumeError(e -> logger.error(
@@ -369,35 +393,107 @@ public class CredentialsService {
                 .flatMap(metadata -> getCredential(metadata, request.certificateReturnType()));
     }
 
-    public Result<List<Credential>, TextError> listUserCredentials(ListCredentialsRequest request) {
+    public Result<CredentialsPage, TextError> listUserCredentials(ListCredentialsRequest request) {
         try {
-            List<CredentialMetadataEntity> credentialMetadata = credentialsRepository.findByUserId(request.userID());
-            List<Credential> credentials = credentialMetadata
-                    .stream()
-                    .map(credential -> getCredential(credential, request.certificateReturnType()))
-                    .filter(result -> {
-                                if (result instanceof Error(var e)) {
-                                    e = e.extend("Failed to load credential details while listing credentials " +
-                                                         "for user %s. Credential will not be included in the list.",
-                                                 request.userID()
-                                    );
-                                    logger.warn(e.toString());
-                                    return false;
-                                } else {
-                                    return true;
-                                }
-                            }
-                    )
-                    .takeWhile(it -> it instanceof Success)
-                    .map(Result::unwrap)
-                    .toList();
-            return Result.success(credentials);
+            boolean onlyValid = Boolean.TRUE.equals(request.onlyValid());
+            ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+            int maxResults = request.maxResults();
+            List<Credential> credentials = new ArrayList<>();
+            UUID after = request.pageAfter();
+            Optional<UUID> nextPageAfter = Optional.empty();
+
+            // Credentials which fail to load or turn out not to be valid only after they are loaded are left out,
+            // so more credentials are loaded until the page is full or there are no more of them. The number of
+            // refills is limited, e.g. when no credential can be loaded during an outage of SignServer, and a
+            // shorter page is returned with the page token to continue from
+            for (int round = 0; ; round++) {
+                int missing = maxResults - credentials.size();
+                // One more credential than missing is loaded to find out whether there is a next page
+                Limit limit = Limit.of(missing + 1);
+                List<CredentialMetadataEntity> credentialMetadata = after == null
+                        ? credentialsRepository.findPageByUserId(request.userID(), onlyValid, now, limit)
+                        : credentialsRepository.findPageByUserIdAfter(request.userID(), after, onlyValid, now,
+                                                                       limit
+                        );
+                boolean hasMore = credentialMetadata.size() > missing;
+                if (hasMore) {
+                    credentialMetadata = credentialMetadata.subList(0, missing);
+                }
+
+                credentials.addAll(loadCredentials(credentialMetadata, request, onlyValid));
+                if (!hasMore) {
+                    break;
+                }
+                after = credentialMetadata.getLast().getId();
+                if (credentials.size() == maxResults || round == MAX_LIST_REFILL_ROUNDS) {
+                    nextPageAfter = Optional.of(after);
+                    break;
+                }
+            }
+            return Result.success(new CredentialsPage(request.userID(), credentials, nextPageAfter, onlyValid));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Retrieval of credentials for user '{}' was interrupted.", request.userID(), e);
+            return Result.error(TextError.of(e));
         } catch (Exception e) {
             logger.error("Failed to retrieve credentials for user '{}'.", request.userID(), e);
             return Result.error(TextError.of(e));
         }
     }
 
+    private List<Credential> loadCredentials(List<CredentialMetadataEntity> credentialMetadata,
+                                             ListCredentialsRequest request, boolean onlyValid
+    ) throws InterruptedException, ExecutionException {
+        // Credentials with a snapshot are served from the database. Keys of the remaining credentials are
+        // looked up with a single batched query per crypto token, crypto tokens are queried in parallel
+        Map<String, List<CredentialMetadataEntity>> credentialsByCryptoToken = credentialMetadata
+                .stream()
+                .filter(credential -> snapshotConsistencyCheck
+                        || !credentialSnapshotService.hasSnapshot(credential))
+                .collect(Collectors.groupingBy(CredentialMetadataEntity::getCryptoTokenName,
+                                               LinkedHashMap::new, Collectors.toList()
+                ));
+        List<Future<Map<UUID, Result<Credential, TextError>>>> futures = new ArrayList<>();
+        for (var entry : credentialsByCryptoToken.entrySet()) {
+            futures.add(keyQueryExecutor.submit(
+                    () -> getCredentialsFromCryptoToken(entry.getKey(), entry.getValue(),
+                                                        request.certificateReturnType()
+                    )));
+        }
+        Map<UUID, Result<Credential, TextError>> credentialResults = new HashMap<>();
+        for (var future : futures) {
+            credentialResults.putAll(future.get());
+        }
+
+        return credentialMetadata
+                .stream()
+                .map(credential -> credentialResults.containsKey(credential.getId())
+                        ? credentialResults.get(credential.getId())
+                        : getCredential(credential, request.certificateReturnType()))
+                .filter(result -> {
+                            if (result instanceof Error(var e)) {
+                                e = e.extend("Failed to load credential details while listing credentials " +
+                                                     "for user %s. Credential will not be included in the list.",
+                                             request.userID()
+                                );
+                                logger.warn(e.toString());
+                                return false;
+                            } else {
+                                return true;
+                            }
+                        }
+                )
+                .map(Result::unwrap)
+                // Revocation status and validity of credentials without a snapshot are known only now
+                .filter(credential -> !onlyValid || isUsableForSigning(credential))
+                .toList();
+    }
+
+    private boolean isUsableForSigning(Credential credential) {
+        return credential.key().status() == KeyStatus.ENABLED
+                && credential.cert().status() == CertificateStatus.VALID;
+    }
+
     private Result<String, TextError> getPregeneratedOrGenerateKey(CryptoToken cryptoToken, String keyAlias,
                                                                    CredentialProfile credentialProfile,
                                                                    boolean usePreGeneratedKey
@@ -433,6 +529,7 @@ public class CredentialsService {
                         return Result.error(TextError.of(e));
                     }
                 })
+                .ifSuccess(() -> credentialMetadataCache.invalidate(credentialId))
                 .ifSuccess(
                         () -> logger.info("The property 'disabled' of Credential '{}' was set to '{}'", credentialId,
                                           disabled
@@ -442,18 +539,21 @@ public class CredentialsService {
     }
 
     public Result<CredentialMetadata, TextError> getCredentialMetadata(UUID credentialId, String userId) {
-        return getCredentialMetadataEntity(credentialId, userId)
-                .map(metadata -> new CredentialMetadata(
-                        metadata.getId(),
-                        metadata.getUserId(),
-                        metadata.getKeyAlias(),
-                        metadata.getCredentialProfile(),
-                        Optional.of(metadata.getSignatureQualifier()),
-                        metadata.getMultisign(),
-                        Optional.of(metadata.getScal()),
-                        metadata.getCryptoTokenName(),
-                        metadata.isDisabled()
-                ));
+        return credentialMetadataCache.get(
+                credentialId, userId,
+                () -> getCredentialMetadataEntity(credentialId, userId)
+                        .map(metadata -> new CredentialMetadata(
+                                metadata.getId(),
+                                metadata.getUserId(),
+                                metadata.getKeyAlias(),
+                                metadata.getCredentialProfile(),
+                                Optional.of(metadata.getSignatureQualifier()),
+                                metadata.getMultisign(),
+                                Optional.of(metadata.getScal()),
+                                metadata.getCryptoTokenName(),
+                                metadata.isDisabled()
+                        ))
+        );
     }
 
     private Result<CredentialMetadataEntity, TextError> getCredentialMetadataEntity(UUID credentialId, String userId) {
@@ -484,45 +584,104 @@ public class CredentialsService {
     private Result<Credential, TextError> getCredential(CredentialMetadataEntity credentialMetadata,
                                                         CertificateReturnType certificateReturnType
     ) {
-        return workerRepository
+        var getCryptoTokenResult = workerRepository
                 .getCryptoToken(credentialMetadata.getCryptoTokenName())
-                .mapError(e -> e.extend("Failed to get crypto token for credential '%s'.", credentialMetadata.getId()))
-                .flatMap(cryptoToken ->
-                                 signserverClient
-                                         .queryCryptoTokenKeys(
-                                                 cryptoToken, true, 0, 2,
-                                                 credentialMetadata.getKeyAlias()
-                                         )
-                                         .mapError(e -> e.extend(
-                                                 "Failed to query keys for credential '%s' in SignServer CryptoToken '%s'(%d).",
-                                                 credentialMetadata.getId(), cryptoToken.name(), cryptoToken.id()
-                                         ))
-                                         .validate(List::isEmpty,
-                                                   TextError.of(
-                                                           "Key '%s' belonging to credential '%s' not found in SignServer CryptoToken '%s'(%d).",
-                                                           credentialMetadata.getKeyAlias(),
-                                                           credentialMetadata.getId(),
-                                                           cryptoToken.name(),
-                                                           cryptoToken.id()
-                                                   )
-                                         )
-                                         .validate(keys -> keys.size() > 1,
-                                                   TextError.of(
-                                                           "Multiple keys '%s' belonging to credential '%s' found in SignServer CryptoToken '%s'(%d).",
-                                                           credentialMetadata.getKeyAlias(),
-                                                           credentialMetadata.getId(),
-                                                           cryptoToken.name(),
-                                                           cryptoToken.id()
-                                                   )
-                                         )
-                                         .map(List::getFirst)
-                                         .flatMap(key ->
-                                                          constructCredential(
-                                                                  key, credentialMetadata,
-                                                                  certificateReturnType
-                                                          )
-                                         )
+                .mapError(e -> e.extend("Failed to get crypto token for credential '%s'.", credentialMetadata.getId()));
+        if (getCryptoTokenResult instanceof Error(var err)) return Result.error(err);
+        CryptoToken cryptoToken = getCryptoTokenResult.unwrap();
+
+        if (!snapshotConsistencyCheck) {
+            var snapshotKey = credentialSnapshotService.getSnapshotKey(credentialMetadata, cryptoToken);
+            if (snapshotKey.isPresent()) {
+                return constructCredential(snapshotKey.get(), credentialMetadata, certificateReturnType);
+            }
+        }
+
+        return signserverClient
+                .queryCryptoTokenKeys(
+                        cryptoToken, true, 0, 2,
+                        credentialMetadata.getKeyAlias()
+                )
+                .mapError(e -> e.extend(
+                        "Failed to query keys for credential '%s' in SignServer CryptoToken '%s'(%d).",
+                        credentialMetadata.getId(), cryptoToken.name(), cryptoToken.id()
+                ))
+                .validate(List::isEmpty,
+                          TextError.of(
+                                  "Key '%s' belonging to credential '%s' not found in SignServer CryptoToken '%s'(%d).",
+                                  credentialMetadata.getKeyAlias(),
+                                  credentialMetadata.getId(),
+                                  cryptoToken.name(),
+                                  cryptoToken.id()
+                          )
+                )
+                .validate(keys -> keys.size() > 1,
+                          TextError.of(
+                                  "Multiple keys '%s' belonging to credential '%s' found in SignServer CryptoToken '%s'(%d).",
+                                  credentialMetadata.getKeyAlias(),
+                                  credentialMetadata.getId(),
+                                  cryptoToken.name(),
+                                  cryptoToken.id()
+                          )
+                )
+                .map(List::getFirst)
+                .consume(key -> refreshSnapshot(credentialMetadata, key))
+                .flatMap(key -> constructCredential(key, credentialMetadata, certificateReturnType));
+    }
+
+    private Map<UUID, Result<Credential, TextError>> getCredentialsFromCryptoToken(
+            String cryptoTokenName, List<CredentialMetadataEntity> credentials,
+            CertificateReturnType certificateReturnType
+    ) {
+        Map<UUID, Result<Credential, TextError>> results = new HashMap<>();
+        var keysResult = workerRepository
+                .getCryptoToken(cryptoTokenName)
+                .mapError(e -> e.extend("Failed to get crypto token '%s'.", cryptoTokenName))
+                .flatMap(cryptoToken -> signserverClient
+                        .queryCryptoTokenKeysByAliases(
+                                cryptoToken,
+                                credentials.stream().map(CredentialMetadataEntity::getKeyAlias).toList()
+                        )
+                        .mapError(e -> e.extend("Failed to query keys in SignServer CryptoToken '%s'(%d).",
+                                                cryptoToken.name(), cryptoToken.id()
+                        ))
                 );
+        if (keysResult instanceof Error(var err)) {
+            credentials.forEach(credential -> results.put(credential.getId(), Result.error(err)));
+            return results;
+        }
+
+        Map<String, CryptoTokenKey> keys = keysResult.unwrap();
+        for (CredentialMetadataEntity credential : credentials) {
+            CryptoTokenKey key = keys.get(credential.getKeyAlias());
+            if (key == null) {
+                results.put(credential.getId(), Result.error(TextError.of(
+                        "Key '%s' belonging to credential '%s' not found in SignServer CryptoToken '%s'.",
+                        credential.getKeyAlias(), credential.getId(), cryptoTokenName
+                )));
+            } else {
+                refreshSnapshot(credential, key);
+                results.put(credential.getId(), constructCredential(key, credential, certificateReturnType));
+            }
+        }
+        return results;
+    }
+
+    private void refreshSnapshot(CredentialMetadataEntity credentialMetadata, CryptoTokenKey key) {
+        if (credentialSnapshotService.isUpToDate(credentialMetadata, key)) {
+            return;
+        }
+        if (credentialSnapshotService.hasSnapshot(credentialMetadata)) {
+            logger.warn("Snapshot of credential '{}' does not match key '{}' stored in SignServer. " +
+                                "The snapshot will be refreshed.", credentialMetadata.getId(), key.keyAlias()
+            );
+        }
+        credentialSnapshotService
+                .storeSnapshot(credentialMetadata, key)
+                .consumeError(e -> logger.warn(
+                        e.extend("Snapshot of credential '%s' could not be stored.", credentialMetadata.getId())
+                         .toString()
+                ));
     }
 
     private Result<Credential, TextError> constructCredential(
@@ -628,16 +787,13 @@ public class CredentialsService {
         };
     }
 
-    private Result<EndEntity, TextError> createEndEntity(String userId, String dn, String san,
-                                                         CredentialProfile credentialProfile
-    ) {
+    private Result<EndEntity, TextError> newEndEntity(String userId, String dn, String san) {
         var genResult = passwordGenerator.generate();
         if (genResult instanceof Error(var err)) {
             return Result.error(err.extend("Failed to generate password for end entity."));
         }
         String password = genResult.unwrap();
-        EndEntity endEntity = new EndEntity(userId, password, dn, san);
-        return ejbcaClient.createEndEntity(endEntity, credentialProfile);
+        return Result.success(new EndEntity(userId, password, dn, san));
     }
 
     private RekeyCredentialRequest mergerRekeyRequestWithCurrentSettings(
@@ -712,6 +868,7 @@ public class CredentialsService {
             currentCredentialMetadata.setKeyAlias(finalNewKeyAlias);
             currentCredentialMetadata.setCryptoTokenName(destinationCryptoToken.name());
             currentCredentialMetadata.setCredentialProfile(credentialProfileName);
+            credentialSnapshotService.clearSnapshot(currentCredentialMetadata);
             credentialsRepository.save(currentCredentialMetadata);
             return Result.emptySuccess();
         } catch (Exception e) {
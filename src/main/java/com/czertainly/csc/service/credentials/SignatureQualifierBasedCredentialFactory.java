@@ -4,6 +4,7 @@ import com.czertainly.csc.api.auth.CscAuthenticationToken;
 import com.czertainly.csc.api.auth.SignatureActivationData;
 import com.czertainly.csc.clients.ejbca.EjbcaClient;
 import com.czertainly.csc.clients.signserver.SignserverClient;
+import com.czertainly.csc.common.deadline.Deadline;
 import com.czertainly.csc.common.result.Error;
 import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
@@ -24,6 +25,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Optional;
 
 @Component
 public class SignatureQualifierBasedCredentialFactory {
@@ -108,12 +110,12 @@ public class SignatureQualifierBasedCredentialFactory {
         }
         var password = getPasswordResult.unwrap();
 
-        EndEntity endEntity = new EndEntity(username, password, dn, san);
-        var createEndEndtityResult = ejbcaClient.createEndEntity(endEntity, signatureQualifierProfile);
-        if (createEndEndtityResult instanceof Error(var err)) {
-            return Result.error(err);
+        // The certificate is not requested when there is no time left to sign with it
+        if (Deadline.currentExpired()) {
+            return Result.error(TextError.of("Deadline of the request expired before the certificate was requested."));
         }
 
+        EndEntity endEntity = new EndEntity(username, password, dn, san);
         var certifyKeyResult = generateCertificateForSigningKey(key, dn, endEntity, signatureQualifierProfile);
         if (certifyKeyResult instanceof Error(var err)) {
             return Result.error(err);
@@ -135,15 +137,13 @@ public class SignatureQualifierBasedCredentialFactory {
     private Result<X509CertificateHolder, TextError> generateCertificateForSigningKey(
             SigningKey key, String dn, EndEntity endEntity, SignatureQualifierProfile signatureQualifierProfile
     ) {
-        var csrSignResult = signserverClient.generateCSR(
-                                                    key.cryptoToken(), key.keyAlias(), dn,
-                                                    signatureQualifierProfile.getCsrSignatureAlgorithm()
-                                            )
-                                            .flatMap(csr -> ejbcaClient.signCertificateRequest(
-                                                    endEntity,
-                                                    signatureQualifierProfile,
-                                                    csr
-                                            ));
+        var csrSignResult = ejbcaClient.enrollEndEntity(
+                endEntity, signatureQualifierProfile,
+                () -> signserverClient.generateCSR(
+                        key.cryptoToken(), key.keyAlias(), dn,
+                        signatureQualifierProfile.getCsrSignatureAlgorithm()
+                )
+        );
 
         if (csrSignResult instanceof Error(var err)) {
             return Result.error(err);
@@ -167,16 +167,17 @@ public class SignatureQualifierBasedCredentialFactory {
         logger.info("Revoking certificate '{}' due to an error during session credential creation.",
                     certificate.getSerialNumber()
         );
-        ejbcaClient.revokeCertificate(
-                           certificate.getSerialNumber().toString(16), certificate.getIssuer().toString(),
-                           CertificateRevocationReason.UNSPECIFIED
-                   )
-                   .consumeError(e -> logger.error(
-                           e.extend(
-                                   "Failed to revoke certificate '%s'. The certificate should be revoked manually.",
-                                   certificate.getSerialNumber()
-                           ).getErrorText()
-                   ));
+        // The certificate is revoked even when the deadline of the request expired
+        Deadline.callWith(Optional.empty(), () -> ejbcaClient.revokeCertificate(
+                        certificate.getSerialNumber().toString(16), certificate.getIssuer().toString(),
+                        CertificateRevocationReason.UNSPECIFIED
+                ))
+                .consumeError(e -> logger.error(
+                        e.extend(
+                                "Failed to revoke certificate '%s'. The certificate should be revoked manually.",
+                                certificate.getSerialNumber()
+                        ).getErrorText()
+                ));
 
     }
 }
@@ -0,0 +1,53 @@
+package com.czertainly.csc.service.scheduled;
+
+import com.czertainly.csc.service.credentials.CredentialSnapshotBackfillService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Component
+public class CredentialSnapshotBackfillTrigger {
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialSnapshotBackfillTrigger.class);
+
+    static final String LOCK_NAME = "credential-snapshot-backfill";
+    // The backfill runs on one node of the cluster at a time
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(30);
+    private static final Duration LOCK_AT_LEAST_FOR = Duration.ofSeconds(30);
+
+    private final CredentialSnapshotBackfillService credentialSnapshotBackfillService;
+    private final ScheduledTaskLock scheduledTaskLock;
+
+    public CredentialSnapshotBackfillTrigger(CredentialSnapshotBackfillService credentialSnapshotBackfillService,
+                                             ScheduledTaskLock scheduledTaskLock
+    ) {
+        this.credentialSnapshotBackfillService = credentialSnapshotBackfillService;
+        this.scheduledTaskLock = scheduledTaskLock;
+    }
+
+    @Scheduled(cron = "${csc.credentials.snapshotBackfillCronExpression:0 */10 * * * *}")
+    public void backfillSnapshots() {
+        Optional<ScheduledTaskLock.Lock> lock;
+        try {
+            lock = scheduledTaskLock.tryLock(LOCK_NAME, LOCK_AT_MOST_FOR, LOCK_AT_LEAST_FOR);
+        } catch (DataAccessException e) {
+            logger.warn("Backfill of credential snapshots skipped, the lock could not be acquired. {}",
+                        e.getMessage()
+            );
+            return;
+        }
+        if (lock.isEmpty()) {
+            logger.debug("Backfill of credential snapshots skipped, it runs on another node.");
+            return;
+        }
+
+        try (var ignored = lock.get()) {
+            credentialSnapshotBackfillService.backfillSnapshots();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.czertainly.csc.service.scheduled;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Lock of a scheduled task in the {@code scheduled_task_locks} table, so that a task scheduled on every node
+ * of the cluster runs on one node at a time.
+ * <p>
+ * The lock expires after the given time even if the node holding it doesn't release it, e.g. because it was
+ * stopped. When released, the lock is held at least for the given time, so that the other nodes whose schedule
+ * fires a bit later don't run the task again.
+ */
+@Component
+public class ScheduledTaskLock {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledTaskLock.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public ScheduledTaskLock(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Acquires the lock unless it is held by a node, including this one.
+     *
+     * @param name           name of the task
+     * @param lockAtMostFor  time after which the lock expires
+     * @param lockAtLeastFor minimum time the lock is held after it was acquired
+     * @return the lock to be released when the task finishes, or empty if the lock is held
+     */
+    public Optional<Lock> tryLock(String name, Duration lockAtMostFor, Duration lockAtLeastFor) {
+        Instant now = Instant.now();
+        Timestamp lockedUntil = Timestamp.from(now.plus(lockAtMostFor));
+        int updated = jdbcTemplate.update(
+                "update scheduled_task_locks set locked_until = ?, locked_at = ?, locked_by = ? " +
+                        "where name = ? and locked_until <= ?",
+                lockedUntil, Timestamp.from(now), nodeId, name, Timestamp.from(now)
+        );
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update(
+                        "insert into scheduled_task_locks (name, locked_until, locked_at, locked_by) " +
+                                "values (?, ?, ?, ?)",
+                        name, lockedUntil, Timestamp.from(now), nodeId
+                );
+            } catch (DuplicateKeyException e) {
+                logger.debug("Task '{}' is locked by another node.", name);
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new Lock(name, now.plus(lockAtLeastFor)));
+    }
+
+    public final class Lock implements AutoCloseable {
+
+        private final String name;
+        private final Instant lockedAtLeastUntil;
+
+        private Lock(String name, Instant lockedAtLeastUntil) {
+            this.name = name;
+            this.lockedAtLeastUntil = lockedAtLeastUntil;
+        }
+
+        @Override
+        public void close() {
+            Instant now = Instant.now();
+            Instant unlockAt = lockedAtLeastUntil.isAfter(now) ? lockedAtLeastUntil : now;
+            jdbcTemplate.update("update scheduled_task_locks set locked_until = ? where name = ? and locked_by = ?",
+                                Timestamp.from(unlockAt), name, nodeId
+            );
+        }
+    }
+}
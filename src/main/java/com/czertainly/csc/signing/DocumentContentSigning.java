@@ -2,13 +2,18 @@ package com.czertainly.csc.signing;
 
 import com.czertainly.csc.api.auth.CscAuthenticationToken;
 import com.czertainly.csc.clients.signserver.SignserverClient;
+import com.czertainly.csc.common.io.SpooledData;
 import com.czertainly.csc.common.result.Error;
 import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.components.SpooledDataFactory;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
 import com.czertainly.csc.crypto.AlgorithmHelper;
+import com.czertainly.csc.crypto.DigestAlgorithmJavaName;
 import com.czertainly.csc.model.DocumentContentToSign;
 import com.czertainly.csc.model.DocumentSignature;
 import com.czertainly.csc.model.SignDocParameters;
+import com.czertainly.csc.model.SignaturesConsumer;
 import com.czertainly.csc.model.SignaturesContainer;
 import com.czertainly.csc.service.credentials.CredentialsService;
 import com.czertainly.csc.service.credentials.SessionCredentialsService;
@@ -17,13 +22,17 @@ import com.czertainly.csc.service.credentials.SigningSessionsService;
 import com.czertainly.csc.service.keys.OneTimeKeyAsyncDeletionService;
 import com.czertainly.csc.service.keys.OneTimeKeysService;
 import com.czertainly.csc.service.keys.SessionKeysService;
+import com.czertainly.csc.signing.configuration.SignatureFormat;
+import com.czertainly.csc.signing.configuration.SignaturePackaging;
 import com.czertainly.csc.signing.configuration.WorkerRepository;
 import com.czertainly.csc.signing.configuration.process.SignatureProcessTemplate;
 import com.czertainly.csc.signing.configuration.process.configuration.DocumentContentSignatureProcessConfiguration;
+import com.czertainly.csc.signing.configuration.process.configuration.DocumentHashSignatureProcessConfiguration;
 import com.czertainly.csc.signing.configuration.process.configuration.LongTermTokenConfiguration;
 import com.czertainly.csc.signing.configuration.process.configuration.OneTimeTokenConfiguration;
 import com.czertainly.csc.signing.configuration.process.configuration.SessionTokenConfiguration;
 import com.czertainly.csc.signing.configuration.process.signers.DocumentContentSigner;
+import com.czertainly.csc.signing.configuration.process.signers.DocumentHashSigner;
 import com.czertainly.csc.signing.configuration.process.token.*;
 import com.czertainly.csc.signing.configuration.profiles.CredentialProfileRepository;
 import com.czertainly.csc.signing.signatureauthorizers.DocumentAuthorizer;
@@ -33,18 +42,27 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Set;
 
 @Component
 public class DocumentContentSigning {
 
     private final static Logger logger = LoggerFactory.getLogger(DocumentContentSigning.class);
+    private static final Set<SignatureFormat> CLIENT_SIDE_HASHING_FORMATS = Set.of(
+            SignatureFormat.CAdES, SignatureFormat.JAdEs
+    );
 
-    private final SignatureProcessTemplate<LongTermTokenConfiguration, DocumentContentSignatureProcessConfiguration, LongTermToken, DocumentSignature> longTermContentSignature;
-    private final SignatureProcessTemplate<OneTimeTokenConfiguration, DocumentContentSignatureProcessConfiguration, OneTimeToken, DocumentSignature> oneTimeContentSignature;
-    private final SignatureProcessTemplate<SessionTokenConfiguration, DocumentContentSignatureProcessConfiguration, SessionToken, DocumentSignature> sessionContentSignature;
+    private final SignatureProcessTemplate<LongTermTokenConfiguration, DocumentContentSignatureProcessConfiguration, LongTermToken, SpooledData, DocumentSignature> longTermContentSignature;
+    private final SignatureProcessTemplate<OneTimeTokenConfiguration, DocumentContentSignatureProcessConfiguration, OneTimeToken, SpooledData, DocumentSignature> oneTimeContentSignature;
+    private final SignatureProcessTemplate<SessionTokenConfiguration, DocumentContentSignatureProcessConfiguration, SessionToken, SpooledData, DocumentSignature> sessionContentSignature;
 
-    private final SignatureTypeDecider signatureTypeDecider;
+    private final SignatureProcessTemplate<LongTermTokenConfiguration, DocumentHashSignatureProcessConfiguration, LongTermToken, String, DocumentSignature> longTermHashSignature;
+    private final SignatureProcessTemplate<OneTimeTokenConfiguration, DocumentHashSignatureProcessConfiguration, OneTimeToken, String, DocumentSignature> oneTimeHashSignature;
+    private final SignatureProcessTemplate<SessionTokenConfiguration, DocumentHashSignatureProcessConfiguration, SessionToken, String, DocumentSignature> sessionHashSignature;
 
+    private final SignatureTypeDecider signatureTypeDecider;
+    private final DocumentAuthorizer documentAuthorizer;
+    private final boolean clientSideHashing;
 
     public DocumentContentSigning(WorkerRepository workerRepository,
                                   OneTimeKeySelector oneTimeKeySelector, SessionKeySelector sessionKeySelector,
@@ -55,12 +73,13 @@ public class DocumentContentSigning {
                                   SigningSessionsService signingSessionsService,
                                   SessionCredentialsService sessionCredentialsService,
                                   CredentialProfileRepository credentialProfileRepository,
-                                  SignatureTypeDecider signatureTypeDecider
+                                  SignatureTypeDecider signatureTypeDecider, CscConfiguration cscConfiguration,
+                                  SpooledDataFactory spooledDataFactory
     ) {
         this.signatureTypeDecider = signatureTypeDecider;
-        DocumentAuthorizer documentAuthorizer = new DocumentAuthorizer(
-                new AlgorithmHelper(), new HashAuthorizer()
-        );
+        this.clientSideHashing = cscConfiguration.signing().clientSideHashing();
+        HashAuthorizer hashAuthorizer = new HashAuthorizer();
+        documentAuthorizer = new DocumentAuthorizer(new AlgorithmHelper(), hashAuthorizer);
 
         LongTermTokenProvider<DocumentContentSignatureProcessConfiguration> longTermTokenProvider = new LongTermTokenProvider<>(
                 credentialsService
@@ -80,7 +99,7 @@ public class DocumentContentSigning {
         );
 
         DocumentContentSigner<DocumentContentSignatureProcessConfiguration> documentContentSigner = new DocumentContentSigner<>(
-                signserverClient);
+                signserverClient, spooledDataFactory);
 
 
         longTermContentSignature = new SignatureProcessTemplate<>(
@@ -101,76 +120,254 @@ public class DocumentContentSigning {
                 sessionTokenProvider,
                 documentContentSigner
         );
+
+        // The digests of the documents are authorized directly when signing with client-side hashing
+        LongTermTokenProvider<DocumentHashSignatureProcessConfiguration> longTermHashTokenProvider = new LongTermTokenProvider<>(
+                credentialsService
+        );
+        OneTimeTokenProvider<DocumentHashSignatureProcessConfiguration> oneTimeHashTokenProvider = new OneTimeTokenProvider<>(
+                signatureQualifierBasedCredentialFactory,
+                oneTimeKeySelector,
+                oneTimeKeysService,
+                asyncDeletionService
+        );
+        SessionTokenProvider<DocumentHashSignatureProcessConfiguration> sessionHashTokenProvider = new SessionTokenProvider<>(
+                signingSessionsService,
+                sessionCredentialsService,
+                credentialProfileRepository,
+                sessionKeySelector,
+                sessionKeysService
+        );
+        DocumentHashSigner<DocumentHashSignatureProcessConfiguration> documentHashSigner = new DocumentHashSigner<>(
+                signserverClient);
+
+        longTermHashSignature = new SignatureProcessTemplate<>(
+                hashAuthorizer,
+                workerRepository,
+                longTermHashTokenProvider,
+                documentHashSigner
+        );
+        oneTimeHashSignature = new SignatureProcessTemplate<>(
+                hashAuthorizer,
+                workerRepository,
+                oneTimeHashTokenProvider,
+                documentHashSigner
+        );
+        sessionHashSignature = new SignatureProcessTemplate<>(
+                hashAuthorizer,
+                workerRepository,
+                sessionHashTokenProvider,
+                documentHashSigner
+        );
     }
 
-    public Result<SignaturesContainer<DocumentSignature>, TextError> sign(SignDocParameters parameters,
-                                                                          CscAuthenticationToken cscAuthenticationToken
+    /**
+     * Signs the documents one by one, passing the signatures to the consumer as soon as they are created. Documents
+     * that could not be signed are reported to the consumer, which decides whether the signing continues.
+     */
+    public Result<Void, TextError> sign(SignDocParameters parameters, CscAuthenticationToken cscAuthenticationToken,
+                                        SignaturesConsumer<DocumentSignature> signaturesConsumer
     ) {
         if (parameters.documentsToSign().isEmpty()) {
             return Result.error(TextError.of("No documents to sign."));
         }
 
-        SignaturesContainer<DocumentSignature> signatures = null;
-        for (DocumentContentToSign documentToSign : parameters.documentsToSign()) {
-            DocumentContentSignatureProcessConfiguration configuration = new DocumentContentSignatureProcessConfiguration(
-                    parameters.userID(),
-                    parameters.sad(),
-                    parameters.signatureQualifier(),
-                    documentToSign.signatureFormat(),
-                    documentToSign.conformanceLevel(),
-                    documentToSign.signaturePackaging(),
-                    documentToSign.signatureAlgorithm(),
-                    parameters.returnValidationInfo()
-            );
-
-            Result<SignaturesContainer<DocumentSignature>, TextError> signatureResult = null;
-            Result<SignatureType, TextError> getSignatureType = signatureTypeDecider.decideType(parameters);
-            if (getSignatureType instanceof Error(var err))
-                return Result.error(err.extend("Failed to determine signature type."));
-            SignatureType signatureType = getSignatureType.unwrap();
-
-            switch (signatureType) {
-                case LONG_TERM -> {
-                    logger.info("Signing with long term token with credential ID: {}", parameters.credentialID());
-                    LongTermTokenConfiguration tokenConfiguration = new LongTermTokenConfiguration(
-                            parameters.credentialID()
-                    );
-                    signatureResult = longTermContentSignature.sign(configuration, tokenConfiguration,
-                                                                    List.of(documentToSign.content())
-                    );
-                }
-                case ONE_TIME -> {
-                    logger.info("Signing with one time token.");
-                    OneTimeTokenConfiguration tokenConfiguration = new OneTimeTokenConfiguration(
-                            cscAuthenticationToken
-                    );
-                    signatureResult = oneTimeContentSignature.sign(configuration, tokenConfiguration,
-                                                                   List.of(documentToSign.content())
-                    );
-                }
-                case SESSION -> {
-                    logger.info("Signing with session token. Session ID: {}", parameters.sessionId().orElseThrow());
-                    SessionTokenConfiguration tokenConfiguration = new SessionTokenConfiguration(
-                            parameters.sessionId().orElseThrow(), cscAuthenticationToken
-                    );
-                    signatureResult = sessionContentSignature.sign(configuration, tokenConfiguration,
-                                                                   List.of(documentToSign.content())
-                    );
+        Result<SignatureType, TextError> getSignatureType = signatureTypeDecider.decideType(parameters);
+        if (getSignatureType instanceof Error(var err))
+            return Result.error(err.extend("Failed to determine signature type."));
+        SignatureType signatureType = getSignatureType.unwrap();
+
+        List<DocumentContentToSign> documentsToSign = parameters.documentsToSign();
+        int next = 0;
+        while (next < documentsToSign.size()) {
+            DocumentContentToSign documentToSign = documentsToSign.get(next);
+            int start = next;
+
+            Result<SignaturesContainer<DocumentSignature>, TextError> signatureResult;
+            if (canUseClientSideHashing(documentToSign, parameters, signatureType)) {
+                // Consecutive documents with the same signature parameters are signed in a single batch request,
+                // keeping the order of the signatures the same as the order of the documents. A one-time token
+                // is never shared by several documents, each of them gets its own one-time key as when the whole
+                // document is sent.
+                int end = next + 1;
+                while (signatureType != SignatureType.ONE_TIME
+                        && end < documentsToSign.size()
+                        && haveSameSignatureParameters(documentToSign, documentsToSign.get(end))) {
+                    end++;
                 }
+                signatureResult = signDigests(parameters, documentsToSign.subList(next, end), signatureType,
+                                              cscAuthenticationToken
+                );
+                next = end;
+            } else {
+                signatureResult = signContent(parameters, documentToSign, signatureType, cscAuthenticationToken);
+                next++;
             }
 
-            if (signatureResult instanceof Error(var err))
-                return Result.error(err.extend("Failed to sign one of the document digest to sign."));
-            SignaturesContainer<DocumentSignature> docs = signatureResult.unwrap();
-            if (signatures != null) {
-                signatures.extend(docs);
-            } else {
-                signatures = docs;
+            if (signatureResult instanceof Error(var err)) {
+                var failedResult = signaturesConsumer.signingFailed(
+                        next - start, err.extend("Failed to sign one of the document digest to sign.")
+                );
+                if (failedResult instanceof Error(var failedErr))
+                    return Result.error(failedErr);
+                continue;
             }
+            var consumeResult = signaturesConsumer.accept(signatureResult.unwrap());
+            if (consumeResult instanceof Error(var err))
+                return Result.error(err.extend("Failed to process signatures of the documents."));
+        }
+
+        return Result.emptySuccess();
+    }
+
+    private Result<SignaturesContainer<DocumentSignature>, TextError> signContent(
+            SignDocParameters parameters, DocumentContentToSign documentToSign, SignatureType signatureType,
+            CscAuthenticationToken cscAuthenticationToken
+    ) {
+        DocumentContentSignatureProcessConfiguration configuration = new DocumentContentSignatureProcessConfiguration(
+                parameters.userID(),
+                parameters.sad(),
+                parameters.signatureQualifier(),
+                documentToSign.signatureFormat(),
+                documentToSign.conformanceLevel(),
+                documentToSign.signaturePackaging(),
+                documentToSign.signatureAlgorithm(),
+                parameters.returnValidationInfo()
+        );
+
+        return switch (signatureType) {
+            case LONG_TERM -> {
+                logger.info("Signing with long term token with credential ID: {}", parameters.credentialID());
+                LongTermTokenConfiguration tokenConfiguration = new LongTermTokenConfiguration(
+                        parameters.credentialID()
+                );
+                yield longTermContentSignature.sign(configuration, tokenConfiguration,
+                                                    List.of(documentToSign.content())
+                );
+            }
+            case ONE_TIME -> {
+                logger.info("Signing with one time token.");
+                OneTimeTokenConfiguration tokenConfiguration = new OneTimeTokenConfiguration(
+                        cscAuthenticationToken
+                );
+                yield oneTimeContentSignature.sign(configuration, tokenConfiguration,
+                                                   List.of(documentToSign.content())
+                );
+            }
+            case SESSION -> {
+                logger.info("Signing with session token. Session ID: {}", parameters.sessionId().orElseThrow());
+                SessionTokenConfiguration tokenConfiguration = new SessionTokenConfiguration(
+                        parameters.sessionId().orElseThrow(), cscAuthenticationToken
+                );
+                yield sessionContentSignature.sign(configuration, tokenConfiguration,
+                                                   List.of(documentToSign.content())
+                );
+            }
+        };
+    }
+
+    /*
+     * Signs the documents using digests computed locally, so the documents don't have to be sent to SignServer.
+     * The digests are the same as the digests authorized by the signature activation data.
+     */
+    private Result<SignaturesContainer<DocumentSignature>, TextError> signDigests(
+            SignDocParameters parameters, List<DocumentContentToSign> documentsToSign, SignatureType signatureType,
+            CscAuthenticationToken cscAuthenticationToken
+    ) {
+        var digestDocumentsResult = documentAuthorizer.digestDocuments(
+                documentsToSign.stream().map(DocumentContentToSign::content).toList(), parameters.sad()
+        );
+        if (digestDocumentsResult instanceof Error(var err))
+            return Result.error(err.extend("Failed to compute digests of the documents to sign."));
+        List<String> digests = digestDocumentsResult.unwrap();
+
+        DocumentHashSignatureProcessConfiguration configuration = toDocumentHashConfiguration(
+                parameters, documentsToSign.getFirst()
+        );
+        logger.debug("Signing {} documents using client-side computed digests.", digests.size());
 
+        return switch (signatureType) {
+            case LONG_TERM -> {
+                logger.info("Signing with long term token with credential ID: {}", parameters.credentialID());
+                LongTermTokenConfiguration tokenConfiguration = new LongTermTokenConfiguration(
+                        parameters.credentialID()
+                );
+                yield longTermHashSignature.sign(configuration, tokenConfiguration, digests);
+            }
+            case ONE_TIME -> {
+                logger.info("Signing with one time token.");
+                OneTimeTokenConfiguration tokenConfiguration = new OneTimeTokenConfiguration(
+                        cscAuthenticationToken
+                );
+                yield oneTimeHashSignature.sign(configuration, tokenConfiguration, digests);
+            }
+            case SESSION -> {
+                logger.info("Signing with session token. Session ID: {}", parameters.sessionId().orElseThrow());
+                SessionTokenConfiguration tokenConfiguration = new SessionTokenConfiguration(
+                        parameters.sessionId().orElseThrow(), cscAuthenticationToken
+                );
+                yield sessionHashSignature.sign(configuration, tokenConfiguration, digests);
+            }
+        };
+    }
+
+    /*
+     * Detached CAdES and JAdES signatures depend only on the digest of the document, so the document can be
+     * hashed locally and signed by a worker accepting client-side computed digests. The digest must be computed
+     * with the algorithm the signature uses, and it is computed with the algorithm of the signature activation
+     * data, so both must be the same.
+     */
+    private boolean canUseClientSideHashing(DocumentContentToSign documentToSign, SignDocParameters parameters,
+                                            SignatureType signatureType
+    ) {
+        if (!clientSideHashing
+                || documentToSign.signaturePackaging() != SignaturePackaging.DETACHED
+                || !CLIENT_SIDE_HASHING_FORMATS.contains(documentToSign.signatureFormat())) {
+            return false;
+        }
+
+        String signatureDigestAlgorithm = documentToSign.signatureAlgorithm().digestAlgorithm();
+        String sadDigestAlgorithm = documentAuthorizer.getDigestAlgorithmName(parameters.sad());
+        if (signatureDigestAlgorithm == null || sadDigestAlgorithm == null
+                || !DigestAlgorithmJavaName.get(signatureDigestAlgorithm)
+                                           .equalsIgnoreCase(DigestAlgorithmJavaName.get(sadDigestAlgorithm))) {
+            return false;
         }
 
-        return Result.success(signatures);
+        DocumentHashSignatureProcessConfiguration configuration = toDocumentHashConfiguration(
+                parameters, documentToSign
+        );
+        boolean hasSuitableWorker = switch (signatureType) {
+            case LONG_TERM -> longTermHashSignature.hasSuitableWorker(configuration);
+            case ONE_TIME -> oneTimeHashSignature.hasSuitableWorker(configuration);
+            case SESSION -> sessionHashSignature.hasSuitableWorker(configuration);
+        };
+        if (!hasSuitableWorker) {
+            logger.debug("No worker accepts digests for the signature parameters, the whole document will be sent.");
+        }
+        return hasSuitableWorker;
+    }
+
+    private boolean haveSameSignatureParameters(DocumentContentToSign first, DocumentContentToSign second) {
+        return first.signatureFormat() == second.signatureFormat()
+                && first.conformanceLevel() == second.conformanceLevel()
+                && first.signaturePackaging() == second.signaturePackaging()
+                && first.signatureAlgorithm().toJavaName().equals(second.signatureAlgorithm().toJavaName());
+    }
+
+    private DocumentHashSignatureProcessConfiguration toDocumentHashConfiguration(
+            SignDocParameters parameters, DocumentContentToSign documentToSign
+    ) {
+        return new DocumentHashSignatureProcessConfiguration(
+                parameters.userID(),
+                parameters.sad(),
+                parameters.signatureQualifier(),
+                documentToSign.signatureFormat(),
+                documentToSign.conformanceLevel(),
+                documentToSign.signaturePackaging(),
+                documentToSign.signatureAlgorithm(),
+                parameters.returnValidationInfo()
+        );
     }
 
 }
@@ -8,6 +8,7 @@ import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.model.DocumentDigestsToSign;
 import com.czertainly.csc.model.DocumentSignature;
 import com.czertainly.csc.model.SignDocParameters;
+import com.czertainly.csc.model.SignaturesConsumer;
 import com.czertainly.csc.model.SignaturesContainer;
 import com.czertainly.csc.service.credentials.CredentialsService;
 import com.czertainly.csc.service.credentials.SessionCredentialsService;
@@ -35,9 +36,9 @@ public class DocumentHashSigning {
 
     private final static Logger logger = LoggerFactory.getLogger(DocumentHashSigning.class);
 
-    private final SignatureProcessTemplate<OneTimeTokenConfiguration, DocumentHashSignatureProcessConfiguration, OneTimeToken, DocumentSignature> oneTimeHashSignature;
-    private final SignatureProcessTemplate<LongTermTokenConfiguration, DocumentHashSignatureProcessConfiguration, LongTermToken, DocumentSignature> longTermHashSignature;
-    private final SignatureProcessTemplate<SessionTokenConfiguration, DocumentHashSignatureProcessConfiguration, SessionToken, DocumentSignature> sessionSignature;
+    private final SignatureProcessTemplate<OneTimeTokenConfiguration, DocumentHashSignatureProcessConfiguration, OneTimeToken, String, DocumentSignature> oneTimeHashSignature;
+    private final SignatureProcessTemplate<LongTermTokenConfiguration, DocumentHashSignatureProcessConfiguration, LongTermToken, String, DocumentSignature> longTermHashSignature;
+    private final SignatureProcessTemplate<SessionTokenConfiguration, DocumentHashSignatureProcessConfiguration, SessionToken, String, DocumentSignature> sessionSignature;
     private final SignatureTypeDecider signatureTypeDecider;
 
     public DocumentHashSigning(WorkerRepository workerRepository,
@@ -91,14 +92,17 @@ public class DocumentHashSigning {
         );
     }
 
-    public Result<SignaturesContainer<DocumentSignature>, TextError> sign(
-            SignDocParameters parameters, CscAuthenticationToken cscAuthenticationToken
+    /**
+     * Signs the document digests group by group, passing the signatures to the consumer as soon as they are created.
+     */
+    public Result<Void, TextError> sign(
+            SignDocParameters parameters, CscAuthenticationToken cscAuthenticationToken,
+            SignaturesConsumer<DocumentSignature> signaturesConsumer
     ) {
 
         if (parameters.documentDigestsToSign().isEmpty()) {
             return Result.error(TextError.of("No document digests to sign."));
         }
-        SignaturesContainer<DocumentSignature> signatures = null;
         for (DocumentDigestsToSign digestsToSign : parameters.documentDigestsToSign()) {
             DocumentHashSignatureProcessConfiguration configuration = new DocumentHashSignatureProcessConfiguration(
                     parameters.userID(),
@@ -145,15 +149,18 @@ public class DocumentHashSigning {
                 }
             }
 
-            if (signatureResult instanceof Error(var err))
-                return Result.error(err.extend("Failed to sign one of the document digest to sign."));
-            SignaturesContainer<DocumentSignature> docs = signatureResult.unwrap();
-            if (signatures != null) {
-                signatures.extend(docs);
-            } else {
-                signatures = docs;
+            if (signatureResult instanceof Error(var err)) {
+                var failedResult = signaturesConsumer.signingFailed(
+                        digestsToSign.hashes().size(), err.extend("Failed to sign one of the document digest to sign.")
+                );
+                if (failedResult instanceof Error(var failedErr))
+                    return Result.error(failedErr);
+                continue;
             }
+            var consumeResult = signaturesConsumer.accept(signatureResult.unwrap());
+            if (consumeResult instanceof Error(var err))
+                return Result.error(err.extend("Failed to process signatures of the document digests."));
         }
-        return Result.success(signatures);
+        return Result.emptySuccess();
     }
 }
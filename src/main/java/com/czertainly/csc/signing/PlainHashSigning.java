@@ -24,7 +24,7 @@ import org.springframework.stereotype.Component;
 public class PlainHashSigning {
     private final static Logger logger = LoggerFactory.getLogger(PlainHashSigning.class);
 
-    private final SignatureProcessTemplate<LongTermTokenConfiguration, PlainHashSignatureProcessConfiguration, LongTermToken, PlainSignature> longTermContentSignature;
+    private final SignatureProcessTemplate<LongTermTokenConfiguration, PlainHashSignatureProcessConfiguration, LongTermToken, String, PlainSignature> longTermContentSignature;
 
     SignserverClient signserverClient;
     WorkerRepository workerRepository;
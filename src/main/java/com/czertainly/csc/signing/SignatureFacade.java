@@ -21,14 +21,15 @@ public class SignatureFacade {
         this.plainHashSigning = plainHashSigning;
     }
 
-    public Result<SignaturesContainer<DocumentSignature>, TextError> signDocuments(
-            SignDocParameters signDocParameters, CscAuthenticationToken cscAuthenticationToken
+    public Result<Void, TextError> signDocuments(
+            SignDocParameters signDocParameters, CscAuthenticationToken cscAuthenticationToken,
+            SignaturesConsumer<DocumentSignature> signaturesConsumer
     ) {
 
         if (!signDocParameters.documentsToSign().isEmpty()) {
-            return documentSigning.sign(signDocParameters, cscAuthenticationToken);
+            return documentSigning.sign(signDocParameters, cscAuthenticationToken, signaturesConsumer);
         } else if (!signDocParameters.documentDigestsToSign().isEmpty()) {
-            return documentHashSigning.sign(signDocParameters, cscAuthenticationToken);
+            return documentHashSigning.sign(signDocParameters, cscAuthenticationToken, signaturesConsumer);
         } else {
             return Result.error(TextError.of("Invalid input", "No documents to sign."));
         }
@@ -1,11 +1,13 @@
 package com.czertainly.csc.signing.configuration.process;
 
+import com.czertainly.csc.common.deadline.Deadline;
 import com.czertainly.csc.common.result.Error;
 import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.model.Signature;
 import com.czertainly.csc.model.SignaturesContainer;
 import com.czertainly.csc.signing.configuration.CapabilitiesFilter;
+import com.czertainly.csc.signing.configuration.WorkerCapabilities;
 import com.czertainly.csc.signing.configuration.WorkerRepository;
 import com.czertainly.csc.signing.configuration.WorkerWithCapabilities;
 import com.czertainly.csc.signing.configuration.process.configuration.SignatureProcessConfiguration;
@@ -13,28 +15,31 @@ import com.czertainly.csc.signing.configuration.process.configuration.TokenConfi
 import com.czertainly.csc.signing.configuration.process.signers.Signer;
 import com.czertainly.csc.signing.configuration.process.token.SigningToken;
 import com.czertainly.csc.signing.configuration.process.token.TokenProvider;
+import com.czertainly.csc.signing.filter.Criterion;
 import com.czertainly.csc.signing.signatureauthorizers.SignatureAuthorizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Optional;
 
 public class SignatureProcessTemplate<
         TC extends TokenConfiguration,
         SC extends SignatureProcessConfiguration,
         T extends SigningToken,
+        D,
         S extends Signature
         > {
 
     private static final Logger logger = LoggerFactory.getLogger(SignatureProcessTemplate.class);
-    private final SignatureAuthorizer signatureAuthorizer;
+    private final SignatureAuthorizer<D> signatureAuthorizer;
     private final WorkerRepository workerRepository;
     private final TokenProvider<TC, SC, T> tokenProvider;
-    private final Signer<SC, S> signer;
+    private final Signer<SC, D, S> signer;
 
-    public SignatureProcessTemplate(SignatureAuthorizer signatureAuthorizer,
+    public SignatureProcessTemplate(SignatureAuthorizer<D> signatureAuthorizer,
                                     WorkerRepository workerRepository, TokenProvider<TC, SC, T> tokenProvider,
-                                    Signer<SC, S> signer
+                                    Signer<SC, D, S> signer
     ) {
         this.signatureAuthorizer = signatureAuthorizer;
         this.workerRepository = workerRepository;
@@ -42,7 +47,7 @@ public class SignatureProcessTemplate<
         this.signer = signer;
     }
 
-    public Result<SignaturesContainer<S>, TextError> sign(SC configuration, TC tokenConfiguration, List<String> data) {
+    public Result<SignaturesContainer<S>, TextError> sign(SC configuration, TC tokenConfiguration, List<D> data) {
         var authorizationResult = signatureAuthorizer.authorize(data, configuration.sad());
         if (authorizationResult instanceof Error(var err))
             return Result.error(err.extend("Failed to authorize signature request."));
@@ -54,6 +59,10 @@ public class SignatureProcessTemplate<
                 return Result.error(err.extend("Failed to obtain suitable worker for the signature request."));
             WorkerWithCapabilities worker = getWorkerResult.unwrap();
 
+            if (Deadline.currentExpired()) {
+                return Result.error(TextError.of("Deadline of the signature request expired before the signing " +
+                                                         "token was obtained."));
+            }
             var getSigningTokenResult = tokenProvider.getSigningToken(configuration, tokenConfiguration, worker);
             if (getSigningTokenResult instanceof Error(var err))
                 return Result.error(err.extend("Failed to get signing token for the signature request."));
@@ -65,12 +74,17 @@ public class SignatureProcessTemplate<
 
             // Here we can assume that the signing token is valid and can be used for signing.
             // Therefore, we can clean up the signing token after the signing process independently of the result
+            // The cleanup is not cut short by the deadline of the request
             Result<SignaturesContainer<S>, TextError> result;
             try {
+                if (Deadline.currentExpired()) {
+                    return Result.error(TextError.of("Deadline of the signature request expired before the data " +
+                                                             "were signed."));
+                }
                 result = signer.sign(data, configuration, signingToken, worker)
                                .mapError(err -> err.extend("Error occurred during signing."));
             } finally {
-                tokenProvider.cleanup(signingToken);
+                Deadline.callWith(Optional.empty(), () -> tokenProvider.cleanup(signingToken));
             }
             return result;
         } else {
@@ -78,10 +92,30 @@ public class SignatureProcessTemplate<
         }
     }
 
+    /**
+     * Checks whether there is a worker able to process signature requests with the given configuration.
+     */
+    public boolean hasSuitableWorker(SC configuration) {
+        return workerRepository.selectWorker(getRequiredWorkerCapabilities(configuration)) != null;
+    }
+
     protected Result<WorkerWithCapabilities, TextError> getWorker(
             SignatureProcessConfiguration configuration
     ) {
-        var requiredWorkerCapabilities = CapabilitiesFilter
+        var requiredWorkerCapabilities = getRequiredWorkerCapabilities(configuration);
+        WorkerWithCapabilities worker = workerRepository.selectWorker(requiredWorkerCapabilities);
+        if (worker == null) {
+            logger.error("No worker found for the given capabilities: {}.", requiredWorkerCapabilities);
+            return Result.error(TextError.of("No worker with matching capabilities found."));
+        }
+        logger.debug("Selected worker: {}.", worker.worker().workerName());
+        return Result.success(worker);
+    }
+
+    private Criterion<WorkerCapabilities> getRequiredWorkerCapabilities(
+            SignatureProcessConfiguration configuration
+    ) {
+        return CapabilitiesFilter
                 .configure()
                 .withSignatureQualifier(configuration.signatureQualifier())
                 .withSignatureFormat(configuration.signatureFormat())
@@ -91,14 +125,6 @@ public class SignatureProcessTemplate<
                 .withReturnValidationInfo(configuration.returnValidationInfo())
                 .withDocumentType(configuration.documentType())
                 .build();
-
-        WorkerWithCapabilities worker = workerRepository.selectWorker(requiredWorkerCapabilities);
-        if (worker == null) {
-            logger.error("No worker found for the given capabilities: {}.", requiredWorkerCapabilities);
-            return Result.error(TextError.of("No worker with matching capabilities found."));
-        }
-        logger.debug("Selected worker: {}.", worker.worker().workerName());
-        return Result.success(worker);
     }
 
 }
@@ -1,35 +1,40 @@
 package com.czertainly.csc.signing.configuration.process.signers;
 
 import com.czertainly.csc.clients.signserver.SignserverClient;
+import com.czertainly.csc.common.io.SpooledData;
 import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.components.SpooledDataFactory;
 import com.czertainly.csc.model.DocumentSignature;
+import com.czertainly.csc.model.Signatures;
 import com.czertainly.csc.model.SignaturesContainer;
+import com.czertainly.csc.model.SignaturesWithValidationInfo;
 import com.czertainly.csc.signing.configuration.WorkerWithCapabilities;
 import com.czertainly.csc.signing.configuration.process.configuration.DocumentContentSignatureProcessConfiguration;
 import com.czertainly.csc.signing.configuration.process.token.SigningToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
 
-public class DocumentContentSigner<C extends DocumentContentSignatureProcessConfiguration> implements Signer<C, DocumentSignature> {
+public class DocumentContentSigner<C extends DocumentContentSignatureProcessConfiguration> implements Signer<C, SpooledData, DocumentSignature> {
 
     public static final Logger logger = LoggerFactory.getLogger(DocumentContentSigner.class);
-    private static final Base64.Decoder BASE64_DECODER = Base64.getDecoder();
 
     private final SignserverClient signserverClient;
+    private final SpooledDataFactory spooledDataFactory;
 
     public DocumentContentSigner(
-            SignserverClient signserverClient
+            SignserverClient signserverClient, SpooledDataFactory spooledDataFactory
     ) {
         this.signserverClient = signserverClient;
+        this.spooledDataFactory = spooledDataFactory;
     }
 
     @Override
     public Result<SignaturesContainer<DocumentSignature>, TextError> sign(
-            List<String> data, C configuration, SigningToken signingToken, WorkerWithCapabilities worker
+            List<SpooledData> data, C configuration, SigningToken signingToken, WorkerWithCapabilities worker
     ) {
         Result<SignaturesContainer<DocumentSignature>, TextError> result;
         if (data.size() == 1) {
@@ -46,28 +51,41 @@ public class DocumentContentSigner<C extends DocumentContentSignatureProcessConf
     }
 
     private Result<SignaturesContainer<DocumentSignature>, TextError> signSingleContent(
-            List<String> data, C configuration, SigningToken signingToken, WorkerWithCapabilities worker
+            List<SpooledData> data, C configuration, SigningToken signingToken, WorkerWithCapabilities worker
     ) {
-        return signserverClient.signSingleDocument(
+        // The signature is spooled the same way as the document, as it may envelope the whole document
+        SpooledData signature = spooledDataFactory.create();
+        var signResult = signserverClient.signSingleDocumentStreaming(
                 worker.worker().workerName(),
-                BASE64_DECODER.decode(data.getFirst()),
+                data.getFirst(),
                 signingToken.getKeyAlias(),
-                configuration.signaturePackaging()
+                signature
         );
+        return signResult.ifError(() -> SpooledDataFactory.release(List.of(signature)))
+                         .map(ignored -> Signatures.of(
+                                 new DocumentSignature(signature, configuration.signaturePackaging())));
     }
 
     private Result<SignaturesContainer<DocumentSignature>, TextError> signSingleContentWithValidationInfo(
-            List<String> data, C configuration, SigningToken signingToken, WorkerWithCapabilities worker
+            List<SpooledData> data, C configuration, SigningToken signingToken, WorkerWithCapabilities worker
     ) {
-        return signserverClient.signSingleDocumentWithValidationData(
+        SpooledData signature = spooledDataFactory.create();
+        var signResult = signserverClient.signSingleDocumentWithValidationDataStreaming(
                 worker.worker().workerName(),
-                BASE64_DECODER.decode(data.getFirst()),
+                data.getFirst(),
                 signingToken.getKeyAlias(),
-                configuration.signaturePackaging()
+                signature
         );
+        return signResult.ifError(() -> SpooledDataFactory.release(List.of(signature)))
+                         .map(validationData -> new SignaturesWithValidationInfo<>(
+                                 List.of(new DocumentSignature(signature, configuration.signaturePackaging())),
+                                 new HashSet<>(validationData.crl()),
+                                 new HashSet<>(validationData.ocsp()),
+                                 new HashSet<>(validationData.certificates())
+                         ));
     }
 
-    private Result<SignaturesContainer<DocumentSignature>, TextError> verifyNumberOfSignatures(List<String> data,
+    private Result<SignaturesContainer<DocumentSignature>, TextError> verifyNumberOfSignatures(List<SpooledData> data,
                                                                                                SignaturesContainer<DocumentSignature> signed
     ) {
         if (signed.signatures().size() != data.size()) {
@@ -7,13 +7,15 @@ import com.czertainly.csc.model.DocumentSignature;
 import com.czertainly.csc.model.SignaturesContainer;
 import com.czertainly.csc.signing.configuration.WorkerWithCapabilities;
 import com.czertainly.csc.signing.configuration.process.configuration.DocumentHashSignatureProcessConfiguration;
+import com.czertainly.csc.signing.configuration.process.token.LongTermToken;
+import com.czertainly.csc.signing.configuration.process.token.SessionToken;
 import com.czertainly.csc.signing.configuration.process.token.SigningToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
-public class DocumentHashSigner<C extends DocumentHashSignatureProcessConfiguration> implements Signer<C, DocumentSignature> {
+public class DocumentHashSigner<C extends DocumentHashSignatureProcessConfiguration> implements Signer<C, String, DocumentSignature> {
 
     public static final Logger logger = LoggerFactory.getLogger(DocumentHashSigner.class);
 
@@ -61,6 +63,15 @@ public class DocumentHashSigner<C extends DocumentHashSignatureProcessConfigurat
     private Result<SignaturesContainer<DocumentSignature>, TextError> signSingleHash(
             List<String> data, C configuration, SigningToken signingToken, WorkerWithCapabilities worker
     ) {
+        // A key that can be used repeatedly may sign the hash twice, so a slow signing can be hedged
+        if (signingToken instanceof LongTermToken || signingToken instanceof SessionToken) {
+            return signserverClient.signSingleDocumentHashHedged(
+                    worker.worker().workerName(),
+                    data.getFirst().getBytes(),
+                    signingToken.getKeyAlias(),
+                    configuration.digestAlgorithm()
+            );
+        }
         return signserverClient.signSingleDocumentHash(
                 worker.worker().workerName(),
                 data.getFirst().getBytes(),
@@ -95,6 +106,19 @@ public class DocumentHashSigner<C extends DocumentHashSignatureProcessConfigurat
     private Result<SignaturesContainer<DocumentSignature>, TextError> signMultipleHashes(
             List<String> data, C configuration, SigningToken signingToken, WorkerWithCapabilities worker
     ) {
+        // A key that can be used repeatedly may sign each hash in a separate call, so the hashes can be signed
+        // by several SignServer nodes at once when the calls don't block a thread each
+        if (signserverClient.isAsyncSigningNonBlocking()
+                && (signingToken instanceof LongTermToken || signingToken instanceof SessionToken)) {
+            return SignatureFutures.signAll(data, signserverClient.getMaxAsyncCallsPerRequest(),
+                                            hash -> signserverClient.signSingleDocumentHashAsync(
+                                                    worker.worker().workerName(),
+                                                    hash.getBytes(),
+                                                    signingToken.getKeyAlias(),
+                                                    configuration.digestAlgorithm()
+                                            )
+            );
+        }
         return signserverClient.signMultipleDocumentHashes(
                 worker.worker().workerName(),
                 data,
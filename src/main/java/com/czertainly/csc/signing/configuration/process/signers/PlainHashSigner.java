@@ -7,13 +7,15 @@ import com.czertainly.csc.model.PlainSignature;
 import com.czertainly.csc.model.SignaturesContainer;
 import com.czertainly.csc.signing.configuration.WorkerWithCapabilities;
 import com.czertainly.csc.signing.configuration.process.configuration.PlainHashSignatureProcessConfiguration;
+import com.czertainly.csc.signing.configuration.process.token.LongTermToken;
+import com.czertainly.csc.signing.configuration.process.token.SessionToken;
 import com.czertainly.csc.signing.configuration.process.token.SigningToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
-public class PlainHashSigner<C extends PlainHashSignatureProcessConfiguration> implements Signer<C, PlainSignature> {
+public class PlainHashSigner<C extends PlainHashSignatureProcessConfiguration> implements Signer<C, String, PlainSignature> {
 
     public static final Logger logger = LoggerFactory.getLogger(PlainHashSigner.class);
 
@@ -53,6 +55,16 @@ public class PlainHashSigner<C extends PlainHashSignatureProcessConfiguration> i
     private Result<SignaturesContainer<PlainSignature>, TextError> signSingleHash(
             List<String> data, C configuration, SigningToken signingToken, WorkerWithCapabilities worker
     ) {
+        // A key that can be used repeatedly may sign the hash twice, so a slow signing can be hedged
+        if (signingToken instanceof LongTermToken || signingToken instanceof SessionToken) {
+            return signserverClient.signPlainSingleHashHedged(
+                    worker.worker().workerName(),
+                    data.getFirst().getBytes(),
+                    signingToken.getKeyAlias(),
+                    configuration.encryptionAlgorithm(),
+                    configuration.digestAlgorithm()
+            );
+        }
         return signserverClient.signPlainSingleHash(
                 worker.worker().workerName(),
                 data.getFirst().getBytes(),
@@ -65,6 +77,20 @@ public class PlainHashSigner<C extends PlainHashSignatureProcessConfiguration> i
     private Result<SignaturesContainer<PlainSignature>, TextError> signMultipleHashes(
             List<String> data, C configuration, SigningToken signingToken, WorkerWithCapabilities worker
     ) {
+        // A key that can be used repeatedly may sign each hash in a separate call, so the hashes can be signed
+        // by several SignServer nodes at once when the calls don't block a thread each
+        if (signserverClient.isAsyncSigningNonBlocking()
+                && (signingToken instanceof LongTermToken || signingToken instanceof SessionToken)) {
+            return SignatureFutures.signAll(data, signserverClient.getMaxAsyncCallsPerRequest(),
+                                            hash -> signserverClient.signPlainSingleHashAsync(
+                                                    worker.worker().workerName(),
+                                                    hash.getBytes(),
+                                                    signingToken.getKeyAlias(),
+                                                    configuration.encryptionAlgorithm(),
+                                                    configuration.digestAlgorithm()
+                                            )
+            );
+        }
         return signserverClient.signPlainMultipleHashes(
                 worker.worker().workerName(),
                 data,
@@ -0,0 +1,86 @@
+package com.czertainly.csc.signing.configuration.process.signers;
+
+import com.czertainly.csc.common.result.Error;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.model.Signature;
+import com.czertainly.csc.model.Signatures;
+import com.czertainly.csc.model.SignaturesContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Sends the hashes to SignServer each in a separate call and collects their signatures, in the order of the hashes.
+ */
+final class SignatureFutures {
+
+    private SignatureFutures() {
+    }
+
+    /**
+     * Signs the hashes with at most {@code maxInFlight} calls in progress at once, so that a single request
+     * can't take the whole capacity of the scheduler. The calls are started from the calling thread, which holds
+     * the priority and the deadline of the request and may wait for the scheduler, the next hash is sent as soon
+     * as one of the calls completes. Waits for all the started calls, so that none of them is left running after
+     * the signing, and returns their signatures, or the first error if any of the calls failed. No more hashes
+     * are sent after an error.
+     */
+    static <S extends Signature> Result<SignaturesContainer<S>, TextError> signAll(
+            List<String> hashes, int maxInFlight,
+            Function<String, CompletableFuture<Result<SignaturesContainer<S>, TextError>>> call
+    ) {
+        Semaphore inFlightSlots = new Semaphore(Math.max(1, maxInFlight));
+        AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<Result<SignaturesContainer<S>, TextError>>> futures = new ArrayList<>(hashes.size());
+        TextError interrupted = null;
+
+        for (String hash : hashes) {
+            try {
+                inFlightSlots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = TextError.of("Signing of the hashes was interrupted.");
+                break;
+            }
+            if (failed.get()) {
+                inFlightSlots.release();
+                break;
+            }
+
+            CompletableFuture<Result<SignaturesContainer<S>, TextError>> future;
+            try {
+                future = call.apply(hash);
+            } catch (RuntimeException e) {
+                inFlightSlots.release();
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+                throw e;
+            }
+            future.whenComplete((result, throwable) -> {
+                if (throwable != null || result instanceof Error) {
+                    failed.set(true);
+                }
+                inFlightSlots.release();
+            });
+            futures.add(future);
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        List<S> signatures = new ArrayList<>(hashes.size());
+        for (CompletableFuture<Result<SignaturesContainer<S>, TextError>> future : futures) {
+            Result<SignaturesContainer<S>, TextError> result = future.join();
+            if (result instanceof Error(var err)) {
+                return Result.error(err);
+            }
+            signatures.addAll(result.unwrap().signatures());
+        }
+        if (interrupted != null) {
+            return Result.error(interrupted);
+        }
+        return Result.success(Signatures.of(signatures));
+    }
+}
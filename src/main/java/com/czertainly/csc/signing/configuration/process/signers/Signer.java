@@ -10,10 +10,15 @@ import com.czertainly.csc.signing.configuration.process.token.SigningToken;
 
 import java.util.List;
 
-public interface Signer<C extends SignatureProcessConfiguration, S extends Signature> {
+/**
+ * @param <C> the type of the signature process configuration
+ * @param <D> the type of the data to sign
+ * @param <S> the type of the signatures
+ */
+public interface Signer<C extends SignatureProcessConfiguration, D, S extends Signature> {
 
     Result<SignaturesContainer<S>, TextError> sign(
-            List<String> data, C configuration, SigningToken signingToken, WorkerWithCapabilities worker
+            List<D> data, C configuration, SigningToken signingToken, WorkerWithCapabilities worker
     );
 
 }
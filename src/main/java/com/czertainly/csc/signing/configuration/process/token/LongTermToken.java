@@ -16,7 +16,7 @@ public record LongTermToken(CredentialMetadata credentialMetadata) implements Si
     }
 
     @Override
-    public Boolean canSignData(List<String> data, int numberOfDocumentsAuthorizedBySad) {
+    public Boolean canSignData(List<?> data, int numberOfDocumentsAuthorizedBySad) {
         if (credentialMetadata.multisign() < data.size()) {
             logger.warn(
                     "LongTermToken '{}' cannot sign requested '{}' documents, because it is configured to sign only '{}' documents at once.",
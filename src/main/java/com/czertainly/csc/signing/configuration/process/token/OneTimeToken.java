@@ -16,7 +16,7 @@ public record OneTimeToken(OneTimeKey key, int multisign) implements SigningToke
     }
 
     @Override
-    public Boolean canSignData(List<String> data, int numberOfDocumentsAuthorizedBySad) {
+    public Boolean canSignData(List<?> data, int numberOfDocumentsAuthorizedBySad) {
         boolean canSignEnoughDocuments = multisign >= data.size();
         if (!canSignEnoughDocuments) {
             logger.warn(
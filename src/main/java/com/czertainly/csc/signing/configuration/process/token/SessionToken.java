@@ -20,7 +20,7 @@ public record SessionToken(SessionCredentialMetadata credentialMetadata,
     }
 
     @Override
-    public Boolean canSignData(List<String> data, int numberOfDocumentsAuthorizedBySad) {
+    public Boolean canSignData(List<?> data, int numberOfDocumentsAuthorizedBySad) {
         if (session.status() != CredentialSessionStatus.ACTIVE) {
             logger.warn(
                     "Session Token '{}' belonging to session credential '{}' cannot be used to sign documents as the session is not active. The session status is '{}'.",
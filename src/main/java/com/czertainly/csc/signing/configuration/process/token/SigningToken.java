@@ -6,6 +6,6 @@ public interface SigningToken {
 
     String getKeyAlias();
 
-    Boolean canSignData(List<String> data, int numberOfDocumentsAuthorizedBySad);
+    Boolean canSignData(List<?> data, int numberOfDocumentsAuthorizedBySad);
 
 }
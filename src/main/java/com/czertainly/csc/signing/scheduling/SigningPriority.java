@@ -0,0 +1,15 @@
+package com.czertainly.csc.signing.scheduling;
+
+/**
+ * Priority of the signing requests sent to SignServer.
+ */
+public enum SigningPriority {
+    /**
+     * Requests of users waiting for the result, served with guaranteed capacity.
+     */
+    INTERACTIVE,
+    /**
+     * Batch processing, served with the capacity not used by interactive requests.
+     */
+    BULK
+}
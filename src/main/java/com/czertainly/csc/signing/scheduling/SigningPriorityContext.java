@@ -0,0 +1,40 @@
+package com.czertainly.csc.signing.scheduling;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the priority of the signing performed by the current thread, so it doesn't have to be passed through
+ * the whole signing process to the SignServer client.
+ */
+public final class SigningPriorityContext {
+
+    private static final ThreadLocal<SigningPriority> currentPriority = new ThreadLocal<>();
+
+    private SigningPriorityContext() {
+    }
+
+    /**
+     * @return the priority of the current signing, {@link SigningPriority#INTERACTIVE} if none was set
+     */
+    public static SigningPriority current() {
+        SigningPriority priority = currentPriority.get();
+        return priority == null ? SigningPriority.INTERACTIVE : priority;
+    }
+
+    /**
+     * Runs the call with the given priority of the signing.
+     */
+    public static <T> T callWithPriority(SigningPriority priority, Supplier<T> call) {
+        SigningPriority previous = currentPriority.get();
+        currentPriority.set(priority);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                currentPriority.remove();
+            } else {
+                currentPriority.set(previous);
+            }
+        }
+    }
+}
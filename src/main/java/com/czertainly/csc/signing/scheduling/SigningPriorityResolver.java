@@ -0,0 +1,43 @@
+package com.czertainly.csc.signing.scheduling;
+
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides the priority of signing requests. The endpoint determines the default priority, which can be lowered
+ * to {@link SigningPriority#BULK} by the client using the {@value PRIORITY_HEADER} header, or by the bulk scope
+ * of the access token, if configured. The priority can't be raised by the client.
+ */
+@Component
+public class SigningPriorityResolver {
+
+    public static final String PRIORITY_HEADER = "X-Signing-Priority";
+
+    private final String bulkAuthority;
+
+    public SigningPriorityResolver(CscConfiguration cscConfiguration) {
+        String bulkScope = cscConfiguration.signing().scheduling().bulkScope();
+        this.bulkAuthority = bulkScope == null ? null : "SCOPE_" + bulkScope;
+    }
+
+    public SigningPriority resolve(SigningPriority endpointPriority, Authentication authentication,
+                                   String priorityHeader
+    ) {
+        if (endpointPriority == SigningPriority.BULK) {
+            return SigningPriority.BULK;
+        }
+        if (SigningPriority.BULK.name().equalsIgnoreCase(priorityHeader)) {
+            return SigningPriority.BULK;
+        }
+        if (bulkAuthority != null && authentication != null && authentication
+                .getAuthorities()
+                .stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(bulkAuthority::equals)) {
+            return SigningPriority.BULK;
+        }
+        return endpointPriority;
+    }
+}
@@ -0,0 +1,145 @@
+package com.czertainly.csc.signing.scheduling;
+
+import com.czertainly.csc.common.concurrency.WeightedFairScheduler;
+import com.czertainly.csc.common.deadline.Deadline;
+import com.czertainly.csc.common.result.Error;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.configuration.csc.SchedulingSettings;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Schedules the signing calls to SignServer according to the priority of the signing, see
+ * {@link SigningPriorityContext}. Interactive signing has part of the capacity reserved, and bulk signing uses
+ * the capacity left by it.
+ */
+@Component
+public class SignserverCallScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignserverCallScheduler.class);
+
+    private final WeightedFairScheduler<SigningPriority> scheduler;
+    private final Duration queueTimeout;
+    private final int maxCallsPerRequest;
+
+    public SignserverCallScheduler(CscConfiguration cscConfiguration, MeterRegistry meterRegistry) {
+        SchedulingSettings settings = cscConfiguration.signing().scheduling();
+        this.scheduler = new WeightedFairScheduler<>(
+                SigningPriority.class,
+                settings.capacity(),
+                Map.of(SigningPriority.INTERACTIVE, settings.interactiveWeight(),
+                       SigningPriority.BULK, settings.bulkWeight()
+                ),
+                Map.of(SigningPriority.INTERACTIVE, settings.interactiveReserved())
+        );
+        this.queueTimeout = settings.queueTimeout();
+        this.maxCallsPerRequest = settings.maxCallsPerRequest();
+
+        for (SigningPriority priority : SigningPriority.values()) {
+            String tag = priority.name().toLowerCase();
+            Gauge.builder("csc.signserver.scheduler.in.flight", scheduler, s -> s.inFlight(priority))
+                 .description("Signing calls to SignServer in progress")
+                 .tag("priority", tag)
+                 .register(meterRegistry);
+            Gauge.builder("csc.signserver.scheduler.queued", scheduler, s -> s.queued(priority))
+                 .description("Signing calls to SignServer waiting to be sent")
+                 .tag("priority", tag)
+                 .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Performs the call once the scheduler admits it.
+     *
+     * @return result of the call, or error if the call could not be admitted in time
+     */
+    public <T> Result<T, TextError> schedule(Supplier<Result<T, TextError>> call) {
+        Result<WeightedFairScheduler<SigningPriority>.Permit, TextError> permit = acquire();
+        if (permit instanceof Error(var err)) {
+            return Result.error(err);
+        }
+
+        try (var ignored = permit.unwrap()) {
+            return call.get();
+        }
+    }
+
+    /**
+     * Starts the asynchronous call once the scheduler admits it. The caller waits only until the call is
+     * admitted, the call then counts against the capacity until the returned future completes.
+     *
+     * @return future completed with the result of the call, or with error if the call could not be admitted
+     * in time
+     */
+    public <T> CompletableFuture<Result<T, TextError>> scheduleAsync(
+            Supplier<CompletableFuture<Result<T, TextError>>> call
+    ) {
+        Result<WeightedFairScheduler<SigningPriority>.Permit, TextError> permit = acquire();
+        if (permit instanceof Error(var err)) {
+            return CompletableFuture.completedFuture(Result.error(err));
+        }
+
+        try {
+            return call.get().whenComplete((result, throwable) -> permit.unwrap().close());
+        } catch (RuntimeException e) {
+            permit.unwrap().close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maximum number of calls a single request may have in progress at once, so that a request signing many
+     * hashes leaves capacity for the other requests.
+     */
+    public int getMaxCallsPerRequest() {
+        return maxCallsPerRequest;
+    }
+
+    private Result<WeightedFairScheduler<SigningPriority>.Permit, TextError> acquire() {
+        SigningPriority priority = SigningPriorityContext.current();
+        // The request doesn't wait longer than the time left until its deadline
+        Duration timeout = Deadline.current()
+                                   .map(Deadline::remaining)
+                                   .filter(remaining -> remaining.compareTo(queueTimeout) < 0)
+                                   .orElse(queueTimeout);
+        if (Deadline.currentExpired()) {
+            return Result.error(deadlineExpired(priority));
+        }
+        Optional<WeightedFairScheduler<SigningPriority>.Permit> permit;
+        try {
+            permit = scheduler.tryAcquire(priority, timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.error(TextError.of("Interrupted while waiting to send the signing request to SignServer."));
+        }
+        if (permit.isEmpty()) {
+            // The wait was cut short by the deadline of the request, SignServer may not be busy at all
+            if (Deadline.currentExpired()) {
+                return Result.error(deadlineExpired(priority));
+            }
+            logger.warn("Signing request with {} priority could not be sent to SignServer in {}.", priority,
+                        timeout
+            );
+            return Result.error(TextError.of("SignServer is busy, the signing request could not be sent in time."));
+        }
+        return Result.success(permit.get());
+    }
+
+    private static TextError deadlineExpired(SigningPriority priority) {
+        logger.warn("Deadline of the signing request with {} priority expired before it was sent to SignServer.",
+                    priority
+        );
+        return TextError.of("Deadline of the signing request expired before it was sent to SignServer.");
+    }
+}
@@ -1,6 +1,7 @@
 package com.czertainly.csc.signing.signatureauthorizers;
 
 import com.czertainly.csc.api.auth.SignatureActivationData;
+import com.czertainly.csc.common.io.SpooledData;
 import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.crypto.AlgorithmHelper;
@@ -8,6 +9,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
@@ -15,14 +19,14 @@ import java.util.List;
 import java.util.NoSuchElementException;
 
 @Component
-public class DocumentAuthorizer implements SignatureAuthorizer {
+public class DocumentAuthorizer implements SignatureAuthorizer<SpooledData> {
 
     private static final Logger logger = LoggerFactory.getLogger(DocumentAuthorizer.class);
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
 
     private final AlgorithmHelper algorithmHelper;
     private final HashAuthorizer hashAuthorizer;
     private final Base64.Encoder base64Encoder = Base64.getEncoder();
-    private final Base64.Decoder base64Decoder = Base64.getDecoder();
 
     public DocumentAuthorizer(AlgorithmHelper algorithmHelper, HashAuthorizer hashAuthorizer) {
         this.algorithmHelper = algorithmHelper;
@@ -30,18 +34,40 @@ public class DocumentAuthorizer implements SignatureAuthorizer {
     }
 
     @Override
-    public Result<Boolean, TextError> authorize(List<String> documents, SignatureActivationData sad) {
+    public Result<Boolean, TextError> authorize(List<SpooledData> documents, SignatureActivationData sad) {
+        return digestDocuments(documents, sad)
+                .flatMap(documentHashes -> hashAuthorizer.authorize(documentHashes, sad));
+    }
+
+    /**
+     * Computes the digests of the documents using the hash algorithm of the signature activation data, the same
+     * way as they are computed for the authorization.
+     *
+     * @param documents the documents
+     * @param sad       the signature activation data
+     * @return base64 encoded digests of the documents in the same order as the documents
+     */
+    public Result<List<String>, TextError> digestDocuments(List<SpooledData> documents, SignatureActivationData sad) {
         try {
             String digestAlgorithmOID = sad.getHashAlgorithmOID().orElseThrow();
             return createMessageDigest(digestAlgorithmOID)
-                    .flatMap(messageDigest -> hashDocuments(documents, messageDigest))
-                    .flatMap(documentHashes -> hashAuthorizer.authorize(documentHashes, sad));
+                    .flatMap(messageDigest -> hashDocuments(documents, messageDigest));
         } catch (NoSuchElementException e) {
             logger.error("No hash algorithm OID provided in the signature activation data.");
             return Result.error(TextError.of("No hash algorithm OID provided in the signature activation data."));
         }
     }
 
+    /**
+     * Returns the name of the digest algorithm the documents are hashed with, or {@code null} if the signature
+     * activation data contain no known hash algorithm.
+     */
+    public String getDigestAlgorithmName(SignatureActivationData sad) {
+        return sad.getHashAlgorithmOID()
+                  .map(algorithmHelper::getDigestAlgorithmName)
+                  .orElse(null);
+    }
+
     private Result<MessageDigest, TextError> createMessageDigest(String digestAlgorithmOID) {
         String digestAlgorithmName = algorithmHelper.getDigestAlgorithmName(digestAlgorithmOID);
         logger.trace("Digest algorithm name for OID '{}' is '{}'", digestAlgorithmOID, digestAlgorithmName);
@@ -57,11 +83,11 @@ public class DocumentAuthorizer implements SignatureAuthorizer {
         }
     }
 
-    private Result<List<String>, TextError> hashDocuments(List<String> documents, MessageDigest messageDigest) {
+    private Result<List<String>, TextError> hashDocuments(List<SpooledData> documents, MessageDigest messageDigest) {
         try {
             List<String> documentHashes = documents
                     .stream()
-                    .map(document -> messageDigest.digest(base64Decoder.decode(document)))
+                    .map(document -> digest(document, messageDigest))
                     .map(base64Encoder::encodeToString)
                     .toList();
             return Result.success(documentHashes);
@@ -70,4 +96,21 @@ public class DocumentAuthorizer implements SignatureAuthorizer {
             return Result.error(TextError.of("Failed to compute a document hash."));
         }
     }
+
+    /*
+     * Reads the document as a stream while hashing it, so documents spooled to temporary files are never held
+     * in memory as a whole.
+     */
+    private byte[] digest(SpooledData document, MessageDigest messageDigest) {
+        byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+        try (InputStream inputStream = document.getInputStream()) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return messageDigest.digest();
+    }
 }
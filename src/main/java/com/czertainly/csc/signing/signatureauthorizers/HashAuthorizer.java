@@ -11,7 +11,7 @@ import java.util.List;
 import java.util.Set;
 
 @Component
-public class HashAuthorizer implements SignatureAuthorizer {
+public class HashAuthorizer implements SignatureAuthorizer<String> {
 
     private static final Logger logger = LoggerFactory.getLogger(HashAuthorizer.class);
 
@@ -6,9 +6,12 @@ import com.czertainly.csc.common.result.TextError;
 
 import java.util.List;
 
-public interface SignatureAuthorizer {
+/**
+ * @param <D> the type of the data to sign
+ */
+public interface SignatureAuthorizer<D> {
 
-    Result<Boolean, TextError> authorize(List<String> documents, SignatureActivationData sad);
+    Result<Boolean, TextError> authorize(List<D> documents, SignatureActivationData sad);
 
 
 }
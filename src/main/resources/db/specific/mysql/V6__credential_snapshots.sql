@@ -0,0 +1,14 @@
+ALTER TABLE credentials
+    ADD COLUMN key_algorithm text NULL;
+
+ALTER TABLE credentials
+    ADD COLUMN key_specification text NULL;
+
+ALTER TABLE credentials
+    ADD COLUMN certificate_chain mediumtext NULL;
+
+ALTER TABLE credentials
+    ADD COLUMN certificate_valid_from datetime(6) NULL;
+
+ALTER TABLE credentials
+    ADD COLUMN certificate_valid_to datetime(6) NULL;
@@ -0,0 +1,2 @@
+-- user_id is a text column, MySQL can index only its prefix
+CREATE INDEX credentials_user_id_idx ON credentials (user_id(255), id);
@@ -0,0 +1,12 @@
+-- Cache invalidation events polled by all nodes
+CREATE TABLE cache_events
+(
+    id         BIGINT      NOT NULL AUTO_INCREMENT,
+    node_id    VARCHAR(36) NOT NULL,
+    cache_name VARCHAR(64) NOT NULL,
+    cache_key  TEXT        NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX cache_events_created_at_idx ON cache_events (created_at);
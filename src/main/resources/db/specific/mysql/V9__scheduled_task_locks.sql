@@ -0,0 +1,9 @@
+-- Locks of the tasks scheduled on every node that must run on one node at a time
+CREATE TABLE scheduled_task_locks
+(
+    name         VARCHAR(64)  NOT NULL,
+    locked_until DATETIME(6)  NOT NULL,
+    locked_at    DATETIME(6)  NOT NULL,
+    locked_by    VARCHAR(36)  NOT NULL,
+    PRIMARY KEY (name)
+);
@@ -0,0 +1,14 @@
+ALTER TABLE credentials
+    ADD COLUMN key_algorithm text NULL;
+
+ALTER TABLE credentials
+    ADD COLUMN key_specification text NULL;
+
+ALTER TABLE credentials
+    ADD COLUMN certificate_chain text NULL;
+
+ALTER TABLE credentials
+    ADD COLUMN certificate_valid_from timestamp with time zone NULL;
+
+ALTER TABLE credentials
+    ADD COLUMN certificate_valid_to timestamp with time zone NULL;
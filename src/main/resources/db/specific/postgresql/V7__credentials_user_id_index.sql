@@ -0,0 +1 @@
+CREATE INDEX credentials_user_id_idx ON credentials (user_id, id);
@@ -0,0 +1,27 @@
+-- Cache invalidation events polled by all nodes
+CREATE TABLE cache_events
+(
+    id         bigserial primary key,
+    node_id    text                     not null,
+    cache_name text                     not null,
+    cache_key  text                     not null,
+    created_at timestamp with time zone not null
+);
+
+CREATE INDEX cache_events_created_at_idx ON cache_events (created_at);
+
+-- Announces new events to the listening nodes when the transaction inserting them commits, so they don't have
+-- to wait for the next poll. Notifications of the same transaction are delivered once.
+CREATE FUNCTION cache_events_notify() RETURNS trigger AS
+$$
+BEGIN
+    PERFORM pg_notify('csc_cache_invalidation', '');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER cache_events_notify_trigger
+    AFTER INSERT
+    ON cache_events
+    FOR EACH STATEMENT
+EXECUTE FUNCTION cache_events_notify();
@@ -0,0 +1,8 @@
+-- Locks of the tasks scheduled on every node that must run on one node at a time
+CREATE TABLE scheduled_task_locks
+(
+    name         text primary key,
+    locked_until timestamp with time zone not null,
+    locked_at    timestamp with time zone not null,
+    locked_by    text                     not null
+);
@@ -0,0 +1,119 @@
+package com.czertainly.csc.api.mappers.credentials;
+
+import com.czertainly.csc.api.credentials.ListCredentialsRequestDto;
+import com.czertainly.csc.common.exceptions.InvalidInputDataException;
+import com.czertainly.csc.components.PageTokenCodec;
+import com.czertainly.csc.configuration.csc.CredentialsSettings;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.model.csc.requests.ListCredentialsRequest;
+import org.instancio.Instancio;
+import org.instancio.Select;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CredentialsListRequestMapperTest {
+
+    CscConfiguration cscConfiguration = Instancio.of(CscConfiguration.class)
+                                                 .set(Select.field(CscConfiguration::credentials),
+                                                      new CredentialsSettings(null, null, null, null, 100, "secret")
+                                                 )
+                                                 .create();
+    PageTokenCodec pageTokenCodec = new PageTokenCodec(cscConfiguration);
+    CredentialsListRequestMapper mapper = new CredentialsListRequestMapper(pageTokenCodec, cscConfiguration);
+
+    @Test
+    void canMapPagingParameters() {
+        // given
+        UUID lastCredentialId = UUID.randomUUID();
+        ListCredentialsRequestDto dto = aDto(10, pageTokenCodec.encode("user", false, lastCredentialId));
+
+        // when
+        ListCredentialsRequest request = mapper.map(dto, null);
+
+        // then
+        assertEquals(10, request.maxResults());
+        assertEquals(lastCredentialId, request.pageAfter());
+    }
+
+    @Test
+    void pagingParametersAreOptional() {
+        // given
+        ListCredentialsRequestDto dto = aDto(null, null);
+
+        // when
+        ListCredentialsRequest request = mapper.map(dto, null);
+
+        // then
+        // the configured maximum is used, so not all credentials of the user are loaded at once
+        assertEquals(100, request.maxResults());
+        assertNull(request.pageAfter());
+    }
+
+    @Test
+    void throwsWhenMaxResultsIsNotPositive() {
+        // given
+        ListCredentialsRequestDto dto = aDto(0, null);
+
+        // when
+        Executable ex = () -> mapper.map(dto, null);
+
+        // then
+        assertThrows(InvalidInputDataException.class, ex, "Invalid parameter maxResults.");
+    }
+
+    @Test
+    void maxResultsAreLimitedToTheConfiguredMaximum() {
+        // given
+        ListCredentialsRequestDto dto = aDto(Integer.MAX_VALUE, null);
+
+        // when
+        ListCredentialsRequest request = mapper.map(dto, null);
+
+        // then
+        assertEquals(100, request.maxResults());
+    }
+
+    @Test
+    void throwsWhenPageTokenIsInvalid() {
+        // given
+        ListCredentialsRequestDto dto = aDto(10, "not-a-page-token");
+
+        // when
+        Executable ex = () -> mapper.map(dto, null);
+
+        // then
+        assertThrows(InvalidInputDataException.class, ex, "Invalid parameter pageToken.");
+    }
+
+    @Test
+    void throwsWhenPageTokenWasIssuedForAnotherUser() {
+        // given
+        ListCredentialsRequestDto dto = aDto(10, pageTokenCodec.encode("other-user", false, UUID.randomUUID()));
+
+        // when
+        Executable ex = () -> mapper.map(dto, null);
+
+        // then
+        assertThrows(InvalidInputDataException.class, ex, "Invalid parameter pageToken.");
+    }
+
+    @Test
+    void throwsWhenPageTokenWasIssuedForAnotherOnlyValidFilter() {
+        // given
+        ListCredentialsRequestDto dto = aDto(10, pageTokenCodec.encode("user", true, UUID.randomUUID()));
+
+        // when
+        Executable ex = () -> mapper.map(dto, null);
+
+        // then
+        assertThrows(InvalidInputDataException.class, ex, "Invalid parameter pageToken.");
+    }
+
+    private ListCredentialsRequestDto aDto(Integer maxResults, String pageToken) {
+        return new ListCredentialsRequestDto("user", true, null, null, null, null, null, maxResults, pageToken);
+    }
+}
@@ -0,0 +1,245 @@
+package com.czertainly.csc.api.mappers.signatures;
+
+import com.czertainly.csc.common.io.SpooledData;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.model.DocumentSignature;
+import com.czertainly.csc.model.Signatures;
+import com.czertainly.csc.model.SignaturesWithValidationInfo;
+import com.czertainly.csc.signing.configuration.SignaturePackaging;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccess;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignDocNdjsonResponseWriterTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    Base64.Encoder encoder = Base64.getEncoder();
+
+    @Test
+    void writesLinePerDocumentFollowedBySummary() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        try (SignDocNdjsonResponseWriter writer = new SignDocNdjsonResponseWriter(objectMapper, outputStream)) {
+            assertSuccess(writer.accept(Signatures.of(List.of(
+                    new DocumentSignature("first".getBytes(), SignaturePackaging.ENVELOPED),
+                    new DocumentSignature("second".getBytes(), SignaturePackaging.DETACHED)
+            ))));
+            assertSuccess(writer.finish());
+        }
+
+        // then
+        List<JsonNode> lines = readLines(outputStream);
+        assertEquals(3, lines.size());
+        assertEquals(0, lines.get(0).get("index").asInt());
+        assertEquals(encoder.encodeToString("first".getBytes()), lines.get(0).get("signature").asText());
+        assertEquals(1, lines.get(1).get("index").asInt());
+        assertEquals(encoder.encodeToString("second".getBytes()), lines.get(1).get("signature").asText());
+        assertEquals(2, lines.get(2).get("summary").get("signed").asInt());
+        assertEquals(0, lines.get(2).get("summary").get("failed").asInt());
+        assertNull(lines.get(2).get("summary").get("error"));
+    }
+
+    @Test
+    void documentLineIsWrittenBeforeResponseIsFinished() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (SignDocNdjsonResponseWriter writer = new SignDocNdjsonResponseWriter(objectMapper, outputStream)) {
+            // when
+            assertSuccess(writer.accept(Signatures.of(
+                    new DocumentSignature("first".getBytes(), SignaturePackaging.ENVELOPED))));
+
+            // then
+            List<JsonNode> lines = readLines(outputStream);
+            assertEquals(1, lines.size());
+            assertEquals(0, lines.getFirst().get("index").asInt());
+        }
+    }
+
+    @Test
+    void failedDocumentsAreWrittenAndSigningContinues() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        try (SignDocNdjsonResponseWriter writer = new SignDocNdjsonResponseWriter(objectMapper, outputStream)) {
+            assertSuccess(writer.accept(Signatures.of(
+                    new DocumentSignature("first".getBytes(), SignaturePackaging.ENVELOPED))));
+            assertSuccess(writer.signingFailed(2, TextError.of("Signing failed.")));
+            assertSuccess(writer.accept(Signatures.of(
+                    new DocumentSignature("fourth".getBytes(), SignaturePackaging.ENVELOPED))));
+            assertSuccess(writer.finish());
+        }
+
+        // then
+        List<JsonNode> lines = readLines(outputStream);
+        assertEquals(5, lines.size());
+        assertNotNull(lines.get(0).get("signature"));
+        assertEquals(1, lines.get(1).get("index").asInt());
+        assertEquals("signing_failed", lines.get(1).get("error").asText());
+        assertNull(lines.get(1).get("signature"));
+        assertEquals(2, lines.get(2).get("index").asInt());
+        assertEquals("signing_failed", lines.get(2).get("error").asText());
+        assertEquals(3, lines.get(3).get("index").asInt());
+        assertNotNull(lines.get(3).get("signature"));
+        assertEquals(2, lines.get(4).get("summary").get("signed").asInt());
+        assertEquals(2, lines.get(4).get("summary").get("failed").asInt());
+    }
+
+    @Test
+    void summaryContainsValidationInfoOfAllSignatures() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        try (SignDocNdjsonResponseWriter writer = new SignDocNdjsonResponseWriter(objectMapper, outputStream)) {
+            assertSuccess(writer.accept(aSignedDocument(Set.of("crl1"), Set.of("ocsp1"), Set.of("cert1"))));
+            assertSuccess(writer.accept(aSignedDocument(Set.of("crl2"), Set.of(), Set.of("cert1"))));
+            assertSuccess(writer.finish());
+        }
+
+        // then
+        JsonNode validationInfo = readLines(outputStream).getLast().get("summary").get("validationInfo");
+        assertNotNull(validationInfo);
+        assertEquals(2, validationInfo.get("crl").size());
+        assertEquals(1, validationInfo.get("ocsp").size());
+        assertEquals(1, validationInfo.get("certificates").size());
+    }
+
+    @Test
+    void summaryContainsErrorThatStoppedSigning() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        try (SignDocNdjsonResponseWriter writer = new SignDocNdjsonResponseWriter(objectMapper, outputStream)) {
+            assertSuccess(writer.finish("internal_server_error", "Failed to sign the documents."));
+        }
+
+        // then
+        List<JsonNode> lines = readLines(outputStream);
+        assertEquals(1, lines.size());
+        JsonNode summary = lines.getFirst().get("summary");
+        assertEquals(0, summary.get("signed").asInt());
+        assertEquals("internal_server_error", summary.get("error").asText());
+        assertEquals("Failed to sign the documents.", summary.get("error_description").asText());
+        assertNull(summary.get("validationInfo"));
+    }
+
+    @Test
+    void summaryContainsGivenErrorCode() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        try (SignDocNdjsonResponseWriter writer = new SignDocNdjsonResponseWriter(objectMapper, outputStream)) {
+            assertSuccess(writer.finish("timeout", "The documents were not signed before the deadline."));
+        }
+
+        // then
+        JsonNode summary = readLines(outputStream).getFirst().get("summary");
+        assertEquals("timeout", summary.get("error").asText());
+        assertEquals("The documents were not signed before the deadline.", summary.get("error_description").asText());
+    }
+
+    @Test
+    void errorDetailsAreNotWrittenToResponse() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        TextError error = TextError.of("Processing failed on worker internal-worker-1.");
+
+        // when
+        try (SignDocNdjsonResponseWriter writer = new SignDocNdjsonResponseWriter(objectMapper, outputStream)) {
+            assertSuccess(writer.signingFailed(1, error));
+            assertSuccess(writer.finish("internal_server_error", "Failed to sign the documents."));
+        }
+
+        // then
+        assertFalse(outputStream.toString().contains("internal-worker-1"));
+        List<JsonNode> lines = readLines(outputStream);
+        assertEquals("The document could not be signed.", lines.get(0).get("error_description").asText());
+    }
+
+    @Test
+    void spoolsOfSignaturesNotWrittenAreDeletedWhenWritingFails(@TempDir Path spoolDirectory) throws IOException {
+        // given
+        SpooledData written = aSpooledSignature(spoolDirectory);
+        SpooledData notWritten = aSpooledSignature(spoolDirectory);
+        OutputStream failingOutputStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+
+        try (SignDocNdjsonResponseWriter writer = new SignDocNdjsonResponseWriter(objectMapper, failingOutputStream)) {
+            // when
+            var result = writer.accept(new Signatures<>(List.of(
+                    new DocumentSignature(written, SignaturePackaging.DETACHED),
+                    new DocumentSignature(notWritten, SignaturePackaging.DETACHED)
+            )));
+
+            // then
+            assertErrorContains(result, "Failed to write signatures to the response.");
+        } catch (IOException ignored) {
+            // Closing the generator fails too, as the output stream is broken
+        }
+        assertFalse(written.isSpooled());
+        assertFalse(notWritten.isSpooled());
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private SpooledData aSpooledSignature(Path spoolDirectory) throws IOException {
+        // Larger than the buffer of the JSON generator, so writing it reaches the output stream
+        byte[] signature = new byte[64 * 1024];
+        SpooledData data = new SpooledData(0, spoolDirectory);
+        try (OutputStream outputStream = data.openStream()) {
+            outputStream.write(signature);
+        }
+        assertTrue(data.isSpooled());
+        return data;
+    }
+
+    private List<JsonNode> readLines(ByteArrayOutputStream outputStream) throws IOException {
+        String response = outputStream.toString();
+        assertTrue(response.isEmpty() || response.endsWith("\n"));
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+
+    private SignaturesWithValidationInfo<DocumentSignature> aSignedDocument(Set<String> crls, Set<String> ocsps,
+                                                                            Set<String> certs
+    ) {
+        return new SignaturesWithValidationInfo<>(
+                List.of(new DocumentSignature(new byte[]{1, 2, 3}, SignaturePackaging.ENVELOPED)),
+                crls,
+                ocsps,
+                certs
+        );
+    }
+}
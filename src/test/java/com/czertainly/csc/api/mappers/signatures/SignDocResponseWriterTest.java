@@ -0,0 +1,345 @@
+package com.czertainly.csc.api.mappers.signatures;
+
+import com.czertainly.csc.common.io.SpooledData;
+import com.czertainly.csc.model.DocumentSignature;
+import com.czertainly.csc.model.Signatures;
+import com.czertainly.csc.model.SignaturesContainer;
+import com.czertainly.csc.model.SignaturesWithValidationInfo;
+import com.czertainly.csc.signing.configuration.SignaturePackaging;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.czertainly.csc.utils.assertions.CollectionAssertions.assertContainsExactlyInAnyOrder;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccess;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignDocResponseWriterTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    Base64.Encoder encoder = Base64.getEncoder();
+
+    @Test
+    void canWriteResponse() throws IOException {
+        // given
+        SignaturesWithValidationInfo<DocumentSignature> model = aSignedDocuments();
+
+        // when
+        JsonNode response = write(model);
+
+        // then
+        assertEquals(1, response.get("documentWithSignature").size());
+        assertEquals(1, response.get("signatureObject").size());
+        assertNotNull(response.get("validationInfo"));
+    }
+
+    @Test
+    void canWriteValidationInfo() throws IOException {
+        // given
+        Set<String> crls = Set.of("crl1", "crl2");
+        Set<String> ocsps = Set.of("ocsp1", "ocsp2");
+        Set<String> certs = Set.of("cert1", "cert2");
+        SignaturesWithValidationInfo<DocumentSignature> model = aSignedDocuments(crls, ocsps, certs);
+
+        // when
+        JsonNode response = write(model);
+
+        // then
+        assertValidationInfo(response, crls, ocsps, certs);
+    }
+
+    @Test
+    void splitsSignaturesToDocumentWithSignaturesAndStandaloneSignatures() throws IOException {
+        // given
+        List<DocumentSignature> signatures = List.of(
+                new DocumentSignature("detached".getBytes(), SignaturePackaging.DETACHED),
+                new DocumentSignature("enveloped".getBytes(), SignaturePackaging.ENVELOPED)
+        );
+        SignaturesWithValidationInfo<DocumentSignature> model = aSignedDocuments(signatures);
+
+        // when
+        JsonNode response = write(model);
+
+        // then
+        assertEquals(1, response.get("documentWithSignature").size());
+        assertArrayEquals("enveloped".getBytes(), response.get("documentWithSignature").get(0).binaryValue());
+        assertEquals(1, response.get("signatureObject").size());
+        assertArrayEquals("detached".getBytes(), response.get("signatureObject").get(0).binaryValue());
+    }
+
+    @Test
+    void signaturesAreBase64Encoded() throws IOException {
+        // given
+        List<DocumentSignature> signatures = List.of(
+                new DocumentSignature("enveloped".getBytes(), SignaturePackaging.ENVELOPED),
+                new DocumentSignature("detached".getBytes(), SignaturePackaging.DETACHED)
+        );
+        String encodedEnveloped = encoder.encodeToString("enveloped".getBytes());
+        String encodedDetached = encoder.encodeToString("detached".getBytes());
+        SignaturesWithValidationInfo<DocumentSignature> model = aSignedDocuments(signatures);
+
+        // when
+        JsonNode response = write(model);
+
+        // then
+        assertEquals(encodedEnveloped, response.get("documentWithSignature").get(0).asText());
+        assertEquals(encodedDetached, response.get("signatureObject").get(0).asText());
+    }
+
+    @Test
+    void canWriteValidationInfoWithEmptyCerts() throws IOException {
+        // given
+        Set<String> crls = Set.of("crl1", "crl2");
+        Set<String> ocsps = Set.of("ocsp1", "ocsp2");
+        Set<String> certs = Set.of();
+        SignaturesWithValidationInfo<DocumentSignature> model = aSignedDocuments(crls, ocsps, certs);
+
+        // when
+        JsonNode response = write(model);
+
+        // then
+        assertValidationInfo(response, crls, ocsps, certs);
+    }
+
+    @Test
+    void canWriteValidationInfoWithEmptyOcsps() throws IOException {
+        // given
+        Set<String> crls = Set.of("crl1", "crl2");
+        Set<String> ocsps = Set.of();
+        Set<String> certs = Set.of("cert1", "cert2");
+        SignaturesWithValidationInfo<DocumentSignature> model = aSignedDocuments(crls, ocsps, certs);
+
+        // when
+        JsonNode response = write(model);
+
+        // then
+        assertValidationInfo(response, crls, ocsps, certs);
+    }
+
+    @Test
+    void canWriteValidationInfoWithEmptyCrls() throws IOException {
+        // given
+        Set<String> crls = Set.of();
+        Set<String> ocsps = Set.of("ocsp1", "ocsp2");
+        Set<String> certs = Set.of("cert1", "cert2");
+        SignaturesWithValidationInfo<DocumentSignature> model = aSignedDocuments(crls, ocsps, certs);
+
+        // when
+        JsonNode response = write(model);
+
+        // then
+        assertValidationInfo(response, crls, ocsps, certs);
+    }
+
+    @Test
+    void validationInfoIsNotWrittenForSignaturesWithoutIt() throws IOException {
+        // given
+        Signatures<DocumentSignature> model = Signatures.of(
+                new DocumentSignature(new byte[]{1, 2, 3}, SignaturePackaging.ENVELOPED)
+        );
+
+        // when
+        JsonNode response = write(model);
+
+        // then
+        assertNull(response.get("validationInfo"));
+    }
+
+    @Test
+    void validationInfoOfAllSignaturesIsMerged() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        try (SignDocResponseWriter writer = new SignDocResponseWriter(objectMapper, outputStream)) {
+            assertSuccess(writer.accept(aSignedDocuments(Set.of("crl1"), Set.of("ocsp1"), Set.of("cert1"))));
+            assertSuccess(writer.accept(aSignedDocuments(Set.of("crl2"), Set.of(), Set.of("cert1"))));
+            assertSuccess(writer.finish());
+        }
+
+        // then
+        JsonNode response = objectMapper.readTree(outputStream.toByteArray());
+        assertEquals(2, response.get("documentWithSignature").size());
+        assertEquals(2, response.get("signatureObject").size());
+        assertValidationInfo(response, Set.of("crl1", "crl2"), Set.of("ocsp1"), Set.of("cert1"));
+    }
+
+    @Test
+    void envelopedSignatureIsWrittenBeforeResponseIsFinished() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        String encodedEnveloped = encoder.encodeToString("enveloped".getBytes());
+
+        try (SignDocResponseWriter writer = new SignDocResponseWriter(objectMapper, outputStream)) {
+            // when
+            assertSuccess(writer.accept(Signatures.of(
+                    new DocumentSignature("enveloped".getBytes(), SignaturePackaging.ENVELOPED))));
+
+            // then
+            assertTrue(outputStream.toString().contains(encodedEnveloped));
+        }
+    }
+
+    @Test
+    void nothingIsWrittenBeforeFirstSignatures() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        try (SignDocResponseWriter ignored = new SignDocResponseWriter(objectMapper, outputStream)) {
+            // the signing failed before any signature was created
+        }
+
+        // then
+        assertEquals(0, outputStream.size());
+    }
+
+    @Test
+    void failureAfterFirstSignaturesLeavesResponseIncomplete() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (SignDocResponseWriter writer = new SignDocResponseWriter(objectMapper, outputStream)) {
+            assertSuccess(writer.accept(aSignedDocuments()));
+
+            // when
+            // the signing fails, the response is not finished
+
+            // then
+            assertTrue(writer.isStarted());
+        }
+        byte[] response = outputStream.toByteArray();
+        assertTrue(response.length > 0);
+        assertThrows(IOException.class, () -> objectMapper.readTree(response));
+    }
+
+    @Test
+    void failureBeforeFirstSignaturesIsLeftToErrorResponse() throws IOException {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (SignDocResponseWriter writer = new SignDocResponseWriter(objectMapper, outputStream)) {
+            // when
+            // the signing fails before any signature was created
+
+            // then
+            assertFalse(writer.isStarted());
+        }
+        assertEquals(0, outputStream.size());
+    }
+
+    @Test
+    void spoolsOfSignaturesNotWrittenAreDeletedWhenWritingFails(@TempDir Path spoolDirectory) throws IOException {
+        // given
+        SpooledData written = aSpooledSignature(spoolDirectory);
+        SpooledData notWritten = aSpooledSignature(spoolDirectory);
+        SpooledData detached = aSpooledSignature(spoolDirectory);
+        OutputStream failingOutputStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+
+        try (SignDocResponseWriter writer = new SignDocResponseWriter(objectMapper, failingOutputStream)) {
+            // when
+            var result = writer.accept(aSignedDocuments(List.of(
+                    new DocumentSignature(written, SignaturePackaging.ENVELOPED),
+                    new DocumentSignature(notWritten, SignaturePackaging.ENVELOPED),
+                    new DocumentSignature(detached, SignaturePackaging.DETACHED)
+            )));
+
+            // then
+            assertErrorContains(result, "Failed to write signatures to the response.");
+        } catch (IOException ignored) {
+            // Closing the generator fails too, as the output stream is broken
+        }
+        assertFalse(written.isSpooled());
+        assertFalse(notWritten.isSpooled());
+        assertFalse(detached.isSpooled());
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private JsonNode write(SignaturesContainer<DocumentSignature> signatures) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (SignDocResponseWriter writer = new SignDocResponseWriter(objectMapper, outputStream)) {
+            assertSuccess(writer.accept(signatures));
+            assertSuccess(writer.finish());
+        }
+        return objectMapper.readTree(outputStream.toByteArray());
+    }
+
+    private SpooledData aSpooledSignature(Path spoolDirectory) throws IOException {
+        // Larger than the buffer of the JSON generator, so writing it reaches the output stream
+        byte[] signature = new byte[64 * 1024];
+        SpooledData data = new SpooledData(0, spoolDirectory);
+        try (OutputStream outputStream = data.openStream()) {
+            outputStream.write(signature);
+        }
+        assertTrue(data.isSpooled());
+        return data;
+    }
+
+    private void assertValidationInfo(JsonNode response, Set<String> crls, Set<String> ocsps, Set<String> certs) {
+        JsonNode validationInfo = response.get("validationInfo");
+        assertNotNull(validationInfo);
+        assertContainsExactlyInAnyOrder(crls, toSet(validationInfo.get("crl")));
+        assertContainsExactlyInAnyOrder(ocsps, toSet(validationInfo.get("ocsp")));
+        assertContainsExactlyInAnyOrder(certs, toSet(validationInfo.get("certificates")));
+    }
+
+    private Set<String> toSet(JsonNode array) {
+        Set<String> values = new HashSet<>();
+        array.forEach(value -> values.add(value.asText()));
+        return values;
+    }
+
+    SignaturesWithValidationInfo<DocumentSignature> aSignedDocuments() {
+        return aSignedDocuments(Set.of("crl1", "crl2"), Set.of("ocsp1", "ocsp2"), Set.of("cert1", "cert2"));
+    }
+
+    SignaturesWithValidationInfo<DocumentSignature> aSignedDocuments(Set<String> crls, Set<String> ocsps,
+                                                                     Set<String> certs
+    ) {
+        return new SignaturesWithValidationInfo<>(
+                new ArrayList<>(List.of(
+                        new DocumentSignature(
+                                new byte[]{1, 2, 3},
+                                SignaturePackaging.ENVELOPED
+                        ),
+                        new DocumentSignature(
+                                new byte[]{4, 5, 6},
+                                SignaturePackaging.DETACHED
+                        )
+                )),
+                new HashSet<>(crls),
+                new HashSet<>(ocsps),
+                new HashSet<>(certs)
+        );
+    }
+
+    SignaturesWithValidationInfo<DocumentSignature> aSignedDocuments(List<DocumentSignature> signatures) {
+        return new SignaturesWithValidationInfo<>(
+                signatures,
+                Set.of(),
+                Set.of(),
+                Set.of()
+        );
+    }
+}
@@ -11,6 +11,7 @@ import com.czertainly.csc.api.signdoc.DocumentDigestsDto;
 import com.czertainly.csc.api.signdoc.DocumentDto;
 import com.czertainly.csc.api.signdoc.SignDocRequestDto;
 import com.czertainly.csc.common.exceptions.InvalidInputDataException;
+import com.czertainly.csc.common.io.SpooledData;
 import com.czertainly.csc.crypto.AlgorithmHelper;
 import com.czertainly.csc.crypto.AlgorithmUnifier;
 import com.czertainly.csc.signing.configuration.ConformanceLevel;
@@ -360,7 +361,7 @@ class SignDocValidatingRequestMapperTest {
     @Test
     void mapsDocumentsToSign() {
         // given
-        var documentContent = Base64.getEncoder().encodeToString("{ \"hello\": \"world\" }".getBytes());
+        var documentContent = SpooledData.ofBytes("{ \"hello\": \"world\" }".getBytes());
         List<DocumentDto> documents = List.of(
                 new DocumentDto(
                         documentContent,
@@ -811,8 +812,8 @@ class SignDocValidatingRequestMapperTest {
 
 
     List<DocumentDto> aDocumentsToSign() {
-        String doc1Content = Base64.getEncoder().encodeToString("{ \"hello\": \"world\" }".getBytes());
-        String doc2Content = Base64.getEncoder().encodeToString("{ \"hello\": \"world two\" }".getBytes());
+        SpooledData doc1Content = SpooledData.ofBytes("{ \"hello\": \"world\" }".getBytes());
+        SpooledData doc2Content = SpooledData.ofBytes("{ \"hello\": \"world two\" }".getBytes());
         return List.of(
                 new DocumentDto(
                         doc1Content,
@@ -836,7 +837,7 @@ class SignDocValidatingRequestMapperTest {
     }
 
     InstancioApi<DocumentDto> aDocumentToSign() {
-        String doc1Content = Base64.getEncoder().encodeToString("{ \"hello\": \"world\" }".getBytes());
+        SpooledData doc1Content = SpooledData.ofBytes("{ \"hello\": \"world\" }".getBytes());
         return Instancio.of(DocumentDto.class)
                         .set(field(DocumentDto::getDocument), doc1Content)
                         .set(field(DocumentDto::getSignatureFormat), "J")
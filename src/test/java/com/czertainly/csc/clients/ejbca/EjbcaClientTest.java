@@ -0,0 +1,193 @@
+package com.czertainly.csc.clients.ejbca;
+
+import com.czertainly.csc.clients.ejbca.rest.EjbcaRestClient;
+import com.czertainly.csc.clients.ejbca.ws.CertificateValidityCalculator;
+import com.czertainly.csc.clients.ejbca.ws.EjbcaWsClient;
+import com.czertainly.csc.clients.ejbca.ws.dto.CertificateResponse;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.model.ejbca.EndEntity;
+import com.czertainly.csc.signing.configuration.profiles.Profile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccessAndGet;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class EjbcaClientTest {
+
+    EjbcaWsClient ejbcaWsClient = mock(EjbcaWsClient.class);
+    EjbcaRestClient ejbcaRestClient = mock(EjbcaRestClient.class);
+    EndEntity endEntity = new EndEntity("user", "password", "CN=User", "dNSName=example.com");
+    Profile profile = new Profile("profile", "CA", "certificateProfile", "endEntityProfile", Duration.ofDays(1),
+                                  Duration.ZERO, "SHA256withRSA"
+    );
+    byte[] csr = new byte[]{1, 2, 3};
+    byte[] certificate = new byte[]{4, 5, 6};
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @BeforeEach
+    void setUp() {
+        when(ejbcaWsClient.isSingleCallEnrollment()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void enrollEndEntityIssuesCertificateInSingleCall() {
+        // given
+        EjbcaClient client = new EjbcaClient(ejbcaWsClient, ejbcaRestClient, EjbcaApi.WS,
+                                             new CertificateValidityCalculator(), true,
+                                             executor
+        );
+        when(ejbcaWsClient.enrollCertificate(eq("user"), eq("password"), eq("CN=User"), eq("dNSName=example.com"),
+                                             eq(csr), any(), any(), eq("CA"), eq("certificateProfile"),
+                                             eq("endEntityProfile")
+        )).thenReturn(Result.success(aCertificateResponse()));
+
+        // when
+        var result = client.enrollEndEntity(endEntity, profile, () -> Result.success(csr));
+
+        // then
+        assertArrayEquals(certificate, assertSuccessAndGet(result));
+        verify(ejbcaWsClient, never()).editUser(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void enrollEndEntityCreatesEndEntityFirstWhenSingleCallIsDisabled() {
+        // given
+        EjbcaClient client = new EjbcaClient(ejbcaWsClient, ejbcaRestClient, EjbcaApi.WS,
+                                             new CertificateValidityCalculator(), false,
+                                             executor
+        );
+        when(ejbcaWsClient.editUser("user", "password", "CN=User", "dNSName=example.com", "CA",
+                                    "certificateProfile", "endEntityProfile"
+        )).thenReturn(Result.emptySuccess());
+        when(ejbcaWsClient.requestCertificate(eq("user"), eq("password"), eq("CN=User"), eq("dNSName=example.com"),
+                                              eq(csr), any(), any(), eq("CA"), eq("certificateProfile"),
+                                              eq("endEntityProfile")
+        )).thenReturn(Result.success(aCertificateResponse()));
+
+        // when
+        var result = client.enrollEndEntity(endEntity, profile, () -> Result.success(csr));
+
+        // then
+        assertArrayEquals(certificate, assertSuccessAndGet(result));
+        verify(ejbcaWsClient, never()).enrollCertificate(any(), any(), any(), any(), any(), any(), any(), any(),
+                                                         any(), any()
+        );
+    }
+
+    @Test
+    void enrollEndEntityReturnsErrorWhenEnrollmentFails() {
+        // given
+        EjbcaClient client = new EjbcaClient(ejbcaWsClient, ejbcaRestClient, EjbcaApi.WS,
+                                             new CertificateValidityCalculator(), true,
+                                             executor
+        );
+        when(ejbcaWsClient.enrollCertificate(any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Result.error(TextError.of("Certificate request has failed.")));
+
+        // when
+        var result = client.enrollEndEntity(endEntity, profile, () -> Result.success(csr));
+
+        // then
+        assertErrorContains(result, "Failed to enroll end entity user.");
+    }
+
+    @Test
+    void endEntityIsCreatedWhileCsrIsGenerated() {
+        // given
+        EjbcaClient client = new EjbcaClient(ejbcaWsClient, ejbcaRestClient, EjbcaApi.WS,
+                                             new CertificateValidityCalculator(), false,
+                                             executor
+        );
+        CountDownLatch csrGenerationStarted = new CountDownLatch(1);
+        CountDownLatch endEntityCreated = new CountDownLatch(1);
+        when(ejbcaWsClient.editUser(any(), any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            csrGenerationStarted.await(5, TimeUnit.SECONDS);
+            endEntityCreated.countDown();
+            return Result.emptySuccess();
+        });
+        when(ejbcaWsClient.requestCertificate(any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Result.success(aCertificateResponse()));
+
+        // when
+        var result = client.enrollEndEntity(endEntity, profile, () -> {
+            csrGenerationStarted.countDown();
+            try {
+                assertTrue(endEntityCreated.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return Result.success(csr);
+        });
+
+        // then
+        assertArrayEquals(certificate, assertSuccessAndGet(result));
+    }
+
+    @Test
+    void certificateIsNotRequestedWhenCsrGenerationFails() {
+        // given
+        EjbcaClient client = new EjbcaClient(ejbcaWsClient, ejbcaRestClient, EjbcaApi.WS,
+                                             new CertificateValidityCalculator(), false,
+                                             executor
+        );
+        when(ejbcaWsClient.editUser(any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Result.emptySuccess());
+
+        // when
+        var result = client.enrollEndEntity(endEntity, profile, () -> Result.error(TextError.of("CSR failed.")));
+
+        // then
+        assertErrorContains(result, "CSR failed.");
+        verify(ejbcaWsClient).editUser(any(), any(), any(), any(), any(), any(), any());
+        verify(ejbcaWsClient, never()).requestCertificate(any(), any(), any(), any(), any(), any(), any(), any(),
+                                                          any(), any()
+        );
+    }
+
+    @Test
+    void restApiCreatesEndEntityBeforeRequestingCertificate() {
+        // given
+        EjbcaClient client = new EjbcaClient(ejbcaWsClient, ejbcaRestClient, EjbcaApi.REST,
+                                             new CertificateValidityCalculator(), true,
+                                             executor
+        );
+        when(ejbcaRestClient.editUser(any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Result.emptySuccess());
+        when(ejbcaRestClient.requestCertificate(any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                                                any()
+        )).thenReturn(Result.success(aCertificateResponse()));
+
+        // when
+        var result = client.enrollEndEntity(endEntity, profile, () -> Result.success(csr));
+
+        // then
+        assertArrayEquals(certificate, assertSuccessAndGet(result));
+        verifyNoInteractions(ejbcaWsClient);
+    }
+
+    private CertificateResponse aCertificateResponse() {
+        CertificateResponse response = new CertificateResponse();
+        response.setData(Base64.getEncoder().encode(certificate));
+        return response;
+    }
+}
@@ -0,0 +1,227 @@
+package com.czertainly.csc.clients.ejbca.rest;
+
+import com.czertainly.csc.clients.ejbca.ws.dto.CertificateResponse;
+import com.czertainly.csc.clients.ejbca.ws.dto.RevokeStatus;
+import com.czertainly.csc.clients.ejbca.ws.dto.UserDataVOWS;
+import com.czertainly.csc.crypto.CertificateParser;
+import com.czertainly.csc.model.CertificateRevocationReason;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccess;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccessAndGet;
+import static com.czertainly.csc.utils.cert.CertificateUtils.generateCaCertificate;
+import static com.czertainly.csc.utils.cert.CertificateUtils.generateKeyPair;
+import static com.czertainly.csc.utils.cert.CertificateUtils.generateSignedCertificate;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EjbcaRestClientTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    HttpServer server;
+    EjbcaRestClient client;
+    Map<String, ReceivedRequest> receivedRequests = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.start();
+        client = new EjbcaRestClient("http://127.0.0.1:" + server.getAddress().getPort() + "/ejbca",
+                                     new HttpComponentsClientHttpRequestFactory()
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void enrollCertificateAddsEndEntityAndReturnsPkcs7Chain() throws Exception {
+        // given
+        KeyPair caKeyPair = generateKeyPair();
+        X509Certificate caCertificate = generateCaCertificate("CN=CA", caKeyPair);
+        X509Certificate certificate = generateSignedCertificate("CN=User", caKeyPair, caCertificate);
+        respondWith("/ejbca/ejbca-rest-api/v1/endentity", 200, "");
+        respondWith("/ejbca/ejbca-rest-api/v1/certificate/certificaterequest", 201, """
+                {"certificate": "%s", "certificate_chain": ["%s"], "serial_number": "1"}
+                """.formatted(Base64.getEncoder().encodeToString(certificate.getEncoded()),
+                              Base64.getEncoder().encodeToString(caCertificate.getEncoded())
+        ));
+
+        // when
+        var result = client.enrollCertificate("user", "password", "CN=User", "dNSName=example.com",
+                                              new byte[]{1, 2, 3}, ZonedDateTime.now(), ZonedDateTime.now(), "CA",
+                                              "certificateProfile", "endEntityProfile"
+        );
+
+        // then
+        CertificateResponse response = assertSuccessAndGet(result);
+        byte[] pkcs7 = Base64.getDecoder().decode(response.getData());
+        X509CertificateHolder endCertificate = assertSuccessAndGet(
+                new CertificateParser().getEndCertificateFromPkcs7Chain(pkcs7));
+        assertArrayEquals(certificate.getEncoded(), endCertificate.getEncoded());
+        assertEquals(2, assertSuccessAndGet(new CertificateParser().parsePkcs7ChainToList(pkcs7)).size());
+
+        JsonNode addEndEntity = receivedRequests.get("/ejbca/ejbca-rest-api/v1/endentity").body();
+        assertEquals("user", addEndEntity.get("username").asText());
+        assertEquals("CN=User", addEndEntity.get("subject_dn").asText());
+        assertEquals("dNSName=example.com", addEndEntity.get("subject_alt_name").asText());
+        assertEquals("endEntityProfile", addEndEntity.get("end_entity_profile_name").asText());
+        JsonNode certificateRequest = receivedRequests.get(
+                "/ejbca/ejbca-rest-api/v1/certificate/certificaterequest").body();
+        assertEquals("password", certificateRequest.get("password").asText());
+        assertTrue(certificateRequest.get("certificate_request").asText()
+                                     .startsWith("-----BEGIN CERTIFICATE REQUEST-----"));
+    }
+
+    @Test
+    void editUserSetsExistingEndEntityToNew() {
+        // given
+        respondWith("/ejbca/ejbca-rest-api/v1/endentity", 409, "{\"error_code\": 409}");
+        respondWith("/ejbca/ejbca-rest-api/v1/endentity/search", 200, """
+                {"end_entities": [{"username": "user", "dn": "CN=User"}], "more_results": false}
+                """);
+        respondWith("/ejbca/ejbca-rest-api/v1/endentity/user/setstatus", 200, "");
+
+        // when
+        var result = client.editUser("user", "password", "CN=User", null, "CA", "certificateProfile",
+                                     "endEntityProfile"
+        );
+
+        // then
+        assertSuccess(result);
+        JsonNode setStatus = receivedRequests.get("/ejbca/ejbca-rest-api/v1/endentity/user/setstatus").body();
+        assertEquals("NEW", setStatus.get("status").asText());
+        assertEquals("password", setStatus.get("password").asText());
+    }
+
+    @Test
+    void enrollCertificateFailsWhenExistingEndEntityHasDifferentSubject() {
+        // given
+        respondWith("/ejbca/ejbca-rest-api/v1/endentity", 409, "{\"error_code\": 409}");
+        respondWith("/ejbca/ejbca-rest-api/v1/endentity/search", 200, """
+                {"end_entities": [
+                    {"username": "user", "dn": "CN=First Credential", "subject_alt_name": "dNSName=example.com"}
+                ], "more_results": false}
+                """);
+        respondWith("/ejbca/ejbca-rest-api/v1/endentity/user/setstatus", 200, "");
+        respondWith("/ejbca/ejbca-rest-api/v1/certificate/certificaterequest", 201, "{}");
+
+        // when
+        var result = client.enrollCertificate("user", "password", "CN=Second Credential", "dNSName=example.com",
+                                              new byte[]{1, 2, 3}, ZonedDateTime.now(), ZonedDateTime.now(), "CA",
+                                              "certificateProfile", "endEntityProfile"
+        );
+
+        // then
+        assertErrorContains(result, "exists with a different subject");
+        assertFalse(receivedRequests.containsKey("/ejbca/ejbca-rest-api/v1/endentity/user/setstatus"));
+        assertFalse(receivedRequests.containsKey("/ejbca/ejbca-rest-api/v1/certificate/certificaterequest"));
+    }
+
+    @Test
+    void checkRevocationStatusReturnsReasonOfRevokedCertificate() {
+        // given
+        respondWith("/ejbca/ejbca-rest-api/v1/certificate/", 200, """
+                {"issuer_dn": "CN=CA,O=Example", "serial_number": "1a2b", "revocation_reason": "CERTIFICATE_HOLD",
+                 "revoked": true}
+                """);
+
+        // when
+        var result = client.checkRevocationStatus("CN=CA,O=Example", "1a2b");
+
+        // then
+        RevokeStatus status = assertSuccessAndGet(result);
+        assertEquals("CN=CA,O=Example", status.getIssuerDN());
+        assertEquals("1a2b", status.getCertificateSN());
+        assertEquals(6, status.getReason());
+        assertEquals("/ejbca/ejbca-rest-api/v1/certificate/CN%3DCA%2CO%3DExample/1a2b/revocationstatus",
+                     receivedRequests.get("/ejbca/ejbca-rest-api/v1/certificate/").rawPath()
+        );
+    }
+
+    @Test
+    void revokeCertificateSendsReason() {
+        // given
+        respondWith("/ejbca/ejbca-rest-api/v1/certificate/", 200, "{}");
+
+        // when
+        var result = client.revokeCertificate("1a2b", "CN=CA", CertificateRevocationReason.KEY_COMPROMISE);
+
+        // then
+        assertSuccess(result);
+        ReceivedRequest request = receivedRequests.get("/ejbca/ejbca-rest-api/v1/certificate/");
+        assertEquals("PUT", request.method());
+        assertEquals("reason=KEY_COMPROMISE", request.query());
+    }
+
+    @Test
+    void getUserDataReturnsEndEntityWithTheUsername() {
+        // given
+        respondWith("/ejbca/ejbca-rest-api/v1/endentity/search", 200, """
+                {"end_entities": [
+                    {"username": "other", "dn": "CN=user"},
+                    {"username": "user", "dn": "CN=User", "subject_alt_name": "dNSName=example.com"}
+                ], "more_results": false}
+                """);
+
+        // when
+        var result = client.getUserData("user");
+
+        // then
+        UserDataVOWS userData = assertSuccessAndGet(result);
+        assertEquals("CN=User", userData.getSubjectDN());
+        assertEquals("dNSName=example.com", userData.getSubjectAltName());
+    }
+
+    @Test
+    void getUserDataFailsWhenEndEntityIsNotFound() {
+        // given
+        respondWith("/ejbca/ejbca-rest-api/v1/endentity/search", 200, "{\"end_entities\": []}");
+
+        // when
+        var result = client.getUserData("user");
+
+        // then
+        assertErrorContains(result, "User user not found in EJBCA");
+    }
+
+    private void respondWith(String path, int status, String body) {
+        server.createContext(path, exchange -> {
+            byte[] requestBody = exchange.getRequestBody().readAllBytes();
+            receivedRequests.put(path, new ReceivedRequest(
+                    exchange.getRequestMethod(), exchange.getRequestURI().getRawPath(),
+                    exchange.getRequestURI().getRawQuery(),
+                    requestBody.length == 0 ? null : objectMapper.readTree(requestBody)
+            ));
+            byte[] response = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, response.length == 0 ? -1 : response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        });
+    }
+
+    private record ReceivedRequest(String method, String rawPath, String query, JsonNode body) {}
+}
@@ -1,15 +1,28 @@
 package com.czertainly.csc.clients.signserver;
 
+import com.czertainly.csc.clients.signserver.rest.SignserverProcessClient;
 import com.czertainly.csc.clients.signserver.rest.SignserverRestClient;
 import com.czertainly.csc.clients.signserver.ws.SignserverWsClient;
+import com.czertainly.csc.clients.signserver.ws.dto.TokenEntry;
+import com.czertainly.csc.clients.signserver.ws.dto.TokenSearchResults;
+import com.czertainly.csc.common.io.ByteSink;
+import com.czertainly.csc.common.io.SpooledData;
 import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.components.SpooledDataFactory;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.configuration.csc.SigningSettings;
 import com.czertainly.csc.crypto.CertificateParser;
 import com.czertainly.csc.model.DocumentSignature;
 import com.czertainly.csc.model.SignaturesContainer;
+import com.czertainly.csc.model.signserver.CryptoToken;
+import com.czertainly.csc.model.signserver.CryptoTokenKey;
 import com.czertainly.csc.signing.configuration.SignaturePackaging;
+import com.czertainly.csc.signing.scheduling.SignserverCallScheduler;
 import com.fasterxml.jackson.core.StreamReadFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -18,14 +31,26 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.security.cert.CertificateException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static com.czertainly.csc.utils.ResourceLoader.loadBytesFromResources;
 import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccessAndGet;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -36,6 +61,8 @@ class SignserverClientTest {
     SignserverWsClient signserverWSClient;
     @Mock
     SignserverRestClient signserverRestClient;
+    @Mock
+    SignserverProcessClient signserverProcessClient;
     @Spy
     KeySpecificationParser keySpecificationParser = new KeySpecificationParser();
     @Spy
@@ -44,6 +71,10 @@ class SignserverClientTest {
                                           .build();
     @Spy
     CertificateParser certificateParser = new CertificateParser();
+    @Mock
+    SpooledDataFactory spooledDataFactory;
+    @Spy
+    SignserverCallScheduler signserverCallScheduler = aSignserverCallScheduler();
     @InjectMocks
     SignserverClient signserverClient;
 
@@ -58,6 +89,35 @@ class SignserverClientTest {
     String encryptionAlgorithm = "RSA";
 
 
+    @Test
+    void signSingleDocumentWithValidationDataStreamingSeparatesSignatureFromValidationData() throws IOException {
+        // given
+        String wrappedSignature = """
+                {"signatureData":"c2lnbmF0dXJl","validationData":{"crl":["crl"],"ocsp":[],"certificates":["cert"]}}
+                """;
+        when(spooledDataFactory.create()).thenReturn(new SpooledData(1024, null));
+        when(signserverRestClient.processStreaming(eq(signerName), any(), eq(Map.of("ALIAS", keyAlias)), any()))
+                .thenAnswer(invocation -> {
+                    ByteSink responseSink = invocation.getArgument(3);
+                    try (OutputStream outputStream = responseSink.openStream()) {
+                        outputStream.write(wrappedSignature.getBytes());
+                    }
+                    return Result.emptySuccess();
+                });
+        SpooledData signature = new SpooledData(1024, null);
+
+        // when
+        var signingResult = signserverClient.signSingleDocumentWithValidationDataStreaming(
+                signerName, SpooledData.ofBytes("document".getBytes()), keyAlias, signature
+        );
+
+        // then
+        ValidationData validationData = assertSuccessAndGet(signingResult);
+        assertArrayEquals("signature".getBytes(), signature.toByteArray());
+        assertEquals(List.of("crl"), validationData.crl());
+        assertEquals(List.of("cert"), validationData.certificates());
+    }
+
     @Test
     void signSingleDocumentHash() throws IOException {
         // given
@@ -73,6 +133,26 @@ class SignserverClientTest {
         assertEquals(SignaturePackaging.DETACHED, signature.signatures().getFirst().packaging());
     }
 
+    @Test
+    void signSingleDocumentHashAsyncCompletesWithSignatureOnceProcessed() throws IOException {
+        // given
+        byte[] singleSignedHash = loadSignature("signatureSingleHash");
+        CompletableFuture<Result<byte[], TextError>> processing = new CompletableFuture<>();
+        when(signserverProcessClient.processAsync(eq(signerName), eq(singleHash), any(), any()))
+                .thenReturn(processing);
+
+        // when
+        var signing = signserverClient.signSingleDocumentHashAsync(signerName, singleHash, keyAlias,
+                                                                   digestAlgorithm
+        );
+
+        // then
+        assertFalse(signing.isDone());
+        processing.complete(Result.success(singleSignedHash));
+        SignaturesContainer<DocumentSignature> signature = assertSuccessAndGet(signing.join());
+        assertEquals(SignaturePackaging.DETACHED, signature.signatures().getFirst().packaging());
+    }
+
     @Test
     void signSingleDocumentHashWithValidationInfo() throws IOException {
         // given
@@ -130,7 +210,113 @@ class SignserverClientTest {
         assertEquals(SignaturePackaging.DETACHED, container.signatures().getLast().packaging());
     }
 
+    @Test
+    void queryCryptoTokenKeysByAliasesUsesSingleQueryForCommonPrefix() {
+        // given
+        var cryptoToken = new CryptoToken("TestToken", 1, List.of());
+        var searchResults = new TokenSearchResults();
+        searchResults.getEntries().addAll(List.of(aTokenEntry("cred-aaa"), aTokenEntry("cred-bbb"),
+                                                  aTokenEntry("cred-ccc")
+        ));
+        searchResults.setMoreEntriesAvailable(false);
+        when(signserverWSClient.queryTokenEntries(eq(1), eq(true), eq(0), anyInt(), eq("cred-%")))
+                .thenReturn(Result.success(searchResults));
+
+        // when
+        var result = signserverClient.queryCryptoTokenKeysByAliases(cryptoToken, List.of("cred-aaa", "cred-ccc"));
+
+        // then
+        Map<String, CryptoTokenKey> keys = assertSuccessAndGet(result);
+        assertEquals(Set.of("cred-aaa", "cred-ccc"), keys.keySet());
+        verify(signserverWSClient, times(1)).queryTokenEntries(anyInt(), anyBoolean(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void queryCryptoTokenKeysByAliasesPagesUntilAllKeysAreFound() {
+        // given
+        var cryptoToken = new CryptoToken("TestToken", 1, List.of());
+        var firstPage = new TokenSearchResults();
+        firstPage.getEntries().add(aTokenEntry("cred-aaa"));
+        firstPage.setMoreEntriesAvailable(true);
+        var secondPage = new TokenSearchResults();
+        secondPage.getEntries().add(aTokenEntry("cred-bbb"));
+        secondPage.setMoreEntriesAvailable(true);
+        when(signserverWSClient.queryTokenEntries(eq(1), eq(true), eq(0), anyInt(), eq("cred-%")))
+                .thenReturn(Result.success(firstPage));
+        when(signserverWSClient.queryTokenEntries(eq(1), eq(true), eq(1), anyInt(), eq("cred-%")))
+                .thenReturn(Result.success(secondPage));
+
+        // when
+        var result = signserverClient.queryCryptoTokenKeysByAliases(cryptoToken, List.of("cred-aaa", "cred-bbb"));
+
+        // then
+        Map<String, CryptoTokenKey> keys = assertSuccessAndGet(result);
+        assertEquals(Set.of("cred-aaa", "cred-bbb"), keys.keySet());
+        verify(signserverWSClient, times(2)).queryTokenEntries(anyInt(), anyBoolean(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void queryCryptoTokenKeysByAliasesLimitsEntriesReadByPrefix() {
+        // given
+        var cryptoToken = new CryptoToken("TestToken", 1, List.of());
+        var page = new TokenSearchResults();
+        page.getEntries().addAll(List.of(aTokenEntry("cred-aaa"), aTokenEntry("cred-other1"),
+                                         aTokenEntry("cred-other2"), aTokenEntry("cred-other3")
+        ));
+        page.setMoreEntriesAvailable(true);
+        var exactResult = new TokenSearchResults();
+        exactResult.getEntries().add(aTokenEntry("cred-zzz"));
+        exactResult.setMoreEntriesAvailable(false);
+        when(signserverWSClient.queryTokenEntries(eq(1), eq(true), eq(0), eq(4), eq("cred-%")))
+                .thenReturn(Result.success(page));
+        when(signserverWSClient.queryTokenEntries(eq(1), eq(true), eq(0), anyInt(), eq("cred-zzz")))
+                .thenReturn(Result.success(exactResult));
+
+        // when
+        var result = signserverClient.queryCryptoTokenKeysByAliases(cryptoToken, List.of("cred-aaa", "cred-zzz"));
+
+        // then
+        Map<String, CryptoTokenKey> keys = assertSuccessAndGet(result);
+        assertEquals(Set.of("cred-aaa", "cred-zzz"), keys.keySet());
+        verify(signserverWSClient, never()).queryTokenEntries(anyInt(), anyBoolean(), eq(4), anyInt(), any());
+    }
+
+    @Test
+    void queryCryptoTokenKeysByAliasesLooksUpKeysWithoutCommonPrefixByExactAlias() {
+        // given
+        var cryptoToken = new CryptoToken("TestToken", 1, List.of());
+        var first = new TokenSearchResults();
+        first.getEntries().add(aTokenEntry("aaa"));
+        var second = new TokenSearchResults();
+        second.getEntries().addAll(List.of(aTokenEntry("bbb"), aTokenEntry("bbbx")));
+        when(signserverWSClient.queryTokenEntries(eq(1), eq(true), eq(0), anyInt(), eq("aaa")))
+                .thenReturn(Result.success(first));
+        when(signserverWSClient.queryTokenEntries(eq(1), eq(true), eq(0), anyInt(), eq("bbb")))
+                .thenReturn(Result.success(second));
+
+        // when
+        var result = signserverClient.queryCryptoTokenKeysByAliases(cryptoToken, List.of("aaa", "bbb"));
+
+        // then
+        Map<String, CryptoTokenKey> keys = assertSuccessAndGet(result);
+        assertEquals(Set.of("aaa", "bbb"), keys.keySet());
+        verify(signserverWSClient, times(2)).queryTokenEntries(anyInt(), anyBoolean(), anyInt(), anyInt(), any());
+    }
+
+    private TokenEntry aTokenEntry(String alias) {
+        var entry = new TokenEntry();
+        entry.setAlias(alias);
+        entry.setInfo(new TokenEntry.Info());
+        return entry;
+    }
+
     private byte[] loadSignature(String name) throws IOException {
         return loadBytesFromResources("com/czertainly/csc/clients/signserver/" + name);
     }
-}
\ No newline at end of file
+
+    private static SignserverCallScheduler aSignserverCallScheduler() {
+        CscConfiguration cscConfiguration = mock(CscConfiguration.class);
+        when(cscConfiguration.signing()).thenReturn(new SigningSettings(null, null, null, null));
+        return new SignserverCallScheduler(cscConfiguration, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,218 @@
+package com.czertainly.csc.clients.signserver.rest;
+
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.common.retry.BackendRetryPolicy;
+import com.czertainly.csc.common.retry.RetryBudget;
+import com.czertainly.csc.common.retry.RetryRule;
+import com.czertainly.csc.configuration.SignApiAuthorization;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccessAndGet;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignserverAsyncRestClientTest {
+
+    // Nothing listens on the port, and it is not an ephemeral port the client could connect from to itself
+    static final String UNREACHABLE_URL = "http://127.0.0.1:1";
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    HttpServer server;
+    ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    CloseableHttpAsyncClient httpClient;
+    SignserverAsyncRestClient client;
+    BackendRetryPolicy retryPolicy = new BackendRetryPolicy(
+            "signserver", new RetryBudget(1.0, 10),
+            new RetryRule(3, Duration.ofMillis(10), Duration.ofMillis(10), 1.0), Map.of(), new SimpleMeterRegistry()
+    );
+    AtomicReference<JsonNode> receivedRequest = new AtomicReference<>();
+    AtomicReference<String> receivedAuthorization = new AtomicReference<>();
+    AtomicInteger receivedRequests = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.start();
+        httpClient = HttpAsyncClients.createDefault();
+        httpClient.start();
+        client = aClient("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void processAsyncSendsRequestAndReturnsResponseData() throws Exception {
+        // given
+        respondWith(200, """
+                {"requestId": "1", "data": "c2lnbmF0dXJl", "metaData": {}}
+                """);
+
+        // when
+        Result<byte[], TextError> result = client.processAsync(
+                "Worker", "ZGlnZXN0".getBytes(), Map.of("ALIAS", "key"), SignserverProcessEncoding.NONE
+        ).get(10, TimeUnit.SECONDS);
+
+        // then
+        assertArrayEquals("c2lnbmF0dXJl".getBytes(), assertSuccessAndGet(result));
+        JsonNode request = receivedRequest.get();
+        assertEquals("ZGlnZXN0", request.get("data").asText());
+        assertEquals("key", request.get("metaData").get("ALIAS").asText());
+        assertEquals("NONE", request.get("encoding").asText());
+        assertTrue(receivedAuthorization.get().startsWith("Basic "));
+    }
+
+    @Test
+    void processAsyncKeepsSeveralCallsInFlight() throws Exception {
+        // given
+        int calls = 5;
+        CountDownLatch allReceived = new CountDownLatch(calls);
+        server.createContext("/rest/v1/workers/Worker/process", exchange -> {
+            allReceived.countDown();
+            try {
+                // responds only once all the calls have been sent
+                allReceived.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] response = "{\"data\": \"c2lnbmF0dXJl\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        });
+
+        // when
+        List<CompletableFuture<Result<byte[], TextError>>> futures = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            futures.add(client.processAsync("Worker", "ZGlnZXN0".getBytes(), Map.of(),
+                                            SignserverProcessEncoding.NONE
+            ));
+        }
+
+        // then
+        for (var future : futures) {
+            assertSuccessAndGet(future.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(0, allReceived.getCount());
+    }
+
+    @Test
+    void processAsyncDoesNotRetryErrorResponse() throws Exception {
+        // given
+        respondWith(500, "{\"error\": \"failure\"}");
+
+        // when
+        Result<byte[], TextError> result = client.processAsync(
+                "Worker", new byte[]{1}, Map.of(), SignserverProcessEncoding.NONE
+        ).get(10, TimeUnit.SECONDS);
+
+        // then
+        assertErrorContains(result, "Processing failed on worker Worker");
+        assertEquals(1, receivedRequests.get());
+    }
+
+    @Test
+    void processAsyncRetriesServiceUnavailableResponse() throws Exception {
+        // given
+        respondWith(503, "{\"error\": \"overloaded\"}");
+
+        // when
+        Result<byte[], TextError> result = client.processAsync(
+                "Worker", new byte[]{1}, Map.of(), SignserverProcessEncoding.NONE
+        ).get(10, TimeUnit.SECONDS);
+
+        // then
+        assertErrorContains(result, "Processing failed on worker Worker");
+        assertTrue(receivedRequests.get() > 1);
+    }
+
+    @Test
+    void processAsyncFailsAfterRetriesWhenSignserverIsUnreachable() throws Exception {
+        // given
+        int port = server.getAddress().getPort();
+        server.stop(0);
+        client = aClient("http://127.0.0.1:" + port);
+
+        // when
+        Result<byte[], TextError> result = client.processAsync(
+                "Worker", new byte[]{1}, Map.of(), SignserverProcessEncoding.NONE
+        ).get(10, TimeUnit.SECONDS);
+
+        // then
+        assertErrorContains(result, "Processing failed on worker Worker");
+    }
+
+    @Test
+    void processAsyncFailsOverToAnotherNodeWhenNodeIsUnreachable() throws Exception {
+        // given
+        respondWith(200, "{\"data\": \"c2lnbmF0dXJl\"}");
+        client = aClient(UNREACHABLE_URL, "http://127.0.0.1:" + server.getAddress().getPort());
+
+        // when
+        List<CompletableFuture<Result<byte[], TextError>>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(client.processAsync("Worker", "ZGlnZXN0".getBytes(), Map.of(),
+                                            SignserverProcessEncoding.NONE
+            ));
+        }
+
+        // then
+        for (var future : futures) {
+            assertArrayEquals("c2lnbmF0dXJl".getBytes(), assertSuccessAndGet(future.get(10, TimeUnit.SECONDS)));
+        }
+        assertEquals(5, receivedRequests.get());
+    }
+
+    private SignserverAsyncRestClient aClient(String... urls) {
+        return new SignserverAsyncRestClient(new SignserverNodes(List.of(urls), Duration.ofSeconds(5)),
+                                             SignApiAuthorization.BASIC, "user", "password", httpClient,
+                                             objectMapper, retryPolicy
+        );
+    }
+
+    private void respondWith(int status, String body) {
+        server.createContext("/rest/v1/workers/Worker/process", exchange -> {
+            receivedRequests.incrementAndGet();
+            receivedRequest.set(objectMapper.readTree(exchange.getRequestBody()));
+            receivedAuthorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            byte[] response = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        });
+    }
+}
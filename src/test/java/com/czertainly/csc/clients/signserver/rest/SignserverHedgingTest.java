@@ -0,0 +1,236 @@
+package com.czertainly.csc.clients.signserver.rest;
+
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccessAndGet;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignserverHedgingTest {
+
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void doesNotHedgeWithoutRecentLatencies() {
+        // given
+        SignserverHedging hedging = aHedging(1.0);
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        Result<String, TextError> result = hedging.execute(usedNodes -> {
+            calls.incrementAndGet();
+            sleep(50);
+            return Result.success("signature");
+        });
+
+        // then
+        assertEquals("signature", assertSuccessAndGet(result));
+        assertEquals(1, calls.get());
+        assertEquals(0, hedges("sent"));
+    }
+
+    @Test
+    void slowCallIsHedgedAndFirstSuccessIsUsed() {
+        // given
+        SignserverHedging hedging = aHedging(1.0);
+        warmUp(hedging);
+        AtomicInteger calls = new AtomicInteger();
+        AtomicBoolean slowCallInterrupted = new AtomicBoolean();
+
+        // when
+        Result<String, TextError> result = hedging.execute(usedNodes -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    slowCallInterrupted.set(true);
+                }
+                return Result.success("slow");
+            }
+            return Result.success("hedge");
+        });
+
+        // then
+        assertEquals("hedge", assertSuccessAndGet(result));
+        assertEquals(1, hedges("sent"));
+        assertEquals(1, hedges("won"));
+        awaitTrue(slowCallInterrupted);
+    }
+
+    @Test
+    void hedgeDoesNotUseNodesUsedByTheCall() {
+        // given
+        SignserverNodes nodes = new SignserverNodes(List.of("https://a", "https://b"), Duration.ofSeconds(5));
+        SignserverHedging hedging = aHedging(1.0);
+        warmUp(hedging);
+        CountDownLatch hedged = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Map<Integer, SignserverNodes.Node> usedByCall = new ConcurrentHashMap<>();
+
+        // when
+        Result<String, TextError> result = hedging.execute(usedNodes -> {
+            int call = calls.incrementAndGet();
+            SignserverNodes.Node node = nodes.select(usedNodes).orElseThrow();
+            usedNodes.add(node);
+            usedByCall.put(call, node);
+            if (call == 1) {
+                try {
+                    hedged.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Result.error(TextError.of("cancelled"));
+            }
+            hedged.countDown();
+            return Result.success("hedge");
+        });
+
+        // then
+        assertEquals("hedge", assertSuccessAndGet(result));
+        assertNotEquals(usedByCall.get(1), usedByCall.get(2));
+    }
+
+    @Test
+    void doesNotHedgeOverBudget() {
+        // given
+        SignserverHedging hedging = aHedging(0.0);
+        warmUp(hedging);
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        Result<String, TextError> result = hedging.execute(usedNodes -> {
+            calls.incrementAndGet();
+            sleep(100);
+            return Result.success("signature");
+        });
+
+        // then
+        assertEquals("signature", assertSuccessAndGet(result));
+        assertEquals(1, calls.get());
+        assertEquals(0, hedges("sent"));
+        assertEquals(1, hedges("over_budget"));
+    }
+
+    @Test
+    void usesHedgeWhenFirstCallFails() {
+        // given
+        SignserverHedging hedging = aHedging(1.0);
+        warmUp(hedging);
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        Result<String, TextError> result = hedging.execute(usedNodes -> {
+            if (calls.incrementAndGet() == 1) {
+                sleep(100);
+                return Result.error(TextError.of("Processing failed"));
+            }
+            sleep(300);
+            return Result.success("hedge");
+        });
+
+        // then
+        assertEquals("hedge", assertSuccessAndGet(result));
+        assertEquals(1, hedges("won"));
+    }
+
+    @Test
+    void returnsErrorOfTheCallWhenBothFail() {
+        // given
+        SignserverHedging hedging = aHedging(1.0);
+        warmUp(hedging);
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        Result<String, TextError> result = hedging.execute(usedNodes -> {
+            if (calls.incrementAndGet() == 1) {
+                sleep(300);
+                return Result.error(TextError.of("Call failed"));
+            }
+            return Result.error(TextError.of("Hedge failed"));
+        });
+
+        // then
+        assertErrorContains(result, "Call failed");
+    }
+
+    @Test
+    void cancelledCallsAreRecordedAsLowerBoundOfTheLatency() throws InterruptedException {
+        // given
+        SignserverHedging hedging = aHedging(1.0);
+        for (int i = 0; i < 20; i++) {
+            Thread caller = Thread.ofVirtual().start(() -> hedging.execute(usedNodes -> {
+                sleep(10_000);
+                return Result.success("signature");
+            }));
+            Thread.sleep(20);
+            caller.interrupt();
+            caller.join();
+        }
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        Result<String, TextError> result = hedging.execute(usedNodes -> {
+            if (calls.incrementAndGet() == 1) {
+                sleep(10_000);
+                return Result.success("slow");
+            }
+            return Result.success("hedge");
+        });
+
+        // then
+        assertEquals("hedge", assertSuccessAndGet(result));
+        assertEquals(1, hedges("sent"));
+    }
+
+    private SignserverHedging aHedging(double budget) {
+        return new SignserverHedging(true, 0.5, budget, executor, meterRegistry);
+    }
+
+    // Fast calls to set the hedge delay to a few milliseconds
+    private void warmUp(SignserverHedging hedging) {
+        for (int i = 0; i < 20; i++) {
+            hedging.execute(usedNodes -> Result.success("signature"));
+        }
+    }
+
+    private double hedges(String outcome) {
+        return meterRegistry.get("csc.signserver.hedging.hedges").tag("outcome", outcome).counter().count();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitTrue(AtomicBoolean condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.get() && System.nanoTime() < deadline) {
+            sleep(10);
+        }
+        assertTrue(condition.get());
+    }
+}
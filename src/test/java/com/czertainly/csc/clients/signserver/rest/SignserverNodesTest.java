@@ -0,0 +1,126 @@
+package com.czertainly.csc.clients.signserver.rest;
+
+import org.apache.hc.client5.http.HttpHostConnectException;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignserverNodesTest {
+
+    @Test
+    void selectsNodeWithLowerLatency() throws InterruptedException {
+        // given
+        SignserverNodes nodes = new SignserverNodes(List.of("https://fast", "https://slow"), Duration.ofSeconds(5));
+        SignserverNodes.Node fast = node(nodes, "https://fast");
+        SignserverNodes.Node slow = node(nodes, "https://slow");
+        fast.callCompleted(fast.callStarted());
+        long slowStartedAt = slow.callStarted();
+        Thread.sleep(20);
+        slow.callCompleted(slowStartedAt);
+
+        // when
+        Optional<SignserverNodes.Node> selected = nodes.select(Set.of());
+
+        // then
+        assertEquals(Optional.of(fast), selected);
+    }
+
+    @Test
+    void abandonedCallDoesNotChangeLatencyOfTheNode() throws InterruptedException {
+        // given
+        SignserverNodes nodes = new SignserverNodes(List.of("https://a", "https://b"), Duration.ofSeconds(5));
+        SignserverNodes.Node abandoned = node(nodes, "https://a");
+        SignserverNodes.Node slow = node(nodes, "https://b");
+        abandoned.callCompleted(abandoned.callStarted());
+        abandoned.callStarted();
+        long slowStartedAt = slow.callStarted();
+        Thread.sleep(20);
+        abandoned.callAbandoned();
+        slow.callCompleted(slowStartedAt);
+
+        // when
+        Optional<SignserverNodes.Node> selected = nodes.select(Set.of());
+
+        // then
+        assertEquals(Optional.of(abandoned), selected);
+    }
+
+    @Test
+    void selectsNodeWithFewerCallsInFlight() {
+        // given
+        SignserverNodes nodes = new SignserverNodes(List.of("https://busy", "https://idle"), Duration.ofSeconds(5));
+        SignserverNodes.Node busy = node(nodes, "https://busy");
+        busy.callStarted();
+        busy.callStarted();
+
+        // when
+        Optional<SignserverNodes.Node> selected = nodes.select(Set.of());
+
+        // then
+        assertEquals(Optional.of(node(nodes, "https://idle")), selected);
+    }
+
+    @Test
+    void doesNotSelectNodeThatFailedToConnect() {
+        // given
+        SignserverNodes nodes = new SignserverNodes(List.of("https://a", "https://b", "https://c"),
+                                                    Duration.ofMinutes(1)
+        );
+        SignserverNodes.Node failed = node(nodes, "https://a");
+        failed.callStarted();
+        failed.callFailed();
+
+        // when & then
+        for (int i = 0; i < 20; i++) {
+            assertNotEquals(failed, nodes.select(Set.of()).orElseThrow());
+        }
+    }
+
+    @Test
+    void selectsFailedNodeWhenNoOtherNodeIsLeft() {
+        // given
+        SignserverNodes nodes = new SignserverNodes(List.of("https://a", "https://b"), Duration.ofMinutes(1));
+        SignserverNodes.Node failed = node(nodes, "https://a");
+        failed.callStarted();
+        failed.callFailed();
+
+        // when
+        Optional<SignserverNodes.Node> selected = nodes.select(Set.of(node(nodes, "https://b")));
+
+        // then
+        assertEquals(Optional.of(failed), selected);
+    }
+
+    @Test
+    void selectsNothingWhenAllNodesAreExcluded() {
+        // given
+        SignserverNodes nodes = new SignserverNodes(List.of("https://a", "https://b"), Duration.ofMinutes(1));
+
+        // when
+        Optional<SignserverNodes.Node> selected = nodes.select(Set.copyOf(nodes.all()));
+
+        // then
+        assertTrue(selected.isEmpty());
+    }
+
+    @Test
+    void recognizesConnectionFailures() {
+        assertTrue(SignserverNodes.isConnectionFailure(
+                new ResourceAccessException("I/O error", new HttpHostConnectException("Connection refused"))));
+        assertFalse(SignserverNodes.isConnectionFailure(
+                new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out"))));
+        assertFalse(SignserverNodes.isConnectionFailure(new IOException("Connection reset")));
+    }
+
+    private static SignserverNodes.Node node(SignserverNodes nodes, String url) {
+        return nodes.all().stream().filter(node -> node.url().equals(url)).findFirst().orElseThrow();
+    }
+}
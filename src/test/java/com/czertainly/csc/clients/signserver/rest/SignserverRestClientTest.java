@@ -0,0 +1,177 @@
+package com.czertainly.csc.clients.signserver.rest;
+
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.configuration.SignApiAuthorization;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccess;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccessAndGet;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignserverRestClientTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    HttpServer server;
+    SignserverRestClient client;
+    AtomicReference<JsonNode> receivedRequest = new AtomicReference<>();
+    AtomicInteger receivedRequests = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.start();
+        client = aClient("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void processStreamingEncodesDataAndDecodesResponseData() {
+        // given
+        byte[] document = "document".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+        byte[] signature = "signature".getBytes(StandardCharsets.UTF_8);
+        respondWith(200, """
+                {"requestId": "1", "data": "%s", "metaData": {"a": "b"}}
+                """.formatted(Base64.getEncoder().encodeToString(signature)));
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+
+        // when
+        Result<Void, TextError> result = client.processStreaming("Worker", new ByteArrayResource(document),
+                                                                 Map.of("ALIAS", "key"), () -> sink
+        );
+
+        // then
+        assertSuccess(result);
+        assertArrayEquals(signature, sink.toByteArray());
+        JsonNode request = receivedRequest.get();
+        assertArrayEquals(document, Base64.getDecoder().decode(request.get("data").asText()));
+        assertEquals("key", request.get("metaData").get("ALIAS").asText());
+        assertEquals("BASE64", request.get("encoding").asText());
+    }
+
+    @Test
+    void processStreamingFailsWhenWorkerRespondsWithError() {
+        // given
+        respondWith(500, "{\"error\": \"failure\"}");
+
+        // when
+        Result<Void, TextError> result = client.processStreaming("Worker", new ByteArrayResource(new byte[]{1}),
+                                                                 Map.of(), ByteArrayOutputStream::new
+        );
+
+        // then
+        assertErrorContains(result, "Processing failed on worker Worker");
+    }
+
+    @Test
+    void processFailsOverToAnotherNodeWhenNodeIsUnreachable() {
+        // given
+        respondWith(200, "{\"data\": \"c2lnbmF0dXJl\"}");
+        client = aClient(SignserverAsyncRestClientTest.UNREACHABLE_URL, "http://127.0.0.1:" + server.getAddress().getPort());
+
+        // when
+        List<Result<byte[], TextError>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(client.process("Worker", "ZGlnZXN0".getBytes(), Map.of(), SignserverProcessEncoding.NONE));
+        }
+
+        // then
+        for (var result : results) {
+            assertArrayEquals("c2lnbmF0dXJl".getBytes(), assertSuccessAndGet(result));
+        }
+        assertEquals(5, receivedRequests.get());
+    }
+
+    @Test
+    void processFailsWhenNoNodeIsReachable() {
+        // given
+        client = aClient(SignserverAsyncRestClientTest.UNREACHABLE_URL, "http://127.0.0.1:2");
+
+        // when
+        var result = client.process("Worker", "ZGlnZXN0".getBytes(), Map.of(), SignserverProcessEncoding.NONE);
+
+        // then
+        assertErrorContains(result, "Processing failed on worker Worker");
+    }
+
+    @Test
+    void checkHealthCallsEveryNode() throws IOException {
+        // given
+        HttpServer otherServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        otherServer.start();
+        AtomicInteger healthChecks = new AtomicInteger();
+        for (HttpServer node : List.of(server, otherServer)) {
+            node.createContext("/healthcheck/signserverhealth", exchange -> {
+                healthChecks.incrementAndGet();
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            });
+        }
+        client = aClient("http://127.0.0.1:" + server.getAddress().getPort(),
+                         "http://127.0.0.1:" + otherServer.getAddress().getPort()
+        );
+
+        // when
+        Result<Void, TextError> result;
+        try {
+            result = client.checkHealth();
+        } finally {
+            otherServer.stop(0);
+        }
+
+        // then
+        assertSuccess(result);
+        assertEquals(2, healthChecks.get());
+    }
+
+    private SignserverRestClient aClient(String... urls) {
+        SignserverHedging hedging = new SignserverHedging(false, 0.95, 0.05,
+                                                          Executors.newVirtualThreadPerTaskExecutor(),
+                                                          new SimpleMeterRegistry()
+        );
+        return new SignserverRestClient(new SignserverNodes(List.of(urls), Duration.ofSeconds(5)), hedging,
+                                        SignApiAuthorization.BASIC, "user", "password",
+                                        new HttpComponentsClientHttpRequestFactory(), objectMapper
+        );
+    }
+
+    private void respondWith(int status, String body) {
+        server.createContext("/rest/v1/workers/Worker/process", exchange -> {
+            receivedRequests.incrementAndGet();
+            receivedRequest.set(objectMapper.readTree(exchange.getRequestBody()));
+            byte[] response = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.czertainly.csc.clients.signserver.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Utf8StringBytesTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void dataIsWrittenAsTheStringItHolds() throws IOException {
+        // given
+        WorkerProcessRequest request = new WorkerProcessRequest(
+                "ZGlnZXN0".getBytes(StandardCharsets.UTF_8), Map.of(), SignserverProcessEncoding.NONE
+        );
+
+        // when
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsBytes(request));
+
+        // then
+        assertEquals("ZGlnZXN0", json.get("data").asText());
+    }
+
+    @Test
+    void dataNeedingEscapingIsWrittenAsValidJson() throws IOException {
+        // given
+        String data = "\"quoted\" \\ \n čřž";
+        WorkerProcessRequest request = new WorkerProcessRequest(
+                data.getBytes(StandardCharsets.UTF_8), Map.of(), SignserverProcessEncoding.NONE
+        );
+
+        // when
+        WorkerProcessRequest read = objectMapper.readValue(objectMapper.writeValueAsBytes(request),
+                                                           WorkerProcessRequest.class
+        );
+
+        // then
+        assertArrayEquals(data.getBytes(StandardCharsets.UTF_8), read.data());
+    }
+
+    @Test
+    void dataIsReadAsTheBytesOfTheString() throws IOException {
+        // when
+        WorkerProcessResponse response = objectMapper.readValue(
+                "{\"data\": \"c2lnbmF0dXJl\", \"requestId\": \"1\", \"metaData\": {}}", WorkerProcessResponse.class
+        );
+
+        // then
+        assertArrayEquals("c2lnbmF0dXJl".getBytes(StandardCharsets.UTF_8), response.data());
+    }
+}
@@ -0,0 +1,105 @@
+package com.czertainly.csc.common.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiringCacheTest {
+
+    @Test
+    void returnsCachedValue() {
+        // given
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        cache.put("key", "value");
+
+        // when
+        Optional<String> value = cache.get("key");
+
+        // then
+        assertEquals(Optional.of("value"), value);
+    }
+
+    @Test
+    void doesNotReturnExpiredValue() {
+        // given
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), clock);
+        cache.put("key", "value");
+        clock.advance(Duration.ofMinutes(2));
+
+        // when
+        Optional<String> value = cache.get("key");
+
+        // then
+        assertTrue(value.isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntryWhenFull() {
+        // given
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, Duration.ofMinutes(1));
+        cache.put("first", "1");
+        cache.put("second", "2");
+        cache.get("first");
+
+        // when
+        cache.put("third", "3");
+
+        // then
+        assertEquals(Optional.of("1"), cache.get("first"));
+        assertTrue(cache.get("second").isEmpty());
+        assertEquals(Optional.of("3"), cache.get("third"));
+    }
+
+    @Test
+    void invalidatesMatchingEntries() {
+        // given
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        cache.put("a-1", "1");
+        cache.put("a-2", "2");
+        cache.put("b-1", "3");
+
+        // when
+        cache.invalidateIf(key -> key.startsWith("a-"));
+
+        // then
+        assertEquals(1, cache.size());
+        assertEquals(Optional.of("3"), cache.get("b-1"));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
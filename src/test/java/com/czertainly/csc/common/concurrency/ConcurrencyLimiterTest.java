@@ -0,0 +1,144 @@
+package com.czertainly.csc.common.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    AtomicLong clock = new AtomicLong();
+
+    @Test
+    void permitsAreGrantedUpToLimit() throws InterruptedException {
+        // given
+        ConcurrencyLimiter limiter = aLimiter(2, 10, Duration.ofMillis(50), false);
+        limiter.tryAcquire().orElseThrow();
+        limiter.tryAcquire().orElseThrow();
+
+        // when
+        Optional<ConcurrencyLimiter.Permit> permit = limiter.tryAcquire();
+
+        // then
+        assertTrue(permit.isEmpty());
+        assertEquals(2, limiter.inFlight());
+        assertEquals(0, limiter.queued());
+    }
+
+    @Test
+    void requestIsRejectedImmediatelyWhenQueueIsFull() throws InterruptedException {
+        // given
+        ConcurrencyLimiter limiter = aLimiter(1, 0, Duration.ofSeconds(10), false);
+        limiter.tryAcquire().orElseThrow();
+
+        // when
+        long start = System.nanoTime();
+        Optional<ConcurrencyLimiter.Permit> permit = limiter.tryAcquire();
+
+        // then
+        assertTrue(permit.isEmpty());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+    }
+
+    @Test
+    void queuedRequestIsAdmittedWhenPermitIsReleased() throws Exception {
+        // given
+        ConcurrencyLimiter limiter = aLimiter(1, 10, Duration.ofSeconds(10), false);
+        ConcurrencyLimiter.Permit first = limiter.tryAcquire().orElseThrow();
+        CompletableFuture<Optional<ConcurrencyLimiter.Permit>> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.tryAcquire();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        // when
+        first.close();
+
+        // then
+        assertTrue(second.get(10, TimeUnit.SECONDS).isPresent());
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    void closingPermitRepeatedlyReleasesItOnce() throws InterruptedException {
+        // given
+        ConcurrencyLimiter limiter = aLimiter(2, 10, Duration.ZERO, false);
+        limiter.tryAcquire().orElseThrow();
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire().orElseThrow();
+
+        // when
+        permit.close();
+        permit.close();
+
+        // then
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    void limitGrowsWhileLatencyIsStable() throws InterruptedException {
+        // given
+        ConcurrencyLimiter limiter = aLimiter(10, 10, Duration.ZERO, true);
+
+        // when
+        runFullyUtilized(limiter, 20, 1_000_000);
+
+        // then
+        assertTrue(limiter.limit() > 10);
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRises() throws InterruptedException {
+        // given
+        ConcurrencyLimiter limiter = aLimiter(10, 10, Duration.ZERO, true);
+        runFullyUtilized(limiter, 5, 1_000_000);
+        int limitBeforeOverload = limiter.limit();
+
+        // when
+        runFullyUtilized(limiter, 5, 10_000_000);
+
+        // then
+        assertTrue(limiter.limit() < limitBeforeOverload);
+    }
+
+    @Test
+    void limitIsNotChangedWhenNotAdaptive() throws InterruptedException {
+        // given
+        ConcurrencyLimiter limiter = aLimiter(10, 10, Duration.ZERO, false);
+
+        // when
+        runFullyUtilized(limiter, 5, 1_000_000);
+        runFullyUtilized(limiter, 5, 10_000_000);
+
+        // then
+        assertEquals(10, limiter.limit());
+    }
+
+    /*
+     * Runs rounds of as many operations as the limit allows, each taking the given latency.
+     */
+    private void runFullyUtilized(ConcurrencyLimiter limiter, int rounds, long latency)
+            throws InterruptedException {
+        for (int round = 0; round < rounds; round++) {
+            List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            Optional<ConcurrencyLimiter.Permit> permit;
+            while ((permit = limiter.tryAcquire()).isPresent()) {
+                permits.add(permit.get());
+            }
+            clock.addAndGet(latency);
+            permits.forEach(ConcurrencyLimiter.Permit::close);
+        }
+    }
+
+    private ConcurrencyLimiter aLimiter(int limit, int maxQueueSize, Duration queueTimeout, boolean adaptive) {
+        return new ConcurrencyLimiter(limit, 1, 100, maxQueueSize, queueTimeout, adaptive, 1.5, clock::get);
+    }
+}
@@ -0,0 +1,87 @@
+package com.czertainly.csc.common.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryBudgetTest {
+
+    MemoryBudget memoryBudget = new MemoryBudget(100);
+
+    @Test
+    void reservationIsAccountedUntilClosed() throws InterruptedException {
+        // given
+        MemoryBudget.Reservation reservation = memoryBudget.tryReserve(60, Duration.ZERO).orElseThrow();
+
+        // when
+        long usedBeforeClose = memoryBudget.used();
+        reservation.close();
+
+        // then
+        assertEquals(60, usedBeforeClose);
+        assertEquals(0, memoryBudget.used());
+    }
+
+    @Test
+    void closingReservationRepeatedlyReleasesItOnce() throws InterruptedException {
+        // given
+        memoryBudget.tryReserve(30, Duration.ZERO).orElseThrow();
+        MemoryBudget.Reservation reservation = memoryBudget.tryReserve(40, Duration.ZERO).orElseThrow();
+
+        // when
+        reservation.close();
+        reservation.close();
+
+        // then
+        assertEquals(30, memoryBudget.used());
+    }
+
+    @Test
+    void reservationExceedingBudgetIsNotGrantedAfterTimeout() throws InterruptedException {
+        // given
+        memoryBudget.tryReserve(60, Duration.ZERO).orElseThrow();
+
+        // when
+        Optional<MemoryBudget.Reservation> reservation = memoryBudget.tryReserve(50, Duration.ofMillis(50));
+
+        // then
+        assertTrue(reservation.isEmpty());
+        assertEquals(60, memoryBudget.used());
+    }
+
+    @Test
+    void waitingReservationIsGrantedWhenBudgetIsReleased() throws Exception {
+        // given
+        MemoryBudget.Reservation first = memoryBudget.tryReserve(60, Duration.ZERO).orElseThrow();
+        CompletableFuture<Optional<MemoryBudget.Reservation>> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return memoryBudget.tryReserve(50, Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        // when
+        first.close();
+
+        // then
+        assertTrue(second.get(10, TimeUnit.SECONDS).isPresent());
+        assertEquals(50, memoryBudget.used());
+    }
+
+    @Test
+    void reservationLargerThanBudgetIsLimitedToBudget() throws InterruptedException {
+        // when
+        Optional<MemoryBudget.Reservation> reservation = memoryBudget.tryReserve(500, Duration.ZERO);
+
+        // then
+        assertTrue(reservation.isPresent());
+        assertEquals(100, reservation.get().amount());
+        assertEquals(100, memoryBudget.used());
+    }
+}
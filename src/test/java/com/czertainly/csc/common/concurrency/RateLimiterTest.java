@@ -0,0 +1,91 @@
+package com.czertainly.csc.common.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    AtomicLong clock = new AtomicLong();
+
+    @Test
+    void burstUpToCapacityIsPermitted() {
+        // given
+        RateLimiter limiter = new RateLimiter(3, 1, 10, clock::get);
+        limiter.tryAcquire("client");
+        limiter.tryAcquire("client");
+
+        // when
+        RateLimiter.Decision third = limiter.tryAcquire("client");
+        RateLimiter.Decision fourth = limiter.tryAcquire("client");
+
+        // then
+        assertTrue(third.permitted());
+        assertEquals(0, third.remaining());
+        assertFalse(fourth.permitted());
+    }
+
+    @Test
+    void rejectionTellsWhenTokenIsAvailable() {
+        // given
+        RateLimiter limiter = new RateLimiter(1, 2, 10, clock::get);
+        limiter.tryAcquire("client");
+        clock.addAndGet(Duration.ofMillis(200).toNanos());
+
+        // when
+        RateLimiter.Decision decision = limiter.tryAcquire("client");
+
+        // then
+        assertFalse(decision.permitted());
+        assertEquals(Duration.ofMillis(300), decision.retryAfter());
+    }
+
+    @Test
+    void bucketIsRefilledOverTime() {
+        // given
+        RateLimiter limiter = new RateLimiter(2, 2, 10, clock::get);
+        limiter.tryAcquire("client");
+        limiter.tryAcquire("client");
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        // when
+        RateLimiter.Decision decision = limiter.tryAcquire("client");
+
+        // then
+        assertTrue(decision.permitted());
+        assertEquals(1, decision.remaining());
+    }
+
+    @Test
+    void keysAreLimitedSeparately() {
+        // given
+        RateLimiter limiter = new RateLimiter(1, 1, 10, clock::get);
+        limiter.tryAcquire("first");
+
+        // when
+        RateLimiter.Decision decision = limiter.tryAcquire("second");
+
+        // then
+        assertTrue(decision.permitted());
+        assertEquals(2, limiter.keys());
+    }
+
+    @Test
+    void leastRecentlyUsedKeysAreForgotten() {
+        // given
+        RateLimiter limiter = new RateLimiter(1, 1, 2, clock::get);
+        limiter.tryAcquire("first");
+        limiter.tryAcquire("second");
+        limiter.tryAcquire("third");
+
+        // when
+        RateLimiter.Decision decision = limiter.tryAcquire("first");
+
+        // then
+        assertTrue(decision.permitted());
+        assertEquals(2, limiter.keys());
+    }
+}
@@ -0,0 +1,115 @@
+package com.czertainly.csc.common.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightedFairSchedulerTest {
+
+    enum Priority {HIGH, LOW}
+
+    @Test
+    void reservedCapacityIsKeptFreeForItsClass() throws InterruptedException {
+        // given
+        var scheduler = aScheduler(3, 1, 1);
+        scheduler.tryAcquire(Priority.LOW, Duration.ZERO).orElseThrow();
+        scheduler.tryAcquire(Priority.LOW, Duration.ZERO).orElseThrow();
+
+        // when
+        var low = scheduler.tryAcquire(Priority.LOW, Duration.ofMillis(50));
+        var high = scheduler.tryAcquire(Priority.HIGH, Duration.ZERO);
+
+        // then
+        assertTrue(low.isEmpty());
+        assertTrue(high.isPresent());
+    }
+
+    @Test
+    void classCanUseCapacityNotReservedForOthers() throws InterruptedException {
+        // given
+        var scheduler = aScheduler(3, 1, 1);
+
+        // when
+        List<Optional<WeightedFairScheduler<Priority>.Permit>> permits = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            permits.add(scheduler.tryAcquire(Priority.HIGH, Duration.ZERO));
+        }
+
+        // then
+        assertTrue(permits.stream().allMatch(Optional::isPresent));
+        assertEquals(3, scheduler.inFlight(Priority.HIGH));
+    }
+
+    @Test
+    void releasedPermitCanBeAcquiredAgain() throws InterruptedException {
+        // given
+        var scheduler = aScheduler(2, 1, 1);
+        var permit = scheduler.tryAcquire(Priority.LOW, Duration.ZERO).orElseThrow();
+
+        // when
+        permit.close();
+        permit.close();
+        var next = scheduler.tryAcquire(Priority.LOW, Duration.ZERO);
+
+        // then
+        assertTrue(next.isPresent());
+        assertEquals(1, scheduler.inFlight(Priority.LOW));
+    }
+
+    @Test
+    void waitingClassesAreAdmittedInProportionToWeights() throws Exception {
+        // given
+        var scheduler = new WeightedFairScheduler<>(Priority.class, 1, Map.of(Priority.HIGH, 3, Priority.LOW, 1),
+                                                    Map.of()
+        );
+        var occupying = scheduler.tryAcquire(Priority.LOW, Duration.ZERO).orElseThrow();
+        List<Priority> admitted = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> waiters = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            waiters.add(startWaiter(scheduler, Priority.HIGH, admitted));
+            waiters.add(startWaiter(scheduler, Priority.LOW, admitted));
+        }
+        while (scheduler.queued(Priority.HIGH) < 6 || scheduler.queued(Priority.LOW) < 6) {
+            Thread.sleep(5);
+        }
+
+        // when
+        occupying.close();
+        for (Thread waiter : waiters) {
+            waiter.join(10_000);
+        }
+
+        // then
+        assertEquals(12, admitted.size());
+        List<Priority> firstEight = admitted.subList(0, 8);
+        assertTrue(Collections.frequency(firstEight, Priority.HIGH) >= 5);
+        assertTrue(Collections.frequency(firstEight, Priority.LOW) >= 1);
+    }
+
+    private Thread startWaiter(WeightedFairScheduler<Priority> scheduler, Priority priority,
+                               List<Priority> admitted
+    ) {
+        return Thread.ofVirtual().start(() -> {
+            try {
+                var permit = scheduler.tryAcquire(priority, Duration.ofSeconds(10)).orElseThrow();
+                admitted.add(priority);
+                permit.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private WeightedFairScheduler<Priority> aScheduler(int capacity, int highReserved, int highWeight) {
+        return new WeightedFairScheduler<>(Priority.class, capacity, Map.of(Priority.HIGH, highWeight),
+                                           Map.of(Priority.HIGH, highReserved)
+        );
+    }
+}
@@ -0,0 +1,173 @@
+package com.czertainly.csc.common.http;
+
+import com.czertainly.csc.common.deadline.Deadline;
+import com.czertainly.csc.common.deadline.DeadlineExceededException;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.HttpRequestInterceptor;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineExecInterceptorTest {
+
+    RequestConfig defaultConfig = RequestConfig.custom().setResponseTimeout(Timeout.ofSeconds(30)).build();
+    AtomicInteger requests = new AtomicInteger();
+    HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/slow", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.createContext("/fast", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void responseIsAwaitedOnlyUntilDeadline() throws IOException {
+        // given
+        try (CloseableHttpClient httpClient = aClient();
+             var ignored = Deadline.after(Duration.ofMillis(200)).bind()) {
+            long start = System.nanoTime();
+
+            // when & then
+            assertThrows(InterruptedIOException.class, () -> execute(httpClient, "/slow"));
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(3)) < 0);
+        }
+    }
+
+    @Test
+    void requestIsNotSentWhenDeadlineExpired() throws IOException {
+        // given
+        try (CloseableHttpClient httpClient = aClient();
+             var ignored = Deadline.after(Duration.ZERO).bind()) {
+
+            // when & then
+            assertThrows(DeadlineExceededException.class, () -> execute(httpClient, "/fast"));
+            assertEquals(0, requests.get());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void connectionIsAwaitedOnlyUntilDeadline() throws IOException {
+        // given
+        AtomicReference<Timeout> connectTimeout = new AtomicReference<>();
+        HttpRequestInterceptor connectTimeoutCapture = (request, entity, context) -> connectTimeout.set(
+                HttpClientContext.cast(context).getRequestConfigOrDefault().getConnectTimeout());
+        try (CloseableHttpClient httpClient = HttpClients.custom()
+                                                         .setDefaultRequestConfig(defaultConfig)
+                                                         .addExecInterceptorFirst(DeadlineExecInterceptor.NAME,
+                                                                                  new DeadlineExecInterceptor()
+                                                         )
+                                                         .addRequestInterceptorLast(connectTimeoutCapture)
+                                                         .build();
+             var ignored = Deadline.after(Duration.ofSeconds(2)).bind()) {
+
+            // when
+            execute(httpClient, "/fast");
+
+            // then
+            assertNotNull(connectTimeout.get());
+            assertTrue(connectTimeout.get().toMilliseconds() <= 2_000);
+        }
+    }
+
+    @Test
+    void requestWithoutDeadlineUsesConfiguredTimeouts() throws IOException {
+        // given
+        try (CloseableHttpClient httpClient = aClient()) {
+
+            // when
+            int status = execute(httpClient, "/fast");
+
+            // then
+            assertEquals(204, status);
+        }
+    }
+
+    @Test
+    void asyncClientTakesDeadlineFromContext() throws Exception {
+        // given
+        try (CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom()
+                                                                   .setDefaultRequestConfig(defaultConfig)
+                                                                   .addExecInterceptorFirst(
+                                                                           DeadlineExecInterceptor.NAME,
+                                                                           new DeadlineExecInterceptor()
+                                                                   )
+                                                                   .build()) {
+            httpClient.start();
+            HttpClientContext context = HttpClientContext.create();
+            context.setAttribute(DeadlineExecInterceptor.DEADLINE_ATTRIBUTE, Deadline.after(Duration.ofMillis(200)));
+
+            // when
+            Future<SimpleHttpResponse> response = httpClient.execute(
+                    SimpleRequestBuilder.get(url("/slow")).build(), context, null
+            );
+
+            // then
+            ExecutionException e = assertThrows(ExecutionException.class, () -> response.get(3, TimeUnit.SECONDS));
+            assertInstanceOf(InterruptedIOException.class, e.getCause());
+        }
+    }
+
+    private CloseableHttpClient aClient() {
+        return HttpClients.custom()
+                          .setDefaultRequestConfig(defaultConfig)
+                          .addExecInterceptorFirst(DeadlineExecInterceptor.NAME, new DeadlineExecInterceptor())
+                          .build();
+    }
+
+    private int execute(CloseableHttpClient httpClient, String path) throws IOException {
+        return httpClient.execute(new HttpGet(url(path)), response -> {
+            EntityUtils.consume(response.getEntity());
+            return response.getCode();
+        });
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+}
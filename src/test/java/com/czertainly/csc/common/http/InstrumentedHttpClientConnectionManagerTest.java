@@ -0,0 +1,78 @@
+package com.czertainly.csc.common.http;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InstrumentedHttpClientConnectionManagerTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void exportsStateOfThePoolAndLeaseWaitTime() throws IOException {
+        // given
+        var connectionManager = new InstrumentedHttpClientConnectionManager(
+                "backend", new DefaultClientTlsStrategy(SSLContexts.createDefault()), meterRegistry
+        );
+        connectionManager.setMaxTotal(7);
+
+        // when
+        try (CloseableHttpClient httpClient = HttpClients.custom().setConnectionManager(connectionManager).build()) {
+            for (int i = 0; i < 2; i++) {
+                httpClient.execute(new HttpGet("http://127.0.0.1:" + server.getAddress().getPort() + "/"),
+                                   response -> {
+                                       EntityUtils.consume(response.getEntity());
+                                       return null;
+                                   }
+                );
+            }
+
+            // then
+            Timer leaseWait = meterRegistry.get("csc.http.client.pool.lease.wait").tag("pool", "backend").timer();
+            assertEquals(2, leaseWait.count());
+            assertEquals(7, gauge("csc.http.client.pool.max", null).value());
+            assertEquals(0, gauge("csc.http.client.pool.connections", "leased").value());
+            assertEquals(1, gauge("csc.http.client.pool.connections", "available").value());
+            assertEquals(0, gauge("csc.http.client.pool.connections", "pending").value());
+        }
+    }
+
+    private Gauge gauge(String name, String state) {
+        var search = meterRegistry.get(name).tag("pool", "backend");
+        if (state != null) {
+            search = search.tag("state", state);
+        }
+        return search.gauge();
+    }
+}
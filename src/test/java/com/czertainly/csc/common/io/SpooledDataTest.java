@@ -0,0 +1,103 @@
+package com.czertainly.csc.common.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpooledDataTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void dataUpToThresholdAreKeptInMemory() throws IOException {
+        // given
+        SpooledData data = new SpooledData(16, directory);
+
+        // when
+        write(data, new byte[16]);
+
+        // then
+        assertFalse(data.isSpooled());
+        assertEquals(16, data.size());
+        assertArrayEquals(new byte[16], data.toByteArray());
+        assertFileCount(0);
+    }
+
+    @Test
+    void dataOverThresholdAreSpooledToTemporaryFile() throws IOException {
+        // given
+        SpooledData data = new SpooledData(1024, directory);
+        byte[] bytes = randomBytes(10_000);
+
+        // when
+        write(data, bytes);
+
+        // then
+        assertTrue(data.isSpooled());
+        assertEquals(bytes.length, data.size());
+        assertFileCount(1);
+        try (InputStream first = data.getInputStream(); InputStream second = data.getInputStream()) {
+            assertArrayEquals(bytes, first.readAllBytes());
+            assertArrayEquals(bytes, second.readAllBytes());
+        }
+    }
+
+    @Test
+    void closeDeletesTemporaryFile() throws IOException {
+        // given
+        SpooledData data = new SpooledData(1024, directory);
+        write(data, randomBytes(10_000));
+
+        // when
+        data.close();
+
+        // then
+        assertFalse(data.isSpooled());
+        assertFileCount(0);
+    }
+
+    @Test
+    void openingStreamAgainReplacesData() throws IOException {
+        // given
+        SpooledData data = new SpooledData(1024, directory);
+        write(data, randomBytes(10_000));
+
+        // when
+        write(data, "signature".getBytes());
+
+        // then
+        assertFalse(data.isSpooled());
+        assertArrayEquals("signature".getBytes(), data.toByteArray());
+        assertFileCount(0);
+    }
+
+    private void write(SpooledData data, byte[] bytes) throws IOException {
+        try (OutputStream outputStream = data.openStream()) {
+            // Written in parts to cross the threshold in the middle of the data
+            int half = bytes.length / 2;
+            outputStream.write(bytes, 0, half);
+            outputStream.write(bytes, half, bytes.length - half);
+        }
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    private void assertFileCount(long expected) throws IOException {
+        try (var files = Files.list(directory)) {
+            assertEquals(expected, files.count());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.czertainly.csc.common.retry;
+
+import com.czertainly.csc.common.deadline.Deadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackendRetryPolicyTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void retriesUntilMaxAttemptsAreMade() {
+        // given
+        BackendRetryPolicy policy = aPolicy(new RetryBudget(1.0, 10), Map.of());
+
+        // when & then
+        assertTrue(policy.backoffBeforeRetry("process", 1).isPresent());
+        assertTrue(policy.backoffBeforeRetry("process", 2).isPresent());
+        assertTrue(policy.backoffBeforeRetry("process", 3).isEmpty());
+    }
+
+    @Test
+    void operationRuleOverridesDefaultRule() {
+        // given
+        BackendRetryPolicy policy = aPolicy(
+                new RetryBudget(1.0, 10),
+                Map.of("generateKey", new RetryRule(1, Duration.ZERO, Duration.ZERO, 1.0))
+        );
+
+        // when
+        Optional<Duration> backoff = policy.backoffBeforeRetry("generateKey", 1);
+
+        // then
+        assertTrue(backoff.isEmpty());
+    }
+
+    @Test
+    void backoffIsRandomAndBelowBound() {
+        // given
+        BackendRetryPolicy policy = aPolicy(new RetryBudget(1.0, 1000), Map.of());
+        Duration bound = policy.ruleFor("process").backoffBound(2);
+
+        // when
+        Set<Duration> backoffs = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            backoffs.add(policy.backoffBeforeRetry("process", 2).orElseThrow());
+        }
+
+        // then
+        assertEquals(Duration.ofMillis(200), bound);
+        assertTrue(backoffs.size() > 1);
+        assertTrue(backoffs.stream().allMatch(backoff -> backoff.compareTo(bound) <= 0));
+    }
+
+    @Test
+    void backoffBoundGrowsUpToMaxBackoff() {
+        // given
+        RetryRule rule = new RetryRule(10, Duration.ofMillis(100), Duration.ofMillis(500), 2.0);
+
+        // when & then
+        assertEquals(Duration.ofMillis(100), rule.backoffBound(1));
+        assertEquals(Duration.ofMillis(400), rule.backoffBound(3));
+        assertEquals(Duration.ofMillis(500), rule.backoffBound(5));
+    }
+
+    @Test
+    void doesNotRetryWhenBudgetIsExhausted() {
+        // given
+        BackendRetryPolicy policy = aPolicy(new RetryBudget(0.1, 1), Map.of());
+
+        // when
+        Optional<Duration> first = policy.backoffBeforeRetry("process", 1);
+        Optional<Duration> second = policy.backoffBeforeRetry("process", 1);
+
+        // then
+        assertTrue(first.isPresent());
+        assertTrue(second.isEmpty());
+        assertEquals(1, retries("budget_exhausted"));
+    }
+
+    @Test
+    void callsRefillBudget() {
+        // given
+        BackendRetryPolicy policy = aPolicy(new RetryBudget(0.5, 1), Map.of());
+        policy.backoffBeforeRetry("process", 1);
+
+        // when
+        policy.recordCall();
+        policy.recordCall();
+
+        // then
+        assertTrue(policy.backoffBeforeRetry("process", 1).isPresent());
+    }
+
+    @Test
+    void doesNotRetryWhenBackoffWouldExceedDeadline() {
+        // given
+        BackendRetryPolicy policy = aPolicy(new RetryBudget(1.0, 10), Map.of());
+
+        // when
+        Optional<Duration> backoff;
+        try (var ignored = Deadline.after(Duration.ZERO).bind()) {
+            backoff = policy.backoffBeforeRetry("process", 1);
+        }
+
+        // then
+        assertTrue(backoff.isEmpty());
+        assertEquals(1, retries("deadline_exceeded"));
+        assertTrue(policy.backoffBeforeRetry("process", 1).isPresent());
+    }
+
+    private BackendRetryPolicy aPolicy(RetryBudget budget, Map<String, RetryRule> operationRules) {
+        return new BackendRetryPolicy("signserver", budget,
+                                      new RetryRule(3, Duration.ofMillis(100), Duration.ofSeconds(1), 2.0),
+                                      operationRules, meterRegistry
+        );
+    }
+
+    private double retries(String outcome) {
+        return meterRegistry.get("csc.retry.retries").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,170 @@
+package com.czertainly.csc.common.retry;
+
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.common.result.TextErrorWithRetryIndication;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccessAndGet;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyInterceptorTest {
+
+    interface Backend {
+        Result<String, TextError> read();
+
+        Result<String, TextError> generateKey();
+    }
+
+    AtomicInteger calls = new AtomicInteger();
+    Queue<Result<String, TextError>> results = new ArrayDeque<>();
+
+    @Test
+    void retriesErrorResultIndicatingRetry() {
+        // given
+        Backend backend = aBackend(new RetryBudget(1.0, 10));
+        results.addAll(List.of(Result.error(TextErrorWithRetryIndication.doRetry("Connection refused")),
+                               Result.success("value")
+        ));
+
+        // when
+        var result = backend.read();
+
+        // then
+        assertEquals("value", assertSuccessAndGet(result));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void doesNotRetryErrorResultIndicatingNoRetry() {
+        // given
+        Backend backend = aBackend(new RetryBudget(1.0, 10));
+        results.add(Result.error(TextErrorWithRetryIndication.doNotRetry("Bad request")));
+
+        // when
+        var result = backend.read();
+
+        // then
+        assertErrorContains(result, "Bad request");
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void returnsLastErrorWhenAttemptsAreExhausted() {
+        // given
+        Backend backend = aBackend(new RetryBudget(1.0, 10));
+        for (int i = 0; i < 3; i++) {
+            results.add(Result.error(TextErrorWithRetryIndication.doRetry("Connection refused " + i)));
+        }
+
+        // when
+        var result = backend.read();
+
+        // then
+        assertErrorContains(result, "Connection refused 2");
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void operationWithoutRetriesIsCalledOnce() {
+        // given
+        Backend backend = aBackend(new RetryBudget(1.0, 10));
+        results.add(Result.error(TextErrorWithRetryIndication.doRetry("Read timed out")));
+
+        // when
+        var result = backend.generateKey();
+
+        // then
+        assertErrorContains(result, "Read timed out");
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void exhaustedBudgetStopsRetries() {
+        // given
+        Backend backend = aBackend(new RetryBudget(0.0, 1));
+        for (int i = 0; i < 3; i++) {
+            results.add(Result.error(TextErrorWithRetryIndication.doRetry("Connection refused")));
+        }
+
+        // when
+        backend.read();
+        int callsOfFirstRead = calls.getAndSet(0);
+        backend.read();
+
+        // then
+        assertEquals(2, callsOfFirstRead);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void retriesAcceptedExceptions() {
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+        Backend target = new Backend() {
+            @Override
+            public Result<String, TextError> read() {
+                if (attempts.incrementAndGet() < 3) {
+                    throw new IllegalStateException(new SQLTransientConnectionException("Connection is not available"));
+                }
+                return Result.success("value");
+            }
+
+            @Override
+            public Result<String, TextError> generateKey() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        Backend backend = proxy(target, new RetryPolicyInterceptor(
+                aPolicy(new RetryBudget(1.0, 10)), e -> e.getCause() instanceof SQLTransientConnectionException));
+
+        // when
+        var result = backend.read();
+
+        // then
+        assertEquals("value", assertSuccessAndGet(result));
+        assertThrows(UnsupportedOperationException.class, backend::generateKey);
+    }
+
+    private Backend aBackend(RetryBudget budget) {
+        Backend target = new Backend() {
+            @Override
+            public Result<String, TextError> read() {
+                calls.incrementAndGet();
+                return results.remove();
+            }
+
+            @Override
+            public Result<String, TextError> generateKey() {
+                calls.incrementAndGet();
+                return results.remove();
+            }
+        };
+        return proxy(target, new RetryPolicyInterceptor(aPolicy(budget), e -> false));
+    }
+
+    private static BackendRetryPolicy aPolicy(RetryBudget budget) {
+        return new BackendRetryPolicy("test", budget, new RetryRule(3, Duration.ofMillis(5), Duration.ofMillis(5), 1.0),
+                                      Map.of("generateKey", new RetryRule(1, Duration.ZERO, Duration.ZERO, 1.0)),
+                                      new SimpleMeterRegistry()
+        );
+    }
+
+    private static Backend proxy(Backend target, RetryPolicyInterceptor interceptor) {
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.addInterface(Backend.class);
+        proxyFactory.addAdvice(interceptor);
+        return (Backend) proxyFactory.getProxy();
+    }
+}
@@ -0,0 +1,127 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.configuration.csc.AdmissionSettings;
+import com.czertainly.csc.configuration.csc.ConcurrencyLimitSettings;
+import com.czertainly.csc.configuration.csc.ConcurrencyLimitsSettings;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitFilterTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrencyLimitSettings limit = new ConcurrencyLimitSettings(1, 1, 1, 0, Duration.ZERO, false, null);
+        CscConfiguration cscConfiguration = mock(CscConfiguration.class);
+        when(cscConfiguration.admission()).thenReturn(new AdmissionSettings(
+                null, null, null, Duration.ofSeconds(3), new ConcurrencyLimitsSettings(limit, limit, limit, limit), null
+        ));
+        filter = new ConcurrencyLimitFilter(cscConfiguration, objectMapper, meterRegistry);
+    }
+
+    @Test
+    void requestOverLimitIsRejected() throws Exception {
+        // given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        FilterChain occupyingChain = (req, res) -> filter.doFilter(aRequest("/csc/v2/signatures/signHash"),
+                                                                   response, chain
+        );
+
+        // when
+        filter.doFilter(aRequest("/csc/v2/signatures/signHash"), new MockHttpServletResponse(), occupyingChain);
+
+        // then
+        assertEquals(503, response.getStatus());
+        assertEquals("3", response.getHeader("Retry-After"));
+        JsonNode error = objectMapper.readTree(response.getContentAsByteArray());
+        assertEquals("temporarily_unavailable", error.get("error").asText());
+        assertNull(chain.getRequest());
+        assertEquals(1, meterRegistry.get("csc.admission.concurrency.rejected").tag("endpoint", "signHash")
+                                     .counter().count());
+    }
+
+    @Test
+    void endpointClassesAreLimitedSeparately() throws Exception {
+        // given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        FilterChain occupyingChain = (req, res) -> filter.doFilter(aRequest("/csc/v2/signatures/signDoc"),
+                                                                   response, chain
+        );
+
+        // when
+        filter.doFilter(aRequest("/csc/v2/signatures/signHash"), new MockHttpServletResponse(), occupyingChain);
+
+        // then
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void permitIsReleasedWhenRequestIsProcessed() throws Exception {
+        // given
+        filter.doFilter(aRequest("/management/v1/credentials/create"), new MockHttpServletResponse(),
+                        new MockFilterChain()
+        );
+        MockFilterChain chain = new MockFilterChain();
+
+        // when
+        filter.doFilter(aRequest("/management/v1/credentials/create"), new MockHttpServletResponse(), chain);
+
+        // then
+        assertNotNull(chain.getRequest());
+        assertEquals(0, meterRegistry.get("csc.admission.concurrency.in.flight").tag("endpoint", "management")
+                                     .gauge().value());
+    }
+
+    @Test
+    void otherRequestsAreNotLimited() throws Exception {
+        // given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        FilterChain occupyingChain = (req, res) -> filter.doFilter(aRequest("/csc/v2/info"), response, chain);
+
+        // when
+        filter.doFilter(aRequest("/csc/v2/info"), new MockHttpServletResponse(), occupyingChain);
+
+        // then
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void runsAfterSecurityAndRateLimitingAndBeforeMemoryAdmission() {
+        // given
+        int deadlineFilterOrder = RequestDeadlineFilter.class.getAnnotation(Order.class).value();
+
+        // then
+        assertTrue(deadlineFilterOrder < SecurityProperties.DEFAULT_FILTER_ORDER);
+        assertTrue(SecurityProperties.DEFAULT_FILTER_ORDER < RateLimitFilter.ORDER);
+        assertTrue(RateLimitFilter.ORDER < ConcurrencyLimitFilter.ORDER);
+        assertTrue(ConcurrencyLimitFilter.ORDER < SigningAdmissionFilter.ORDER);
+    }
+
+    private MockHttpServletRequest aRequest(String path) {
+        return new MockHttpServletRequest("POST", path);
+    }
+}
@@ -0,0 +1,117 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.configuration.csc.CredentialsSettings;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import org.instancio.Instancio;
+import org.instancio.Select;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageTokenCodecTest {
+
+    PageTokenCodec codec = aCodec("secret");
+
+    @Test
+    void decodesEncodedToken() {
+        // given
+        UUID lastId = UUID.randomUUID();
+        String token = codec.encode("user:with:colons", true, lastId);
+
+        // when
+        UUID decoded = codec.decode(token, "user:with:colons", true);
+
+        // then
+        assertEquals(lastId, decoded);
+    }
+
+    @Test
+    void decodesTokenIssuedByAnotherNodeWithTheSameSecret() {
+        // given
+        UUID lastId = UUID.randomUUID();
+        String token = aCodec("secret").encode("user", false, lastId);
+
+        // when
+        UUID decoded = codec.decode(token, "user", false);
+
+        // then
+        assertEquals(lastId, decoded);
+    }
+
+    @Test
+    void rejectsTokenOfAnotherUser() {
+        // given
+        String token = codec.encode("user", false, UUID.randomUUID());
+
+        // when
+        Executable ex = () -> codec.decode(token, "other-user", false);
+
+        // then
+        assertThrows(IllegalArgumentException.class, ex);
+    }
+
+    @Test
+    void rejectsTokenOfAnotherOnlyValidFilter() {
+        // given
+        String token = codec.encode("user", false, UUID.randomUUID());
+
+        // when
+        Executable ex = () -> codec.decode(token, "user", true);
+
+        // then
+        assertThrows(IllegalArgumentException.class, ex);
+    }
+
+    @Test
+    void rejectsMalformedToken() {
+        // given
+        String token = codec.encode("user", false, UUID.randomUUID()).substring(0, 10);
+
+        // when
+        Executable ex = () -> codec.decode(token, "user", false);
+
+        // then
+        assertThrows(IllegalArgumentException.class, ex);
+    }
+
+    @Test
+    void rejectsForgedToken() {
+        // given
+        String signature = codec.encode("user", false, UUID.randomUUID()).split("\\.")[1];
+        String forgedPayload = UUID.randomUUID() + ":false:user";
+        String token = Base64.getUrlEncoder().withoutPadding()
+                             .encodeToString(forgedPayload.getBytes(StandardCharsets.UTF_8)) + "." + signature;
+
+        // when
+        Executable ex = () -> codec.decode(token, "user", false);
+
+        // then
+        assertThrows(IllegalArgumentException.class, ex);
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherSecret() {
+        // given
+        String token = aCodec("other-secret").encode("user", false, UUID.randomUUID());
+
+        // when
+        Executable ex = () -> codec.decode(token, "user", false);
+
+        // then
+        assertThrows(IllegalArgumentException.class, ex);
+    }
+
+    static PageTokenCodec aCodec(String secret) {
+        return new PageTokenCodec(Instancio.of(CscConfiguration.class)
+                                          .set(Select.field(CscConfiguration::credentials),
+                                               new CredentialsSettings(null, null, null, null, null, secret)
+                                          )
+                                          .create());
+    }
+}
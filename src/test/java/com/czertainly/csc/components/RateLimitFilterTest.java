@@ -0,0 +1,144 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.api.auth.CscAuthenticationToken;
+import com.czertainly.csc.api.auth.SignatureActivationData;
+import com.czertainly.csc.configuration.csc.AdmissionSettings;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.configuration.csc.RateLimitSettings;
+import com.czertainly.csc.configuration.csc.RateLimitsSettings;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RateLimitFilterTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitSettings client = new RateLimitSettings(2, 0.1);
+        RateLimitSettings credential = new RateLimitSettings(1, 0.1);
+        CscConfiguration cscConfiguration = mock(CscConfiguration.class);
+        when(cscConfiguration.admission()).thenReturn(new AdmissionSettings(
+                null, null, null, null, null, new RateLimitsSettings(null, client, null, credential)
+        ));
+        filter = new RateLimitFilter(cscConfiguration, objectMapper, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void requestOverClientLimitIsRejected() throws Exception {
+        // given
+        authenticate("client-a", null);
+        filter.doFilter(aRequest("/csc/v2/credentials/list"), new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(aRequest("/csc/v2/credentials/list"), new MockHttpServletResponse(), new MockFilterChain());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // when
+        filter.doFilter(aRequest("/csc/v2/credentials/list"), response, chain);
+
+        // then
+        assertEquals(429, response.getStatus());
+        assertEquals("10", response.getHeader("Retry-After"));
+        JsonNode error = objectMapper.readTree(response.getContentAsByteArray());
+        assertEquals("temporarily_unavailable", error.get("error").asText());
+        assertNull(chain.getRequest());
+        assertEquals(1, meterRegistry.get("csc.admission.rate.limit.requests")
+                                     .tags("scope", "client", "key", "client-a", "outcome", "limited")
+                                     .counter().count());
+    }
+
+    @Test
+    void requestOverCredentialLimitIsRejected() throws Exception {
+        // given
+        authenticate("client-a", "credential-1");
+        filter.doFilter(aRequest("/csc/v2/signatures/signHash"), new MockHttpServletResponse(),
+                        new MockFilterChain()
+        );
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // when
+        filter.doFilter(aRequest("/csc/v2/signatures/signHash"), response, chain);
+
+        // then
+        assertEquals(429, response.getStatus());
+        assertNull(chain.getRequest());
+        assertEquals(1, meterRegistry.get("csc.admission.rate.limit.requests")
+                                     .tags("scope", "credential", "outcome", "limited")
+                                     .counter().count());
+    }
+
+    @Test
+    void clientsAreLimitedSeparately() throws Exception {
+        // given
+        authenticate("client-a", null);
+        filter.doFilter(aRequest("/csc/v2/credentials/list"), new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(aRequest("/csc/v2/credentials/list"), new MockHttpServletResponse(), new MockFilterChain());
+        authenticate("client-b", null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // when
+        filter.doFilter(aRequest("/csc/v2/credentials/list"), response, chain);
+
+        // then
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void otherRequestsAreNotLimited() throws Exception {
+        // given
+        authenticate("client-a", null);
+        filter.doFilter(aRequest("/csc/v2/info"), new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(aRequest("/csc/v2/info"), new MockHttpServletResponse(), new MockFilterChain());
+        MockFilterChain chain = new MockFilterChain();
+
+        // when
+        filter.doFilter(aRequest("/csc/v2/info"), new MockHttpServletResponse(), chain);
+
+        // then
+        assertNotNull(chain.getRequest());
+    }
+
+    private void authenticate(String clientId, String credentialId) {
+        Jwt jwt = Jwt.withTokenValue("token")
+                     .header("alg", "none")
+                     .claim("azp", clientId)
+                     .build();
+        SignatureActivationData sad = credentialId == null
+                ? null
+                : new SignatureActivationData("user", credentialId, null, 1, null, null, null, Map.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new CscAuthenticationToken(jwt, List.of(), "user", sad)
+        );
+    }
+
+    private MockHttpServletRequest aRequest(String path) {
+        return new MockHttpServletRequest("POST", path);
+    }
+}
@@ -0,0 +1,112 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.common.deadline.Deadline;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.configuration.csc.RequestDeadlineSettings;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequestDeadlineFilterTest {
+
+    @Test
+    void bindsDeadlineOfEndpointClassDuringRequest() throws Exception {
+        // given
+        RequestDeadlineFilter filter = aFilter(new RequestDeadlineSettings(null, null, Duration.ofSeconds(10),
+                                                                           null, null, null
+        ));
+
+        // when
+        Optional<Deadline> deadline = deadlineSeenBy(filter, aRequest("/csc/v2/signatures/signHash"));
+
+        // then
+        assertTrue(deadline.isPresent());
+        assertTrue(deadline.get().remaining().compareTo(Duration.ofSeconds(9)) > 0);
+        assertTrue(Deadline.current().isEmpty());
+    }
+
+    @Test
+    void headerShortensDeadline() throws Exception {
+        // given
+        RequestDeadlineFilter filter = aFilter(new RequestDeadlineSettings(null, null, Duration.ofSeconds(10),
+                                                                           null, null, null
+        ));
+        MockHttpServletRequest request = aRequest("/csc/v2/signatures/signHash");
+        request.addHeader("X-Request-Timeout", "500");
+
+        // when
+        Optional<Deadline> deadline = deadlineSeenBy(filter, request);
+
+        // then
+        assertTrue(deadline.orElseThrow().remaining().compareTo(Duration.ofMillis(500)) <= 0);
+    }
+
+    @Test
+    void headerDoesNotExtendDeadline() throws Exception {
+        // given
+        RequestDeadlineFilter filter = aFilter(new RequestDeadlineSettings(null, null, Duration.ofSeconds(1),
+                                                                           null, null, null
+        ));
+        MockHttpServletRequest request = aRequest("/csc/v2/signatures/signHash");
+        request.addHeader("X-Request-Timeout", "60000");
+
+        // when
+        Optional<Deadline> deadline = deadlineSeenBy(filter, request);
+
+        // then
+        assertTrue(deadline.orElseThrow().remaining().compareTo(Duration.ofSeconds(1)) <= 0);
+    }
+
+    @Test
+    void endpointClassWithoutTimeoutHasNoDeadline() throws Exception {
+        // given
+        RequestDeadlineFilter filter = aFilter(new RequestDeadlineSettings(null, null, null, null, null, null));
+        MockHttpServletRequest request = aRequest("/csc/v2/signatures/signDoc");
+        request.addHeader("X-Request-Timeout", "invalid");
+
+        // when
+        Optional<Deadline> deadline = deadlineSeenBy(filter, request);
+
+        // then
+        assertTrue(deadline.isEmpty());
+    }
+
+    @Test
+    void disabledFilterSetsNoDeadline() throws Exception {
+        // given
+        RequestDeadlineFilter filter = aFilter(new RequestDeadlineSettings(false, null, null, null, null, null));
+
+        // when
+        Optional<Deadline> deadline = deadlineSeenBy(filter, aRequest("/csc/v2/signatures/signHash"));
+
+        // then
+        assertTrue(deadline.isEmpty());
+    }
+
+    private RequestDeadlineFilter aFilter(RequestDeadlineSettings settings) {
+        CscConfiguration cscConfiguration = mock(CscConfiguration.class);
+        when(cscConfiguration.deadline()).thenReturn(settings);
+        return new RequestDeadlineFilter(cscConfiguration);
+    }
+
+    private static Optional<Deadline> deadlineSeenBy(RequestDeadlineFilter filter, MockHttpServletRequest request)
+            throws Exception {
+        AtomicReference<Optional<Deadline>> deadline = new AtomicReference<>();
+        FilterChain chain = (req, res) -> deadline.set(Deadline.current());
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return deadline.get();
+    }
+
+    private static MockHttpServletRequest aRequest(String path) {
+        return new MockHttpServletRequest("POST", path);
+    }
+}
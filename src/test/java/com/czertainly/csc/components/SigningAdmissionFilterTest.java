@@ -0,0 +1,166 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.configuration.csc.AdmissionSettings;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SigningAdmissionFilterTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    SigningAdmissionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        CscConfiguration cscConfiguration = mock(CscConfiguration.class);
+        when(cscConfiguration.admission()).thenReturn(
+                new AdmissionSettings(DataSize.ofBytes(1000), DataSize.ofBytes(400), Duration.ofMillis(50),
+                                      Duration.ofSeconds(7), null, null
+                )
+        );
+        filter = new SigningAdmissionFilter(cscConfiguration, objectMapper, meterRegistry);
+    }
+
+    @Test
+    void budgetIsHeldWhileRequestIsProcessed() throws Exception {
+        // given
+        MockHttpServletRequest request = aSigningRequest(800);
+        AtomicReference<Double> usedDuringRequest = new AtomicReference<>();
+        FilterChain chain = (req, res) -> usedDuringRequest.set(usedBytes());
+
+        // when
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // then
+        assertEquals(600, usedDuringRequest.get());
+        assertEquals(0, usedBytes());
+    }
+
+    @Test
+    void requestExceedingBudgetIsRejected() throws Exception {
+        // given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        FilterChain occupyingChain = (req, res) -> filter.doFilter(aSigningRequest(800), response, chain);
+
+        // when
+        filter.doFilter(aSigningRequest(800), new MockHttpServletResponse(), occupyingChain);
+
+        // then
+        assertEquals(503, response.getStatus());
+        assertEquals("7", response.getHeader("Retry-After"));
+        JsonNode error = objectMapper.readTree(response.getContentAsByteArray());
+        assertEquals("temporarily_unavailable", error.get("error").asText());
+        assertNull(chain.getRequest());
+        assertEquals(1, meterRegistry.get("csc.signing.admission.rejected").counter().count());
+    }
+
+    @Test
+    void requestWithoutContentLengthReservesBudgetForLargestAllowedBody() throws Exception {
+        // given
+        MockHttpServletRequest request = aChunkedSigningRequest(400);
+        AtomicReference<Double> usedDuringRequest = new AtomicReference<>();
+        AtomicReference<Integer> readDuringRequest = new AtomicReference<>();
+        FilterChain chain = (req, res) -> {
+            usedDuringRequest.set(usedBytes());
+            readDuringRequest.set(req.getInputStream().readAllBytes().length);
+        };
+
+        // when
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // then
+        assertEquals(300, usedDuringRequest.get());
+        assertEquals(400, readDuringRequest.get());
+        assertEquals(0, usedBytes());
+    }
+
+    @Test
+    void requestWithoutContentLengthFailsWhenBodyExceedsAllowedSize() throws Exception {
+        // given
+        MockHttpServletRequest request = aChunkedSigningRequest(401);
+        AtomicReference<IOException> readFailure = new AtomicReference<>();
+        FilterChain chain = (req, res) -> readFailure.set(
+                assertThrows(IOException.class, () -> req.getInputStream().readAllBytes()));
+
+        // when
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // then
+        assertTrue(readFailure.get().getMessage().contains("exceeds 400 bytes"));
+        assertEquals(0, usedBytes());
+    }
+
+    @Test
+    void requestsWithoutContentLengthDoNotBlockOtherRequests() throws Exception {
+        // given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<Double> usedDuringRequest = new AtomicReference<>();
+        FilterChain innerChain = (req, res) -> usedDuringRequest.set(usedBytes());
+        FilterChain occupyingChain = (req, res) -> filter.doFilter(aSigningRequest(400), response, innerChain);
+
+        // when
+        filter.doFilter(aChunkedSigningRequest(10), new MockHttpServletResponse(), occupyingChain);
+
+        // then
+        assertEquals(200, response.getStatus());
+        assertEquals(600, usedDuringRequest.get());
+    }
+
+    @Test
+    void otherRequestsAreNotLimited() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/csc/v2/credentials/list");
+        request.setContent(new byte[2000]);
+        AtomicReference<Double> usedDuringRequest = new AtomicReference<>();
+        FilterChain chain = (req, res) -> usedDuringRequest.set(usedBytes());
+
+        // when
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // then
+        assertEquals(0, usedDuringRequest.get());
+    }
+
+    private double usedBytes() {
+        return meterRegistry.get("csc.signing.admission.bytes.used").gauge().value();
+    }
+
+    // A chunked request, its Content-Length is not known
+    private MockHttpServletRequest aChunkedSigningRequest(int bodyLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/csc/v2/signatures/signDoc") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContent(new byte[bodyLength]);
+        return request;
+    }
+
+    private MockHttpServletRequest aSigningRequest(int contentLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/csc/v2/signatures/signDoc");
+        if (contentLength >= 0) {
+            request.setContent(new byte[contentLength]);
+        }
+        return request;
+    }
+}
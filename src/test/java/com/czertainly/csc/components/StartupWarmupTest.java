@@ -0,0 +1,116 @@
+package com.czertainly.csc.components;
+
+import com.czertainly.csc.api.auth.JwksRepository;
+import com.czertainly.csc.api.auth.TokenValidator;
+import com.czertainly.csc.clients.ejbca.EjbcaClient;
+import com.czertainly.csc.clients.signserver.rest.SignserverRestClient;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.configuration.csc.WarmupSettings;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StartupWarmupTest {
+
+    @Mock
+    SignserverRestClient signserverRestClient;
+    @Mock
+    EjbcaClient ejbcaClient;
+    @Mock
+    JwksRepository jwksRepository;
+    @Mock
+    TokenValidator tokenValidator;
+    @Mock
+    CscConfiguration cscConfiguration;
+
+    Jaxb2Marshaller signserverWsMarshaller = new Jaxb2Marshaller();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        signserverWsMarshaller.setContextPath("com.czertainly.csc.clients.signserver.ws.dto");
+        signserverWsMarshaller.afterPropertiesSet();
+    }
+
+    @Test
+    void callsEachBackendOncePerConnection() {
+        // given
+        StartupWarmup warmup = aWarmup(new WarmupSettings(true, 3, Duration.ofSeconds(10)));
+        when(signserverRestClient.checkHealth()).thenReturn(Result.emptySuccess());
+        when(ejbcaClient.getVersion()).thenReturn(Result.success("EJBCA 9.1.0"));
+        when(jwksRepository.refreshKeys()).thenReturn(Result.emptySuccess());
+        when(tokenValidator.validate(anyString())).thenReturn(Result.error(TextError.of("Unsecured token")));
+
+        // when
+        warmup.run(new DefaultApplicationArguments());
+
+        // then
+        verify(signserverRestClient, times(3)).checkHealth();
+        verify(ejbcaClient, times(3)).getVersion();
+        verify(jwksRepository).refreshKeys();
+        verify(tokenValidator).validate(anyString());
+    }
+
+    @Test
+    void failedCallsDoNotPreventStart() {
+        // given
+        StartupWarmup warmup = aWarmup(new WarmupSettings(true, 1, Duration.ofSeconds(10)));
+        when(signserverRestClient.checkHealth()).thenReturn(Result.error(TextError.of("Connection refused")));
+        when(ejbcaClient.getVersion()).thenThrow(new IllegalStateException("Unexpected"));
+        when(jwksRepository.refreshKeys()).thenReturn(Result.error(TextError.of("Not found")));
+
+        // when & then
+        assertDoesNotThrow(() -> warmup.run(new DefaultApplicationArguments()));
+    }
+
+    @Test
+    void doesNotWaitLongerThanTimeout() {
+        // given
+        StartupWarmup warmup = aWarmup(new WarmupSettings(true, 1, Duration.ofMillis(200)));
+        when(signserverRestClient.checkHealth()).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return Result.emptySuccess();
+        });
+        lenient().when(ejbcaClient.getVersion()).thenReturn(Result.success("EJBCA 9.1.0"));
+        lenient().when(jwksRepository.refreshKeys()).thenReturn(Result.emptySuccess());
+
+        // when
+        long start = System.nanoTime();
+        warmup.run(new DefaultApplicationArguments());
+
+        // then
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(5)) < 0);
+    }
+
+    @Test
+    void disabledWarmupCallsNoBackend() {
+        // given
+        StartupWarmup warmup = aWarmup(new WarmupSettings(false, null, null));
+
+        // when
+        warmup.run(new DefaultApplicationArguments());
+
+        // then
+        verifyNoInteractions(signserverRestClient, ejbcaClient, jwksRepository, tokenValidator);
+    }
+
+    private StartupWarmup aWarmup(WarmupSettings settings) {
+        when(cscConfiguration.warmup()).thenReturn(settings);
+        return new StartupWarmup(cscConfiguration, signserverRestClient, ejbcaClient, jwksRepository,
+                                 tokenValidator, new ObjectMapper(), signserverWsMarshaller
+        );
+    }
+}
@@ -0,0 +1,46 @@
+package com.czertainly.csc.configuration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HttpClientPropertiesTest {
+
+    @Test
+    void resolveTakesDefaultsForPropertiesNotOverriddenByThePool() {
+        // given
+        HttpClientProperties properties = new HttpClientProperties();
+        properties.setMaxTotal(100);
+        properties.setResponseTimeoutSeconds(20);
+        properties.getEjbca().setResponseTimeoutSeconds(60);
+        properties.getEjbca().setDefaultMaxPerRoute(5);
+
+        // when
+        HttpClientPoolSettings ejbca = properties.resolve("ejbca", properties.getEjbca());
+        HttpClientPoolSettings signserver = properties.resolve("signserver-process",
+                                                               properties.getSignserver().getProcess()
+        );
+
+        // then
+        assertEquals(100, ejbca.maxTotal());
+        assertEquals(5, ejbca.defaultMaxPerRoute());
+        assertEquals(60, ejbca.responseTimeoutSeconds());
+        assertEquals(100, signserver.maxTotal());
+        assertEquals(20, signserver.defaultMaxPerRoute());
+        assertEquals(20, signserver.responseTimeoutSeconds());
+        assertEquals(60, signserver.idleConnectionEvictionSeconds());
+    }
+
+    @Test
+    void tlsSessionsAreCachedAsLongAsByTheJdkByDefault() {
+        // given
+        HttpClientProperties properties = new HttpClientProperties();
+
+        // when
+        HttpClientPoolSettings ejbca = properties.resolve("ejbca", properties.getEjbca());
+
+        // then
+        assertEquals(20480, ejbca.tlsSessionCacheSize());
+        assertEquals(86400, ejbca.tlsSessionTimeoutSeconds());
+    }
+}
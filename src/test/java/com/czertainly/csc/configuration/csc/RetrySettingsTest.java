@@ -0,0 +1,55 @@
+package com.czertainly.csc.configuration.csc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RetrySettingsTest {
+
+    @Test
+    void nonIdempotentOperationsAreMadeOnceByDefault() {
+        // when
+        RetrySettings settings = new RetrySettings(null, null, null, null);
+
+        // then
+        assertEquals(1, settings.signserver().operations().get("generateKey").maxAttempts());
+        assertEquals(1, settings.signserver().operations().get("importCertificateChain").maxAttempts());
+        assertEquals(1, settings.ejbca().operations().get("requestCertificate").maxAttempts());
+        assertEquals(1, settings.ejbca().operations().get("enrollCertificate").maxAttempts());
+    }
+
+    @Test
+    void nonIdempotentOperationsAreMadeOnceWhenOtherOperationsAreConfigured() {
+        // given
+        RetryBackendSettings ejbca = new RetryBackendSettings(
+                null, null, 5, null, null, null,
+                Map.of("searchCertificates", new RetryOperationSettings(4, null, null, null))
+        );
+
+        // when
+        RetrySettings settings = new RetrySettings(null, ejbca, null, null);
+
+        // then
+        assertEquals(5, settings.ejbca().maxAttempts());
+        assertEquals(4, settings.ejbca().operations().get("searchCertificates").maxAttempts());
+        assertEquals(1, settings.ejbca().operations().get("enrollCertificate").maxAttempts());
+    }
+
+    @Test
+    void configuredOperationSettingsOverrideDefaults() {
+        // given
+        RetryBackendSettings signserver = new RetryBackendSettings(
+                null, null, null, null, null, null,
+                Map.of("importCertificateChain", new RetryOperationSettings(2, null, null, null))
+        );
+
+        // when
+        RetrySettings settings = new RetrySettings(signserver, null, null, null);
+
+        // then
+        assertEquals(2, settings.signserver().operations().get("importCertificateChain").maxAttempts());
+        assertEquals(1, settings.signserver().operations().get("generateKey").maxAttempts());
+    }
+}
@@ -0,0 +1,110 @@
+package com.czertainly.csc.repository;
+
+import com.czertainly.csc.repository.entities.CredentialMetadataEntity;
+import com.czertainly.csc.utils.db.MysqlTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+class CredentialsRepositoryMysqlTest extends MysqlTest {
+
+    @Autowired
+    private CredentialsRepository credentialsRepository;
+
+    ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+
+    @Test
+    void findPageByUserIdReturnsFirstPageOrderedById() {
+        // given
+        UUID credential1 = insertCredential(2, "user", false, null, null);
+        UUID credential2 = insertCredential(1, "user", false, null, null);
+        insertCredential(3, "user", false, null, null);
+        insertCredential(0, "other-user", false, null, null);
+
+        // when
+        var page = credentialsRepository.findPageByUserId("user", false, now, Limit.of(2));
+
+        // then
+        assertEquals(List.of(credential2, credential1), ids(page));
+    }
+
+    @Test
+    void findPageByUserIdAfterReturnsCredentialsFollowingGivenOne() {
+        // given
+        UUID credential1 = insertCredential(1, "user", false, null, null);
+        UUID credential2 = insertCredential(2, "user", false, null, null);
+        UUID credential3 = insertCredential(3, "user", false, null, null);
+        insertCredential(4, "other-user", false, null, null);
+
+        // when
+        var page = credentialsRepository.findPageByUserIdAfter("user", credential1, false, now, Limit.unlimited());
+
+        // then
+        assertEquals(List.of(credential2, credential3), ids(page));
+    }
+
+    @Test
+    void findPageByUserIdLeavesOutInvalidCredentialsWhenOnlyValidIsSet() {
+        // given
+        UUID valid = insertCredential(1, "user", false, now.minusDays(1), now.plusDays(1));
+        UUID withoutSnapshot = insertCredential(2, "user", false, null, null);
+        UUID disabled = insertCredential(3, "user", true, now.minusDays(1), now.plusDays(1));
+        UUID expired = insertCredential(4, "user", false, now.minusDays(2), now.minusDays(1));
+        UUID notYetValid = insertCredential(5, "user", false, now.plusDays(1), now.plusDays(2));
+
+        // when
+        var allCredentials = credentialsRepository.findPageByUserId("user", false, now, Limit.unlimited());
+        var validCredentials = credentialsRepository.findPageByUserId("user", true, now, Limit.unlimited());
+
+        // then
+        assertEquals(List.of(valid, withoutSnapshot, disabled, expired, notYetValid), ids(allCredentials));
+        assertEquals(List.of(valid, withoutSnapshot), ids(validCredentials));
+    }
+
+    @Test
+    void findPageByUserIdAfterLeavesOutInvalidCredentialsWhenOnlyValidIsSet() {
+        // given
+        UUID first = insertCredential(1, "user", false, null, null);
+        insertCredential(2, "user", true, null, null);
+        UUID valid = insertCredential(3, "user", false, now.minusDays(1), now.plusDays(1));
+        insertCredential(4, "user", false, now.minusDays(2), now.minusDays(1));
+
+        // when
+        var page = credentialsRepository.findPageByUserIdAfter("user", first, true, now, Limit.unlimited());
+
+        // then
+        assertEquals(List.of(valid), ids(page));
+    }
+
+    private List<UUID> ids(List<CredentialMetadataEntity> credentials) {
+        return credentials.stream().map(CredentialMetadataEntity::getId).toList();
+    }
+
+    // The sequence number makes the order of the IDs the same in every database representation of the UUID
+    UUID insertCredential(int sequence, String userId, boolean disabled, ZonedDateTime validFrom,
+                          ZonedDateTime validTo
+    ) {
+        UUID id = UUID.fromString("00000000-0000-0000-0000-%012d".formatted(sequence));
+
+        var entity = new CredentialMetadataEntity(id, userId, "key" + sequence, "profile", "endEntity",
+                                                  "01", "CN=Issuer", null, 1, "SCAL1", "CryptoToken1",
+                                                  null, disabled
+        );
+        entity.setCertificateValidFrom(validFrom);
+        entity.setCertificateValidTo(validTo);
+
+        credentialsRepository.save(entity);
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        return id;
+    }
+}
@@ -0,0 +1,69 @@
+package com.czertainly.csc.service.cache;
+
+import com.czertainly.csc.common.cache.CacheInvalidationEvent;
+import com.czertainly.csc.common.cache.CacheInvalidationListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import javax.sql.DataSource;
+import java.util.stream.Stream;
+
+import static com.czertainly.csc.utils.configuration.CscConfigurationBuilder.anCscConfiguration;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+    @Mock
+    DataSource dataSource;
+    @Mock
+    ObjectProvider<DataSourceProperties> dataSourceProperties;
+    @Mock
+    ObjectProvider<CacheInvalidationListener> listeners;
+    @Mock
+    CacheInvalidationListener credentialsListener;
+    @Mock
+    CacheInvalidationListener otherListener;
+
+    CacheInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new CacheInvalidationBus(dataSource, dataSourceProperties, listeners, anCscConfiguration());
+    }
+
+    @Test
+    void eventIsDeliveredToListenerOfTheCache() {
+        // given
+        given(credentialsListener.cacheName()).willReturn("credentials");
+        given(otherListener.cacheName()).willReturn("other");
+        given(listeners.orderedStream()).willReturn(Stream.of(credentialsListener, otherListener));
+
+        // when
+        bus.received("another-node", new CacheInvalidationEvent("credentials", "key1"));
+
+        // then
+        verify(credentialsListener).onInvalidation("key1");
+        verify(otherListener, never()).onInvalidation("key1");
+    }
+
+    @Test
+    void allListenersAreInvalidatedWhenEventsWereMissed() {
+        // given
+        given(listeners.orderedStream()).willReturn(Stream.of(credentialsListener, otherListener));
+
+        // when
+        bus.eventsMissed();
+
+        // then
+        verify(credentialsListener).onInvalidateAll();
+        verify(otherListener).onInvalidateAll();
+    }
+}
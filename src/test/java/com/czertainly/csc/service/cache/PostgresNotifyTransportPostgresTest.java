@@ -0,0 +1,74 @@
+package com.czertainly.csc.service.cache;
+
+import com.czertainly.csc.common.cache.CacheInvalidationEvent;
+import com.czertainly.csc.utils.db.PostgresTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The events must be committed to be seen by the listening node
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PostgresNotifyTransportPostgresTest extends PostgresTest {
+
+    @Autowired
+    DataSource dataSource;
+
+    BlockingQueue<CacheInvalidationEvent> received = new LinkedBlockingQueue<>();
+    PostgresNotifyTransport publisher;
+    PostgresNotifyTransport subscriber;
+
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(dataSource).update("delete from cache_events");
+        publisher = aTransport();
+        subscriber = aTransport();
+        subscriber.start(new CacheInvalidationTransport.CacheInvalidationReceiver() {
+            @Override
+            public void received(String nodeId, CacheInvalidationEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void eventsMissed() {
+            }
+        });
+    }
+
+    @AfterEach
+    void stopSubscriber() {
+        subscriber.stop();
+    }
+
+    @Test
+    void notificationDeliversEventBeforeNextPoll() throws InterruptedException {
+        // given
+        CacheInvalidationEvent event = new CacheInvalidationEvent("credentials", "key1");
+        // the listener polls the table once it is listening
+        Thread.sleep(1000);
+
+        // when
+        publisher.publish("node1", event);
+
+        // then
+        assertEquals(event, received.poll(5, TimeUnit.SECONDS));
+    }
+
+    // The table is polled once in a minute, so the events are delivered only when the node is notified
+    private PostgresNotifyTransport aTransport() {
+        return new PostgresNotifyTransport(
+                dataSource::getConnection, new TablePollingTransport(dataSource, Duration.ofMinutes(1), Duration.ofMinutes(10))
+        );
+    }
+}
@@ -0,0 +1,100 @@
+package com.czertainly.csc.service.cache;
+
+import com.czertainly.csc.common.cache.CacheInvalidationEvent;
+import com.czertainly.csc.utils.db.MysqlTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The events must be committed to be seen by the polling thread
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TablePollingTransportMysqlTest extends MysqlTest {
+
+    @Autowired
+    DataSource dataSource;
+
+    BlockingQueue<CacheInvalidationEvent> received = new LinkedBlockingQueue<>();
+    TablePollingTransport publisher;
+    TablePollingTransport subscriber;
+
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(dataSource).update("delete from cache_events");
+        publisher = new TablePollingTransport(dataSource, Duration.ofMillis(50), Duration.ofMinutes(10));
+        subscriber = new TablePollingTransport(dataSource, Duration.ofMillis(50), Duration.ofMinutes(10));
+        subscriber.start(new CacheInvalidationTransport.CacheInvalidationReceiver() {
+            @Override
+            public void received(String nodeId, CacheInvalidationEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void eventsMissed() {
+            }
+        });
+    }
+
+    @AfterEach
+    void stopSubscriber() {
+        subscriber.stop();
+    }
+
+    @Test
+    void deliversPublishedEvents() throws InterruptedException {
+        // given
+        CacheInvalidationEvent event = new CacheInvalidationEvent("credentials", "key1");
+
+        // when
+        publisher.publish("node1", event);
+
+        // then
+        assertEquals(event, received.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void deliversEventCommittedAfterEventWithHigherId() throws Exception {
+        // given
+        CacheInvalidationEvent earlier = new CacheInvalidationEvent("credentials", "earlier");
+        CacheInvalidationEvent later = new CacheInvalidationEvent("credentials", "later");
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            insert(connection, earlier);
+
+            // when
+            publisher.publish("node1", later);
+            assertEquals(later, received.poll(5, TimeUnit.SECONDS));
+            connection.commit();
+        }
+
+        // then
+        assertEquals(earlier, received.poll(5, TimeUnit.SECONDS));
+    }
+
+    private static void insert(Connection connection, CacheInvalidationEvent event) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into cache_events (node_id, cache_name, cache_key, created_at) values (?, ?, ?, ?)")) {
+            statement.setString(1, "node1");
+            statement.setString(2, event.cacheName());
+            statement.setString(3, event.key());
+            statement.setTimestamp(4, Timestamp.from(Instant.now()));
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.czertainly.csc.service.credentials;
+
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.configuration.csc.CredentialsSettings;
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.model.csc.CredentialMetadata;
+import org.instancio.Instancio;
+import org.instancio.Select;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccessAndGet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CredentialMetadataCacheTest {
+
+    UUID credentialId = UUID.randomUUID();
+    CredentialMetadataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        CscConfiguration configuration = Instancio.of(CscConfiguration.class)
+                                                  .set(Select.field(CscConfiguration::credentials),
+                                                       new CredentialsSettings(null, null, Duration.ofMinutes(5),
+                                                                               100, null, null
+                                                       )
+                                                  )
+                                                  .create();
+        cache = new CredentialMetadataCache(configuration, List.of());
+    }
+
+    @Test
+    void returnsCachedMetadataWithoutLoadingThemAgain() {
+        // given
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        cache.get(credentialId, "user", () -> load(loads, false));
+        var metadata = assertSuccessAndGet(cache.get(credentialId, "user", () -> load(loads, true)));
+
+        // then
+        assertEquals(1, loads.get());
+        assertFalse(metadata.disabled());
+    }
+
+    @Test
+    void doesNotCacheMetadataLoadedWhileTheCredentialWasInvalidated() throws Exception {
+        // given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        var inFlightLoad = CompletableFuture.supplyAsync(() -> cache.get(credentialId, "user", () -> {
+            loadStarted.countDown();
+            await(invalidated);
+            return load(loads, false);
+        }));
+
+        // when
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        cache.invalidate(credentialId);
+        invalidated.countDown();
+        inFlightLoad.get(5, TimeUnit.SECONDS);
+        var metadata = assertSuccessAndGet(cache.get(credentialId, "user", () -> load(loads, true)));
+
+        // then
+        assertEquals(2, loads.get());
+        assertTrue(metadata.disabled());
+    }
+
+    @Test
+    void doesNotCacheMetadataLoadedWhileAllEntriesWereInvalidated() throws Exception {
+        // given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        var inFlightLoad = CompletableFuture.supplyAsync(() -> cache.get(credentialId, "user", () -> {
+            loadStarted.countDown();
+            await(invalidated);
+            return load(loads, false);
+        }));
+
+        // when
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        cache.onInvalidateAll();
+        invalidated.countDown();
+        inFlightLoad.get(5, TimeUnit.SECONDS);
+        var metadata = assertSuccessAndGet(cache.get(credentialId, "user", () -> load(loads, true)));
+
+        // then
+        assertEquals(2, loads.get());
+        assertTrue(metadata.disabled());
+    }
+
+    private Result<CredentialMetadata, TextError> load(AtomicInteger loads, boolean disabled) {
+        loads.incrementAndGet();
+        return Result.success(new CredentialMetadata(credentialId, "user", "key", "profile", Optional.empty(), 1,
+                                                     Optional.empty(), "token", disabled
+        ));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.czertainly.csc.service.credentials;
+
+import com.czertainly.csc.clients.signserver.SignserverClient;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.model.signserver.CryptoToken;
+import com.czertainly.csc.model.signserver.CryptoTokenKey;
+import com.czertainly.csc.model.signserver.CryptoTokenKeyStatus;
+import com.czertainly.csc.repository.CredentialsRepository;
+import com.czertainly.csc.repository.entities.CredentialMetadataEntity;
+import com.czertainly.csc.signing.configuration.WorkerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.czertainly.csc.utils.configuration.CscConfigurationBuilder.anCscConfiguration;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class CredentialSnapshotBackfillServiceTest {
+
+    @Mock
+    CredentialsRepository credentialsRepository;
+    @Mock
+    CredentialSnapshotService credentialSnapshotService;
+    @Mock
+    SignserverClient signserverClient;
+    @Mock
+    WorkerRepository workerRepository;
+
+    CryptoToken cryptoToken = new CryptoToken("CryptoToken1", 1, List.of());
+    CredentialSnapshotBackfillService backfillService;
+
+    @BeforeEach
+    void setUp() {
+        backfillService = new CredentialSnapshotBackfillService(credentialsRepository, credentialSnapshotService,
+                                                                signserverClient, workerRepository,
+                                                                anCscConfiguration()
+        );
+    }
+
+    @Test
+    void countsOnlySnapshotsThatWereStored() {
+        // given
+        CredentialMetadataEntity stored = aCredential("key1");
+        CredentialMetadataEntity rekeyed = aCredential("key2");
+        CryptoTokenKey key1 = aKey("key1");
+        CryptoTokenKey key2 = aKey("key2");
+        given(credentialsRepository.findByCertificateChainIsNullOrderByIdAsc(any()))
+                .willReturn(List.of(stored, rekeyed));
+        given(workerRepository.getCryptoToken("CryptoToken1")).willReturn(Result.success(cryptoToken));
+        given(signserverClient.queryCryptoTokenKeysByAliases(cryptoToken, List.of("key1", "key2")))
+                .willReturn(Result.success(Map.of("key1", key1, "key2", key2)));
+        given(credentialSnapshotService.storeSnapshot(stored, key1)).willReturn(Result.success(true));
+        // the credential was rekeyed meanwhile
+        given(credentialSnapshotService.storeSnapshot(rekeyed, key2)).willReturn(Result.success(false));
+
+        // when
+        int storedSnapshots = backfillService.backfillSnapshots();
+
+        // then
+        assertEquals(1, storedSnapshots);
+    }
+
+    private CredentialMetadataEntity aCredential(String keyAlias) {
+        CredentialMetadataEntity credential = new CredentialMetadataEntity();
+        credential.setId(UUID.randomUUID());
+        credential.setKeyAlias(keyAlias);
+        credential.setCryptoTokenName(cryptoToken.name());
+        return credential;
+    }
+
+    private CryptoTokenKey aKey(String keyAlias) {
+        return new CryptoTokenKey(cryptoToken, keyAlias, "RSA", "2048", List.of(new byte[]{1}),
+                                  new CryptoTokenKeyStatus(true)
+        );
+    }
+}
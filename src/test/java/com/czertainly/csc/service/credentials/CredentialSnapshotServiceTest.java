@@ -0,0 +1,162 @@
+package com.czertainly.csc.service.credentials;
+
+import com.czertainly.csc.components.DateConverter;
+import com.czertainly.csc.crypto.CertificateParser;
+import com.czertainly.csc.model.signserver.CryptoToken;
+import com.czertainly.csc.model.signserver.CryptoTokenKey;
+import com.czertainly.csc.model.signserver.CryptoTokenKeyStatus;
+import com.czertainly.csc.repository.CredentialsRepository;
+import com.czertainly.csc.repository.entities.CredentialMetadataEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.UUID;
+
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccess;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccessAndGet;
+import static com.czertainly.csc.utils.cert.CertificateUtils.generateSelfSignedCertificate;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CredentialSnapshotServiceTest {
+
+    @Mock
+    CredentialsRepository credentialsRepository;
+    @Spy
+    CertificateParser certificateParser = new CertificateParser();
+    @Spy
+    DateConverter dateConverter = new DateConverter();
+    @InjectMocks
+    CredentialSnapshotService credentialSnapshotService;
+
+    CryptoToken cryptoToken = new CryptoToken("CryptoToken1", 1, List.of());
+
+    @Test
+    void storedSnapshotCanBeReadBack() throws CertificateEncodingException {
+        // given
+        X509Certificate certificate = generateSelfSignedCertificate("CN=Test");
+        CredentialMetadataEntity credential = aCredential("key1");
+        CryptoTokenKey key = aKey("key1", certificate.getEncoded());
+        given(credentialsRepository.updateSnapshot(eq(credential.getId()), eq("key1"), eq("RSA"), eq("2048"),
+                                                   anyString(), any(), any()
+        )).willReturn(1);
+
+        // when
+        var storeResult = credentialSnapshotService.storeSnapshot(credential, key);
+
+        // then
+        assertSuccess(storeResult);
+        assertTrue(credentialSnapshotService.hasSnapshot(credential));
+        assertTrue(credentialSnapshotService.isUpToDate(credential, key));
+        assertEquals(certificate.getNotAfter().toInstant(), credential.getCertificateValidTo().toInstant());
+        CryptoTokenKey snapshotKey = credentialSnapshotService.getSnapshotKey(credential, cryptoToken).orElseThrow();
+        assertEquals("RSA", snapshotKey.keyAlgorithm());
+        assertEquals("2048", snapshotKey.keySpecification());
+        assertArrayEquals(certificate.getEncoded(), snapshotKey.chain().getFirst());
+        assertTrue(snapshotKey.status().certified());
+    }
+
+    @Test
+    void snapshotKeyWithoutCertificateChainIsNotCertified() {
+        // given
+        CredentialMetadataEntity credential = aCredential("key1");
+        credential.setKeyAlgorithm("RSA");
+        credential.setKeySpecification("2048");
+        credential.setCertificateChain("");
+
+        // when
+        CryptoTokenKey snapshotKey = credentialSnapshotService.getSnapshotKey(credential, cryptoToken).orElseThrow();
+
+        // then
+        assertTrue(snapshotKey.chain().isEmpty());
+        assertFalse(snapshotKey.status().certified());
+    }
+
+    @Test
+    void snapshotIsNotUpToDateWhenCertificateDiffers() throws CertificateEncodingException {
+        // given
+        CredentialMetadataEntity credential = aCredential("key1");
+        given(credentialsRepository.updateSnapshot(any(), any(), any(), any(), any(), any(), any())).willReturn(1);
+        credentialSnapshotService.storeSnapshot(credential, aKey("key1", generateSelfSignedCertificate("CN=Old")
+                .getEncoded()));
+
+        // when
+        boolean upToDate = credentialSnapshotService.isUpToDate(
+                credential, aKey("key1", generateSelfSignedCertificate("CN=New").getEncoded()));
+
+        // then
+        assertFalse(upToDate);
+    }
+
+    @Test
+    void snapshotIsNotStoredWhenCredentialNoLongerUsesKey() throws CertificateEncodingException {
+        // given
+        CredentialMetadataEntity credential = aCredential("key1");
+        given(credentialsRepository.updateSnapshot(any(), any(), any(), any(), any(), any(), any())).willReturn(0);
+
+        // when
+        var storeResult = credentialSnapshotService.storeSnapshot(
+                credential, aKey("key1", generateSelfSignedCertificate("CN=Test").getEncoded()));
+
+        // then
+        assertFalse(assertSuccessAndGet(storeResult));
+        assertFalse(credentialSnapshotService.hasSnapshot(credential));
+    }
+
+    @Test
+    void snapshotIsNotStoredForKeyWithoutCertificate() {
+        // given
+        CredentialMetadataEntity credential = aCredential("key1");
+        CryptoTokenKey key = new CryptoTokenKey(cryptoToken, "key1", "RSA", "2048", List.of(),
+                                                new CryptoTokenKeyStatus(false)
+        );
+
+        // when
+        var storeResult = credentialSnapshotService.storeSnapshot(credential, key);
+
+        // then
+        assertErrorContains(storeResult, "has no certificate chain");
+        assertFalse(credentialSnapshotService.hasSnapshot(credential));
+        verify(credentialsRepository, never()).updateSnapshot(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void credentialWithoutSnapshotHasNoSnapshotKey() {
+        // given
+        CredentialMetadataEntity credential = aCredential("key1");
+
+        // when
+        var snapshotKey = credentialSnapshotService.getSnapshotKey(credential, cryptoToken);
+
+        // then
+        assertTrue(snapshotKey.isEmpty());
+    }
+
+    private CredentialMetadataEntity aCredential(String keyAlias) {
+        CredentialMetadataEntity credential = new CredentialMetadataEntity();
+        credential.setId(UUID.randomUUID());
+        credential.setKeyAlias(keyAlias);
+        credential.setCryptoTokenName(cryptoToken.name());
+        return credential;
+    }
+
+    private CryptoTokenKey aKey(String keyAlias, byte[] certificate) {
+        return new CryptoTokenKey(cryptoToken, keyAlias, "RSA", "2048", List.of(certificate),
+                                  new CryptoTokenKeyStatus(true)
+        );
+    }
+}
@@ -0,0 +1,95 @@
+package com.czertainly.csc.service.scheduled;
+
+import com.czertainly.csc.utils.db.MysqlTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The lock must be committed to be seen by the other nodes
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ScheduledTaskLockMysqlTest extends MysqlTest {
+
+    @Autowired
+    DataSource dataSource;
+
+    ScheduledTaskLock node1;
+    ScheduledTaskLock node2;
+
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(dataSource).update("delete from scheduled_task_locks");
+        node1 = new ScheduledTaskLock(dataSource);
+        node2 = new ScheduledTaskLock(dataSource);
+    }
+
+    @Test
+    void lockIsHeldByOneNode() {
+        // given
+        var lock = node1.tryLock("task", Duration.ofMinutes(1), Duration.ZERO);
+
+        // when
+        var otherLock = node2.tryLock("task", Duration.ofMinutes(1), Duration.ZERO);
+
+        // then
+        assertTrue(lock.isPresent());
+        assertTrue(otherLock.isEmpty());
+    }
+
+    @Test
+    void releasedLockCanBeAcquiredByAnotherNode() {
+        // given
+        node1.tryLock("task", Duration.ofMinutes(1), Duration.ZERO).orElseThrow().close();
+
+        // when
+        var lock = node2.tryLock("task", Duration.ofMinutes(1), Duration.ZERO);
+
+        // then
+        assertTrue(lock.isPresent());
+    }
+
+    @Test
+    void releasedLockIsHeldForMinimumTime() {
+        // given
+        node1.tryLock("task", Duration.ofMinutes(1), Duration.ofMinutes(1)).orElseThrow().close();
+
+        // when
+        var lock = node2.tryLock("task", Duration.ofMinutes(1), Duration.ZERO);
+
+        // then
+        assertTrue(lock.isEmpty());
+    }
+
+    @Test
+    void expiredLockCanBeAcquiredByAnotherNode() throws InterruptedException {
+        // given
+        node1.tryLock("task", Duration.ofMillis(100), Duration.ZERO);
+        Thread.sleep(200);
+
+        // when
+        var lock = node2.tryLock("task", Duration.ofMinutes(1), Duration.ZERO);
+
+        // then
+        assertTrue(lock.isPresent());
+    }
+
+    @Test
+    void locksOfDifferentTasksAreIndependent() {
+        // given
+        node1.tryLock("task1", Duration.ofMinutes(1), Duration.ZERO);
+
+        // when
+        var lock = node2.tryLock("task2", Duration.ofMinutes(1), Duration.ZERO);
+
+        // then
+        assertFalse(lock.isEmpty());
+    }
+}
@@ -0,0 +1,291 @@
+package com.czertainly.csc.signing;
+
+import com.czertainly.csc.api.OperationMode;
+import com.czertainly.csc.api.auth.SignatureActivationData;
+import com.czertainly.csc.clients.signserver.SignserverClient;
+import com.czertainly.csc.common.io.SpooledData;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.components.SpooledDataFactory;
+import com.czertainly.csc.configuration.csc.SigningSettings;
+import com.czertainly.csc.crypto.AlgorithmHelper;
+import com.czertainly.csc.crypto.KeyAndHashSigAlgo;
+import com.czertainly.csc.model.DocumentContentToSign;
+import com.czertainly.csc.model.DocumentSignature;
+import com.czertainly.csc.model.SignDocParameters;
+import com.czertainly.csc.model.Signatures;
+import com.czertainly.csc.model.SignaturesConsumer;
+import com.czertainly.csc.model.SignaturesContainer;
+import com.czertainly.csc.model.csc.CredentialMetadata;
+import com.czertainly.csc.service.credentials.CredentialsService;
+import com.czertainly.csc.service.credentials.SessionCredentialsService;
+import com.czertainly.csc.service.credentials.SignatureQualifierBasedCredentialFactory;
+import com.czertainly.csc.service.credentials.SigningSessionsService;
+import com.czertainly.csc.service.keys.OneTimeKeyAsyncDeletionService;
+import com.czertainly.csc.service.keys.OneTimeKeysService;
+import com.czertainly.csc.service.keys.SessionKeysService;
+import com.czertainly.csc.signing.configuration.ConformanceLevel;
+import com.czertainly.csc.signing.configuration.SignatureFormat;
+import com.czertainly.csc.signing.configuration.SignaturePackaging;
+import com.czertainly.csc.signing.configuration.WorkerRepository;
+import com.czertainly.csc.signing.configuration.WorkerWithCapabilities;
+import com.czertainly.csc.signing.configuration.profiles.CredentialProfileRepository;
+import com.czertainly.csc.utils.configuration.CscConfigurationBuilder;
+import com.czertainly.csc.utils.configuration.WorkerCapabilitiesBuilder;
+import com.czertainly.csc.utils.signing.CredentialMetadataBuilder;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccess;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentContentSigningTest {
+
+    private static final String SHA256_OID = NISTObjectIdentifiers.id_sha256.getId();
+
+    @Mock
+    WorkerRepository workerRepository;
+    @Mock
+    OneTimeKeySelector oneTimeKeySelector;
+    @Mock
+    SessionKeySelector sessionKeySelector;
+    @Mock
+    OneTimeKeysService oneTimeKeysService;
+    @Mock
+    SessionKeysService sessionKeysService;
+    @Mock
+    OneTimeKeyAsyncDeletionService asyncDeletionService;
+    @Mock
+    SignserverClient signserverClient;
+    @Mock
+    CredentialsService credentialsService;
+    @Mock
+    SignatureQualifierBasedCredentialFactory signatureQualifierBasedCredentialFactory;
+    @Mock
+    SigningSessionsService signingSessionsService;
+    @Mock
+    SessionCredentialsService sessionCredentialsService;
+    @Mock
+    CredentialProfileRepository credentialProfileRepository;
+    @Mock
+    SignatureTypeDecider signatureTypeDecider;
+    @Mock
+    SpooledDataFactory spooledDataFactory;
+
+    private final AlgorithmHelper algorithmHelper = new AlgorithmHelper();
+    private final WorkerWithCapabilities worker = WorkerCapabilitiesBuilder.any();
+    private final UUID credentialId = UUID.randomUUID();
+
+    DocumentContentSigning documentContentSigning;
+
+    @BeforeEach
+    void setUp() {
+        var cscConfiguration = new CscConfigurationBuilder()
+                .withSigningSettings(new SigningSettings(true, null, null, null))
+                .build();
+        documentContentSigning = new DocumentContentSigning(
+                workerRepository, oneTimeKeySelector, sessionKeySelector, oneTimeKeysService, sessionKeysService,
+                asyncDeletionService, signserverClient, credentialsService, signatureQualifierBasedCredentialFactory,
+                signingSessionsService, sessionCredentialsService, credentialProfileRepository,
+                signatureTypeDecider, cscConfiguration, spooledDataFactory
+        );
+
+        when(signatureTypeDecider.decideType(any())).thenReturn(Result.success(SignatureType.LONG_TERM));
+        when(workerRepository.selectWorker(any())).thenReturn(worker);
+        CredentialMetadata credential = CredentialMetadataBuilder.create()
+                                                                 .withId(credentialId)
+                                                                 .withUserId("user")
+                                                                 .withKeyAlias("key")
+                                                                 .withCryptoTokenName(
+                                                                         worker.worker().cryptoToken().name())
+                                                                 .withMultisign(10)
+                                                                 .build();
+        lenient().when(credentialsService.getCredentialMetadata(credentialId, "user"))
+                 .thenReturn(Result.success(credential));
+    }
+
+    @Test
+    void signsDetachedDocumentsUsingClientSideDigests() {
+        // given
+        var documents = List.of(aDocument("doc1", SignatureFormat.CAdES), aDocument("doc2", SignatureFormat.CAdES));
+        when(signserverClient.signMultipleDocumentHashes(any(), anyList(), any(), any(), any()))
+                .thenReturn(Result.success(signatures(2)));
+        var consumer = new RecordingConsumer();
+
+        // when
+        var result = documentContentSigning.sign(parameters(documents), null, consumer);
+
+        // then
+        assertSuccess(result);
+        assertEquals(2, consumer.signatures.size());
+        verify(signserverClient).signMultipleDocumentHashes(
+                eq(worker.worker().workerName()), eq(List.of(digest("doc1"), digest("doc2"))), eq("key"),
+                any(), any()
+        );
+        verify(signserverClient, never()).signSingleDocumentStreaming(any(), any(), any(), any());
+    }
+
+    @Test
+    void signsDocumentsWithDifferentSignatureParametersInSeparateBatches() {
+        // given
+        var documents = List.of(
+                aDocument("doc1", SignatureFormat.CAdES),
+                aDocument("doc2", SignatureFormat.CAdES),
+                aDocument("doc3", SignatureFormat.JAdEs),
+                aDocument("doc4", SignatureFormat.CAdES)
+        );
+        when(signserverClient.signMultipleDocumentHashes(any(), anyList(), any(), any(), any()))
+                .thenReturn(Result.success(signatures(2)));
+        when(signserverClient.signSingleDocumentHashHedged(any(), any(), any(), any()))
+                .thenReturn(Result.success(signatures(1)));
+        var consumer = new RecordingConsumer();
+
+        // when
+        var result = documentContentSigning.sign(parameters(documents), null, consumer);
+
+        // then
+        assertSuccess(result);
+        assertEquals(List.of(2, 1, 1), consumer.batchSizes);
+        verify(signserverClient).signMultipleDocumentHashes(
+                any(), eq(List.of(digest("doc1"), digest("doc2"))), any(), any(), any()
+        );
+        verify(signserverClient).signSingleDocumentHashHedged(
+                any(), eq(digest("doc3").getBytes()), any(), any()
+        );
+        verify(signserverClient).signSingleDocumentHashHedged(
+                any(), eq(digest("doc4").getBytes()), any(), any()
+        );
+    }
+
+    @Test
+    void reportsFailedBatchAndContinuesWithNextOne() {
+        // given
+        var documents = List.of(
+                aDocument("doc1", SignatureFormat.CAdES),
+                aDocument("doc2", SignatureFormat.CAdES),
+                aDocument("doc3", SignatureFormat.JAdEs)
+        );
+        when(signserverClient.signMultipleDocumentHashes(any(), anyList(), any(), any(), any()))
+                .thenReturn(Result.error(TextError.of("SignServer failed.")));
+        when(signserverClient.signSingleDocumentHashHedged(any(), any(), any(), any()))
+                .thenReturn(Result.success(signatures(1)));
+        var consumer = new RecordingConsumer();
+
+        // when
+        var result = documentContentSigning.sign(parameters(documents), null, consumer);
+
+        // then
+        assertSuccess(result);
+        assertEquals(List.of(2), consumer.failedBatchSizes);
+        assertEquals(List.of(1), consumer.batchSizes);
+    }
+
+    @Test
+    void signsDocumentsWithOneTimeTokenEachInSeparateRequest() {
+        // given
+        var documents = List.of(aDocument("doc1", SignatureFormat.CAdES), aDocument("doc2", SignatureFormat.CAdES));
+        when(signatureTypeDecider.decideType(any())).thenReturn(Result.success(SignatureType.ONE_TIME));
+        when(oneTimeKeySelector.selectKey(anyInt(), any())).thenReturn(Result.error(TextError.of("No key.")));
+        var consumer = new RecordingConsumer();
+
+        // when
+        var result = documentContentSigning.sign(parameters(documents), null, consumer);
+
+        // then
+        assertSuccess(result);
+        assertEquals(List.of(1, 1), consumer.failedBatchSizes);
+        verify(oneTimeKeySelector, times(2)).selectKey(anyInt(), any());
+        verify(signserverClient, never()).signMultipleDocumentHashes(any(), anyList(), any(), any(), any());
+    }
+
+    private SignDocParameters parameters(List<DocumentContentToSign> documents) {
+        var digests = new HashSet<String>();
+        documents.forEach(document -> digests.add(digest(document)));
+        var sad = new SignatureActivationData("user", credentialId.toString(), null, documents.size(), digests,
+                                              SHA256_OID, null, Map.of()
+        );
+        return new SignDocParameters("user", OperationMode.SYNCHRONOUS, documents, List.of(), credentialId, null,
+                                     sad, Optional.empty(), Optional.empty(), false
+        );
+    }
+
+    private DocumentContentToSign aDocument(String content, SignatureFormat signatureFormat) {
+        return new DocumentContentToSign(
+                SpooledData.ofBytes(content.getBytes(StandardCharsets.UTF_8)),
+                signatureFormat,
+                ConformanceLevel.AdES_B_B,
+                KeyAndHashSigAlgo.of(PKCSObjectIdentifiers.rsaEncryption, NISTObjectIdentifiers.id_sha256,
+                                     algorithmHelper
+                ),
+                Map.of(),
+                SignaturePackaging.DETACHED
+        );
+    }
+
+    private String digest(DocumentContentToSign document) {
+        return digest(new String(document.content().toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private String digest(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Signatures<DocumentSignature> signatures(int count) {
+        List<DocumentSignature> signatures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            signatures.add(DocumentSignature.of(("signature" + i).getBytes(), SignaturePackaging.DETACHED));
+        }
+        return Signatures.of(signatures);
+    }
+
+    static class RecordingConsumer implements SignaturesConsumer<DocumentSignature> {
+
+        final List<DocumentSignature> signatures = new ArrayList<>();
+        final List<Integer> batchSizes = new ArrayList<>();
+        final List<Integer> failedBatchSizes = new ArrayList<>();
+
+        @Override
+        public Result<Void, TextError> accept(SignaturesContainer<DocumentSignature> signed) {
+            signatures.addAll(signed.signatures());
+            batchSizes.add(signed.signatures().size());
+            return Result.emptySuccess();
+        }
+
+        @Override
+        public Result<Void, TextError> signingFailed(int count, TextError error) {
+            failedBatchSizes.add(count);
+            return Result.emptySuccess();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.czertainly.csc.signing.configuration.process;
 
+import com.czertainly.csc.common.deadline.Deadline;
 import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.crypto.AlgorithmHelper;
@@ -25,6 +26,7 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.List;
 
 import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
@@ -39,7 +41,7 @@ import static org.mockito.Mockito.*;
 class SignatureProcessTemplateTest {
 
     @Mock
-    SignatureAuthorizer signatureAuthorizer;
+    SignatureAuthorizer<String> signatureAuthorizer;
 
     @Mock
     WorkerRepository workerRepository;
@@ -48,10 +50,10 @@ class SignatureProcessTemplateTest {
     TokenProvider<TestTokenConfiguration, TestSignatureProcessConfiguration, TestSigningToken> testTokenProvider;
 
     @Mock
-    Signer<TestSignatureProcessConfiguration, DocumentSignature> signer;
+    Signer<TestSignatureProcessConfiguration, String, DocumentSignature> signer;
 
     @InjectMocks
-    SignatureProcessTemplate<TestTokenConfiguration, TestSignatureProcessConfiguration, TestSigningToken, DocumentSignature> testSignatureProcessTemplate;
+    SignatureProcessTemplate<TestTokenConfiguration, TestSignatureProcessConfiguration, TestSigningToken, String, DocumentSignature> testSignatureProcessTemplate;
 
     List<String> dataToSign = List.of("data");
 
@@ -242,6 +244,26 @@ class SignatureProcessTemplateTest {
         assertEquals(docs, signedDocs);
     }
 
+    @Test
+    void signIsAbandonedWhenDeadlineExpired() {
+        // setup
+        when(signatureAuthorizer.authorize(any(), any())).thenReturn(Result.success(true));
+        when(workerRepository.selectWorker(any())).thenReturn(WorkerCapabilitiesBuilder.any());
+
+        // given
+        Deadline deadline = Deadline.after(Duration.ZERO);
+
+        // when
+        Result<SignaturesContainer<DocumentSignature>, TextError> result;
+        try (var ignored = deadline.bind()) {
+            result = testSignatureProcessTemplate.sign(processConfiguration, testTokenConfiguration, dataToSign);
+        }
+
+        // then
+        assertErrorContains(result, "Deadline of the signature request expired");
+        verifyNoInteractions(testTokenProvider, signer);
+    }
+
     WorkerCapabilitiesBuilder fromProcessConfiguration(TestSignatureProcessConfiguration configuration) {
         return WorkerCapabilitiesBuilder.create()
                                         .withSignatureQualifiers(List.of(configuration.signatureQualifier()))
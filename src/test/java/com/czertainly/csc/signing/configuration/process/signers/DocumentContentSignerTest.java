@@ -1,11 +1,12 @@
 package com.czertainly.csc.signing.configuration.process.signers;
 
 import com.czertainly.csc.clients.signserver.SignserverClient;
+import com.czertainly.csc.clients.signserver.ValidationData;
+import com.czertainly.csc.common.io.ByteSink;
+import com.czertainly.csc.common.io.SpooledData;
 import com.czertainly.csc.common.result.Result;
-import com.czertainly.csc.model.DocumentSignature;
-import com.czertainly.csc.model.Signatures;
+import com.czertainly.csc.components.SpooledDataFactory;
 import com.czertainly.csc.model.SignaturesWithValidationInfo;
-import com.czertainly.csc.signing.configuration.SignaturePackaging;
 import com.czertainly.csc.signing.configuration.WorkerWithCapabilities;
 import com.czertainly.csc.signing.configuration.process.configuration.DocumentContentSignatureProcessConfiguration;
 import com.czertainly.csc.signing.configuration.process.token.SigningToken;
@@ -18,11 +19,16 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Base64;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Set;
 
 import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
-import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccess;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccessAndGet;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
@@ -34,26 +40,21 @@ class DocumentContentSignerTest {
     @Mock
     SignserverClient signserverClient;
 
+    @Mock
+    SpooledDataFactory spooledDataFactory;
+
     @InjectMocks
     DocumentContentSigner<DocumentContentSignatureProcessConfiguration> documentContentSigner;
 
-    private static final Base64.Decoder BASE64_DECODER = Base64.getDecoder();
-    private static final Base64.Encoder BASE64_ENCODER = Base64.getEncoder();
-
     @Test
     void signCanSignSingleContent() {
-        when(signserverClient.signSingleDocument(any(), any(), any(), any()))
-                .thenReturn(
-                        Result.success(
-                                Signatures.of(
-                                        DocumentSignature.of("signature".getBytes(), SignaturePackaging.CERTIFICATION)
-                                )
-                        )
-                );
+        when(spooledDataFactory.create()).thenReturn(new SpooledData(1024, null));
+        when(signserverClient.signSingleDocumentStreaming(any(), any(), any(), any()))
+                .thenAnswer(invocation -> writeSignature(invocation.getArgument(3), Result.emptySuccess()));
 
         // given
-        String dataB64 = BASE64_ENCODER.encodeToString("data".getBytes());
-        List<String> data = List.of(dataB64);
+        SpooledData document = SpooledData.ofBytes("data".getBytes());
+        List<SpooledData> data = List.of(document);
         DocumentContentSignatureProcessConfiguration configuration = DocumentContentSignatureProcessConfigurationBuilder
                 .instance()
                 .withReturnValidationInfo(false)
@@ -65,25 +66,27 @@ class DocumentContentSignerTest {
         var result = documentContentSigner.sign(data, configuration, signingToken, worker);
 
         // then
-        assertSuccess(result);
-        verify(signserverClient).signSingleDocument(
+        var signatures = assertSuccessAndGet(result);
+        assertArrayEquals("signature".getBytes(), signatures.signatures().getFirst().value());
+        assertEquals(configuration.signaturePackaging(), signatures.signatures().getFirst().packaging());
+        verify(signserverClient).signSingleDocumentStreaming(
                 eq(worker.worker().workerName()),
-                eq(BASE64_DECODER.decode(dataB64)),
+                eq(document),
                 eq(signingToken.getKeyAlias()),
-                eq(configuration.signaturePackaging())
+                any()
         );
     }
 
     @Test
     void signCanSignSingleContentWithValidationInfo() {
-        when(signserverClient.signSingleDocumentWithValidationData(any(), any(), any(), any()))
-                .thenReturn(Result.success(
-                        SignaturesWithValidationInfo.of(
-                                DocumentSignature.of("signature".getBytes(), SignaturePackaging.CERTIFICATION))));
+        when(spooledDataFactory.create()).thenReturn(new SpooledData(1024, null));
+        ValidationData validationData = new ValidationData(List.of("crl"), List.of("ocsp"), List.of("certificate"));
+        when(signserverClient.signSingleDocumentWithValidationDataStreaming(any(), any(), any(), any()))
+                .thenAnswer(invocation -> writeSignature(invocation.getArgument(3), Result.success(validationData)));
 
         // given
-        String dataB64 = BASE64_ENCODER.encodeToString("data".getBytes());
-        List<String> data = List.of(dataB64);
+        SpooledData document = SpooledData.ofBytes("data".getBytes());
+        List<SpooledData> data = List.of(document);
         DocumentContentSignatureProcessConfiguration configuration = DocumentContentSignatureProcessConfigurationBuilder
                 .instance()
                 .withReturnValidationInfo(true)
@@ -95,19 +98,26 @@ class DocumentContentSignerTest {
         var result = documentContentSigner.sign(data, configuration, signingToken, worker);
 
         // then
-        assertSuccess(result);
-        verify(signserverClient).signSingleDocumentWithValidationData(
+        var signatures = assertSuccessAndGet(result);
+        assertArrayEquals("signature".getBytes(), signatures.signatures().getFirst().value());
+        var signaturesWithValidationInfo = assertInstanceOf(SignaturesWithValidationInfo.class, signatures);
+        assertEquals(Set.of("crl"), signaturesWithValidationInfo.crls());
+        assertEquals(Set.of("ocsp"), signaturesWithValidationInfo.ocsps());
+        assertEquals(Set.of("certificate"), signaturesWithValidationInfo.certs());
+        verify(signserverClient).signSingleDocumentWithValidationDataStreaming(
                 eq(worker.worker().workerName()),
-                eq(BASE64_DECODER.decode(dataB64)),
+                eq(document),
                 eq(signingToken.getKeyAlias()),
-                eq(configuration.signaturePackaging())
+                any()
         );
     }
 
     @Test
     void returnsErrorWhenMultipleContentsToSign() {
         // given
-        List<String> data = List.of("data1", "data2");
+        List<SpooledData> data = List.of(SpooledData.ofBytes("data1".getBytes()),
+                                         SpooledData.ofBytes("data2".getBytes())
+        );
         DocumentContentSignatureProcessConfiguration configuration = DocumentContentSignatureProcessConfigurationBuilder
                 .instance()
                 .withReturnValidationInfo(true)
@@ -121,4 +131,11 @@ class DocumentContentSignerTest {
         // then
         assertErrorContains(result, "Document content signing does not support multiple documents.");
     }
-}
\ No newline at end of file
+
+    private <T> T writeSignature(ByteSink signatureSink, T result) throws IOException {
+        try (OutputStream outputStream = signatureSink.openStream()) {
+            outputStream.write("signature".getBytes());
+        }
+        return result;
+    }
+}
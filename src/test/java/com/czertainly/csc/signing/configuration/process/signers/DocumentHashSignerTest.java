@@ -2,6 +2,7 @@ package com.czertainly.csc.signing.configuration.process.signers;
 
 import com.czertainly.csc.clients.signserver.SignserverClient;
 import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.crypto.AlgorithmHelper;
 import com.czertainly.csc.crypto.KeyAndHashSigAlgo;
 import com.czertainly.csc.model.DocumentSignature;
@@ -11,8 +12,10 @@ import com.czertainly.csc.model.SignaturesWithValidationInfo;
 import com.czertainly.csc.signing.configuration.SignaturePackaging;
 import com.czertainly.csc.signing.configuration.WorkerWithCapabilities;
 import com.czertainly.csc.signing.configuration.process.configuration.DocumentHashSignatureProcessConfiguration;
+import com.czertainly.csc.signing.configuration.process.token.LongTermToken;
 import com.czertainly.csc.signing.configuration.process.token.SigningToken;
 import com.czertainly.csc.utils.configuration.WorkerCapabilitiesBuilder;
+import com.czertainly.csc.utils.signing.CredentialMetadataBuilder;
 import com.czertainly.csc.utils.signing.DocumentHashSignatureProcessConfigurationBuilder;
 import com.czertainly.csc.utils.signing.process.TestSigningToken;
 import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
@@ -24,11 +27,18 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
 import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccess;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccessAndGet;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -77,6 +87,35 @@ class DocumentHashSignerTest {
         );
     }
 
+    @Test
+    void signHedgesSingleHashWithLongTermKey() {
+        when(signserverClient.signSingleDocumentHashHedged(any(), any(), any(), any()))
+                .thenReturn(Result.success(
+                        Signatures.of(DocumentSignature.of("signature".getBytes(), SignaturePackaging.DETACHED))));
+
+        // given
+        List<String> data = List.of("data");
+        DocumentHashSignatureProcessConfiguration configuration = DocumentHashSignatureProcessConfigurationBuilder
+                .instance()
+                .withReturnValidationInfo(false)
+                .withSignatureAlgorithm(KeyAndHashSigAlgo.of(PKCSObjectIdentifiers.rsaEncryption, NISTObjectIdentifiers.id_sha256, algorithmHelper))
+                .build();
+        WorkerWithCapabilities worker = WorkerCapabilitiesBuilder.any();
+        SigningToken signingToken = new LongTermToken(CredentialMetadataBuilder.create().build());
+
+        // when
+        var result = documentHashSigner.sign(data, configuration, signingToken, worker);
+
+        // then
+        assertSuccess(result);
+        verify(signserverClient).signSingleDocumentHashHedged(
+                eq(worker.worker().workerName()),
+                eq("data".getBytes()),
+                eq(signingToken.getKeyAlias()),
+                eq(configuration.digestAlgorithm())
+        );
+    }
+
     @Test
     void signCanSignSingleHashWithValidationInfo() {
         when(signserverClient.signSingleDocumentHashWithValidationData(any(), any(), any(), any()))
@@ -203,4 +242,97 @@ class DocumentHashSignerTest {
         // then
         assertErrorContains(result, "The number of signatures does not match the number of documents");
     }
-}
\ No newline at end of file
+
+    @Test
+    void signSendsMultipleHashesWithLongTermKeyAtOnceWhenAsyncSigningIsNonBlocking() throws Exception {
+        CompletableFuture<Result<SignaturesContainer<DocumentSignature>, TextError>> firstSignature =
+                new CompletableFuture<>();
+        CompletableFuture<Result<SignaturesContainer<DocumentSignature>, TextError>> secondSignature =
+                new CompletableFuture<>();
+        when(signserverClient.isAsyncSigningNonBlocking()).thenReturn(true);
+        when(signserverClient.getMaxAsyncCallsPerRequest()).thenReturn(2);
+        when(signserverClient.signSingleDocumentHashAsync(any(), eq("data1".getBytes()), any(), any()))
+                .thenReturn(firstSignature);
+        when(signserverClient.signSingleDocumentHashAsync(any(), eq("data2".getBytes()), any(), any()))
+                .thenReturn(secondSignature);
+
+        // given
+        List<String> data = List.of("data1", "data2");
+        DocumentHashSignatureProcessConfiguration configuration = DocumentHashSignatureProcessConfigurationBuilder
+                .instance()
+                .withReturnValidationInfo(false)
+                .withSignatureAlgorithm(KeyAndHashSigAlgo.of(PKCSObjectIdentifiers.rsaEncryption, NISTObjectIdentifiers.id_sha256, algorithmHelper))
+                .build();
+        WorkerWithCapabilities worker = WorkerCapabilitiesBuilder.any();
+        SigningToken signingToken = new LongTermToken(CredentialMetadataBuilder.create().build());
+
+        // when
+        var result = CompletableFuture.supplyAsync(
+                () -> documentHashSigner.sign(data, configuration, signingToken, worker));
+
+        // then
+        // both requests are sent before any of the signatures arrives
+        verify(signserverClient, timeout(5000)).signSingleDocumentHashAsync(
+                eq(worker.worker().workerName()),
+                eq("data2".getBytes()),
+                eq(signingToken.getKeyAlias()),
+                eq(configuration.digestAlgorithm())
+        );
+        verify(signserverClient).signSingleDocumentHashAsync(
+                eq(worker.worker().workerName()),
+                eq("data1".getBytes()),
+                eq(signingToken.getKeyAlias()),
+                eq(configuration.digestAlgorithm())
+        );
+        assertFalse(result.isDone());
+
+        secondSignature.complete(Result.success(
+                Signatures.of(DocumentSignature.of("signature2".getBytes(), SignaturePackaging.DETACHED))));
+        firstSignature.complete(Result.success(
+                Signatures.of(DocumentSignature.of("signature1".getBytes(), SignaturePackaging.DETACHED))));
+        var signatures = assertSuccessAndGet(result.get(5, TimeUnit.SECONDS)).signatures();
+        assertArrayEquals("signature1".getBytes(), signatures.get(0).value());
+        assertArrayEquals("signature2".getBytes(), signatures.get(1).value());
+        verify(signserverClient, never()).signMultipleDocumentHashes(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void signSendsNoMoreHashesAtOnceThanAllowedPerRequest() throws Exception {
+        CompletableFuture<Result<SignaturesContainer<DocumentSignature>, TextError>> firstSignature =
+                new CompletableFuture<>();
+        when(signserverClient.isAsyncSigningNonBlocking()).thenReturn(true);
+        when(signserverClient.getMaxAsyncCallsPerRequest()).thenReturn(1);
+        when(signserverClient.signSingleDocumentHashAsync(any(), eq("data1".getBytes()), any(), any()))
+                .thenReturn(firstSignature);
+        when(signserverClient.signSingleDocumentHashAsync(any(), eq("data2".getBytes()), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Result.success(
+                        Signatures.of(DocumentSignature.of("signature2".getBytes(), SignaturePackaging.DETACHED)))));
+
+        // given
+        List<String> data = List.of("data1", "data2");
+        DocumentHashSignatureProcessConfiguration configuration = DocumentHashSignatureProcessConfigurationBuilder
+                .instance()
+                .withReturnValidationInfo(false)
+                .withSignatureAlgorithm(KeyAndHashSigAlgo.of(PKCSObjectIdentifiers.rsaEncryption, NISTObjectIdentifiers.id_sha256, algorithmHelper))
+                .build();
+        WorkerWithCapabilities worker = WorkerCapabilitiesBuilder.any();
+        SigningToken signingToken = new LongTermToken(CredentialMetadataBuilder.create().build());
+
+        // when
+        var result = CompletableFuture.supplyAsync(
+                () -> documentHashSigner.sign(data, configuration, signingToken, worker));
+
+        // then
+        // the second hash is sent only once the signature of the first one arrives
+        verify(signserverClient, timeout(5000)).signSingleDocumentHashAsync(any(), eq("data1".getBytes()), any(),
+                                                                            any()
+        );
+        verify(signserverClient, never()).signSingleDocumentHashAsync(any(), eq("data2".getBytes()), any(), any());
+
+        firstSignature.complete(Result.success(
+                Signatures.of(DocumentSignature.of("signature1".getBytes(), SignaturePackaging.DETACHED))));
+        var signatures = assertSuccessAndGet(result.get(5, TimeUnit.SECONDS)).signatures();
+        assertArrayEquals("signature1".getBytes(), signatures.get(0).value());
+        assertArrayEquals("signature2".getBytes(), signatures.get(1).value());
+    }
+}
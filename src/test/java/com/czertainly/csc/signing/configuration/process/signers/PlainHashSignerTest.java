@@ -0,0 +1,163 @@
+package com.czertainly.csc.signing.configuration.process.signers;
+
+import com.czertainly.csc.clients.signserver.SignserverClient;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.crypto.AlgorithmHelper;
+import com.czertainly.csc.crypto.KeyAndHashSigAlgo;
+import com.czertainly.csc.model.PlainSignature;
+import com.czertainly.csc.model.Signatures;
+import com.czertainly.csc.model.SignaturesContainer;
+import com.czertainly.csc.signing.configuration.WorkerWithCapabilities;
+import com.czertainly.csc.signing.configuration.process.configuration.PlainHashSignatureProcessConfiguration;
+import com.czertainly.csc.signing.configuration.process.token.LongTermToken;
+import com.czertainly.csc.signing.configuration.process.token.SigningToken;
+import com.czertainly.csc.utils.configuration.WorkerCapabilitiesBuilder;
+import com.czertainly.csc.utils.signing.CredentialMetadataBuilder;
+import com.czertainly.csc.utils.signing.process.TestSigningToken;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccess;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccessAndGet;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PlainHashSignerTest {
+
+    @Mock
+    SignserverClient signserverClient;
+
+    @InjectMocks
+    PlainHashSigner<PlainHashSignatureProcessConfiguration> plainHashSigner;
+
+    private final AlgorithmHelper algorithmHelper = new AlgorithmHelper();
+
+    @Test
+    void signHedgesSingleHashWithLongTermKey() {
+        when(signserverClient.signPlainSingleHashHedged(any(), any(), any(), any(), any()))
+                .thenReturn(Result.success(Signatures.of(PlainSignature.of("signature".getBytes()))));
+
+        // given
+        List<String> data = List.of("data");
+        PlainHashSignatureProcessConfiguration configuration = aConfiguration();
+        WorkerWithCapabilities worker = WorkerCapabilitiesBuilder.any();
+        SigningToken signingToken = new LongTermToken(CredentialMetadataBuilder.create().build());
+
+        // when
+        var result = plainHashSigner.sign(data, configuration, signingToken, worker);
+
+        // then
+        assertSuccess(result);
+        verify(signserverClient).signPlainSingleHashHedged(
+                eq(worker.worker().workerName()),
+                eq("data".getBytes()),
+                eq(signingToken.getKeyAlias()),
+                eq(configuration.encryptionAlgorithm()),
+                eq(configuration.digestAlgorithm())
+        );
+        verify(signserverClient, never()).signPlainSingleHash(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void signCanSignMultipleHashesInBatch() {
+        SignaturesContainer<PlainSignature> signatures = Signatures.of(
+                List.of(PlainSignature.of("signature1".getBytes()), PlainSignature.of("signature2".getBytes()))
+        );
+        when(signserverClient.signPlainMultipleHashes(any(), any(), any(), any(), any()))
+                .thenReturn(Result.success(signatures));
+
+        // given
+        List<String> data = List.of("data1", "data2");
+        PlainHashSignatureProcessConfiguration configuration = aConfiguration();
+        WorkerWithCapabilities worker = WorkerCapabilitiesBuilder.any();
+        SigningToken signingToken = TestSigningToken.of("a-key-alias", true);
+
+        // when
+        var result = plainHashSigner.sign(data, configuration, signingToken, worker);
+
+        // then
+        assertSuccess(result);
+        verify(signserverClient).signPlainMultipleHashes(
+                eq(worker.worker().workerName()),
+                eq(data),
+                eq(signingToken.getKeyAlias()),
+                eq(configuration.encryptionAlgorithm()),
+                eq(configuration.digestAlgorithm())
+        );
+    }
+
+    @Test
+    void signSendsMultipleHashesWithLongTermKeyAtOnceWhenAsyncSigningIsNonBlocking() throws Exception {
+        CompletableFuture<Result<SignaturesContainer<PlainSignature>, TextError>> firstSignature =
+                new CompletableFuture<>();
+        CompletableFuture<Result<SignaturesContainer<PlainSignature>, TextError>> secondSignature =
+                new CompletableFuture<>();
+        when(signserverClient.isAsyncSigningNonBlocking()).thenReturn(true);
+        when(signserverClient.getMaxAsyncCallsPerRequest()).thenReturn(2);
+        when(signserverClient.signPlainSingleHashAsync(any(), eq("data1".getBytes()), any(), any(), any()))
+                .thenReturn(firstSignature);
+        when(signserverClient.signPlainSingleHashAsync(any(), eq("data2".getBytes()), any(), any(), any()))
+                .thenReturn(secondSignature);
+
+        // given
+        List<String> data = List.of("data1", "data2");
+        PlainHashSignatureProcessConfiguration configuration = aConfiguration();
+        WorkerWithCapabilities worker = WorkerCapabilitiesBuilder.any();
+        SigningToken signingToken = new LongTermToken(CredentialMetadataBuilder.create().build());
+
+        // when
+        var result = CompletableFuture.supplyAsync(
+                () -> plainHashSigner.sign(data, configuration, signingToken, worker));
+
+        // then
+        // both requests are sent before any of the signatures arrives
+        verify(signserverClient, timeout(5000)).signPlainSingleHashAsync(
+                eq(worker.worker().workerName()),
+                eq("data2".getBytes()),
+                eq(signingToken.getKeyAlias()),
+                eq(configuration.encryptionAlgorithm()),
+                eq(configuration.digestAlgorithm())
+        );
+        verify(signserverClient).signPlainSingleHashAsync(
+                eq(worker.worker().workerName()),
+                eq("data1".getBytes()),
+                eq(signingToken.getKeyAlias()),
+                eq(configuration.encryptionAlgorithm()),
+                eq(configuration.digestAlgorithm())
+        );
+        assertFalse(result.isDone());
+
+        secondSignature.complete(Result.success(Signatures.of(PlainSignature.of("signature2".getBytes()))));
+        firstSignature.complete(Result.success(Signatures.of(PlainSignature.of("signature1".getBytes()))));
+        var signatures = assertSuccessAndGet(result.get(5, TimeUnit.SECONDS)).signatures();
+        assertArrayEquals("signature1".getBytes(), signatures.get(0).value());
+        assertArrayEquals("signature2".getBytes(), signatures.get(1).value());
+        verify(signserverClient, never()).signPlainMultipleHashes(any(), any(), any(), any(), any());
+    }
+
+    private PlainHashSignatureProcessConfiguration aConfiguration() {
+        return new PlainHashSignatureProcessConfiguration(
+                "a-user", null,
+                KeyAndHashSigAlgo.of(PKCSObjectIdentifiers.rsaEncryption, NISTObjectIdentifiers.id_sha256,
+                                     algorithmHelper
+                )
+        );
+    }
+}
@@ -0,0 +1,105 @@
+package com.czertainly.csc.signing.configuration.process.signers;
+
+import com.czertainly.csc.common.deadline.Deadline;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.configuration.csc.SchedulingSettings;
+import com.czertainly.csc.configuration.csc.SigningSettings;
+import com.czertainly.csc.model.PlainSignature;
+import com.czertainly.csc.model.Signatures;
+import com.czertainly.csc.model.SignaturesContainer;
+import com.czertainly.csc.signing.scheduling.SignserverCallScheduler;
+import com.czertainly.csc.signing.scheduling.SigningPriority;
+import com.czertainly.csc.signing.scheduling.SigningPriorityContext;
+import com.czertainly.csc.utils.configuration.CscConfigurationBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertSuccessAndGet;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SignatureFuturesTest {
+
+    SignserverCallScheduler scheduler = new SignserverCallScheduler(
+            new CscConfigurationBuilder()
+                    .withSigningSettings(new SigningSettings(
+                            null, null, null, new SchedulingSettings(4, 0, null, null, Duration.ofSeconds(5), null, 1)
+                    ))
+                    .build(),
+            new SimpleMeterRegistry()
+    );
+    // Completes the calls as the HTTP client does, on a thread of its own
+    ExecutorService foreignThread = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        foreignThread.shutdownNow();
+    }
+
+    @Test
+    void callsCompletedOnAnotherThreadKeepPriorityAndDeadlineOfTheRequest() {
+        // given
+        List<SigningPriority> seenPriorities = new CopyOnWriteArrayList<>();
+        List<Optional<Deadline>> seenDeadlines = new CopyOnWriteArrayList<>();
+        Deadline deadline = Deadline.after(Duration.ofMinutes(1));
+
+        // when
+        Result<SignaturesContainer<PlainSignature>, TextError> result;
+        try (var ignored = deadline.bind()) {
+            result = SigningPriorityContext.callWithPriority(SigningPriority.BULK, () -> SignatureFutures.signAll(
+                    List.of("hash1", "hash2", "hash3"), 1,
+                    hash -> scheduler.scheduleAsync(() -> {
+                        seenPriorities.add(SigningPriorityContext.current());
+                        seenDeadlines.add(Deadline.current());
+                        return CompletableFuture.supplyAsync(
+                                () -> Result.<SignaturesContainer<PlainSignature>, TextError>success(
+                                        Signatures.of(PlainSignature.of(hash.getBytes()))),
+                                CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS, foreignThread)
+                        );
+                    })
+            ));
+        }
+
+        // then
+        var signatures = assertSuccessAndGet(result).signatures();
+        assertArrayEquals("hash1".getBytes(), signatures.get(0).value());
+        assertArrayEquals("hash3".getBytes(), signatures.get(2).value());
+        assertEquals(List.of(SigningPriority.BULK, SigningPriority.BULK, SigningPriority.BULK), seenPriorities);
+        assertEquals(List.of(Optional.of(deadline), Optional.of(deadline), Optional.of(deadline)), seenDeadlines);
+    }
+
+    @Test
+    void noMoreHashesAreSentAfterError() {
+        // given
+        List<String> sent = new CopyOnWriteArrayList<>();
+
+        // when
+        Result<SignaturesContainer<PlainSignature>, TextError> result = SignatureFutures.signAll(
+                List.of("hash1", "hash2", "hash3"), 1,
+                hash -> {
+                    sent.add(hash);
+                    return CompletableFuture.supplyAsync(
+                            () -> Result.<SignaturesContainer<PlainSignature>, TextError>error(
+                                    TextError.of("Signing failed.")),
+                            foreignThread
+                    );
+                }
+        );
+
+        // then
+        assertErrorContains(result, "Signing failed.");
+        assertEquals(List.of("hash1"), sent);
+    }
+}
@@ -0,0 +1,84 @@
+package com.czertainly.csc.signing.scheduling;
+
+import com.czertainly.csc.configuration.csc.CscConfiguration;
+import com.czertainly.csc.configuration.csc.SchedulingSettings;
+import com.czertainly.csc.configuration.csc.SigningSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SigningPriorityResolverTest {
+
+    SigningPriorityResolver resolver = aResolver("batch");
+
+    @Test
+    void endpointPriorityIsUsedByDefault() {
+        // given
+        Authentication authentication = new TestingAuthenticationToken("user", null, "SCOPE_service");
+
+        // when
+        SigningPriority interactive = resolver.resolve(SigningPriority.INTERACTIVE, authentication, null);
+        SigningPriority bulk = resolver.resolve(SigningPriority.BULK, authentication, null);
+
+        // then
+        assertEquals(SigningPriority.INTERACTIVE, interactive);
+        assertEquals(SigningPriority.BULK, bulk);
+    }
+
+    @Test
+    void headerCanLowerPriority() {
+        // when
+        SigningPriority priority = resolver.resolve(SigningPriority.INTERACTIVE, null, "bulk");
+
+        // then
+        assertEquals(SigningPriority.BULK, priority);
+    }
+
+    @Test
+    void headerCanNotRaisePriority() {
+        // when
+        SigningPriority priority = resolver.resolve(SigningPriority.BULK, null, "interactive");
+
+        // then
+        assertEquals(SigningPriority.BULK, priority);
+    }
+
+    @Test
+    void tokenWithBulkScopeLowersPriority() {
+        // given
+        Authentication authentication = new TestingAuthenticationToken("user", null, "SCOPE_service",
+                                                                       "SCOPE_batch"
+        );
+
+        // when
+        SigningPriority priority = resolver.resolve(SigningPriority.INTERACTIVE, authentication, null);
+
+        // then
+        assertEquals(SigningPriority.BULK, priority);
+    }
+
+    @Test
+    void scopeIsIgnoredWhenBulkScopeIsNotConfigured() {
+        // given
+        SigningPriorityResolver resolverWithoutScope = aResolver(null);
+        Authentication authentication = new TestingAuthenticationToken("user", null, "SCOPE_batch");
+
+        // when
+        SigningPriority priority = resolverWithoutScope.resolve(SigningPriority.INTERACTIVE, authentication, null);
+
+        // then
+        assertEquals(SigningPriority.INTERACTIVE, priority);
+    }
+
+    private SigningPriorityResolver aResolver(String bulkScope) {
+        CscConfiguration cscConfiguration = mock(CscConfiguration.class);
+        when(cscConfiguration.signing()).thenReturn(new SigningSettings(
+                null, null, null, new SchedulingSettings(null, null, null, null, null, bulkScope, null)
+        ));
+        return new SigningPriorityResolver(cscConfiguration);
+    }
+}
@@ -0,0 +1,76 @@
+package com.czertainly.csc.signing.scheduling;
+
+import com.czertainly.csc.common.deadline.Deadline;
+import com.czertainly.csc.common.result.Result;
+import com.czertainly.csc.common.result.TextError;
+import com.czertainly.csc.configuration.csc.SchedulingSettings;
+import com.czertainly.csc.configuration.csc.SigningSettings;
+import com.czertainly.csc.utils.configuration.CscConfigurationBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.czertainly.csc.utils.assertions.ResultAssertions.assertErrorContains;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SignserverCallSchedulerTest {
+
+    // A single call can be in flight, further calls wait for 200 ms at most
+    SignserverCallScheduler scheduler = new SignserverCallScheduler(
+            new CscConfigurationBuilder()
+                    .withSigningSettings(new SigningSettings(
+                            null, null, null, new SchedulingSettings(1, 0, null, null, Duration.ofMillis(200), null, null)
+                    ))
+                    .build(),
+            new SimpleMeterRegistry()
+    );
+
+    @Test
+    void callIsNotMadeWhenDeadlineExpired() {
+        // given
+        AtomicBoolean called = new AtomicBoolean();
+
+        // when
+        Result<String, TextError> result;
+        try (var ignored = Deadline.after(Duration.ZERO).bind()) {
+            result = scheduler.schedule(() -> {
+                called.set(true);
+                return Result.success("signature");
+            });
+        }
+
+        // then
+        assertErrorContains(result, "Deadline of the signing request expired");
+        assertFalse(called.get());
+    }
+
+    @Test
+    void waitCutShortByDeadlineIsReportedAsExpiredDeadline() {
+        // given
+        scheduler.scheduleAsync(CompletableFuture::new);
+
+        // when
+        Result<String, TextError> result;
+        try (var ignored = Deadline.after(Duration.ofMillis(50)).bind()) {
+            result = scheduler.schedule(() -> Result.success("signature"));
+        }
+
+        // then
+        assertErrorContains(result, "Deadline of the signing request expired");
+    }
+
+    @Test
+    void callNotAdmittedInTimeIsReportedAsBusy() {
+        // given
+        scheduler.scheduleAsync(CompletableFuture::new);
+
+        // when
+        Result<String, TextError> result = scheduler.schedule(() -> Result.success("signature"));
+
+        // then
+        assertErrorContains(result, "SignServer is busy");
+    }
+}
@@ -1,6 +1,7 @@
 package com.czertainly.csc.signing.signatureauthorizers;
 
 import com.czertainly.csc.api.auth.SignatureActivationData;
+import com.czertainly.csc.common.io.SpooledData;
 import com.czertainly.csc.common.result.Result;
 import com.czertainly.csc.common.result.TextError;
 import com.czertainly.csc.crypto.AlgorithmHelper;
@@ -11,6 +12,8 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.OutputStream;
+import java.security.MessageDigest;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -42,8 +45,8 @@ class DocumentAuthorizerTest {
         when(sad.getHashes()).thenReturn(Optional.of(Set.of("g+SxeJMG09HJkUDfOCfWAA==", "JxVZ7CUmi7m7Ktf9i0z3Gg==")));
         when(sad.getNumSignatures()).thenReturn(2);
         when(algorithmHelper.getDigestAlgorithmName(oid)).thenReturn("MD5");
-        List<String> documents = Arrays.asList(base64Encoder.encodeToString("doc1".getBytes()),
-                                               base64Encoder.encodeToString("doc2".getBytes())
+        List<SpooledData> documents = Arrays.asList(SpooledData.ofBytes("doc1".getBytes()),
+                                                    SpooledData.ofBytes("doc2".getBytes())
         );
 
         // when
@@ -88,8 +91,8 @@ class DocumentAuthorizerTest {
         String oid = "1.2.3.4.5.6";
         when(sad.getHashAlgorithmOID()).thenReturn(Optional.of(oid));
         when(algorithmHelper.getDigestAlgorithmName(oid)).thenReturn("FOOBAR");
-        List<String> documents = Arrays.asList(base64Encoder.encodeToString("doc1".getBytes()),
-                                               base64Encoder.encodeToString("doc2".getBytes())
+        List<SpooledData> documents = Arrays.asList(SpooledData.ofBytes("doc1".getBytes()),
+                                                    SpooledData.ofBytes("doc2".getBytes())
         );
 
         // when
@@ -98,4 +101,47 @@ class DocumentAuthorizerTest {
         // then
         assertTrue(result.unwrapError().getErrorText().contains("Unable to obtain instance of Message Digest"));
     }
+
+    @Test
+    void digestDocumentsReturnsDigestsInOrderOfDocuments() {
+        // given
+        String oid = "1.2.840.113549.2.5"; // MD5
+        when(sad.getHashAlgorithmOID()).thenReturn(Optional.of(oid));
+        when(algorithmHelper.getDigestAlgorithmName(oid)).thenReturn("MD5");
+        List<SpooledData> documents = Arrays.asList(SpooledData.ofBytes("doc1".getBytes()),
+                                                    SpooledData.ofBytes("doc2".getBytes())
+        );
+
+        // when
+        Result<List<String>, TextError> result = documentAuthorizer.digestDocuments(documents, sad);
+
+        // then
+        assertEquals(List.of("g+SxeJMG09HJkUDfOCfWAA==", "JxVZ7CUmi7m7Ktf9i0z3Gg=="), result.unwrap());
+        verifyNoInteractions(hashAuthorizer);
+    }
+
+    @Test
+    void digestOfSpooledDocumentIsSameAsDigestOfDocument() throws Exception {
+        // given
+        String oid = "2.16.840.1.101.3.4.2.1"; // SHA-256
+        when(sad.getHashAlgorithmOID()).thenReturn(Optional.of(oid));
+        when(algorithmHelper.getDigestAlgorithmName(oid)).thenReturn("SHA-256");
+        byte[] document = new byte[200_001];
+        new Random(42).nextBytes(document);
+        String expectedDigest = base64Encoder.encodeToString(MessageDigest.getInstance("SHA-256").digest(document));
+
+        try (SpooledData spooledDocument = new SpooledData(1024, null)) {
+            try (OutputStream outputStream = spooledDocument.openStream()) {
+                outputStream.write(document);
+            }
+
+            // when
+            Result<List<String>, TextError> result = documentAuthorizer.digestDocuments(
+                    List.of(spooledDocument), sad);
+
+            // then
+            assertTrue(spooledDocument.isSpooled());
+            assertEquals(List.of(expectedDigest), result.unwrap());
+        }
+    }
 }
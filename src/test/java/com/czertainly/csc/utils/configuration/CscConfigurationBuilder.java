@@ -4,6 +4,7 @@ import com.czertainly.csc.configuration.csc.ConcurrencySettings;
 import com.czertainly.csc.configuration.csc.CscConfiguration;
 import com.czertainly.csc.configuration.csc.OneTimeKeysCleanupSettings;
 import com.czertainly.csc.configuration.csc.SigningSessions;
+import com.czertainly.csc.configuration.csc.SigningSettings;
 import org.instancio.Instancio;
 import org.instancio.Select;
 
@@ -17,6 +18,7 @@ public class CscConfigurationBuilder {
     private SigningSessions signingSessions;
     private OneTimeKeysCleanupSettings oneTimeKeysCleanupSettings;
     private ConcurrencySettings concurrency;
+    private SigningSettings signing;
 
     public static CscConfiguration anCscConfiguration() {
         return Instancio.of(CscConfiguration.class)
@@ -64,6 +66,11 @@ public class CscConfigurationBuilder {
         return this;
     }
 
+    public CscConfigurationBuilder withSigningSettings(SigningSettings signing) {
+        this.signing = signing;
+        return this;
+    }
+
     public CscConfiguration build() {
         var partial = Instancio.of(CscConfiguration.class);
         if (name != null) {
@@ -98,6 +105,10 @@ public class CscConfigurationBuilder {
             partial.set(Select.field(CscConfiguration::concurrency), concurrency);
         }
 
+        if (signing != null) {
+            partial.set(Select.field(CscConfiguration::signing), signing);
+        }
+
         return partial.create();
     }
 
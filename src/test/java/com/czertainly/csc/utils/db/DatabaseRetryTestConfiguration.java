@@ -0,0 +1,24 @@
+package com.czertainly.csc.utils.db;
+
+import com.czertainly.csc.common.retry.RetryPolicyInterceptor;
+import com.czertainly.csc.configuration.RetryConfig;
+import com.czertainly.csc.configuration.csc.RetryBackendSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Retries of the repositories with the default settings, for the tests that don't load the configuration
+ * of the application.
+ */
+@TestConfiguration
+public class DatabaseRetryTestConfiguration {
+
+    @Bean
+    public RetryPolicyInterceptor databaseRetryInterceptor() {
+        var settings = new RetryBackendSettings(null, null, null, null, null, null, null);
+        return new RetryPolicyInterceptor(RetryConfig.retryPolicy("database", settings, new SimpleMeterRegistry()),
+                                          RetryConfig::isTransientDatabaseFailure
+        );
+    }
+}
@@ -1,6 +1,5 @@
 package com.czertainly.csc.utils.db;
 
-import com.czertainly.csc.common.errorhandling.RetryLoggingListener;
 import com.zaxxer.hikari.HikariDataSource;
 import eu.rekawek.toxiproxy.Proxy;
 import eu.rekawek.toxiproxy.ToxiproxyClient;
@@ -27,7 +26,7 @@ import java.io.IOException;
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Testcontainers
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
-@Import(RetryLoggingListener.class)
+@Import(DatabaseRetryTestConfiguration.class)
 public class MysqlTest {
 
     private static final Logger logger = LoggerFactory.getLogger(MysqlTest.class);
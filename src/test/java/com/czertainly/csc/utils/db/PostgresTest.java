@@ -1,6 +1,5 @@
 package com.czertainly.csc.utils.db;
 
-import com.czertainly.csc.common.errorhandling.RetryLoggingListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
@@ -17,7 +16,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Testcontainers
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
-@Import(RetryLoggingListener.class)
+@Import(DatabaseRetryTestConfiguration.class)
 public class PostgresTest {
 
     @Autowired
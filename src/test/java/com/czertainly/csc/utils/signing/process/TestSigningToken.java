@@ -36,7 +36,7 @@ public class TestSigningToken implements SigningToken {
     }
 
     @Override
-    public Boolean canSignData(List<String> data, int numberOfDocumentsAuthorizedBySad) {
+    public Boolean canSignData(List<?> data, int numberOfDocumentsAuthorizedBySad) {
         return canSignData;
     }
 }